@@ -0,0 +1,101 @@
+package checkers.book;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Time of one OpeningBook lookup, in a book of the first 20 plies of 100000
+ * random games (about 2M entries).  Run with -prof gc to see that a lookup
+ * allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpeningBookBenchmark {
+    private static final int GAMES = 100000;
+    private static final int PLIES = 20;
+
+    private Path directory;
+    private OpeningBook book;
+    private BitBoard[] positions;
+    private MoveList[] legalMoves;
+    private int next = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        directory = Files.createTempDirectory("book");
+        BookBuilder builder = new BookBuilder(geometry, PLIES, directory);
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        GameRecord game = new GameRecord(geometry);
+        BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        Random random = new Random(1);
+        positions = new BitBoard[1024];
+        legalMoves = new MoveList[positions.length];
+        for (int g = 0; g < GAMES; g++) {
+            game.reset();
+            game.getStartPosition(position);
+            for (int ply = 0; ply < PLIES; ply++) {
+                final int n = moveGenerator.generateMoves(position, moves);
+                if (n == 0) {
+                    break;
+                }
+                if ((g < positions.length) && (ply == g % PLIES)) {
+                    positions[g] = position.copy();
+                    legalMoves[g] = new MoveList();
+                    moveGenerator.generateMoves(position, legalMoves[g]);
+                }
+                final int i = random.nextInt(n);
+                game.addMove(moves, i);
+                position.applyMove(moves.getMove(i), moves.getCaptures(i));
+            }
+            builder.addGame(game);
+        }
+        Path file = directory.resolve("book.bin");
+        builder.write(file, 1);
+        book = OpeningBook.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(directory.resolve("book.bin"));
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int chooseMove() {
+        next = (next + 1) & (positions.length - 1);
+        return book.chooseMove(positions[next], legalMoves[next]);
+    }
+
+    @Benchmark
+    public int miss() {
+        next = (next + 1) & (positions.length - 1);
+        return book.find(positions[next].getHash() ^ 0x5555L);
+    }
+}
@@ -0,0 +1,74 @@
+package checkers.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.MoveGenerator;
+import checkers.model.RuleSet;
+
+/**
+ * MCTS playout throughput by thread count:  the "playouts" counter is
+ * playouts/second over all threads, so scaling for N threads is
+ * playouts(N) / playouts(1).  Each thread has its own tree, so it should
+ * be close to linear up to the number of cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MctsBenchmark {
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "English", "International" })
+    public String rules;
+
+    private MctsEngine engine;
+    private BitBoard position;
+    private MoveGenerator moveGenerator;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Counters {
+        public long playouts;
+    }
+
+    @Setup
+    public void setup() {
+        Board board = BoardFactoryCheckers.createCheckerBoard(RuleSet.forName(rules));
+        position = board.getBitBoard();
+        moveGenerator = new MoveGenerator(board);
+        engine = new MctsEngine();
+        engine.setThreads(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public SearchResult playoutRate(Counters counters) {
+        SearchResult result = engine.search(position, moveGenerator, SearchLimits.timeMillis(200));
+        counters.playouts += result.getNodes();
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package checkers.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.MoveGenerator;
+
+/**
+ * Lazy SMP scaling.
+ *
+ * timeToDepth:  speedup for N threads is timeToDepth(1) / timeToDepth(N).
+ * nodeRate:     the "nodes" counter is nodes/second over all threads.
+ *
+ * See ParallelSearchScaling for a plain table of both.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelSearchBenchmark {
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private SearchEngine engine;
+    private BitBoard position;
+    private MoveGenerator moveGenerator;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Counters {
+        public long nodes;
+    }
+
+    @Setup
+    public void setup() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        position = board.getBitBoard();
+        moveGenerator = new MoveGenerator(board);
+        engine = new SearchEngine(64);
+        engine.setThreads(threads);
+    }
+
+    // every search starts with an empty table, or later ones would be "free"
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        engine.getTranspositionTable().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SearchResult timeToDepth() {
+        return engine.search(position, moveGenerator, SearchLimits.depth(15));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public SearchResult nodeRate(Counters counters) {
+        SearchResult result = engine.search(position, moveGenerator, SearchLimits.timeMillis(200));
+        counters.nodes += result.getNodes();
+        return result;
+    }
+}
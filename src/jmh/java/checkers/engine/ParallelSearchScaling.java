@@ -0,0 +1,56 @@
+package checkers.engine;
+
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.MoveGenerator;
+
+/**
+ * Prints time-to-depth speedup and node rate for 1..N search threads.
+ *
+ * Usage: ParallelSearchScaling [maxThreads [depth [repeats]]]
+ */
+public class ParallelSearchScaling {
+
+    public static void main(String[] args) {
+        final int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+        final int repeats = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        BitBoard position = board.getBitBoard();
+        MoveGenerator moveGenerator = new MoveGenerator(board);
+
+        System.out.println("threads  millis  speedup  nodes/sec  nps-scaling");
+        double baseMillis = 0;
+        double baseRate = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            SearchEngine engine = new SearchEngine(64);
+            try {
+                engine.setThreads(threads);
+                // warm up
+                engine.search(position, moveGenerator, SearchLimits.depth(depth - 2));
+
+                long nanos = 0;
+                long nodes = 0;
+                for (int i = 0; i < repeats; i++) {
+                    engine.getTranspositionTable().clear();
+                    SearchResult result = engine.search(position, moveGenerator, SearchLimits.depth(depth));
+                    nanos += result.getElapsedNanos();
+                    nodes += result.getNodes();
+                }
+
+                final double millis = nanos / 1e6 / repeats;
+                final double rate = nodes * 1e9 / nanos;
+                if (threads == 1) {
+                    baseMillis = millis;
+                    baseRate = rate;
+                }
+                System.out.println(String.format("%7d %7.0f %8.2f %10.0f %12.2f",
+                                                 threads, millis, baseMillis / millis, rate, rate / baseRate));
+            } finally {
+                engine.close();
+            }
+        }
+    }
+}
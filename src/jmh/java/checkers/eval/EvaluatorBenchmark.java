@@ -0,0 +1,139 @@
+package checkers.eval;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.Board.Square;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.BoardGeometry;
+import checkers.model.Checker;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.Piece;
+
+/**
+ * Positions evaluated per second: MaterialMobilityEvaluator on a whole
+ * PositionBatch, versus the same terms computed one Board at a time through
+ * getPiece(Point).
+ *
+ * The positions come from random games, and setup checks that both ways
+ * give the same scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    private static final int POSITIONS = 4096;
+
+    private static final int[] DX = { -1, 1, -1, 1 };
+    private static final int[] DY = { -1, -1, 1, 1 };
+
+    private MaterialMobilityEvaluator evaluator;
+    private PositionBatch batch;
+    private int[] scores;
+    private Board[] boards;
+
+    @Setup
+    public void setup() {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        evaluator = new MaterialMobilityEvaluator(geometry);
+        batch = new PositionBatch(geometry.getNumberOfSquares(), POSITIONS);
+        scores = new int[POSITIONS];
+        boards = new Board[POSITIONS];
+
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        Random random = new Random(1);
+        BitBoard start = BoardFactoryCheckers.createCheckerBoardStandardStarting().getBitBoard();
+        BitBoard position = start.copy();
+        while (! batch.isFull()) {
+            if (moveGenerator.generateMoves(position, moves) == 0) {
+                position.copyFrom(start);
+                continue;
+            }
+            final int i = random.nextInt(moves.size());
+            position.applyMove(moves.getMove(i), moves.getCaptures(i));
+            final int index = batch.add(position);
+            boards[index] = BoardFactoryCheckers.createCheckerBoard(8, position.toPiecesString());
+        }
+
+        evaluator.evaluate(batch, scores);
+        for (int i = 0; i < POSITIONS; i++) {
+            // Board has no side to move of its own here, compare from BLACK's view
+            final int black = (batch.getRedToMove()[i] == 0) ? scores[i] : -scores[i];
+            if (black != evaluateBoard(boards[i])) {
+                throw new RuntimeException("scores differ for " + boards[i].toPiecesString());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int[] batch() {
+        evaluator.evaluate(batch, scores);
+        return scores;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int[] boardAtATime() {
+        for (int i = 0; i < POSITIONS; i++) {
+            scores[i] = evaluateBoard(boards[i]);
+        }
+        return scores;
+    }
+
+    // material, back rank and mobility, from BLACK's point of view
+    private static int evaluateBoard(Board board) {
+        int score = 0;
+        for (int y = 1; y <= board.getSizeY(); y++) {
+            for (int x = 1; x <= board.getSizeX(); x++) {
+                final Point point = new Point(x, y);
+                if (! Square.IN_PLAY.equalsType(board.getSquare(point))) {
+                    continue;
+                }
+                final Checker checker = (Checker) board.getPiece(point);
+                if (checker == null) {
+                    continue;
+                }
+                final boolean black = checker.isSide(CheckerSide.BLACK);
+                final int sign = black ? 1 : -1;
+                score += sign * (checker.isKing() ? MaterialMobilityEvaluator.KING : MaterialMobilityEvaluator.MAN);
+                if ((! checker.isKing()) && (y == (black ? 1 : board.getSizeY()))) {
+                    score += sign * MaterialMobilityEvaluator.BACK_RANK;
+                }
+                for (int dir = 0; dir < DX.length; dir++) {
+                    final boolean forward = (DY[dir] > 0) == black;
+                    if ((! checker.isKing()) && (! forward)) {
+                        continue;
+                    }
+                    final Point to = new Point(x + DX[dir], y + DY[dir]);
+                    final Piece there = Square.IN_PLAY.equalsType(board.getSquare(to)) ? board.getPiece(to) : Checker.BLACK_KING;
+                    if (there == null) {
+                        score += sign * MaterialMobilityEvaluator.MOBILITY;
+                    }
+                }
+            }
+        }
+        return score;
+    }
+}
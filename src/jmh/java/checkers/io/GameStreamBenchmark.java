@@ -0,0 +1,101 @@
+package checkers.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Games per second read back from a GameWriter file:  scan() only fills the
+ * GameRecord, replay() also plays every game to its last position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStreamBenchmark {
+    private static final int GAMES = 10000;
+
+    private Path file;
+    private GameRecord game;
+    private BitBoard position;
+
+    @Setup
+    public void setup() throws IOException {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        file = Files.createTempFile("games", ".bin");
+        game = new GameRecord(geometry);
+        position = new BitBoard(geometry.getNumberOfSquares());
+
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        Random random = new Random(1);
+        try (GameWriter writer = GameWriter.create(file, geometry)) {
+            for (int g = 0; g < GAMES; g++) {
+                game.reset();
+                game.getStartPosition(position);
+                for (int ply = 0; ply < 200; ply++) {
+                    final int n = moveGenerator.generateMoves(position, moves);
+                    if (n == 0) {
+                        break;
+                    }
+                    final int i = random.nextInt(n);
+                    game.addMove(moves.getMove(i), moves.getCaptures(i));
+                    position.applyMove(moves.getMove(i), moves.getCaptures(i));
+                }
+                writer.write(game);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long scan() throws IOException {
+        long ret = 0;
+        try (GameReader reader = GameReader.open(file)) {
+            while (reader.next(game)) {
+                ret += game.getPlies();
+            }
+        }
+        return ret;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long replay() throws IOException {
+        long ret = 0;
+        try (GameReader reader = GameReader.open(file)) {
+            while (reader.next(game)) {
+                game.replay(game.getPlies(), position);
+                ret += position.getHash();
+            }
+        }
+        return ret;
+    }
+}
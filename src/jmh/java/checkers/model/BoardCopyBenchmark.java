@@ -0,0 +1,60 @@
+package checkers.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of getting a second, independent copy of a position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardCopyBenchmark {
+    private Board board;
+    private BitBoard bitBoard;
+    private BitBoard target;
+
+    @Setup
+    public void setup() {
+        board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        bitBoard = board.getBitBoard();
+        target = new BitBoard(bitBoard.getNumberOfSquares());
+    }
+
+    // the only way to copy a Board: through its string form
+    @Benchmark
+    public Board copyBoard() {
+        return BoardFactoryCheckers.createCheckerBoard(board.getSizeX(), board.toPiecesString());
+    }
+
+    // reuse one Board: run with -prof gc, this should allocate nothing
+    @Benchmark
+    public Board loadPiecesFromString() {
+        board.loadPiecesFromString(PerftPositions.STANDARD_STARTING);
+        return board;
+    }
+
+    @Benchmark
+    public BitBoard copyBitBoard() {
+        return bitBoard.copy();
+    }
+
+    @Benchmark
+    public BitBoard copyBitBoardInto() {
+        target.copyFrom(bitBoard);
+        return target;
+    }
+}
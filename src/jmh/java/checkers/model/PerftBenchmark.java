@@ -0,0 +1,83 @@
+package checkers.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import checkers.model.PerftPositions.Position;
+
+/**
+ * Move generation speed, in nodes per second.
+ *
+ * Each benchmark declares its known node count as OperationsPerInvocation,
+ * so the score is nodes/second and, with "-prof gc", gc.alloc.rate.norm is
+ * bytes allocated per node.  Setup checks the counts, so a broken move
+ * generator fails the run instead of reporting a fast (wrong) number.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerftBenchmark {
+    private static final int STARTING_DEPTH = 7;
+    private static final int STARTING_NODES = 179740;
+
+    private static final int ALL_KINGS_DEPTH = 6;
+    private static final int ALL_KINGS_NODES = 84049;
+
+    private Perft perft;
+    private BitBoard starting;
+    private BitBoard allKings;
+
+    @Setup
+    public void setup() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        perft = new Perft(new MoveGenerator(board), STARTING_DEPTH);
+        starting = board.getBitBoard();
+        allKings = findTricky("all kings").createBitBoard();
+
+        check(STARTING_NODES, perftStarting());
+        check(STARTING_NODES, PerftPositions.STANDARD_STARTING_COUNTS[STARTING_DEPTH]);
+        check(ALL_KINGS_NODES, perftAllKings());
+        check(ALL_KINGS_NODES, findTricky("all kings").counts[ALL_KINGS_DEPTH]);
+    }
+
+    private static Position findTricky(String name) {
+        for (Position position : PerftPositions.TRICKY) {
+            if (position.name.equals(name)) {
+                return position;
+            }
+        }
+        throw new RuntimeException("No position named " + name);
+    }
+
+    private static void check(long expected, long actual) {
+        if (expected != actual) {
+            throw new RuntimeException("perft mismatch, expected=" + expected + " actual=" + actual);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STARTING_NODES)
+    public long perftStarting() {
+        return perft.perft(starting, STARTING_DEPTH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ALL_KINGS_NODES)
+    public long perftAllKings() {
+        return perft.perft(allKings, ALL_KINGS_DEPTH);
+    }
+}
@@ -0,0 +1,99 @@
+package checkers.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One thread making and taking back moves, three threads reading every
+ * square of the position:  readers taking BoardSnapshots without locks
+ * ("snapshot") against everyone synchronizing on the Board ("locked").
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotContentionBenchmark {
+    private Board board;
+    private GameStrategyCheckers strategy;
+    private int move;
+    private long captures;
+    private boolean made;
+
+    @Setup
+    public void setup() {
+        strategy = new GameStrategyCheckers();
+        board = new Board(strategy, BoardGeometry.forSize(8));
+        strategy.setBoard(board);
+        board.loadPiecesFromString(PerftPositions.STANDARD_STARTING);
+        MoveList moves = new MoveList();
+        strategy.generateLegalMoves(moves);
+        move = moves.getMove(0);
+        captures = moves.getCaptures(0);
+    }
+
+    private void makeOrUndo() {
+        if (made) {
+            strategy.unmakeMove();
+        } else {
+            strategy.makeMove(move, captures);
+        }
+        made = ! made;
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public void snapshotWriter() {
+        makeOrUndo();
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public int snapshotReader() {
+        final BoardSnapshot snapshot = board.getSnapshot();
+        int ret = 0;
+        for (int square = 0; square < 32; square++) {
+            final Checker piece = snapshot.getPiece(square);
+            ret += (piece == null) ? 0 : piece.getCode() + 1;
+        }
+        return ret;
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public void lockedWriter() {
+        synchronized (board) {
+            makeOrUndo();
+        }
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(3)
+    public int lockedReader() {
+        int ret = 0;
+        synchronized (board) {
+            for (int square = 0; square < 32; square++) {
+                final Checker piece = (Checker) board.getPiece(square);
+                ret += (piece == null) ? 0 : piece.getCode() + 1;
+            }
+        }
+        return ret;
+    }
+}
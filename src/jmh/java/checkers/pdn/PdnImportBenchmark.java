@@ -0,0 +1,90 @@
+package checkers.pdn;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Games per second imported (parsed, replayed and checked) by PdnImporter,
+ * from a file of random games.  Divide by threads for games/sec per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdnImportBenchmark {
+    private static final int GAMES = 20000;
+
+    @Param({ "1", "2", "4" })
+    public int threads;
+
+    private Path file;
+    private PdnImporter importer;
+
+    @Setup
+    public void setup() throws IOException {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        Random random = new Random(1);
+        BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        StringBuilder pdn = new StringBuilder();
+        for (int g = 0; g < GAMES; g++) {
+            pdn.append("[Event \"Random ").append(g).append("\"]\n[Result \"*\"]\n");
+            GameRecord.setStandardStart(geometry, position);
+            for (int ply = 0; ply < 100; ply++) {
+                final int n = moveGenerator.generateMoves(position, moves);
+                if (n == 0) {
+                    break;
+                }
+                final int i = random.nextInt(n);
+                if ((ply % 2) == 0) {
+                    pdn.append((ply / 2) + 1).append(". ");
+                }
+                pdn.append(MoveList.toString(moves.getMove(i), moves.getCaptures(i)));
+                pdn.append(((ply % 12) == 11) ? "\n" : " ");
+                position.applyMove(moves.getMove(i), moves.getCaptures(i));
+            }
+            pdn.append("*\n\n");
+        }
+        file = Files.createTempFile("games", ".pdn");
+        Files.write(file, pdn.toString().getBytes(StandardCharsets.US_ASCII));
+        importer = new PdnImporter(geometry, threads);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long importFile() throws IOException {
+        return importer.importFile(file, null).getPlies();
+    }
+}
@@ -0,0 +1,356 @@
+package checkers.book;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import checkers.io.GameReader;
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+/**
+ * Builds an OpeningBook from games:  every one of the first maxPlies moves
+ * of every game becomes an entry (hash of the position before it, move,
+ * weight).  The weight is 2 if the side that played it went on to win, 1
+ * for a draw or an unknown result, and 0 (no entry) for a loss.  Entries
+ * for the same position and move are added up.
+ *
+ * An external merge sort keeps memory bounded:  entries go into a buffer of
+ * runSize entries, which is sorted, combined and written to a temporary
+ * "run" file whenever it fills up.  write() then merges all the runs.
+ * So a book can be much larger than the heap.
+ *
+ * Not thread-safe.
+ */
+public class BookBuilder {
+    public static final int DEFAULT_RUN_SIZE = 4 * 1024 * 1024;
+    public static final int MAX_WEIGHT = 0xffff;
+
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private final int maxPlies;
+    private final Path tempDirectory;
+    private final MoveGenerator moveGenerator;
+    private final MoveList moves = new MoveList();
+    private final BitBoard position;
+
+    // the current run: hash, and move << 16 | weight
+    private final long[] runHashes;
+    private final int[] runMoves;
+    private int runSize = 0;
+    private final List<Path> runs = new ArrayList<>();
+
+    /**
+     * A book of English games.
+     */
+    public BookBuilder(BoardGeometry geometry, int maxPlies, Path tempDirectory) {
+        this(geometry, RuleSet.ENGLISH, maxPlies, tempDirectory, DEFAULT_RUN_SIZE);
+    }
+
+    public BookBuilder(BoardGeometry geometry, RuleSet rules, int maxPlies, Path tempDirectory) {
+        this(geometry, rules, maxPlies, tempDirectory, DEFAULT_RUN_SIZE);
+    }
+
+    /* default */ BookBuilder(BoardGeometry geometry, RuleSet rules, int maxPlies, Path tempDirectory, int runSize) {
+        this.geometry = geometry;
+        this.rules = rules;
+        this.maxPlies = maxPlies;
+        this.tempDirectory = tempDirectory;
+        this.moveGenerator = new MoveGenerator(geometry, rules);
+        this.position = new BitBoard(geometry.getNumberOfSquares());
+        this.runHashes = new long[runSize];
+        this.runMoves = new int[runSize];
+    }
+
+    public void addGames(GameReader reader) throws IOException {
+        GameRecord game = new GameRecord(reader.getGeometry(), reader.getRules());
+        while (reader.next(game)) {
+            addGame(game);
+        }
+    }
+
+    public void addGame(GameRecord game) throws IOException {
+        if (! game.getGeometry().equalsType(geometry)) {
+            throw new RuntimeException("Game is for a " + game.getGeometry().getSizeY() + " board, book is for "
+                                       + geometry.getSizeY());
+        }
+        if (game.getRules() != rules) {
+            throw new RuntimeException("Game is for " + game.getRules() + " rules, book is for " + rules);
+        }
+        game.getStartPosition(position);
+        for (int ply = 0, n = Math.min(maxPlies, game.getPlies()); ply < n; ply++) {
+            final int delta = game.getDelta(ply);
+            final int weight = getWeight(game.getResult(), position.isBlackToMove());
+            if (weight > 0) {
+                add(position.getHash(), delta, weight);
+            }
+            moveGenerator.generateMoves(position, moves);
+            final int index = GameRecord.findDelta(moves, delta);
+            if (index < 0) {
+                throw new RuntimeException("Illegal move at ply " + ply + " in " + game);
+            }
+            position.applyMove(moves.getMove(index), moves.getCaptures(index));
+        }
+    }
+
+    private static int getWeight(int result, boolean blackMoved) {
+        switch (result) {
+        case GameRecord.BLACK_WIN:
+            return blackMoved ? 2 : 0;
+        case GameRecord.RED_WIN:
+            return blackMoved ? 0 : 2;
+        default:
+            return 1;
+        }
+    }
+
+    private void add(long hash, int delta, int weight) throws IOException {
+        if (runSize == runHashes.length) {
+            writeRun();
+        }
+        runHashes[runSize] = hash;
+        runMoves[runSize] = (delta << 16) | weight;
+        runSize++;
+    }
+
+    private void writeRun() throws IOException {
+        sort(runHashes, runMoves, 0, runSize - 1);
+        Path run = Files.createTempFile(tempDirectory, "book", ".run");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            int i = 0;
+            while (i < runSize) {
+                final long hash = runHashes[i];
+                final int delta = runMoves[i] >>> 16;
+                int weight = 0;
+                for (; (i < runSize) && (runHashes[i] == hash) && ((runMoves[i] >>> 16) == delta); i++) {
+                    weight += runMoves[i] & 0xffff;
+                }
+                out.writeLong(hash);
+                out.writeInt((delta << 16) | Math.min(weight, MAX_WEIGHT));
+            }
+        }
+        runSize = 0;
+    }
+
+    /**
+     * Merge everything added so far into file, leaving out entries whose
+     * total weight is below minWeight.
+     *
+     * @return number of entries written
+     */
+    public long write(Path file, int minWeight) throws IOException {
+        if (runSize > 0) {
+            writeRun();
+        }
+        final Path movesFile = Files.createTempFile(tempDirectory, "book", ".moves");
+        PriorityQueue<RunReader> readers = new PriorityQueue<>();
+        long entries = 0;
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            try (DataOutputStream hashesOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+                 DataOutputStream movesOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(movesFile), 1 << 16))) {
+                // header first, the number of entries is filled in at the end
+                for (int i = 0; i < OpeningBook.HEADER_SIZE; i++) {
+                    hashesOut.write(0);
+                }
+                while (! readers.isEmpty()) {
+                    final long hash = readers.peek().hash;
+                    final int delta = readers.peek().move >>> 16;
+                    int weight = 0;
+                    while (! readers.isEmpty() && (readers.peek().hash == hash) && ((readers.peek().move >>> 16) == delta)) {
+                        RunReader reader = readers.poll();
+                        weight += reader.move & 0xffff;
+                        if (reader.next()) {
+                            readers.add(reader);
+                        } else {
+                            reader.close();
+                        }
+                    }
+                    if (weight >= minWeight) {
+                        hashesOut.writeLong(hash);
+                        movesOut.writeInt((delta << 16) | Math.min(weight, MAX_WEIGHT));
+                        entries++;
+                    }
+                }
+            }
+            if (entries > OpeningBook.MAX_ENTRIES) {
+                throw new IOException("Too many book entries " + entries + ", max=" + OpeningBook.MAX_ENTRIES);
+            }
+
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE);
+                 FileChannel in = FileChannel.open(movesFile, StandardOpenOption.READ)) {
+                final long end = OpeningBook.HEADER_SIZE + 8 * entries;
+                for (long done = 0, size = in.size(); done < size; ) {
+                    done += in.transferTo(done, size - done, out.position(end + done));
+                }
+                ByteBuffer header = ByteBuffer.allocate(OpeningBook.HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+                header.putInt(OpeningBook.MAGIC);
+                header.putInt(OpeningBook.VERSION);
+                header.putInt(geometry.getSizeY());
+                header.putInt(rules.getId());
+                header.putLong(entries);
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header, header.position());
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+            Files.deleteIfExists(movesFile);
+        }
+        return entries;
+    }
+
+    /* default */ int getNumberOfRuns() {
+        return runs.size();
+    }
+
+    // the entries of one run file, in order
+    private static class RunReader implements Comparable<RunReader> {
+        private final DataInputStream in;
+        long hash;
+        int move;
+
+        RunReader(Path run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        boolean next() throws IOException {
+            try {
+                hash = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            move = in.readInt();
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            final int ret = Long.compare(hash, other.hash);
+            return (ret != 0) ? ret : Integer.compareUnsigned(move, other.move);
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // quicksort of the parallel arrays by (hash, move), both ends inclusive
+    private static void sort(long[] hashes, int[] moves, int low, int high) {
+        while (high - low > INSERTION_SORT_SIZE) {
+            final int middle = (low + high) >>> 1;
+            // median of three as the pivot
+            if (compare(hashes, moves, middle, low) < 0) {
+                swap(hashes, moves, middle, low);
+            }
+            if (compare(hashes, moves, high, low) < 0) {
+                swap(hashes, moves, high, low);
+            }
+            if (compare(hashes, moves, high, middle) < 0) {
+                swap(hashes, moves, high, middle);
+            }
+            final long pivotHash = hashes[middle];
+            final int pivotMove = moves[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(hashes[i], moves[i], pivotHash, pivotMove) < 0) {
+                    i++;
+                }
+                while (compare(hashes[j], moves[j], pivotHash, pivotMove) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(hashes, moves, i++, j--);
+                }
+            }
+            // recurse into the smaller half, loop on the larger
+            if (j - low < high - i) {
+                sort(hashes, moves, low, j);
+                low = i;
+            } else {
+                sort(hashes, moves, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; (j > low) && (compare(hashes, moves, j, j - 1) < 0); j--) {
+                swap(hashes, moves, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(long[] hashes, int[] moves, int i, int j) {
+        return compare(hashes[i], moves[i], hashes[j], moves[j]);
+    }
+
+    private static int compare(long hashA, int moveA, long hashB, int moveB) {
+        final int ret = Long.compare(hashA, hashB);
+        return (ret != 0) ? ret : Integer.compareUnsigned(moveA, moveB);
+    }
+
+    private static void swap(long[] hashes, int[] moves, int i, int j) {
+        final long hash = hashes[i];
+        hashes[i] = hashes[j];
+        hashes[j] = hash;
+        final int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    /**
+     * Build a book from game files:  book maxPlies minWeight games.bin...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: BookBuilder book.bin maxPlies minWeight games.bin...");
+            System.exit(1);
+        }
+        final Path book = Paths.get(args[0]);
+        BookBuilder builder = null;
+        for (int i = 3; i < args.length; i++) {
+            try (GameReader reader = GameReader.open(Paths.get(args[i]))) {
+                if (builder == null) {
+                    builder = new BookBuilder(reader.getGeometry(), reader.getRules(), Integer.parseInt(args[1]),
+                                              book.toAbsolutePath().getParent());
+                }
+                builder.addGames(reader);
+            }
+        }
+        System.out.println(builder.write(book, Integer.parseInt(args[2])) + " entries");
+    }
+}
@@ -0,0 +1,186 @@
+package checkers.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+/**
+ * Opening book, read from the file BookBuilder wrote.
+ *
+ * Entries are (position hash, move, weight), sorted by hash (then move), in
+ * two parallel memory mapped arrays:  a long[] of hashes, and an int[] of
+ * move (GameRecord delta, high 16 bits) and weight (low 16 bits).  A
+ * lookup is a binary search of the hashes plus a walk over the entries of
+ * that hash, reading the mapping in place:  nothing is allocated, and the
+ * file is shared through the page cache.  Thread-safe.
+ *
+ * The moves are only meaningful under the book's rules, see getRules().
+ *
+ * File layout (big-endian):
+ *   int magic, int version, int board size, int rules (RuleSet.getId()), long entries
+ *   long hash[entries]
+ *   int move[entries]
+ */
+public class OpeningBook {
+    /* default */ static final int MAGIC = 0x434b4f42; // "CKOB"
+    /* default */ static final int VERSION = 1;
+    /* default */ static final int HEADER_SIZE = 4 * 4 + 8;
+    // one mapping per array
+    /* default */ static final long MAX_ENTRIES = Integer.MAX_VALUE / 8;
+
+    private final int boardSize;
+    private final RuleSet rules;
+    private final int size;
+    private final LongBuffer hashes;
+    private final IntBuffer moves;
+
+    private OpeningBook(int boardSize, RuleSet rules, int size, LongBuffer hashes, IntBuffer moves) {
+        this.boardSize = boardSize;
+        this.rules = rules;
+        this.size = size;
+        this.hashes = hashes;
+        this.moves = moves;
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            while (header.hasRemaining() && (channel.read(header) >= 0)) {
+                // keep reading
+            }
+            header.flip();
+            if ((header.remaining() < HEADER_SIZE) || (header.getInt() != MAGIC)) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported opening book version " + version + " in " + file);
+            }
+            final int boardSize = header.getInt();
+            // older books wrote 0 here, which is ENGLISH
+            final int rulesId = header.getInt();
+            final long entries = header.getLong();
+            if ((entries < 0) || (entries > MAX_ENTRIES) || (HEADER_SIZE + 12 * entries > channel.size())) {
+                throw new IOException("Invalid number of entries " + entries + " in " + file);
+            }
+            // the mappings stay valid after the channel is closed
+            LongBuffer hashes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 8 * entries)
+                                       .order(ByteOrder.BIG_ENDIAN).asLongBuffer();
+            IntBuffer moves = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + 8 * entries, 4 * entries)
+                                     .order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+            return new OpeningBook(boardSize, RuleSet.forId(rulesId), (int) entries, hashes, moves);
+        }
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    public int getNumberOfEntries() {
+        return size;
+    }
+
+    /**
+     * @return index of the first entry for hash, or -1
+     */
+    public int find(long hash) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (hashes.get(middle) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return ((low < size) && (hashes.get(low) == hash)) ? low : -1;
+    }
+
+    public long getHash(int index) {
+        return hashes.get(index);
+    }
+
+    /**
+     * @return the move, see GameRecord.findDelta()
+     */
+    public int getDelta(int index) {
+        return moves.get(index) >>> 16;
+    }
+
+    public int getWeight(int index) {
+        return moves.get(index) & 0xffff;
+    }
+
+    /**
+     * Pick one of the book moves of position, at random in proportion to
+     * their weights.
+     *
+     * @param legalMoves every legal move of position, from MoveGenerator.generateMoves()
+     * @return index into legalMoves, or -1 if position is not in the book
+     */
+    public int chooseMove(BitBoard position, MoveList legalMoves) {
+        final int first = find(position.getHash());
+        if (first < 0) {
+            return -1;
+        }
+        final long hash = hashes.get(first);
+        int total = 0;
+        for (int i = first; (i < size) && (hashes.get(i) == hash); i++) {
+            if (GameRecord.findDelta(legalMoves, getDelta(i)) >= 0) {
+                total += getWeight(i);
+            }
+        }
+        if (total == 0) {
+            return -1;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        for (int i = first; (i < size) && (hashes.get(i) == hash); i++) {
+            final int index = GameRecord.findDelta(legalMoves, getDelta(i));
+            if (index >= 0) {
+                pick -= getWeight(i);
+                if (pick < 0) {
+                    return index;
+                }
+            }
+        }
+        throw new RuntimeException("Programmer error - weights changed");
+    }
+
+    /**
+     * @return index into legalMoves of the book move of position with the
+     *         highest weight, or -1 if position is not in the book
+     */
+    public int chooseBestMove(BitBoard position, MoveList legalMoves) {
+        final int first = find(position.getHash());
+        if (first < 0) {
+            return -1;
+        }
+        final long hash = hashes.get(first);
+        int ret = -1;
+        int best = -1;
+        for (int i = first; (i < size) && (hashes.get(i) == hash); i++) {
+            final int index = GameRecord.findDelta(legalMoves, getDelta(i));
+            if ((index >= 0) && (getWeight(i) > best)) {
+                best = getWeight(i);
+                ret = index;
+            }
+        }
+        return ret;
+    }
+}
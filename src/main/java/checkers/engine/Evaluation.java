@@ -0,0 +1,50 @@
+package checkers.engine;
+
+import checkers.model.BitBoard;
+
+/**
+ * Static evaluation: material, plus a little for advancing regular pieces.
+ * Scores are from the point of view of the side to move.
+ */
+public class Evaluation {
+    public static final int MAN = 100;
+    public static final int KING = 150;
+
+    // larger than any evaluation, smaller than INFINITY
+    public static final int WIN = 30000;
+    public static final int INFINITY = 32000;
+
+    // any score this far from 0 is a forced win/loss
+    public static final int WIN_THRESHOLD = WIN - 1000;
+
+    private Evaluation() {
+    }
+
+    public static int evaluate(BitBoard position, int squaresPerRow) {
+        final long black = position.getBlack();
+        final long red = position.getRed();
+        final long kings = position.getKings();
+
+        int score = MAN * (Long.bitCount(black & ~kings) - Long.bitCount(red & ~kings))
+                  + KING * (Long.bitCount(black & kings) - Long.bitCount(red & kings));
+
+        // black advances "down", i.e. towards higher square numbers
+        long men = black & ~kings;
+        while (men != 0) {
+            score += Long.numberOfTrailingZeros(men) / squaresPerRow;
+            men &= men - 1;
+        }
+        final int lastRow = (position.getNumberOfSquares() - 1) / squaresPerRow;
+        men = red & ~kings;
+        while (men != 0) {
+            score -= lastRow - Long.numberOfTrailingZeros(men) / squaresPerRow;
+            men &= men - 1;
+        }
+
+        return position.isBlackToMove() ? score : -score;
+    }
+
+    public static boolean isWinScore(int score) {
+        return Math.abs(score) >= WIN_THRESHOLD;
+    }
+}
@@ -0,0 +1,222 @@
+package checkers.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Computer player by Monte Carlo tree search (UCT), an alternative to
+ * SearchEngine for large boards, where alpha-beta gets few plies deep.
+ *
+ * With more than one thread, each thread grows its own tree of the same
+ * root ("root parallelism"), with its own random numbers, and shares only
+ * the limits.  At the end the visits of each root move are summed over the
+ * trees, and the most visited move is played.
+ *
+ * The result's nodes are playouts, so getNodesPerSecond() is playouts per
+ * second;  its depth is the deepest path any tree selected.  Its score is
+ * the winning rate of the move, on the scale of Evaluation.
+ *
+ * SearchLimits' maxDepth is not used.  Not thread-safe: use one engine per
+ * thread.  close() stops the helper threads.
+ */
+public class MctsEngine implements AutoCloseable {
+    // 32 bytes each, for each thread
+    public static final int DEFAULT_POOL_NODES = 1 << 20;
+    public static final double DEFAULT_EXPLORATION = 0.7;
+
+    private final int poolNodes;
+    private double exploration = DEFAULT_EXPLORATION;
+    private long seed = 1;
+
+    private int threads = 1;
+    // workers[0] runs on the calling thread
+    private final List<MctsWorker> workers = new ArrayList<>();
+    private ExecutorService helperThreads;
+
+    public MctsEngine() {
+        this(DEFAULT_POOL_NODES);
+    }
+
+    /**
+     * @param poolNodes the most nodes in the tree of each thread;  when the
+     *        pool is full the tree stops growing, and the search goes on
+     *        with playouts from its leaves;  a pool too small for even
+     *        the root's moves gives the first legal move, not searched
+     */
+    public MctsEngine(int poolNodes) {
+        if (poolNodes < 1) {
+            throw new RuntimeException("poolNodes must be at least 1, was " + poolNodes);
+        }
+        this.poolNodes = poolNodes;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads number of search threads, including the calling thread
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new RuntimeException("threads must be at least 1, was " + threads);
+        }
+        if (threads != this.threads) {
+            close();
+            this.threads = threads;
+        }
+    }
+
+    public double getExploration() {
+        return exploration;
+    }
+
+    /**
+     * @param exploration UCT's constant C:  higher tries other moves more often
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    /**
+     * @param seed of the random playouts;  workers are made again, so the
+     *        next search with the same seed and one thread plays the same way
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        workers.clear();
+    }
+
+    public SearchResult search(Board board, SearchLimits limits) {
+        return search(board.getBitBoard(), new MoveGenerator(board), limits);
+    }
+
+    public SearchResult search(final BitBoard position, MoveGenerator moveGenerator, SearchLimits limits) {
+        final long start = System.nanoTime();
+        prepareWorkers(moveGenerator);
+        final SearchControl control = new SearchControl(limits, start);
+
+        List<Future<Void>> helpers = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            final MctsWorker helper = workers.get(i);
+            helpers.add(helperThreads.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    helper.search(position, control, exploration);
+                    return null;
+                }
+            }));
+        }
+
+        try {
+            workers.get(0).search(position, control, exploration);
+        } finally {
+            control.stop();
+            for (Future<Void> helper : helpers) {
+                waitFor(helper);
+            }
+        }
+        return getResult(System.nanoTime() - start);
+    }
+
+    // every tree's root has the same children, in MoveList order
+    private SearchResult getResult(long elapsedNanos) {
+        final NodePool first = workers.get(0).getPool();
+        final int n = first.getChildCount(0);
+        long playouts = 0;
+        int depth = 0;
+        for (int i = 0; i < threads; i++) {
+            playouts += workers.get(i).getPlayouts();
+            depth = Math.max(depth, workers.get(i).getMaxDepth());
+        }
+        if (!first.isExpanded(0)) {
+            // expanding no children always fits:  there are moves, just no room for them
+            final MoveList moves = workers.get(0).getRootMoves();
+            return new SearchResult(moves.getMove(0), moves.getCaptures(0), 0, 0, playouts, elapsedNanos);
+        }
+        if (n == 0) {
+            return new SearchResult(SearchResult.NO_MOVE, 0L, -Evaluation.WIN, 0, playouts, elapsedNanos);
+        }
+
+        int best = 0;
+        long bestVisits = -1;
+        double bestReward = 0;
+        for (int child = 0; child < n; child++) {
+            long visits = 0;
+            double reward = 0;
+            for (int i = 0; i < threads; i++) {
+                final NodePool pool = workers.get(i).getPool();
+                final int node = pool.getFirstChild(0) + child;
+                visits += pool.getVisits(node);
+                reward += pool.getReward(node);
+            }
+            if (visits > bestVisits) {
+                best = child;
+                bestVisits = visits;
+                bestReward = reward;
+            }
+        }
+        final int node = first.getFirstChild(0) + best;
+        final int score = (bestVisits == 0) ? 0 : MctsWorker.toScore(bestReward / bestVisits);
+        return new SearchResult(first.getMove(node), first.getCaptures(node), score, depth, playouts, elapsedNanos);
+    }
+
+    /* default */ MctsWorker getWorker(int index) {
+        return workers.get(index);
+    }
+
+    private static void waitFor(Future<Void> helper) {
+        try {
+            helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted waiting for search thread", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("search thread failed", e.getCause());
+        }
+    }
+
+    // search(Board) makes a new generator each time:  keep the workers and their pools if it is the same game
+    private void prepareWorkers(MoveGenerator moveGenerator) {
+        if (workers.isEmpty() || ! workers.get(0).getMoveGenerator().equalsType(moveGenerator)) {
+            workers.clear();
+        }
+        while (workers.size() < threads) {
+            workers.add(new MctsWorker(moveGenerator, poolNodes, seed + workers.size()));
+        }
+        if ((threads > 1) && (helperThreads == null)) {
+            helperThreads = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+                private int count = 0;
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "mcts-helper-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        if (helperThreads != null) {
+            helperThreads.shutdownNow();
+            helperThreads = null;
+        }
+        while (workers.size() > 1) {
+            workers.remove(workers.size() - 1);
+        }
+    }
+}
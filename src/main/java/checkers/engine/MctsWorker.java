@@ -0,0 +1,206 @@
+package checkers.engine;
+
+import java.util.SplittableRandom;
+
+import checkers.model.BitBoard;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Monte Carlo tree search of one position, in its own NodePool.
+ *
+ * Each playout selects a path from the root by UCT, expands the leaf it
+ * reaches, plays random moves from there for at most PLAYOUT_PLIES, and
+ * adds the result to every node on the path.  A playout that runs out of
+ * plies is scored by Evaluation, squashed to 0..1 by a logistic curve;
+ * one that reaches a position with no moves is a loss for the side to move.
+ *
+ * Like SearchWorker, everything is allocated when the worker is created.
+ */
+class MctsWorker {
+    static final int MAX_PLY = SearchWorker.MAX_PLY;
+
+    // random moves after the leaf, before falling back on Evaluation
+    static final int PLAYOUT_PLIES = 20;
+
+    // evaluation difference that turns a playout into a 73% (1/(1+e^-1)) win
+    static final double REWARD_SCALE = 150;
+
+    // report to the SearchControl every this many playouts
+    private static final int CHECK_INTERVAL = 16;
+
+    private final MoveGenerator moveGenerator;
+    private final int squaresPerRow;
+    private final NodePool pool;
+    private final SplittableRandom random;
+
+    private final BitBoard position;
+    private final MoveList moves = new MoveList();
+    // nodes from the root (excluded) down to the leaf of the current playout
+    private final int[] path = new int[MAX_PLY];
+
+    private double exploration;
+    private long playouts;
+    private int maxDepth;
+
+    MctsWorker(MoveGenerator moveGenerator, int poolNodes, long seed) {
+        this.moveGenerator = moveGenerator;
+        this.squaresPerRow = moveGenerator.getNumberOfSquares() / moveGenerator.getNumberOfRows();
+        this.pool = new NodePool(poolNodes);
+        this.random = new SplittableRandom(seed);
+        position = new BitBoard(moveGenerator.getNumberOfSquares());
+    }
+
+    MoveGenerator getMoveGenerator() {
+        return moveGenerator;
+    }
+
+    NodePool getPool() {
+        return pool;
+    }
+
+    long getPlayouts() {
+        return playouts;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the root's moves after a search whose root the pool could not expand
+     */
+    MoveList getRootMoves() {
+        return moves;
+    }
+
+    /**
+     * Build a new tree for root until control stops the search.  Afterwards
+     * the root's children, in MoveList order, hold the statistics of each move.
+     */
+    void search(BitBoard root, SearchControl control, double explorationConstant) {
+        exploration = explorationConstant;
+        playouts = 0;
+        maxDepth = 0;
+        pool.clear();
+
+        position.copyFrom(root);
+        final int n = moveGenerator.generateMoves(position, moves);
+        if (!pool.expand(0, moves, n) || (n == 0)) {
+            // a pool without room for the root's children leaves them in moves, see getRootMoves()
+            return;
+        }
+
+        int unreported = 0;
+        while (!control.isStopped()) {
+            playout(root);
+            playouts++;
+            if (++unreported == CHECK_INTERVAL) {
+                unreported = 0;
+                if (control.check(CHECK_INTERVAL)) {
+                    break;
+                }
+            }
+        }
+        if (unreported > 0) {
+            control.check(unreported);
+        }
+    }
+
+    private void playout(BitBoard root) {
+        position.copyFrom(root);
+
+        // selection
+        int node = 0;
+        int depth = 0;
+        while (pool.isExpanded(node) && (pool.getChildCount(node) > 0) && (depth < MAX_PLY)) {
+            node = select(node);
+            position.applyMove(pool.getMove(node), pool.getCaptures(node));
+            path[depth++] = node;
+        }
+        maxDepth = Math.max(maxDepth, depth);
+
+        // expansion;  a full pool just means playing out from the leaf
+        double reward;
+        if (!pool.isExpanded(node)) {
+            final int n = moveGenerator.generateMoves(position, moves);
+            pool.expand(node, moves, n);
+            reward = (n == 0) ? 0 : simulate();
+        } else if (pool.getChildCount(node) == 0) {
+            // no moves:  the side to move has lost
+            reward = 0;
+        } else {
+            // MAX_PLY deep
+            reward = toReward(Evaluation.evaluate(position, squaresPerRow));
+        }
+
+        // backpropagation:  reward is for the side to move at the leaf, who
+        // did not make the move into it
+        for (int i = depth - 1; i >= 0; i--) {
+            reward = 1 - reward;
+            pool.update(path[i], reward);
+        }
+        pool.update(0, 1 - reward);
+    }
+
+    /**
+     * @return the child of node with the highest UCT value;  unvisited children first
+     */
+    private int select(int node) {
+        final int first = pool.getFirstChild(node);
+        final int last = first + pool.getChildCount(node);
+        final double logVisits = Math.log(pool.getVisits(node));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < last; child++) {
+            final int visits = pool.getVisits(child);
+            if (visits == 0) {
+                return child;
+            }
+            final double value = pool.getReward(child) / visits + exploration * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Random moves from position, whose moves are in the move list.
+     *
+     * @return the result for the side to move at the start, 0..1
+     */
+    private double simulate() {
+        boolean sameSide = true;
+        int n = moves.size();
+        for (int ply = 0; ply < PLAYOUT_PLIES; ply++) {
+            moveGenerator.makeMove(position, moves, random.nextInt(n));
+            sameSide = !sameSide;
+            n = moveGenerator.generateMoves(position, moves);
+            if (n == 0) {
+                return sameSide ? 0 : 1;
+            }
+        }
+        final double reward = toReward(Evaluation.evaluate(position, squaresPerRow));
+        return sameSide ? reward : 1 - reward;
+    }
+
+    static double toReward(int score) {
+        return 1 / (1 + Math.exp(-score / REWARD_SCALE));
+    }
+
+    /**
+     * @return the inverse of toReward(), limited to scores short of a forced win
+     */
+    static int toScore(double reward) {
+        final double limit = Evaluation.WIN_THRESHOLD - 1;
+        if (reward <= 0) {
+            return (int) -limit;
+        }
+        if (reward >= 1) {
+            return (int) limit;
+        }
+        return (int) Math.round(Math.max(-limit, Math.min(limit, REWARD_SCALE * Math.log(reward / (1 - reward)))));
+    }
+}
@@ -0,0 +1,117 @@
+package checkers.engine;
+
+import checkers.model.MoveList;
+
+/**
+ * The tree of one MctsWorker, as parallel arrays indexed by node number:
+ * no object per node, and nothing allocated once the pool is created.
+ *
+ * Node 0 is the root.  The children of a node are expanded all at once,
+ * into consecutive nodes, in MoveList order.  Each node holds the move
+ * into it, and the total reward of its playouts for the side that made
+ * that move.
+ */
+final class NodePool {
+    // firstChild of a node whose children were not generated yet
+    static final int NOT_EXPANDED = -1;
+
+    private final int capacity;
+    private int size;
+
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] moves;
+    private final long[] captures;
+    private final int[] visits;
+    private final double[] rewards;
+
+    NodePool(int capacity) {
+        if (capacity < 1) {
+            throw new RuntimeException("capacity must be at least 1, was " + capacity);
+        }
+        this.capacity = capacity;
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        moves = new int[capacity];
+        captures = new long[capacity];
+        visits = new int[capacity];
+        rewards = new double[capacity];
+        clear();
+    }
+
+    /**
+     * Start a new tree, with just an unexpanded root.
+     */
+    void clear() {
+        size = 0;
+        newNode(0, 0L);
+    }
+
+    private int newNode(int move, long captured) {
+        final int node = size++;
+        firstChild[node] = NOT_EXPANDED;
+        childCount[node] = 0;
+        moves[node] = move;
+        captures[node] = captured;
+        visits[node] = 0;
+        rewards[node] = 0;
+        return node;
+    }
+
+    /**
+     * @param count the number of moves;  0 for a position with no moves
+     * @return false if the pool is full (and node stays unexpanded)
+     */
+    boolean expand(int node, MoveList childMoves, int count) {
+        if (size + count > capacity) {
+            return false;
+        }
+        firstChild[node] = size;
+        childCount[node] = count;
+        for (int i = 0; i < count; i++) {
+            newNode(childMoves.getMove(i), childMoves.getCaptures(i));
+        }
+        return true;
+    }
+
+    void update(int node, double reward) {
+        visits[node]++;
+        rewards[node] += reward;
+    }
+
+    boolean isExpanded(int node) {
+        return firstChild[node] != NOT_EXPANDED;
+    }
+
+    int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    int getChildCount(int node) {
+        return childCount[node];
+    }
+
+    int getMove(int node) {
+        return moves[node];
+    }
+
+    long getCaptures(int node) {
+        return captures[node];
+    }
+
+    int getVisits(int node) {
+        return visits[node];
+    }
+
+    double getReward(int node) {
+        return rewards[node];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,42 @@
+package checkers.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits and the stop signal for one search, shared by all of its workers.
+ */
+class SearchControl {
+    private final long maxNodes;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean stopped = false;
+
+    SearchControl(SearchLimits limits, long startNanos) {
+        maxNodes = limits.getMaxNodes();
+        hasDeadline = limits.hasTimeLimit();
+        deadlineNanos = hasDeadline ? startNanos + limits.getMaxTimeMillis() * 1000000L : 0;
+    }
+
+    /**
+     * @param newNodes searched by a worker since its last call
+     * @return true if the search should stop
+     */
+    boolean check(long newNodes) {
+        if (nodes.addAndGet(newNodes) >= maxNodes) {
+            stopped = true;
+        } else if (hasDeadline && (System.nanoTime() - deadlineNanos >= 0)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    void stop() {
+        stopped = true;
+    }
+}
@@ -0,0 +1,210 @@
+package checkers.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import checkers.book.OpeningBook;
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.tablebase.Tablebase;
+
+/**
+ * Computer player: finds the best move for the side to move.
+ *
+ * Negamax alpha-beta with iterative deepening and aspiration windows.
+ * Moves are ordered transposition table move first, captures, then killer
+ * moves, then by the history heuristic.  Runs headless - it only reads the
+ * Board it is given.
+ *
+ * With more than one thread ("lazy SMP"), helper threads search the same
+ * root at staggered depths, each on its own copy of the position, and share
+ * only the transposition table.  The calling thread's result is returned.
+ *
+ * Not thread-safe: use one engine per thread.  close() stops the helper threads.
+ */
+public class SearchEngine implements AutoCloseable {
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final TranspositionTable transpositionTable;
+    private SearchListener searchListener;
+    private Tablebase tablebase;
+    private OpeningBook openingBook;
+    private final MoveList bookMoves = new MoveList();
+
+    private int threads = 1;
+    // workers[0] runs on the calling thread
+    private final List<SearchWorker> workers = new ArrayList<>();
+    private ExecutorService helperThreads;
+
+    public SearchEngine() {
+        this(DEFAULT_TABLE_MEGABYTES);
+    }
+
+    public SearchEngine(int tableMegabytes) {
+        transpositionTable = new TranspositionTable(tableMegabytes);
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public void setSearchListener(SearchListener listener) {
+        searchListener = listener;
+    }
+
+    /**
+     * @param tablebase used for exact results below the root, or null;
+     *        only by searches under the tablebase's rules
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    /**
+     * @param openingBook checked before every search, or null;  only by
+     *        searches on the book's board, under its rules
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads number of search threads, including the calling thread
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new RuntimeException("threads must be at least 1, was " + threads);
+        }
+        if (threads != this.threads) {
+            close();
+            this.threads = threads;
+        }
+    }
+
+    public SearchResult search(Board board, SearchLimits limits) {
+        return search(board.getBitBoard(), new MoveGenerator(board), limits);
+    }
+
+    /**
+     * @return the search result, or a book move (depth 0, no nodes) if
+     *         the opening book has the position
+     */
+    public SearchResult search(final BitBoard position, MoveGenerator moveGenerator, final SearchLimits limits) {
+        final long start = System.nanoTime();
+        if ((openingBook != null) && (openingBook.getRules() == moveGenerator.getRules())
+                && (openingBook.getBoardSize() == moveGenerator.getNumberOfRows())) {
+            moveGenerator.generateMoves(position, bookMoves);
+            final int index = openingBook.chooseMove(position, bookMoves);
+            if (index >= 0) {
+                return new SearchResult(bookMoves.getMove(index), bookMoves.getCaptures(index), 0, 0, 0,
+                                        System.nanoTime() - start);
+            }
+        }
+        transpositionTable.newSearch();
+        prepareWorkers(moveGenerator);
+        final SearchControl control = new SearchControl(limits, start);
+
+        List<Future<SearchResult>> helpers = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            final SearchWorker helper = workers.get(i);
+            final int helperNumber = i;
+            helpers.add(helperThreads.submit(new Callable<SearchResult>() {
+                @Override
+                public SearchResult call() {
+                    return helper.search(position, limits, control, null, helperNumber);
+                }
+            }));
+        }
+
+        final SearchResult result;
+        try {
+            result = workers.get(0).search(position, limits, control, searchListener, 0);
+        } finally {
+            control.stop();
+            for (Future<SearchResult> helper : helpers) {
+                waitFor(helper);
+            }
+        }
+
+        if (threads == 1) {
+            return result;
+        }
+        long nodes = 0;
+        for (SearchWorker worker : workers) {
+            nodes += worker.getNodes();
+        }
+        return new SearchResult(result.getMove(), result.getCaptures(), result.getScore(), result.getDepth(),
+                                nodes, System.nanoTime() - start);
+    }
+
+    /* default */ SearchWorker getWorker(int index) {
+        return workers.get(index);
+    }
+
+    private static void waitFor(Future<SearchResult> helper) {
+        try {
+            helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted waiting for search thread", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("search thread failed", e.getCause());
+        }
+    }
+
+    // search(Board) makes a new generator each time:  keep the workers if it is the same game
+    private void prepareWorkers(MoveGenerator moveGenerator) {
+        if (workers.isEmpty() || ! workers.get(0).getMoveGenerator().equalsType(moveGenerator)) {
+            workers.clear();
+        }
+        while (workers.size() < threads) {
+            workers.add(new SearchWorker(moveGenerator, transpositionTable));
+        }
+        for (SearchWorker worker : workers) {
+            worker.setTablebase(tablebase);
+        }
+        if ((threads > 1) && (helperThreads == null)) {
+            helperThreads = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+                private int count = 0;
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "search-helper-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        if (helperThreads != null) {
+            helperThreads.shutdownNow();
+            helperThreads = null;
+        }
+        while (workers.size() > 1) {
+            workers.remove(workers.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package checkers.engine;
+
+/**
+ * How much work a search may do.  The search stops at whichever limit it
+ * reaches first.  UNLIMITED for "no limit".
+ */
+public class SearchLimits {
+    public static final int MAX_DEPTH = 64;
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxTimeMillis;
+
+    public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+        if ((maxDepth < 1) || (maxDepth > MAX_DEPTH)) {
+            throw new RuntimeException("maxDepth must be 1.." + MAX_DEPTH + ", was " + maxDepth);
+        }
+        if ((maxNodes < 1) || (maxTimeMillis < 1)) {
+            throw new RuntimeException("limits must be positive, nodes=" + maxNodes + " time=" + maxTimeMillis);
+        }
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxTimeMillis = maxTimeMillis;
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, UNLIMITED, UNLIMITED);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(MAX_DEPTH, maxNodes, UNLIMITED);
+    }
+
+    public static SearchLimits timeMillis(long maxTimeMillis) {
+        return new SearchLimits(MAX_DEPTH, UNLIMITED, maxTimeMillis);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+
+    public boolean hasTimeLimit() {
+        return maxTimeMillis != UNLIMITED;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits [maxDepth=" + maxDepth
+                + ", maxNodes=" + (maxNodes == UNLIMITED ? "unlimited" : String.valueOf(maxNodes))
+                + ", maxTimeMillis=" + (maxTimeMillis == UNLIMITED ? "unlimited" : String.valueOf(maxTimeMillis))
+                + "]";
+    }
+}
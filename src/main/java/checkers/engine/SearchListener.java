@@ -0,0 +1,11 @@
+package checkers.engine;
+
+/**
+ * Progress reports from SearchEngine, e.g. for logging an analysis.
+ */
+public interface SearchListener {
+
+    // called after each completed iteration of iterative deepening
+    void iterationComplete(SearchResult result);
+
+}
@@ -0,0 +1,91 @@
+package checkers.engine;
+
+import checkers.model.MoveList;
+
+/**
+ * Outcome of a search (or of one iteration of it).
+ * The move uses MoveList's encoding, with its captured-pieces mask.
+ */
+public class SearchResult {
+    public static final int NO_MOVE = -1;
+
+    private final int move;
+    private final long captures;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    public SearchResult(int move, long captures, int score, int depth, long nodes, long elapsedNanos) {
+        this.move = move;
+        this.captures = captures;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public boolean hasMove() {
+        return move != NO_MOVE;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    public long getCaptures() {
+        return captures;
+    }
+
+    public int getFrom() {
+        return MoveList.getFrom(move);
+    }
+
+    public int getTo() {
+        return MoveList.getTo(move);
+    }
+
+    /**
+     * @return from the point of view of the side to move, see Evaluation
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return depth of the last completed iteration
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000L;
+    }
+
+    public long getNodesPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return (long) (nodes * 1e9 / elapsedNanos);
+    }
+
+    public String getMoveString() {
+        return hasMove() ? MoveList.toString(move, captures) : "none";
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult [move=" + getMoveString() + ", score=" + score + ", depth=" + depth
+                + ", nodes=" + nodes + ", millis=" + getElapsedMillis()
+                + ", nps=" + getNodesPerSecond() + "]";
+    }
+}
@@ -0,0 +1,381 @@
+package checkers.engine;
+
+import checkers.model.BitBoard;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.UndoStack;
+import checkers.tablebase.Tablebase;
+
+/**
+ * Negamax alpha-beta search of one position.
+ *
+ * Everything it needs per ply (position, move list, move scores, killers)
+ * is allocated when the worker is created, so a search allocates nothing.
+ * There is one position: moves are made on it going down the tree, and
+ * unmade (from an UndoStack) coming back up.
+ *
+ * Results are shared through the TranspositionTable, and the Zobrist hashes
+ * along the current line are kept to score repeated positions as draws.
+ */
+class SearchWorker {
+    static final int MAX_PLY = 128;
+
+    // check the clock every this many nodes (must be a power of 2)
+    private static final int CHECK_INTERVAL = 1024;
+
+    // move ordering
+    private static final int CAPTURE_BONUS = 1 << 24;
+    private static final int BEST_MOVE_BONUS = 1 << 28;
+    private static final int TABLE_MOVE_BONUS = 1 << 27;
+    private static final int KILLER_BONUS = 1 << 22;
+    private static final int HISTORY_MAX = 1 << 20;
+
+    private static final int ASPIRATION_WINDOW = 40;
+
+    private final MoveGenerator moveGenerator;
+    private final TranspositionTable transpositionTable;
+    private final int squaresPerRow;
+
+    private final BitBoard position;
+    private final UndoStack undoStack = new UndoStack(MAX_PLY + 1);
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][MoveList.MAX_MOVES];
+
+    // hash of the position at each ply, and how many plies before it were
+    // reversible (king moves that capture nothing)
+    private final long[] hashes = new long[MAX_PLY + 1];
+    private final int[] reversiblePlies = new int[MAX_PLY + 1];
+
+    // two per ply
+    private final int[] killers = new int[2 * (MAX_PLY + 1)];
+    // [from * numberOfSquares + to]
+    private final int[] history;
+
+    // optional, exact results for positions with few pieces
+    private Tablebase tablebase;
+
+    private long nodes;
+    private SearchControl control;
+    private boolean stopped;
+
+    // best root move of the iteration in progress
+    private int rootBestMove;
+    private long rootBestCaptures;
+
+    SearchWorker(MoveGenerator moveGenerator, TranspositionTable transpositionTable) {
+        this.moveGenerator = moveGenerator;
+        this.transpositionTable = transpositionTable;
+        this.squaresPerRow = moveGenerator.getNumberOfSquares() / moveGenerator.getNumberOfRows();
+        position = new BitBoard(moveGenerator.getNumberOfSquares());
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+        }
+        history = new int[moveGenerator.getNumberOfSquares() * moveGenerator.getNumberOfSquares()];
+    }
+
+    void setTablebase(Tablebase tablebase) {
+        // another variant's exact results would be wrong here:  search without them
+        final boolean sameRules = (tablebase != null) && (tablebase.getRules() == moveGenerator.getRules());
+        this.tablebase = sameRules ? tablebase : null;
+    }
+
+    MoveGenerator getMoveGenerator() {
+        return moveGenerator;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @param helper 0 for the main worker.  Odd numbered helpers search one ply
+     *        deeper each iteration, so parallel workers do not all follow the
+     *        same path through the tree (and fill in the table for each other).
+     */
+    SearchResult search(BitBoard root, SearchLimits limits, SearchControl searchControl,
+                        SearchListener listener, int helper) {
+        final long start = System.nanoTime();
+        nodes = 0;
+        control = searchControl;
+        stopped = false;
+        clearHeuristics();
+
+        position.copyFrom(root);
+        undoStack.clear();
+        reversiblePlies[0] = 0;
+        final MoveList rootMoves = moveLists[0];
+        final int n = moveGenerator.generateMoves(position, rootMoves);
+        if (n == 0) {
+            return new SearchResult(SearchResult.NO_MOVE, 0L, -Evaluation.WIN, 0, 0, System.nanoTime() - start);
+        }
+
+        // fallback, if even depth 1 does not complete
+        SearchResult result = new SearchResult(rootMoves.getMove(0), rootMoves.getCaptures(0), 0, 0, 0, 0);
+        if ((n == 1) && limits.hasTimeLimit()) {
+            // playing against the clock: no need to think about a forced move
+            return new SearchResult(rootMoves.getMove(0), rootMoves.getCaptures(0), 0, 0, 0, System.nanoTime() - start);
+        }
+
+        final int depthOffset = helper & 1;
+        int score = 0;
+        for (int depth = 1; depth <= limits.getMaxDepth() - depthOffset; depth++) {
+            score = aspirationSearch(depth + depthOffset, score, result);
+            if (stopped) {
+                break;
+            }
+            result = new SearchResult(rootBestMove, rootBestCaptures, score, depth + depthOffset,
+                                      nodes, System.nanoTime() - start);
+            if (listener != null) {
+                listener.iterationComplete(result);
+            }
+            if (Evaluation.isWinScore(score) && (Evaluation.WIN - Math.abs(score) <= depth)) {
+                // forced result found within the horizon, deeper will not change it
+                break;
+            }
+        }
+
+        return new SearchResult(result.getMove(), result.getCaptures(), result.getScore(), result.getDepth(),
+                                nodes, System.nanoTime() - start);
+    }
+
+    private int aspirationSearch(int depth, int previousScore, SearchResult previous) {
+        int alpha = -Evaluation.INFINITY;
+        int beta = Evaluation.INFINITY;
+        if ((depth > 2) && (! Evaluation.isWinScore(previousScore))) {
+            alpha = previousScore - ASPIRATION_WINDOW;
+            beta = previousScore + ASPIRATION_WINDOW;
+        }
+
+        while (true) {
+            rootBestMove = previous.getMove();
+            rootBestCaptures = previous.getCaptures();
+
+            final int score = search(0, depth, alpha, beta);
+            if (stopped) {
+                return score;
+            }
+            if ((score <= alpha) && (alpha > -Evaluation.INFINITY)) {
+                alpha = -Evaluation.INFINITY;
+            } else if ((score >= beta) && (beta < Evaluation.INFINITY)) {
+                beta = Evaluation.INFINITY;
+            } else {
+                return score;
+            }
+        }
+    }
+
+    private int search(int ply, int depth, int alpha, int beta) {
+        nodes++;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+            stopped = control.check(CHECK_INTERVAL);
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        final long hash = position.getHash();
+        hashes[ply] = hash;
+        if ((ply > 0) && isRepetition(ply, hash)) {
+            return 0;
+        }
+        if ((tablebase != null) && (ply > 0)) {
+            final int value = tablebase.probe(position);
+            if (value != Tablebase.NOT_FOUND) {
+                return fromTablebase(value, ply);
+            }
+        }
+
+        final MoveList moves = moveLists[ply];
+        final int n = moveGenerator.generateMoves(position, moves);
+        if (n == 0) {
+            // no pieces, or all blocked: the side to move has lost
+            return -Evaluation.WIN + ply;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(position, squaresPerRow);
+        }
+
+        // captures are forced, so only stop at the horizon when quiet
+        final boolean captures = moves.isCapture(0);
+        if ((depth <= 0) && (! captures)) {
+            return Evaluation.evaluate(position, squaresPerRow);
+        }
+
+        int tableMove = TranspositionTable.NO_MOVE;
+        final long data = transpositionTable.probe(hash);
+        if (data != 0) {
+            tableMove = TranspositionTable.getMove(data);
+            if ((ply > 0) && (TranspositionTable.getDepth(data) >= depth)) {
+                final int score = fromTable(TranspositionTable.getScore(data), ply);
+                final int bound = TranspositionTable.getBound(data);
+                if ((bound == TranspositionTable.BOUND_EXACT)
+                        || ((bound == TranspositionTable.BOUND_LOWER) && (score >= beta))
+                        || ((bound == TranspositionTable.BOUND_UPPER) && (score <= alpha))) {
+                    return score;
+                }
+            }
+        }
+
+        scoreMoves(ply, moves, n, tableMove);
+
+        final int originalAlpha = alpha;
+        int best = -Evaluation.INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < n; i++) {
+            pickNext(ply, moves, i, n);
+            final int move = moves.getMove(i);
+            final long captured = moves.getCaptures(i);
+
+            final boolean reversible = (captured == 0) && position.isKing(MoveList.getFrom(move));
+            reversiblePlies[ply + 1] = reversible ? reversiblePlies[ply] + 1 : 0;
+            position.makeMove(move, captured, undoStack);
+            final int score = -search(ply + 1, depth - 1, -beta, -alpha);
+            position.unmakeMove(undoStack);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootBestMove = move;
+                        rootBestCaptures = captured;
+                    }
+                    if (alpha >= beta) {
+                        if (captured == 0) {
+                            updateHeuristics(ply, move, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        final int bound;
+        if (best <= originalAlpha) {
+            bound = TranspositionTable.BOUND_UPPER;
+        } else if (best >= beta) {
+            bound = TranspositionTable.BOUND_LOWER;
+        } else {
+            bound = TranspositionTable.BOUND_EXACT;
+        }
+        transpositionTable.store(hash, bestMove, toTable(best, ply), Math.max(depth, 0), bound);
+        return best;
+    }
+
+    // same position earlier in this line, with the same side to move
+    private boolean isRepetition(int ply, long hash) {
+        final int oldest = ply - reversiblePlies[ply];
+        for (int i = ply - 4; i >= oldest; i -= 2) {
+            if (hashes[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // a tablebase distance is plies from this position, scores are from the root
+    private static int fromTablebase(int value, int ply) {
+        if (Tablebase.isWin(value)) {
+            return Evaluation.WIN - ply - Tablebase.getDistance(value);
+        } else if (Tablebase.isLoss(value)) {
+            return -Evaluation.WIN + ply + Tablebase.getDistance(value);
+        }
+        return 0;
+    }
+
+    // win/loss scores are stored relative to the position, not the root
+    private static int toTable(int score, int ply) {
+        if (score >= Evaluation.WIN_THRESHOLD) {
+            return score + ply;
+        } else if (score <= -Evaluation.WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= Evaluation.WIN_THRESHOLD) {
+            return score - ply;
+        } else if (score <= -Evaluation.WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    // the root's previous best, then the table's move, then captures (more
+    // pieces is better), then killers, then history
+    private void scoreMoves(int ply, MoveList moves, int n, int tableMove) {
+        final int[] scores = moveScores[ply];
+        final int killer0 = killers[2 * ply];
+        final int killer1 = killers[2 * ply + 1];
+        for (int i = 0; i < n; i++) {
+            final int move = moves.getMove(i);
+            int score;
+            if (moves.isCapture(i)) {
+                score = CAPTURE_BONUS + Long.bitCount(moves.getCaptures(i));
+            } else if (move == killer0) {
+                score = KILLER_BONUS + 1;
+            } else if (move == killer1) {
+                score = KILLER_BONUS;
+            } else {
+                score = history[historyIndex(move)];
+            }
+            if (move == tableMove) {
+                score += TABLE_MOVE_BONUS;
+            }
+            if ((ply == 0) && (move == rootBestMove) && (moves.getCaptures(i) == rootBestCaptures)) {
+                score += BEST_MOVE_BONUS;
+            }
+            scores[i] = score;
+        }
+    }
+
+    // selection sort, one step at a time: a cutoff usually comes early
+    private void pickNext(int ply, MoveList moves, int i, int n) {
+        final int[] scores = moveScores[ply];
+        int bestIndex = i;
+        for (int j = i + 1; j < n; j++) {
+            if (scores[j] > scores[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        if (bestIndex != i) {
+            moves.swap(i, bestIndex);
+            final int tmp = scores[i];
+            scores[i] = scores[bestIndex];
+            scores[bestIndex] = tmp;
+        }
+    }
+
+    private void updateHeuristics(int ply, int move, int depth) {
+        if (killers[2 * ply] != move) {
+            killers[2 * ply + 1] = killers[2 * ply];
+            killers[2 * ply] = move;
+        }
+
+        final int index = historyIndex(move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_MAX) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] /= 2;
+            }
+        }
+    }
+
+    private int historyIndex(int move) {
+        return MoveList.getFrom(move) * moveGenerator.getNumberOfSquares() + MoveList.getTo(move);
+    }
+
+    private void clearHeuristics() {
+        for (int i = 0; i < killers.length; i++) {
+            killers[i] = -1;
+        }
+        for (int i = 0; i < history.length; i++) {
+            history[i] = 0;
+        }
+    }
+}
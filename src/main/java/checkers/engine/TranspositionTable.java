@@ -0,0 +1,202 @@
+package checkers.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size hash table of search results, keyed by Zobrist hash.
+ *
+ * All entries live in one preallocated long[].  Each bucket holds two
+ * entries: the first is only replaced by a search at least as deep (or
+ * from a newer search), the second is always replaced.
+ *
+ * An entry is two longs:  (key ^ data) and data.  Threads read and write
+ * without locks; a torn or interleaved write leaves a pair that does not
+ * XOR back to the key, which a probe then treats as a miss.
+ *
+ * data layout, low bits first:
+ *   move 17 bits | score 16 bits | depth 8 bits | bound 2 bits | generation 8 bits
+ */
+public class TranspositionTable {
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_EXACT = 1;
+    // score is a lower bound (search failed high)
+    public static final int BOUND_LOWER = 2;
+    // score is an upper bound (search failed low)
+    public static final int BOUND_UPPER = 3;
+
+    public static final int NO_MOVE = 0x1ffff;
+
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int ENTRIES_PER_BUCKET = 2;
+    private static final int LONGS_PER_BUCKET = LONGS_PER_ENTRY * ENTRIES_PER_BUCKET;
+
+    private static final int MOVE_BITS = 17;
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + 16;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+    private static final int GENERATION_SHIFT = BOUND_SHIFT + 2;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * @param sizeMegabytes rounded down to a power of 2 number of buckets
+     */
+    public TranspositionTable(int sizeMegabytes) {
+        if (sizeMegabytes < 1) {
+            throw new RuntimeException("size must be at least 1MB, was " + sizeMegabytes);
+        }
+        final long bytes = sizeMegabytes * 1024L * 1024L;
+        final long buckets = Long.highestOneBit(bytes / (LONGS_PER_BUCKET * 8));
+        if (buckets * LONGS_PER_BUCKET > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("size too large, max is " + ((Integer.MAX_VALUE / 1024 / 1024) * 8) + "MB");
+        }
+        table = new long[(int) (buckets * LONGS_PER_BUCKET)];
+        bucketMask = (int) (buckets - 1);
+    }
+
+    public int getNumberOfEntries() {
+        return table.length / LONGS_PER_ENTRY;
+    }
+
+    /**
+     * Call at the start of each search, so old entries give way to new ones.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xff;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    /**
+     * @return the data of the entry for hash, or 0 if there is none.
+     *         Decode it with getMove(), getScore() etc.
+     */
+    public long probe(long hash) {
+        final int bucket = bucketIndex(hash);
+        boolean occupied = false;
+        for (int i = bucket; i < bucket + LONGS_PER_BUCKET; i += LONGS_PER_ENTRY) {
+            final long data = table[i + 1];
+            final long check = table[i];
+            if ((check ^ data) == hash) {
+                if (data != 0) {
+                    hits.increment();
+                    return data;
+                }
+            } else if (data != 0) {
+                occupied = true;
+            }
+        }
+        if (occupied) {
+            collisions.increment();
+        }
+        misses.increment();
+        return 0;
+    }
+
+    public void store(long hash, int move, int score, int depth, int bound) {
+        final long data = (move & ((1L << MOVE_BITS) - 1))
+                | ((score & 0xffffL) << SCORE_SHIFT)
+                | ((long) Math.min(depth, 0xff) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+
+        final int bucket = bucketIndex(hash);
+        final long preferredData = table[bucket + 1];
+        final boolean samePosition = (table[bucket] ^ preferredData) == hash;
+        final int index;
+        if (samePosition
+                || (preferredData == 0)
+                || (getDepth(preferredData) <= depth)
+                || (getGeneration(preferredData) != generation)) {
+            index = bucket;
+        } else {
+            index = bucket + LONGS_PER_ENTRY;
+        }
+        table[index] = hash ^ data;
+        table[index + 1] = data;
+        stores.increment();
+    }
+
+    private int bucketIndex(long hash) {
+        // the low bits pick the bucket, the entry checks all 64
+        return ((int) hash & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    public static int getMove(long data) {
+        return (int) (data & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int getScore(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int getDepth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xff);
+    }
+
+    public static int getBound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    private static int getGeneration(long data) {
+        return (int) ((data >>> GENERATION_SHIFT) & 0xff);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return probes that missed, and found other positions in the bucket
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+        stores.reset();
+    }
+
+    /**
+     * @return per mille of entries in use, from a sample of the table
+     */
+    public int getUsagePermille() {
+        final int sample = Math.min(1000, getNumberOfEntries());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (table[i * LONGS_PER_ENTRY + 1] != 0) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    @Override
+    public String toString() {
+        return "TranspositionTable [entries=" + getNumberOfEntries() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", collisions=" + getCollisions()
+                + ", stores=" + getStores() + ", usage=" + getUsagePermille() + "/1000]";
+    }
+}
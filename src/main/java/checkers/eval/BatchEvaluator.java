@@ -0,0 +1,17 @@
+package checkers.eval;
+
+/**
+ * Scores many positions at once, see PositionBatch.
+ *
+ * Implementations should loop over the batch in simple passes (no branches,
+ * no objects, one array element per iteration), which is what lets the JIT
+ * unroll and vectorize them.
+ */
+public interface BatchEvaluator {
+
+    /**
+     * @param scores filled for 0..batch.size()-1, from the point of view of
+     *        the side to move in each position
+     */
+    void evaluate(PositionBatch batch, int[] scores);
+}
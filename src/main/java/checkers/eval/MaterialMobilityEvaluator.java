@@ -0,0 +1,154 @@
+package checkers.eval;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+
+/**
+ * Default BatchEvaluator:
+ *   o material - regular pieces and kings
+ *   o mobility - number of non-capturing moves each side has
+ *   o back rank - regular pieces still on their own first row, which stops
+ *     the opponent from promoting there
+ *
+ * Mobility is computed with masks, not by walking squares.  In the dense
+ * square numbering, a step in one direction is a shift of the bitboard by
+ * one of a few amounts (which amount depends on the row).  The constructor
+ * groups the squares by (direction, shift), so each group is one
+ * "(pieces &amp; mask) shifted, &amp; empty" per position.
+ */
+public class MaterialMobilityEvaluator implements BatchEvaluator {
+    public static final int MAN = 100;
+    public static final int KING = 150;
+    public static final int MOBILITY = 2;
+    public static final int BACK_RANK = 6;
+
+    private final int numberOfSquares;
+    private final long allSquares;
+
+    // BLACK starts on the top row, RED on the bottom row
+    private final long blackBackRank;
+    private final long redBackRank;
+
+    // moving down: destination = (source & downMasks[g]) << downShifts[g]
+    private final long[] downMasks;
+    private final int[] downShifts;
+    // moving up: destination = (source & upMasks[g]) >>> upShifts[g]
+    private final long[] upMasks;
+    private final int[] upShifts;
+
+    public MaterialMobilityEvaluator(BoardGeometry geometry) {
+        numberOfSquares = geometry.getNumberOfSquares();
+        if (numberOfSquares > BitBoard.MAX_SQUARES) {
+            throw new RuntimeException("Cannot evaluate " + numberOfSquares + " squares, max=" + BitBoard.MAX_SQUARES);
+        }
+        allSquares = new BitBoard(numberOfSquares).getAllSquares();
+
+        long top = 0;
+        long bottom = 0;
+        for (int square = 0; square < numberOfSquares; square++) {
+            if (geometry.getY(square) == 1) {
+                top |= 1L << square;
+            }
+            if (geometry.getY(square) == geometry.getSizeY()) {
+                bottom |= 1L << square;
+            }
+        }
+        blackBackRank = top;
+        redBackRank = bottom;
+
+        List<long[]> down = new ArrayList<>();
+        List<long[]> up = new ArrayList<>();
+        for (int dir = 0; dir < BoardGeometry.NUMBER_OF_DIRECTIONS; dir++) {
+            final boolean isDown = (dir == BoardGeometry.DOWN_LEFT) || (dir == BoardGeometry.DOWN_RIGHT);
+            // shift -> mask, for this direction only
+            List<long[]> groups = new ArrayList<>();
+            for (int square = 0; square < numberOfSquares; square++) {
+                final int to = geometry.getNeighbour(square, dir);
+                if (to >= 0) {
+                    addToGroup(groups, Math.abs(to - square), square);
+                }
+            }
+            (isDown ? down : up).addAll(groups);
+        }
+        downShifts = new int[down.size()];
+        downMasks = new long[down.size()];
+        for (int g = 0; g < down.size(); g++) {
+            downShifts[g] = (int) down.get(g)[0];
+            downMasks[g] = down.get(g)[1];
+        }
+        upShifts = new int[up.size()];
+        upMasks = new long[up.size()];
+        for (int g = 0; g < up.size(); g++) {
+            upShifts[g] = (int) up.get(g)[0];
+            upMasks[g] = up.get(g)[1];
+        }
+    }
+
+    // groups are {shift, mask}
+    private static void addToGroup(List<long[]> groups, int shift, int square) {
+        for (long[] group : groups) {
+            if (group[0] == shift) {
+                group[1] |= 1L << square;
+                return;
+            }
+        }
+        groups.add(new long[] { shift, 1L << square });
+    }
+
+    /**
+     * @return number of (direction, shift) groups, i.e. mobility passes per batch
+     */
+    public int getNumberOfShiftGroups() {
+        return downShifts.length + upShifts.length;
+    }
+
+    @Override
+    public void evaluate(PositionBatch batch, int[] scores) {
+        if (batch.getNumberOfSquares() != numberOfSquares) {
+            throw new RuntimeException("size mismatch " + numberOfSquares + " vs " + batch.getNumberOfSquares());
+        }
+        final int n = batch.size();
+        final long[] black = batch.getBlack();
+        final long[] red = batch.getRed();
+        final long[] kings = batch.getKings();
+        final int[] redToMove = batch.getRedToMove();
+
+        // material and back rank, from BLACK's point of view
+        for (int i = 0; i < n; i++) {
+            final long blackMen = black[i] & ~kings[i];
+            final long redMen = red[i] & ~kings[i];
+            scores[i] = MAN * (Long.bitCount(blackMen) - Long.bitCount(redMen))
+                      + KING * (Long.bitCount(black[i] & kings[i]) - Long.bitCount(red[i] & kings[i]))
+                      + BACK_RANK * (Long.bitCount(blackMen & blackBackRank) - Long.bitCount(redMen & redBackRank));
+        }
+
+        // mobility: black pieces and red kings move down ...
+        for (int g = 0; g < downShifts.length; g++) {
+            final long mask = downMasks[g];
+            final int shift = downShifts[g];
+            for (int i = 0; i < n; i++) {
+                final long empty = ~(black[i] | red[i]) & allSquares;
+                scores[i] += MOBILITY * (Long.bitCount(((black[i] & mask) << shift) & empty)
+                                       - Long.bitCount(((red[i] & kings[i] & mask) << shift) & empty));
+            }
+        }
+        // ... red pieces and black kings move up
+        for (int g = 0; g < upShifts.length; g++) {
+            final long mask = upMasks[g];
+            final int shift = upShifts[g];
+            for (int i = 0; i < n; i++) {
+                final long empty = ~(black[i] | red[i]) & allSquares;
+                scores[i] += MOBILITY * (Long.bitCount(((black[i] & kings[i] & mask) >>> shift) & empty)
+                                       - Long.bitCount(((red[i] & mask) >>> shift) & empty));
+            }
+        }
+
+        // to the side to move's point of view: negate (x ^ -1) + 1 when red is to move
+        for (int i = 0; i < n; i++) {
+            scores[i] = (scores[i] ^ -redToMove[i]) + redToMove[i];
+        }
+    }
+}
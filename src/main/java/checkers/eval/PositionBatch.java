@@ -0,0 +1,112 @@
+package checkers.eval;
+
+import checkers.model.BitBoard;
+import checkers.model.CheckerSide;
+
+/**
+ * Many positions of the same board size, stored "struct of arrays":
+ * position i is black[i], red[i], kings[i] (BitBoard masks) and redToMove[i]
+ * (0 if BLACK is to move, 1 if RED is).
+ *
+ * The arrays are allocated once, at capacity.  clear() and add() reuse them,
+ * so filling a batch over and over creates no garbage.
+ */
+public class PositionBatch {
+    private final int numberOfSquares;
+
+    private final long[] black;
+    private final long[] red;
+    private final long[] kings;
+    private final int[] redToMove;
+    private int size = 0;
+
+    public PositionBatch(int numberOfSquares, int capacity) {
+        if ((numberOfSquares < 0) || (numberOfSquares > BitBoard.MAX_SQUARES)) {
+            throw new RuntimeException("PositionBatch cannot hold " + numberOfSquares + " squares, max=" + BitBoard.MAX_SQUARES);
+        }
+        this.numberOfSquares = numberOfSquares;
+        black = new long[capacity];
+        red = new long[capacity];
+        kings = new long[capacity];
+        redToMove = new int[capacity];
+    }
+
+    public int getNumberOfSquares() {
+        return numberOfSquares;
+    }
+
+    public int capacity() {
+        return black.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == black.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return index of the newly added position
+     */
+    public int add(BitBoard position) {
+        if (isFull()) {
+            throw new RuntimeException("PositionBatch is full, capacity=" + capacity());
+        }
+        size++;
+        set(size - 1, position);
+        return size - 1;
+    }
+
+    public void set(int index, BitBoard position) {
+        checkIndex(index);
+        if (position.getNumberOfSquares() != numberOfSquares) {
+            throw new RuntimeException("size mismatch " + numberOfSquares + " vs " + position.getNumberOfSquares());
+        }
+        black[index] = position.getBlack();
+        red[index] = position.getRed();
+        kings[index] = position.getKings();
+        redToMove[index] = position.isBlackToMove() ? 0 : 1;
+    }
+
+    /**
+     * Copy position index into target.
+     */
+    public void get(int index, BitBoard target) {
+        checkIndex(index);
+        if (target.getNumberOfSquares() != numberOfSquares) {
+            throw new RuntimeException("size mismatch " + numberOfSquares + " vs " + target.getNumberOfSquares());
+        }
+        target.setMasks(black[index], red[index], kings[index],
+                        (redToMove[index] == 0) ? CheckerSide.BLACK : CheckerSide.RED);
+    }
+
+    // The arrays themselves, valid for 0..size()-1.  For evaluators - do not modify.
+
+    public long[] getBlack() {
+        return black;
+    }
+
+    public long[] getRed() {
+        return red;
+    }
+
+    public long[] getKings() {
+        return kings;
+    }
+
+    public int[] getRedToMove() {
+        return redToMove;
+    }
+
+    private void checkIndex(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new RuntimeException("Invalid index " + index + ", size=" + size);
+        }
+    }
+}
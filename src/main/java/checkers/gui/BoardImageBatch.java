@@ -0,0 +1,158 @@
+package checkers.gui;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+
+/**
+ * Renders many positions in parallel, e.g. to export diagrams.
+ *
+ * Every worker thread has its own BoardImageRenderer (so its own sprites)
+ * and one image, which it reuses for all the positions it takes:  memory
+ * use depends on the number of threads, not on the number of positions.
+ */
+public class BoardImageBatch {
+    private final Board board;
+    private final PiecePaintStrategy piecePainter;
+    private final int squareSize;
+    private final int threads;
+
+    /**
+     * @param board for the layout, see BoardImageRenderer
+     * @param piecePainter shared by the threads, so it must not change while rendering
+     */
+    public BoardImageBatch(Board board, PiecePaintStrategy piecePainter, int squareSize, int threads) {
+        if (threads < 1) {
+            throw new RuntimeException("threads must be at least 1, was " + threads);
+        }
+        this.board = board;
+        this.piecePainter = piecePainter;
+        this.squareSize = squareSize;
+        this.threads = threads;
+        // fail here, not in the threads
+        new BoardImageRenderer(board, piecePainter, squareSize);
+    }
+
+    /**
+     * Render positions, handing every image to listener.  Stops at the first
+     * exception, which is thrown (wrapped if it is not an IOException).
+     */
+    public void renderAll(final List<BitBoard> positions, final BoardImageListener listener) throws IOException {
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0, n = Math.min(threads, positions.size()); i < n; i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final BoardImageRenderer renderer = new BoardImageRenderer(board, piecePainter, squareSize);
+                        final BufferedImage image = renderer.createImage();
+                        int index;
+                        while ((failure.get() == null) && ((index = next.getAndIncrement()) < positions.size())) {
+                            renderer.render(positions.get(index), image);
+                            listener.imageRendered(index, image);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            }, "render-" + (i + 1));
+            worker.start();
+            workers.add(worker);
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        final Throwable t = failure.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new RuntimeException("Rendering failed", t);
+        }
+    }
+
+    /**
+     * Render positions as PNG files prefix00000.png, prefix00001.png, ...
+     * (the number is the index in positions) into directory.
+     */
+    public void writePngFiles(List<BitBoard> positions, final Path directory, final String prefix) throws IOException {
+        renderAll(positions, new BoardImageListener() {
+            @Override
+            public void imageRendered(int index, BufferedImage image) throws IOException {
+                try (FileChannel out = FileChannel.open(directory.resolve(getFileName(prefix, index)),
+                                                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    BoardImageRenderer.writePng(image, out);
+                }
+            }
+        });
+    }
+
+    public static String getFileName(String prefix, int index) {
+        return String.format("%s%05d.png", prefix, index);
+    }
+
+    /**
+     * Render the positions of a text file, one pieces string (see
+     * BitBoard.fromPiecesString()) per line:  positions.txt directory [squareSize [threads]]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BoardImageBatch positions.txt directory [squareSize [threads]]");
+            System.exit(1);
+        }
+        List<BitBoard> positions = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (! line.isEmpty()) {
+                positions.add(BitBoard.fromPiecesString(line));
+            }
+        }
+        if (positions.isEmpty()) {
+            return;
+        }
+        final int squareSize = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+        final int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        // n squares in play on a size x size board
+        final int size = (int) Math.round(Math.sqrt(2 * positions.get(0).getNumberOfSquares()));
+        StringBuilder empty = new StringBuilder();
+        for (int i = 0; i < positions.get(0).getNumberOfSquares(); i++) {
+            empty.append('-');
+        }
+        Board board = BoardFactoryCheckers.createCheckerBoard(size, empty.toString());
+
+        final long startNanos = System.nanoTime();
+        Path directory = Files.createDirectories(Paths.get(args[1]));
+        new BoardImageBatch(board, new PiecePaintStrategyCheckers(board), squareSize, threads)
+            .writePngFiles(positions, directory, "position");
+        System.out.println(positions.size() + " images in " + (System.nanoTime() - startNanos) / 1000000 + "ms");
+    }
+}
@@ -0,0 +1,15 @@
+package checkers.gui;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Receives every image of a BoardImageBatch.
+ *
+ * Called from the batch's worker threads, so it must be thread-safe, and
+ * images do not arrive in order.  The image is reused as soon as the call
+ * returns.
+ */
+public interface BoardImageListener {
+    void imageRendered(int index, BufferedImage image) throws IOException;
+}
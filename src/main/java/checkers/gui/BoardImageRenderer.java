@@ -0,0 +1,149 @@
+package checkers.gui;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import checkers.metrics.Metrics;
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.BoardGeometry;
+import checkers.model.Piece;
+
+/**
+ * Draws positions into images, the way BoardPainter draws them on screen,
+ * but without any component:  it works with java.awt.headless=true.
+ *
+ * The board is the layout only (square colors), the pieces come from the
+ * BitBoard passed to render().  The empty board and the piece sprites are
+ * drawn once, so rendering a position is one image copy plus one sprite
+ * copy per piece.
+ *
+ * Not thread-safe, see BoardImageBatch for rendering in parallel.
+ */
+public class BoardImageRenderer {
+    private final BoardGeometry geometry;
+    private final int squareSize;
+    private final PieceSpriteCache sprites;
+    private final BufferedImage background;
+
+    /**
+     * @param board for the layout and the square colors, its pieces are not used
+     */
+    public BoardImageRenderer(Board board, PiecePaintStrategy piecePainter, int squareSize) {
+        if (squareSize < 4) {
+            throw new RuntimeException("squareSize must be at least 4, was " + squareSize);
+        }
+        this.geometry = board.getGeometry();
+        this.squareSize = squareSize;
+
+        // same proportions as BoardPainter:  square 25% bigger than piece
+        final int pieceSize = (int) (squareSize / 1.25);
+        this.sprites = new PieceSpriteCache(piecePainter);
+        sprites.setSizes(squareSize, pieceSize, null, new Font(Font.DIALOG, Font.BOLD, Math.max(6, pieceSize / 3)));
+
+        this.background = createImage();
+        Graphics2D g = background.createGraphics();
+        try {
+            for (Point point : board.generatePointsTopDownLeftRight()) {
+                g.setColor(piecePainter.getColorForPoint(point));
+                g.fillRect((point.x - 1) * squareSize, (point.y - 1) * squareSize, squareSize, squareSize);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    public int getSquareSize() {
+        return squareSize;
+    }
+
+    public int getWidth() {
+        return geometry.getSizeX() * squareSize;
+    }
+
+    public int getHeight() {
+        return geometry.getSizeY() * squareSize;
+    }
+
+    /**
+     * @return a new image of the right size for render(BitBoard, BufferedImage)
+     */
+    public BufferedImage createImage() {
+        return PieceSpriteCache.createImage(null, getWidth(), getHeight(), Transparency.OPAQUE);
+    }
+
+    public BufferedImage render(BitBoard position) {
+        BufferedImage ret = createImage();
+        render(position, ret);
+        return ret;
+    }
+
+    /**
+     * Draw position over all of target.
+     *
+     * @param target see createImage()
+     */
+    public void render(BitBoard position, BufferedImage target) {
+        if (position.getNumberOfSquares() != geometry.getNumberOfSquares()) {
+            throw new RuntimeException("Position has " + position.getNumberOfSquares() + " squares, board has "
+                                       + geometry.getNumberOfSquares());
+        }
+        if ((target.getWidth() != getWidth()) || (target.getHeight() != getHeight())) {
+            throw new RuntimeException("Image must be " + getWidth() + "x" + getHeight() + ", was "
+                                       + target.getWidth() + "x" + target.getHeight());
+        }
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        Graphics2D g = target.createGraphics();
+        try {
+            g.drawImage(background, 0, 0, null);
+            for (long bits = position.getOccupied(); bits != 0; bits &= bits - 1) {
+                final int square = Long.numberOfTrailingZeros(bits);
+                final Piece piece = position.getPiece(square);
+                g.drawImage(sprites.getSprite(piece), (geometry.getX(square) - 1) * squareSize,
+                            (geometry.getY(square) - 1) * squareSize, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        if (Metrics.ENABLED) {
+            Metrics.PAINT.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Encode image as PNG straight into channel, which is left open.  Only
+     * a small buffer sits in between, there is no temporary file or
+     * in-memory copy of the whole PNG.
+     */
+    public static void writePng(RenderedImage image, WritableByteChannel channel) throws IOException {
+        writePng(image, Channels.newOutputStream(channel));
+    }
+
+    public static void writePng(RenderedImage image, OutputStream out) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+        if (! writers.hasNext()) {
+            throw new IOException("No PNG writer");
+        }
+        final ImageWriter writer = writers.next();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(image);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
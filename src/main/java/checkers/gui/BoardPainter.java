@@ -5,17 +5,34 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
-import java.awt.RenderingHints;
+import java.awt.Rectangle;
+import java.awt.Transparency;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.image.BufferedImage;
 
 import javax.swing.JComponent;
 
+import checkers.metrics.Metrics;
 import checkers.model.Board;
+import checkers.model.BoardChanges;
+import checkers.model.BoardGeometry;
+import checkers.model.BoardListener;
 import checkers.model.Piece;
 
+/**
+ * Paints a Board, and lets the user drag pieces to move them.
+ *
+ * The empty checkerboard is rendered once into an image, and every kind of
+ * piece once into a sprite (PieceSpriteCache);  both are rebuilt only when
+ * the sizes change.  A paint copies the background and the sprites of the
+ * squares inside the clip, nothing else.  Dragging repaints just the old
+ * and new rectangles under the dragged piece, and a change to the board
+ * (reported by a BoardListener) just the squares it changed, so a frame
+ * allocates (next to) nothing.
+ */
 public class BoardPainter extends JComponent {
     private static final long serialVersionUID = 1L;
 
@@ -29,6 +46,13 @@ public class BoardPainter extends JComponent {
     // encapsulate all of the "drag" information:
     private DragHelper dragHelper;
 
+    // cached rendering, see ensureCaches()
+    private final PieceSpriteCache sprites;
+    private BufferedImage background;
+    private int backgroundSquareSize = -1;
+    // reused by paintComponent()
+    private final Rectangle clip = new Rectangle();
+
     public BoardPainter(Board board, PiecePaintStrategy piecePainter) {
         super();
         this.board = board;
@@ -36,9 +60,18 @@ public class BoardPainter extends JComponent {
 
         // helper aka "strategies"
         this.piecePainter = piecePainter;
+        this.sprites = new PieceSpriteCache(piecePainter);
 
         // track dragging, set up listeners, etc.:
         dragHelper = new DragHelper();
+
+        // moves made here, by undo, or by anyone else sharing the board
+        board.addBoardListener(new BoardListener() {
+            @Override
+            public void boardChanged(Board changed, BoardChanges changes) {
+                repaintSquares(changes.getChangedSquares());
+            }
+        });
     }
 
     public int getCurrentPieceSize() {
@@ -59,49 +92,67 @@ public class BoardPainter extends JComponent {
 
     @Override
     protected void paintComponent(Graphics g) {
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        ensureCaches();
+        if (g.getClipBounds(clip) == null) {
+            clip.setBounds(0, 0, getWidth(), getHeight());
+        }
 
         paintCheckerBoard(g);
 
         paintPieces(g);
+        if (Metrics.ENABLED) {
+            Metrics.PAINT.recordSince(startNanos);
+        }
     }
 
-    private void paintCheckerBoard(Graphics g) {
-        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                                          RenderingHints.VALUE_ANTIALIAS_ON);
-        // AWESOME: if you setRenderingHints, then there is a chance that
-        //          the 1st square will stay black until a refresh!!!
-        // This "useless" fillRect() stops that bug from showing.
-        g.fillRect(0, 0, 1, 1);
-        // Bug from 2006: https://bugs.openjdk.java.net/browse/JDK-6468831
-        // Bug from 2009: https://bugs.openjdk.java.net/browse/JDK-6808062
-        // If you don't set the Hints, then the "K" does not show up on king pieces
-
-
+    private void ensureCaches() {
         final int squareSize = getSquareSize();
-
-        for (Point point : board.generatePointsTopDownLeftRight()) {
-            int gx = (point.x - 1) * squareSize;
-            int gy = (point.y - 1) * squareSize;
-            Color color = piecePainter.getColorForPoint(point);
-            g.setColor(color);
-            g.fillRect(gx, gy, squareSize, squareSize);
+        sprites.setSizes(squareSize, getCurrentPieceSize(), getGraphicsConfiguration(), getFont());
+        if ((background == null) || (backgroundSquareSize != squareSize)) {
+            background = PieceSpriteCache.createImage(getGraphicsConfiguration(), board.getSizeX() * squareSize,
+                                                      board.getSizeY() * squareSize, Transparency.OPAQUE);
+            backgroundSquareSize = squareSize;
+            Graphics2D g = background.createGraphics();
+            try {
+                for (Point point : board.generatePointsTopDownLeftRight()) {
+                    g.setColor(piecePainter.getColorForPoint(point));
+                    g.fillRect((point.x - 1) * squareSize, (point.y - 1) * squareSize, squareSize, squareSize);
+                }
+            } finally {
+                g.dispose();
+            }
         }
     }
 
-    private void paintPieces(Graphics g) {
-
+    private void paintCheckerBoard(Graphics g) {
+        // the image is clipped like everything else
+        g.drawImage(background, 0, 0, null);
+    }
 
+    private void paintPieces(Graphics g) {
         paintPiecesNotBeingDragged(g);
 
         paintPieceBeingDragged(g);
     }
 
+    // only the squares inside the clip
     private void paintPiecesNotBeingDragged(Graphics g) {
-        for (Point point : board.generatePointsTopDownLeftRight()) {
-            Piece piece = board.getPiece(point);
-            if (piece != null) {
-                if (! dragHelper.isPieceBeingDragged(piece)) {
-                    drawPiece(point, piece, g);
+        final BoardGeometry geometry = board.getGeometry();
+        final int squareSize = getSquareSize();
+        final int firstX = Math.max(1, clip.x / squareSize + 1);
+        final int lastX = Math.min(board.getSizeX(), (clip.x + clip.width - 1) / squareSize + 1);
+        final int firstY = Math.max(1, clip.y / squareSize + 1);
+        final int lastY = Math.min(board.getSizeY(), (clip.y + clip.height - 1) / squareSize + 1);
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                final int square = geometry.getSquareNumber(x, y);
+                if (square < 0) {
+                    continue;
+                }
+                Piece piece = board.getPiece(square);
+                if ((piece != null) && ! dragHelper.isPointBeingDragged(x, y)) {
+                    g.drawImage(sprites.getSprite(piece), (x - 1) * squareSize, (y - 1) * squareSize, null);
                 }
             }
         }
@@ -111,8 +162,24 @@ public class BoardPainter extends JComponent {
         dragHelper.paintPieceBeingDragged(g);
     }
 
+    private void repaintSquare(int x, int y) {
+        final int squareSize = getSquareSize();
+        repaint((x - 1) * squareSize, (y - 1) * squareSize, squareSize, squareSize);
+    }
 
+    // a piece drawn centered on (cx, cy)
+    private void repaintPieceAt(int cx, int cy) {
+        final int squareSize = getSquareSize();
+        repaint(cx - squareSize / 2, cy - squareSize / 2, squareSize, squareSize);
+    }
 
+    private void repaintSquares(long squares) {
+        final BoardGeometry geometry = board.getGeometry();
+        for (long bits = squares; bits != 0; bits &= bits - 1) {
+            final int square = Long.numberOfTrailingZeros(bits);
+            repaintSquare(geometry.getX(square), geometry.getY(square));
+        }
+    }
 
     public Point getPointFromGuiXY(int guiX, int guiY) {
         int over = guiX / getSquareSize();
@@ -134,10 +201,9 @@ public class BoardPainter extends JComponent {
     // "lower level" draw, used by "Dragging" code.
     // allows piece to be drawn not centered on a square.
     public void drawPiece(int cx, int cy, Piece piece, Graphics g) {
+        ensureCaches();
         final int squareSize = getSquareSize();
-        final int pieceSize = getCurrentPieceSize();
-
-        piecePainter.draw(cx, cy, piece, g, squareSize, pieceSize);
+        g.drawImage(sprites.getSprite(piece), cx - squareSize / 2, cy - squareSize / 2, null);
     }
 
 
@@ -153,9 +219,6 @@ public class BoardPainter extends JComponent {
             addMouseMotionListener(getMouseMotionAdapter());
         }
 
-        public void triggerRepaint() {
-            repaint();
-        }
         public void paintPieceBeingDragged(Graphics g) {
             if (inDrag) {
                 if (dragging != null) {
@@ -178,8 +241,9 @@ public class BoardPainter extends JComponent {
             }
         }
 
-        public boolean isPieceBeingDragged(Piece piece) {
-            if (piece.equals(getPieceBeingDragged())) {
+        // pieces are shared (all black kings are equal), so compare where they are
+        public boolean isPointBeingDragged(int x, int y) {
+            if (inDrag && (dragging != null) && (dragging.x == x) && (dragging.y == y)) {
                 return true;
             } else {
                 return false;
@@ -202,9 +266,12 @@ public class BoardPainter extends JComponent {
                             // start dragging:
                             dragging = point;
                             inDrag = true;
+                            draggingCx = x;
+                            draggingCy = y;
+                            repaintSquare(point.x, point.y);
+                            repaintPieceAt(x, y);
                         }
                     }
-                    System.out.println("me x=" + x + " y=" + y + " inDrag=" + inDrag + " dragging=" + dragging);
                 }
 
                 @Override
@@ -224,14 +291,16 @@ public class BoardPainter extends JComponent {
                     final int y = me.getY();
                     Point point = findPointForXY(x, y);
 
+                    // the piece goes back to its square, or moves
+                    repaintSquare(dragging.x, dragging.y);
+                    repaintPieceAt(draggingCx, draggingCy);
                     if (board.isValidToMove(dragging, point)) {
+                        // the BoardListener repaints the squares it changed
                         board.movePiece(dragging, point);
                     } else {
                         // nothing  TODO: better option?
                     }
                     dragging = null;
-
-                    triggerRepaint();
                 }
             };
         }
@@ -240,9 +309,11 @@ public class BoardPainter extends JComponent {
                 @Override
                 public void mouseDragged(MouseEvent me) {
                     if (inDrag) {
+                        // where the piece was, and where it is now
+                        repaintPieceAt(draggingCx, draggingCy);
                         draggingCx = me.getX(); // - deltaX;
                         draggingCy = me.getY(); //  - deltaY;
-                        triggerRepaint();
+                        repaintPieceAt(draggingCx, draggingCy);
                     }
                 }
             };
@@ -0,0 +1,88 @@
+package checkers.gui;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+import checkers.model.Piece;
+
+/**
+ * One pre-rendered image ("sprite") per kind of piece, squareSize pixels
+ * square, drawn by the PiecePaintStrategy with the piece centered.  Pieces
+ * are shared flyweights with value equality, so there are only a handful
+ * of sprites, and a lookup allocates nothing.
+ *
+ * Call setSizes() when the sizes change;  it throws the sprites away.
+ */
+public class PieceSpriteCache {
+    private final PiecePaintStrategy piecePainter;
+    private final Map<Piece, BufferedImage> sprites = new HashMap<>();
+    private GraphicsConfiguration graphicsConfiguration;
+    private Font font;
+    private int squareSize = -1;
+    private int pieceSize = -1;
+
+    public PieceSpriteCache(PiecePaintStrategy piecePainter) {
+        this.piecePainter = piecePainter;
+    }
+
+    /**
+     * @param graphicsConfiguration to create images the screen can draw
+     *        fast, or null (e.g. headless)
+     * @param font for markers such as the "K" of kings, or null
+     */
+    public void setSizes(int squareSize, int pieceSize, GraphicsConfiguration graphicsConfiguration, Font font) {
+        if ((squareSize != this.squareSize) || (pieceSize != this.pieceSize)
+                || (graphicsConfiguration != this.graphicsConfiguration) || ! equals(font, this.font)) {
+            sprites.clear();
+            this.squareSize = squareSize;
+            this.pieceSize = pieceSize;
+            this.graphicsConfiguration = graphicsConfiguration;
+            this.font = font;
+        }
+    }
+
+    private static boolean equals(Font a, Font b) {
+        return (a == null) ? (b == null) : a.equals(b);
+    }
+
+    public int getSquareSize() {
+        return squareSize;
+    }
+
+    public BufferedImage getSprite(Piece piece) {
+        BufferedImage ret = sprites.get(piece);
+        if (ret == null) {
+            ret = createImage(graphicsConfiguration, squareSize, squareSize, Transparency.TRANSLUCENT);
+            Graphics2D g = ret.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                if (font != null) {
+                    g.setFont(font);
+                }
+                piecePainter.draw(squareSize / 2, squareSize / 2, piece, g, squareSize, pieceSize);
+            } finally {
+                g.dispose();
+            }
+            sprites.put(piece, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * @return a compatible (accelerated when possible) image, or a plain one
+     */
+    public static BufferedImage createImage(GraphicsConfiguration graphicsConfiguration, int width, int height,
+                                            int transparency) {
+        if (graphicsConfiguration != null) {
+            return graphicsConfiguration.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height, (transparency == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB
+                                                                                      : BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,155 @@
+package checkers.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import checkers.model.BoardGeometry;
+import checkers.model.RuleSet;
+
+/**
+ * Reads the games GameWriter wrote, one at a time, into a reused
+ * GameRecord:  no objects are created per game, and nothing is replayed
+ * unless the caller asks the GameRecord to.
+ *
+ * Not thread-safe.
+ */
+public class GameReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private final int positionSize;
+    private boolean endOfFile = false;
+    private long games = 0;
+
+    private GameReader(FileChannel channel, ByteBuffer buffer, BoardGeometry geometry, RuleSet rules) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.geometry = geometry;
+        this.rules = rules;
+        this.positionSize = PositionCodec.size(geometry.getNumberOfSquares());
+    }
+
+    public static GameReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(GameWriter.HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            header.limit(GameWriter.HEADER_SIZE_VERSION_1);
+            readFully(channel, header);
+            if ((header.remaining() < GameWriter.HEADER_SIZE_VERSION_1) || (header.getInt() != GameWriter.MAGIC)) {
+                throw new IOException("Not a game file: " + file);
+            }
+            final int version = header.getInt();
+            if ((version != 1) && (version != GameWriter.VERSION)) {
+                throw new IOException("Unsupported game file version " + version + " in " + file);
+            }
+            final BoardGeometry geometry = BoardGeometry.forSize(header.getInt());
+            RuleSet rules = RuleSet.ENGLISH;
+            if (version != 1) {
+                header.clear();
+                header.limit(GameWriter.HEADER_SIZE - GameWriter.HEADER_SIZE_VERSION_1);
+                readFully(channel, header);
+                if (header.remaining() < GameWriter.HEADER_SIZE - GameWriter.HEADER_SIZE_VERSION_1) {
+                    throw new IOException("Game file is truncated: " + file);
+                }
+                rules = RuleSet.forId(header.getInt());
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(GameWriter.BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            buffer.flip();
+            return new GameReader(channel, buffer, geometry, rules);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer header) throws IOException {
+        while (header.hasRemaining() && (channel.read(header) >= 0)) {
+            // keep reading
+        }
+        header.flip();
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * @return games read so far
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Read the next game into target.
+     *
+     * @return false at the end of the file (target is unchanged)
+     */
+    public boolean next(GameRecord target) throws IOException {
+        if (! target.getGeometry().equalsType(geometry)) {
+            throw new RuntimeException("GameRecord is for a " + target.getGeometry().getSizeY() + " board, file is for "
+                                       + geometry.getSizeY());
+        }
+        if (target.getRules() != rules) {
+            throw new RuntimeException("GameRecord is for " + target.getRules() + " rules, file is for " + rules);
+        }
+        if (! fill(GameWriter.RECORD_HEADER_SIZE)) {
+            if (buffer.hasRemaining()) {
+                throw new IOException("Game file is truncated after " + games + " games");
+            }
+            return false;
+        }
+        final int plies = buffer.getShort() & 0xffff;
+        final int result = buffer.get();
+        final int flags = buffer.get();
+        final boolean explicitStart = (flags & GameWriter.EXPLICIT_START) != 0;
+        if (! fill((explicitStart ? positionSize : 0) + 2 * plies)) {
+            throw new IOException("Game file is truncated after " + games + " games");
+        }
+        if (explicitStart) {
+            PositionCodec.read(buffer, target.getStart());
+        } else {
+            target.loadStandardStart();
+        }
+        target.load(result, plies);
+        for (int ply = 0; ply < plies; ply++) {
+            target.setRawDelta(ply, buffer.getShort());
+        }
+        games++;
+        return true;
+    }
+
+    /**
+     * Make sure at least size bytes are in the buffer.
+     *
+     * @return false if the file ends first
+     */
+    private boolean fill(int size) throws IOException {
+        if (buffer.remaining() >= size) {
+            return true;
+        }
+        buffer.compact();
+        while ((buffer.position() < size) && ! endOfFile) {
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,307 @@
+package checkers.io;
+
+import java.util.Arrays;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+/**
+ * One game: a start position, the moves, and the result.  Meant to be
+ * reused, GameReader.next() overwrites it in place.
+ *
+ * Every ply is stored as a 16 bit "delta":  from square (6 bits), to
+ * square (6 bits), and which of the legal moves from/to those squares it
+ * was (4 bits, almost always 0 - only multi-jumps along different paths
+ * share from and to).  getFrom()/getTo() read the deltas directly;  the
+ * captured pieces and the positions come from replay(), which runs the
+ * MoveGenerator of the game's rules:  a delta only means something under
+ * the rules it was recorded with.
+ */
+public class GameRecord {
+    public static final int UNKNOWN = 0;
+    public static final int BLACK_WIN = 1;
+    public static final int RED_WIN = 2;
+    public static final int DRAW = 3;
+
+    public static final int MAX_PLIES = 0xffff;
+
+    private static final int SQUARE_BITS = 6;
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+    private static final int MAX_ORDINAL = 15;
+
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private final MoveGenerator moveGenerator;
+    private final MoveList moves = new MoveList();
+    private final BitBoard standardStart;
+
+    private final BitBoard start;
+    private int result = UNKNOWN;
+    private int plies = 0;
+    private short[] deltas = new short[256];
+
+    // position after the last ply, only kept up to date while recording
+    private final BitBoard current;
+    private boolean currentValid = true;
+
+    /**
+     * A game under English rules.
+     */
+    public GameRecord(BoardGeometry geometry) {
+        this(geometry, RuleSet.ENGLISH);
+    }
+
+    public GameRecord(BoardGeometry geometry, RuleSet rules) {
+        this.geometry = geometry;
+        this.rules = rules;
+        this.moveGenerator = new MoveGenerator(geometry, rules);
+        this.standardStart = new BitBoard(geometry.getNumberOfSquares());
+        setStandardStart(geometry, standardStart);
+        this.start = standardStart.copy();
+        this.current = standardStart.copy();
+    }
+
+    /**
+     * Men on all but the two middle rows, BLACK at the top, BLACK to move.
+     */
+    public static void setStandardStart(BoardGeometry geometry, BitBoard target) {
+        final int rowsPerSide = geometry.getSizeY() / 2 - 1;
+        long black = 0;
+        long red = 0;
+        for (int square = 0; square < geometry.getNumberOfSquares(); square++) {
+            final int y = geometry.getY(square);
+            if (y <= rowsPerSide) {
+                black |= 1L << square;
+            } else if (y > geometry.getSizeY() - rowsPerSide) {
+                red |= 1L << square;
+            }
+        }
+        target.setMasks(black, red, 0, CheckerSide.BLACK);
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Start a new game from the standard position.
+     */
+    public void reset() {
+        reset(standardStart);
+    }
+
+    /**
+     * Start a new game from startPosition (copied).
+     */
+    public void reset(BitBoard startPosition) {
+        start.copyFrom(startPosition);
+        current.copyFrom(startPosition);
+        currentValid = true;
+        result = UNKNOWN;
+        plies = 0;
+    }
+
+    /**
+     * Record the next ply.
+     *
+     * @throws RuntimeException if it is not a legal move in the current position
+     */
+    public void addMove(int move, long captures) {
+        prepareAdd();
+        final int n = moveGenerator.generateMoves(current, moves);
+        for (int i = 0; i < n; i++) {
+            if ((moves.getMove(i) == move) && (moves.getCaptures(i) == captures)) {
+                add(moves, i);
+                return;
+            }
+        }
+        throw new RuntimeException("Illegal move " + MoveList.toString(move, captures) + " in " + current);
+    }
+
+    /**
+     * Record the next ply, legalMoves[index], without generating the moves
+     * again.
+     *
+     * @param legalMoves all the legal moves in the current position, as
+     *        MoveGenerator.generateMoves() returned them
+     */
+    public void addMove(MoveList legalMoves, int index) {
+        prepareAdd();
+        add(legalMoves, index);
+    }
+
+    private void prepareAdd() {
+        if (plies == MAX_PLIES) {
+            throw new RuntimeException("Game is too long, max plies=" + MAX_PLIES);
+        }
+        if (! currentValid) {
+            replay(plies, current);
+            currentValid = true;
+        }
+    }
+
+    private void add(MoveList legalMoves, int index) {
+        final int delta = encodeDelta(legalMoves, index);
+        if (delta < 0) {
+            throw new RuntimeException("Too many moves " + MoveList.toString(legalMoves.getMove(index),
+                                       legalMoves.getCaptures(index)) + " in " + current);
+        }
+        appendDelta((short) delta);
+        current.applyMove(legalMoves.getMove(index), legalMoves.getCaptures(index));
+    }
+
+    /**
+     * @return the 16 bit delta of legalMoves[index], or -1 if more than 16
+     *         legal moves share its from and to squares
+     */
+    public static int encodeDelta(MoveList legalMoves, int index) {
+        final int move = legalMoves.getMove(index);
+        final int from = MoveList.getFrom(move);
+        final int to = MoveList.getTo(move);
+        int ordinal = 0;
+        for (int i = 0; i < index; i++) {
+            if ((MoveList.getFrom(legalMoves.getMove(i)) == from) && (MoveList.getTo(legalMoves.getMove(i)) == to)) {
+                ordinal++;
+            }
+        }
+        if (ordinal > MAX_ORDINAL) {
+            return -1;
+        }
+        return from | (to << SQUARE_BITS) | (ordinal << (2 * SQUARE_BITS));
+    }
+
+    /**
+     * Inverse of encodeDelta().
+     *
+     * @return index of the move in legalMoves, or -1 if it is not there
+     */
+    public static int findDelta(MoveList legalMoves, int delta) {
+        final int from = delta & SQUARE_MASK;
+        final int to = (delta >>> SQUARE_BITS) & SQUARE_MASK;
+        int ordinal = delta >>> (2 * SQUARE_BITS);
+        for (int i = 0, n = legalMoves.size(); i < n; i++) {
+            if ((MoveList.getFrom(legalMoves.getMove(i)) == from) && (MoveList.getTo(legalMoves.getMove(i)) == to)
+                    && (ordinal-- == 0)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendDelta(short delta) {
+        if (plies == deltas.length) {
+            deltas = Arrays.copyOf(deltas, Math.min(2 * deltas.length, MAX_PLIES));
+        }
+        deltas[plies++] = delta;
+    }
+
+    public int getPlies() {
+        return plies;
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    public void setResult(int result) {
+        if ((result < UNKNOWN) || (result > DRAW)) {
+            throw new RuntimeException("Invalid result " + result);
+        }
+        this.result = result;
+    }
+
+    public boolean isStandardStart() {
+        return start.equals(standardStart);
+    }
+
+    public void getStartPosition(BitBoard target) {
+        target.copyFrom(start);
+    }
+
+    public int getFrom(int ply) {
+        return getDelta(ply) & SQUARE_MASK;
+    }
+
+    public int getTo(int ply) {
+        return (getDelta(ply) >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    /**
+     * Play the first plies moves from the start position into target.
+     *
+     * @throws RuntimeException if a stored move is not legal (corrupt record)
+     */
+    public void replay(int plies, BitBoard target) {
+        if ((plies < 0) || (plies > this.plies)) {
+            throw new RuntimeException("plies must be 0.." + this.plies + ", was " + plies);
+        }
+        target.copyFrom(start);
+        for (int ply = 0; ply < plies; ply++) {
+            moveGenerator.generateMoves(target, moves);
+            final int found = findDelta(moves, getDelta(ply));
+            if (found < 0) {
+                throw new RuntimeException("Illegal move " + (getFrom(ply) + 1) + "-" + (getTo(ply) + 1) + " at ply " + ply
+                                           + " in " + target);
+            }
+            target.applyMove(moves.getMove(found), moves.getCaptures(found));
+        }
+    }
+
+    /**
+     * @return the move of ply as a delta, see findDelta()
+     */
+    public int getDelta(int ply) {
+        if ((ply < 0) || (ply >= plies)) {
+            throw new RuntimeException("ply must be 0.." + (plies - 1) + ", was " + ply);
+        }
+        return deltas[ply] & 0xffff;
+    }
+
+    // for GameReader/GameWriter
+
+    /* default */ BitBoard getStart() {
+        return start;
+    }
+
+    /* default */ void loadStandardStart() {
+        start.copyFrom(standardStart);
+    }
+
+    /* default */ short getRawDelta(int ply) {
+        return deltas[ply];
+    }
+
+    /* default */ void load(int result, int plies) {
+        setResult(result);
+        if (deltas.length < plies) {
+            deltas = new short[plies];
+        }
+        this.plies = plies;
+        currentValid = false;
+    }
+
+    /* default */ void setRawDelta(int ply, short delta) {
+        deltas[ply] = delta;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("GameRecord [plies=" + plies + " result=" + result + " moves=");
+        for (int ply = 0; ply < plies; ply++) {
+            if (ply > 0) {
+                sb.append(" ");
+            }
+            sb.append(getFrom(ply) + 1).append("/").append(getTo(ply) + 1);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package checkers.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import checkers.model.BoardGeometry;
+import checkers.model.RuleSet;
+
+/**
+ * Writes GameRecords to a file, through one reusable direct buffer.
+ *
+ * File layout (big-endian):
+ *   int magic, int version, int board size, int rules (RuleSet.getId())
+ *   per game:
+ *     unsigned short plies, byte result, byte flags
+ *     the start position (PositionCodec), only if flags has EXPLICIT_START
+ *     plies * short delta (see GameRecord)
+ *
+ * Version 1 files have no rules in the header, their games are English.
+ *
+ * Not thread-safe.
+ */
+public class GameWriter implements Closeable {
+    /* default */ static final int MAGIC = 0x434b4752; // "CKGR"
+    /* default */ static final int VERSION = 2;
+    /* default */ static final int HEADER_SIZE = 4 * 4;
+    /* default */ static final int HEADER_SIZE_VERSION_1 = 3 * 4;
+    /* default */ static final int RECORD_HEADER_SIZE = 2 + 1 + 1;
+    /* default */ static final int EXPLICIT_START = 1;
+
+    // big enough for the longest possible game
+    /* default */ static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private long games = 0;
+
+    private GameWriter(FileChannel channel, BoardGeometry geometry, RuleSet rules) {
+        this.channel = channel;
+        this.geometry = geometry;
+        this.rules = rules;
+    }
+
+    /**
+     * Create (or truncate) file, for English games on boards of geometry.
+     */
+    public static GameWriter create(Path file, BoardGeometry geometry) throws IOException {
+        return create(file, geometry, RuleSet.ENGLISH);
+    }
+
+    /**
+     * Create (or truncate) file, for games under rules on boards of geometry.
+     */
+    public static GameWriter create(Path file, BoardGeometry geometry, RuleSet rules) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        GameWriter ret = new GameWriter(channel, geometry, rules);
+        ret.buffer.putInt(MAGIC);
+        ret.buffer.putInt(VERSION);
+        ret.buffer.putInt(geometry.getSizeY());
+        ret.buffer.putInt(rules.getId());
+        return ret;
+    }
+
+    public void write(GameRecord game) throws IOException {
+        if (! game.getGeometry().equalsType(geometry)) {
+            throw new RuntimeException("Game is for a " + game.getGeometry().getSizeY() + " board, file is for "
+                                       + geometry.getSizeY());
+        }
+        if (game.getRules() != rules) {
+            throw new RuntimeException("Game is for " + game.getRules() + " rules, file is for " + rules);
+        }
+        final boolean standardStart = game.isStandardStart();
+        final int plies = game.getPlies();
+        final int size = RECORD_HEADER_SIZE + (standardStart ? 0 : PositionCodec.size(geometry.getNumberOfSquares()))
+                         + 2 * plies;
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        buffer.putShort((short) plies);
+        buffer.put((byte) game.getResult());
+        buffer.put((byte) (standardStart ? 0 : EXPLICIT_START));
+        if (! standardStart) {
+            PositionCodec.write(game.getStart(), buffer);
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            buffer.putShort(game.getRawDelta(ply));
+        }
+        games++;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * @return games written so far
+     */
+    public long getGames() {
+        return games;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package checkers.io;
+
+import java.nio.ByteBuffer;
+
+import checkers.model.BitBoard;
+import checkers.model.CheckerSide;
+
+/**
+ * Fixed size binary form of a BitBoard:  the black, red and kings masks,
+ * each in (numberOfSquares + 7) / 8 bytes, least significant byte first,
+ * then one byte for the side to move (0 BLACK, 1 RED).
+ *
+ * 13 bytes for 8x8 (32 squares), 22 bytes for 10x10 (50 squares).
+ */
+public class PositionCodec {
+    private static final int BLACK_TO_MOVE = 0;
+    private static final int RED_TO_MOVE = 1;
+
+    private PositionCodec() {
+    }
+
+    /**
+     * @return bytes used by one position
+     */
+    public static int size(int numberOfSquares) {
+        return 3 * bytesPerMask(numberOfSquares) + 1;
+    }
+
+    private static int bytesPerMask(int numberOfSquares) {
+        return (numberOfSquares + 7) / 8;
+    }
+
+    public static void write(BitBoard position, ByteBuffer target) {
+        final int bytes = bytesPerMask(position.getNumberOfSquares());
+        putMask(position.getBlack(), bytes, target);
+        putMask(position.getRed(), bytes, target);
+        putMask(position.getKings(), bytes, target);
+        target.put((byte) (position.isBlackToMove() ? BLACK_TO_MOVE : RED_TO_MOVE));
+    }
+
+    /**
+     * Read one position into target, which decides the number of squares.
+     */
+    public static void read(ByteBuffer source, BitBoard target) {
+        final int bytes = bytesPerMask(target.getNumberOfSquares());
+        final long black = getMask(source, bytes);
+        final long red = getMask(source, bytes);
+        final long kings = getMask(source, bytes);
+        final int side = source.get();
+        if ((side != BLACK_TO_MOVE) && (side != RED_TO_MOVE)) {
+            throw new RuntimeException("Invalid side to move " + side);
+        }
+        target.setMasks(black, red, kings, (side == BLACK_TO_MOVE) ? CheckerSide.BLACK : CheckerSide.RED);
+    }
+
+    private static void putMask(long mask, int bytes, ByteBuffer target) {
+        for (int i = 0; i < bytes; i++) {
+            target.put((byte) (mask >>> (8 * i)));
+        }
+    }
+
+    private static long getMask(ByteBuffer source, int bytes) {
+        long ret = 0;
+        for (int i = 0; i < bytes; i++) {
+            ret |= (source.get() & 0xffL) << (8 * i);
+        }
+        return ret;
+    }
+}
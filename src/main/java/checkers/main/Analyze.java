@@ -0,0 +1,267 @@
+package checkers.main;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import checkers.engine.Evaluation;
+import checkers.engine.SearchEngine;
+import checkers.engine.SearchLimits;
+import checkers.engine.SearchResult;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Bulk position analysis:  reads positions, one per line, like
+ *
+ *     bbbbbbbbbbbb--------rrrrrrrrrrrr B
+ *
+ * (Board.loadPiecesFromString() notation, then the side to move, B if
+ * left out) and writes one line per position, in input order:
+ *
+ *     bbbbbbbbbbbb--------rrrrrrrrrrrr B legalMoves eval bestMove score
+ *
+ * eval is the static evaluation and score the result of a search to the
+ * given depth, both for the side to move;  bestMove is "none" if there is
+ * no legal move.  A line that is not a position gives "ERR message".
+ *
+ * Lines are parsed straight into a BitBoard and analysed by one worker
+ * thread per core, each with its own SearchEngine.  At most
+ * threads * WINDOW_PER_THREAD lines are in flight:  when the oldest one
+ * is not done, reading waits.  So memory use does not depend on the
+ * length of the input.
+ */
+public class Analyze {
+    public static final int DEFAULT_DEPTH = 6;
+
+    /* default */ static final int WINDOW_PER_THREAD = 256;
+    // each worker has its own table, cleared for every position so that
+    // results do not depend on which worker analysed what before
+    private static final int TABLE_MEGABYTES = 1;
+
+    private final BoardGeometry geometry = BoardGeometry.forSize(8);
+    private final MoveGenerator moveGenerator = new MoveGenerator(geometry);
+    private final int squaresPerRow = geometry.getNumberOfSquares() / geometry.getSizeY();
+    private final SearchLimits limits;
+    private final int threads;
+    private final int windowSize;
+
+    public Analyze(int depth, int threads) {
+        this(depth, threads, threads * WINDOW_PER_THREAD);
+    }
+
+    /* default */ Analyze(int depth, int threads, int windowSize) {
+        if (threads < 1) {
+            throw new RuntimeException("threads must be at least 1, was " + threads);
+        }
+        this.limits = SearchLimits.depth(depth);
+        this.threads = threads;
+        this.windowSize = windowSize;
+    }
+
+    // one line in flight;  the slots are reused round robin
+    private static class Slot {
+        String line;
+        final StringBuilder result = new StringBuilder(64);
+        volatile boolean done;
+    }
+
+    private static final Slot STOP = new Slot();
+
+    /**
+     * Analyse every line of in, writing the results to out (which is not
+     * flushed or closed).
+     *
+     * @return number of lines
+     */
+    public long run(BufferedReader in, Writer out) throws IOException {
+        final Slot[] slots = new Slot[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            slots[i] = new Slot();
+        }
+        final BlockingQueue<Slot> work = new ArrayBlockingQueue<>(windowSize + threads);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(new Worker(work), "analyze-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        long read = 0;
+        long written = 0;
+        boolean eof = false;
+        try {
+            while (true) {
+                // everything done at the front of the window goes out
+                while ((written < read) && slots[(int) (written % windowSize)].done) {
+                    out.append(slots[(int) (written % windowSize)].result).append('\n');
+                    written++;
+                }
+                if (! eof && (read - written < windowSize)) {
+                    final String line = in.readLine();
+                    if (line == null) {
+                        eof = true;
+                    } else {
+                        final Slot slot = slots[(int) (read % windowSize)];
+                        slot.line = line;
+                        slot.done = false;
+                        work.add(slot);
+                        read++;
+                    }
+                } else if (written == read) {
+                    return read;
+                } else {
+                    await(slots[(int) (written % windowSize)]);
+                }
+            }
+        } finally {
+            work.clear();
+            for (int i = 0; i < threads; i++) {
+                work.add(STOP);
+            }
+        }
+    }
+
+    private static void await(Slot slot) throws IOException {
+        synchronized (slot) {
+            while (! slot.done) {
+                try {
+                    slot.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted waiting for analysis", e);
+                }
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final BlockingQueue<Slot> work;
+        private final SearchEngine engine = new SearchEngine(TABLE_MEGABYTES);
+        private final BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        private final MoveList moves = new MoveList();
+
+        Worker(BlockingQueue<Slot> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Slot slot = work.take();
+                    if (slot == STOP) {
+                        return;
+                    }
+                    slot.result.setLength(0);
+                    try {
+                        analyze(slot.line, slot.result);
+                    } catch (RuntimeException e) {
+                        slot.result.setLength(0);
+                        slot.result.append("ERR ").append(e.getMessage());
+                    } finally {
+                        // even after an Error, so that run() is not left waiting
+                        synchronized (slot) {
+                            slot.done = true;
+                            slot.notify();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // done
+            } finally {
+                engine.close();
+            }
+        }
+
+        private void analyze(String line, StringBuilder result) {
+            parse(line, position);
+            final int legalMoves = moveGenerator.generateMoves(position, moves);
+            final int eval = Evaluation.evaluate(position, squaresPerRow);
+            engine.getTranspositionTable().clear();
+            final SearchResult search = engine.search(position, moveGenerator, limits);
+            result.append(line, 0, position.getNumberOfSquares())
+                .append(position.isBlackToMove() ? " B " : " R ")
+                .append(legalMoves).append(' ').append(eval).append(' ')
+                .append(search.getMoveString()).append(' ').append(search.getScore());
+        }
+    }
+
+    /**
+     * Parse "pieces [B|R]" into position, without any Board.
+     */
+    /* default */ static void parse(String line, BitBoard position) {
+        final int n = position.getNumberOfSquares();
+        if ((line.length() < n) || ((line.length() > n) && (line.charAt(n) != ' '))) {
+            throw new RuntimeException("Expected " + n + " pieces, was '" + line + "'");
+        }
+        long black = 0;
+        long red = 0;
+        long kings = 0;
+        for (int square = 0; square < n; square++) {
+            final long bit = 1L << square;
+            switch (line.charAt(square)) {
+            case 'b':
+                black |= bit;
+                break;
+            case 'B':
+                black |= bit;
+                kings |= bit;
+                break;
+            case 'r':
+                red |= bit;
+                break;
+            case 'R':
+                red |= bit;
+                kings |= bit;
+                break;
+            case '-':
+                break;
+            default:
+                throw new RuntimeException("Cannot convert '" + line.charAt(square) + "' to a piece");
+            }
+        }
+        final String side = line.substring(Math.min(n + 1, line.length())).trim();
+        final CheckerSide sideToMove;
+        if (side.isEmpty() || side.equals("B")) {
+            sideToMove = CheckerSide.BLACK;
+        } else if (side.equals("R")) {
+            sideToMove = CheckerSide.RED;
+        } else {
+            throw new RuntimeException("Side to move must be B or R, was '" + side + "'");
+        }
+        position.setMasks(black, red, kings, sideToMove);
+    }
+
+    /**
+     * Analyse positions:  depth [threads [positions.txt]], stdin if no file
+     * (or "-") is given.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 3) {
+            System.err.println("Usage: Analyze [depth [threads [positions.txt]]]");
+            System.exit(1);
+        }
+        final int depth = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        final int threads = (args.length > 1) ? Integer.parseInt(args[1])
+                                              : Runtime.getRuntime().availableProcessors();
+        final BufferedReader in = ((args.length > 2) && ! args[2].equals("-"))
+            ? Files.newBufferedReader(Paths.get(args[2]), StandardCharsets.US_ASCII)
+            : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), 1 << 16);
+        try (BufferedReader reader = in;
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16)) {
+            new Analyze(depth, threads).run(reader, out);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package checkers.metrics;
+
+/**
+ * The counts of a LatencyHistogram at one moment.  Its getters are what
+ * JMX shows of the histogram.
+ */
+public class HistogramSnapshot {
+    private final String name;
+    private final long[] buckets;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    /* default */ HistogramSnapshot(String name, long[] buckets, long count, long totalNanos, long maxNanos) {
+        this.name = name;
+        this.buckets = buckets;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return (count == 0) ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param percentile like 50 or 99.9
+     * @return a value at least percentile % of the recorded ones are not
+     *         above, to within the bucket size;  0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long seen = 0;
+        for (long bucket : buckets) {
+            seen += bucket;
+        }
+        // the stripes are read one after another, so use what the buckets say
+        final long wanted = Math.max(1, (long) Math.ceil(percentile / 100 * seen));
+        long sum = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            sum += buckets[bucket];
+            if (sum >= wanted) {
+                return Math.min(LatencyHistogram.getBucketEnd(bucket), maxNanos);
+            }
+        }
+        return 0;
+    }
+
+    public long getP50Nanos() {
+        return getValueAtPercentile(50);
+    }
+
+    public long getP90Nanos() {
+        return getValueAtPercentile(90);
+    }
+
+    public long getP99Nanos() {
+        return getValueAtPercentile(99);
+    }
+
+    public long getP999Nanos() {
+        return getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [count=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns]", name, count,
+                             getMeanNanos(), getP50Nanos(), getP99Nanos(), getP999Nanos(), maxNanos);
+    }
+}
@@ -0,0 +1,123 @@
+package checkers.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, in the style of
+ * HdrHistogram:  every power of two is split into SUB_BUCKETS linear
+ * buckets, so a recorded value is off by at most 1/SUB_BUCKETS (about 3%).
+ *
+ * Counts are striped by thread, so threads recording at the same time
+ * mostly write different cache lines;  snapshot() adds the stripes up.
+ * Recording never allocates and never blocks.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    /* default */ static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // longer durations (over 18 minutes) count as this
+    /* default */ static final long MAX_VALUE = (1L << 40) - 1;
+    /* default */ static final int NUMBER_OF_BUCKETS = getBucket(MAX_VALUE) + 1;
+
+    // per stripe: the buckets, then count, total and max
+    private static final int COUNT = NUMBER_OF_BUCKETS;
+    private static final int TOTAL = NUMBER_OF_BUCKETS + 1;
+    private static final int MAX = NUMBER_OF_BUCKETS + 2;
+    // rounded up to whole cache lines (8 longs)
+    private static final int STRIPE_LENGTH = (MAX + 1 + 7) & ~7;
+
+    private final String name;
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * STRIPE_LENGTH);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Values below 2 * SUB_BUCKETS get a bucket each, above that every
+     * power of two gets SUB_BUCKETS of them.
+     */
+    /* default */ static int getBucket(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        final long clamped = Math.min(value, MAX_VALUE);
+        final int shift = 63 - Long.numberOfLeadingZeros(clamped) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (clamped >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the smallest value that lands in bucket
+     */
+    /* default */ static long getBucketStart(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        return ((long) ((bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS)) << shift;
+    }
+
+    /**
+     * @return the largest value that lands in bucket
+     */
+    /* default */ static long getBucketEnd(int bucket) {
+        return (bucket == NUMBER_OF_BUCKETS - 1) ? MAX_VALUE : getBucketStart(bucket + 1) - 1;
+    }
+
+    public void record(long nanos) {
+        final int base = ((int) Thread.currentThread().getId() & stripeMask) * STRIPE_LENGTH;
+        counts.incrementAndGet(base + getBucket(nanos));
+        counts.incrementAndGet(base + COUNT);
+        counts.addAndGet(base + TOTAL, Math.max(0, nanos));
+        long max = counts.get(base + MAX);
+        while ((nanos > max) && ! counts.compareAndSet(base + MAX, max, nanos)) {
+            max = counts.get(base + MAX);
+        }
+    }
+
+    /**
+     * record() the time from startNanos (a System.nanoTime()) until now.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Add up the stripes.  Threads that record meanwhile may or may not
+     * be counted, but every count is one that was recorded.
+     */
+    public HistogramSnapshot snapshot() {
+        final long[] buckets = new long[NUMBER_OF_BUCKETS];
+        long count = 0;
+        long total = 0;
+        long max = 0;
+        for (int base = 0; base < counts.length(); base += STRIPE_LENGTH) {
+            for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+                buckets[bucket] += counts.get(base + bucket);
+            }
+            count += counts.get(base + COUNT);
+            total += counts.get(base + TOTAL);
+            max = Math.max(max, counts.get(base + MAX));
+        }
+        return new HistogramSnapshot(name, buckets, count, total, max);
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+}
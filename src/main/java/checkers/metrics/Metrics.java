@@ -0,0 +1,148 @@
+package checkers.metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the hot paths:  move generation,
+ * move application, board loading and painting.
+ *
+ * Off unless the JVM runs with -Dcheckers.metrics=true.  ENABLED is a
+ * static final, so the JIT drops every
+ *
+ *     final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+ *     ...
+ *     if (Metrics.ENABLED) {
+ *         Metrics.MOVE_GENERATION.recordSince(startNanos);
+ *     }
+ *
+ * and a disabled run costs nothing.  When enabled, the metrics are
+ * registered with the platform MBeanServer, and with
+ * -Dcheckers.metrics.dumpSeconds=n they are also printed to System.err
+ * every n seconds.
+ */
+public final class Metrics implements MetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("checkers.metrics");
+    public static final String OBJECT_NAME = "checkers:type=Metrics";
+
+    public static final LatencyHistogram MOVE_GENERATION = new LatencyHistogram("moveGeneration");
+    public static final LatencyHistogram MOVE_APPLICATION = new LatencyHistogram("moveApplication");
+    public static final LatencyHistogram BOARD_LOAD = new LatencyHistogram("boardLoad");
+    public static final LatencyHistogram PAINT = new LatencyHistogram("paint");
+    public static final LongAdder MOVES_GENERATED = new LongAdder();
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    static {
+        if (ENABLED) {
+            register();
+            final long dumpSeconds = Long.getLong("checkers.metrics.dumpSeconds", 0);
+            if (dumpSeconds > 0) {
+                startDump(dumpSeconds * 1000, System.err);
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register with the platform MBeanServer, unless already done.
+     */
+    public static synchronized ObjectName register() {
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (! server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+            return name;
+        } catch (JMException e) {
+            throw new RuntimeException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Print snapshot() to out every periodMillis, from a daemon thread,
+     * until the thread is interrupted.
+     */
+    public static Thread startDump(final long periodMillis, final PrintStream out) {
+        Thread ret = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(periodMillis);
+                        out.println(snapshot());
+                    }
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        }, "metrics-dump");
+        ret.setDaemon(true);
+        ret.start();
+        return ret;
+    }
+
+    /**
+     * @return every counter and histogram, one per line
+     */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder("Metrics [enabled=").append(ENABLED)
+            .append(" movesGenerated=").append(MOVES_GENERATED.sum()).append("]");
+        for (LatencyHistogram histogram : new LatencyHistogram[] {
+                 MOVE_GENERATION, MOVE_APPLICATION, BOARD_LOAD, PAINT }) {
+            sb.append("\n  ").append(histogram.snapshot());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public long getMovesGenerated() {
+        return MOVES_GENERATED.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getMoveGeneration() {
+        return MOVE_GENERATION.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getMoveApplication() {
+        return MOVE_APPLICATION.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getBoardLoad() {
+        return BOARD_LOAD.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getPaint() {
+        return PAINT.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        MOVE_GENERATION.reset();
+        MOVE_APPLICATION.reset();
+        BOARD_LOAD.reset();
+        PAINT.reset();
+        MOVES_GENERATED.reset();
+    }
+}
@@ -0,0 +1,20 @@
+package checkers.metrics;
+
+/**
+ * What Metrics shows over JMX, as checkers:type=Metrics.
+ */
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    long getMovesGenerated();
+
+    HistogramSnapshot getMoveGeneration();
+
+    HistogramSnapshot getMoveApplication();
+
+    HistogramSnapshot getBoardLoad();
+
+    HistogramSnapshot getPaint();
+
+    void reset();
+}
@@ -0,0 +1,462 @@
+package checkers.model;
+
+import java.awt.Point;
+
+import checkers.metrics.Metrics;
+import checkers.model.Board.Square;
+
+/**
+ * Compact form of the pieces on a Board: one bit per IN_PLAY square.
+ *
+ * Squares are numbered 0..(numberOfSquares - 1) in the same order that
+ * Board.loadPiecesFromString() uses, i.e. IN_PLAY squares only, top row first,
+ * left to right.  So "bbbbbbbbbbbb--------rrrrrrrrrrrr" has black on 0..11.
+ *
+ * Three masks hold all of the pieces:  black, red, and kings (kings is a subset
+ * of black|red).  Plus the side to move, BLACK moves first.
+ *
+ * The Zobrist hash of the position is updated as pieces change, it is never
+ * recomputed from scratch.
+ */
+public class BitBoard {
+    public static final int MAX_SQUARES = 64;
+
+    private final int numberOfSquares;
+
+    private long black;
+    private long red;
+    private long kings;
+
+    private CheckerSide sideToMove = CheckerSide.BLACK;
+
+    // see Zobrist, derived from the fields above
+    private long hash;
+
+    public BitBoard(int numberOfSquares) {
+        if ((numberOfSquares < 0) || (numberOfSquares > MAX_SQUARES)) {
+            throw new RuntimeException("BitBoard cannot hold " + numberOfSquares + " squares, max=" + MAX_SQUARES);
+        }
+        this.numberOfSquares = numberOfSquares;
+    }
+
+    /**
+     * @param s like "bbbbbbbbbbbb--------rrrrrrrrrrrr", see Checker.createFromSingleString
+     * @return new BitBoard with s.length() squares
+     */
+    public static BitBoard fromPiecesString(String s) {
+        BitBoard ret = new BitBoard(s.length());
+        for (int square = 0, n = s.length(); square < n; square++) {
+            ret.setPieceChar(square, s.charAt(square));
+        }
+        return ret;
+    }
+
+    /**
+     * Build from the Point-based view of a board, i.e. only using the public
+     * getSquare()/getPiece() api.
+     * This is deliberately independent of how Board stores its pieces.
+     */
+    public static BitBoard fromBoard(Board board) {
+        int count = 0;
+        for (Point point : board.generatePointsTopDownLeftRight()) {
+            if (Square.IN_PLAY.equalsType(board.getSquare(point))) {
+                count++;
+            }
+        }
+
+        BitBoard ret = new BitBoard(count);
+        int square = 0;
+        for (Point point : board.generatePointsTopDownLeftRight()) {
+            if (Square.IN_PLAY.equalsType(board.getSquare(point))) {
+                ret.setPiece(square, board.getPiece(point));
+                square++;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Place pieces on board, using only the Point-based api.
+     */
+    public void loadInto(Board board) {
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        int square = 0;
+        board.beginUpdate();
+        try {
+            for (Point point : board.generatePointsTopDownLeftRight()) {
+                if (Square.IN_PLAY.equalsType(board.getSquare(point))) {
+                    if (square >= numberOfSquares) {
+                        throw new RuntimeException("Board has more squares than bitboard, size=" + numberOfSquares);
+                    }
+                    board.place(getPiece(square), point);
+                    square++;
+                }
+            }
+        } finally {
+            board.endUpdate();
+        }
+        if (square != numberOfSquares) {
+            throw new RuntimeException("Board has " + square + " squares, bitboard has " + numberOfSquares);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.BOARD_LOAD.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * @return string in the format of Board.loadPiecesFromString()
+     */
+    public String toPiecesString() {
+        StringBuilder sb = new StringBuilder(numberOfSquares);
+        for (int square = 0; square < numberOfSquares; square++) {
+            sb.append(getPieceChar(square));
+        }
+        return sb.toString();
+    }
+
+    public int getNumberOfSquares() {
+        return numberOfSquares;
+    }
+
+    public long getBlack() {
+        return black;
+    }
+
+    public long getRed() {
+        return red;
+    }
+
+    public long getKings() {
+        return kings;
+    }
+
+    public CheckerSide getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(CheckerSide side) {
+        if (side == null) {
+            throw new RuntimeException("side cannot be null");
+        }
+        if (side != sideToMove) {
+            hash ^= Zobrist.redToMove();
+        }
+        sideToMove = side;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public boolean isBlackToMove() {
+        return CheckerSide.BLACK.equalsType(sideToMove);
+    }
+
+    public long getOccupied() {
+        return black | red;
+    }
+
+    public long getEmpty() {
+        return ~(black | red) & getAllSquares();
+    }
+
+    public long getAllSquares() {
+        return (numberOfSquares == MAX_SQUARES) ? -1L : ((1L << numberOfSquares) - 1);
+    }
+
+    public boolean isEmpty(int square) {
+        return ((black | red) & bit(square)) == 0;
+    }
+
+    public boolean isBlack(int square) {
+        return (black & bit(square)) != 0;
+    }
+
+    public boolean isRed(int square) {
+        return (red & bit(square)) != 0;
+    }
+
+    public boolean isKing(int square) {
+        return (kings & bit(square)) != 0;
+    }
+
+    /**
+     * Replace the whole position.
+     *
+     * @param kings must be a subset of black | red
+     */
+    public void setMasks(long black, long red, long kings, CheckerSide side) {
+        if (((black & red) != 0) || ((kings & ~(black | red)) != 0) || (((black | red) & ~getAllSquares()) != 0)) {
+            throw new RuntimeException("Invalid masks black=" + Long.toHexString(black) + " red=" + Long.toHexString(red)
+                                       + " kings=" + Long.toHexString(kings));
+        }
+        if (side == null) {
+            throw new RuntimeException("side cannot be null");
+        }
+        this.black = black;
+        this.red = red;
+        this.kings = kings;
+        this.sideToMove = side;
+        hash = Zobrist.hash(this);
+    }
+
+    public void clear(int square) {
+        final long bit = bit(square);
+        if (((black | red) & bit) != 0) {
+            hash ^= Zobrist.key(getKind(bit), square);
+        }
+        final long mask = ~bit;
+        black &= mask;
+        red &= mask;
+        kings &= mask;
+    }
+
+    // Zobrist kind (and Checker code) of the piece on bit, which must be occupied
+    private int getKind(long bit) {
+        if ((black & bit) != 0) {
+            return ((kings & bit) != 0) ? Zobrist.BLACK_KING : Zobrist.BLACK_MAN;
+        } else {
+            return ((kings & bit) != 0) ? Zobrist.RED_KING : Zobrist.RED_MAN;
+        }
+    }
+
+    /**
+     * @param piece a Checker, or null to clear the square
+     */
+    public void setPiece(int square, Piece piece) {
+        clear(square);
+        if (piece == null) {
+            return;
+        }
+        if (! (piece instanceof Checker)) {
+            throw new RuntimeException("BitBoard only holds checkers, piece=" + piece);
+        }
+
+        final int code = ((Checker) piece).getCode();
+        final long bit = bit(square);
+        if (code < Checker.CODE_RED_REGULAR) {
+            black |= bit;
+        } else {
+            red |= bit;
+        }
+        if ((code == Checker.CODE_BLACK_KING) || (code == Checker.CODE_RED_KING)) {
+            kings |= bit;
+        }
+        hash ^= Zobrist.key(code, square);
+    }
+
+    /**
+     * @return the shared Checker on square, or null if it is empty
+     */
+    public Checker getPiece(int square) {
+        final long bit = bit(square);
+        if (((black | red) & bit) == 0) {
+            return null;
+        }
+        return Checker.valueOf(getKind(bit));
+    }
+
+    /**
+     * @param c 'b', 'B', 'r', 'R' or '-'
+     */
+    public void setPieceChar(int square, char c) {
+        clear(square);
+        final long bit = bit(square);
+        switch (c) {
+        case 'b':
+            black |= bit;
+            break;
+        case 'B':
+            black |= bit;
+            kings |= bit;
+            break;
+        case 'r':
+            red |= bit;
+            break;
+        case 'R':
+            red |= bit;
+            kings |= bit;
+            break;
+        case '-':
+            return;
+        default:
+            throw new RuntimeException("Cannot convert '" + c + "' to a piece");
+        }
+        hash ^= Zobrist.key(getKind(bit), square);
+    }
+
+    public char getPieceChar(int square) {
+        final long bit = bit(square);
+        if ((black & bit) != 0) {
+            return ((kings & bit) != 0) ? 'B' : 'b';
+        } else if ((red & bit) != 0) {
+            return ((kings & bit) != 0) ? 'R' : 'r';
+        } else {
+            return '-';
+        }
+    }
+
+    public String getPieceString(int square) {
+        return String.valueOf(getPieceChar(square));
+    }
+
+    /**
+     * Apply a move from MoveList: move the piece, remove the captured pieces,
+     * promote if flagged, and pass the turn to the other side.
+     * No legality checks - the move must come from MoveGenerator.
+     */
+    public void applyMove(int move, long captures) {
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        apply(move, captures);
+        if (Metrics.ENABLED) {
+            Metrics.MOVE_APPLICATION.recordSince(startNanos);
+        }
+    }
+
+    private void apply(int move, long captures) {
+        final int from = MoveList.getFrom(move);
+        final int to = MoveList.getTo(move);
+        final long fromBit = 1L << from;
+        // XOR, so a king that jumps in a circle back to "from" stays put:
+        final long fromTo = fromBit ^ (1L << to);
+        final boolean king = (kings & fromBit) != 0;
+        final boolean blackToMove = isBlackToMove();
+
+        final int kind;
+        if (blackToMove) {
+            kind = king ? Zobrist.BLACK_KING : Zobrist.BLACK_MAN;
+            hash ^= Zobrist.keys(Zobrist.RED_KING, captures & kings)
+                  ^ Zobrist.keys(Zobrist.RED_MAN, captures & ~kings);
+            black ^= fromTo;
+            red &= ~captures;
+        } else {
+            kind = king ? Zobrist.RED_KING : Zobrist.RED_MAN;
+            hash ^= Zobrist.keys(Zobrist.BLACK_KING, captures & kings)
+                  ^ Zobrist.keys(Zobrist.BLACK_MAN, captures & ~kings);
+            red ^= fromTo;
+            black &= ~captures;
+        }
+        if (king) {
+            kings ^= fromTo;
+        }
+        kings &= ~captures;
+        hash ^= Zobrist.key(kind, from);
+
+        if (MoveList.isPromotion(move)) {
+            kings |= 1L << to;
+            // MAN + 1 is the KING of the same side
+            hash ^= Zobrist.key(kind + 1, to);
+        } else {
+            hash ^= Zobrist.key(kind, to);
+        }
+
+        sideToMove = blackToMove ? CheckerSide.RED : CheckerSide.BLACK;
+        hash ^= Zobrist.redToMove();
+    }
+
+    /**
+     * applyMove(), recording what unmakeMove() needs in undo.
+     */
+    public void makeMove(int move, long captures, UndoStack undo) {
+        undo.push(move, captures, captures & kings, hash);
+        applyMove(move, captures);
+    }
+
+    /**
+     * Take back the last makeMove() recorded in undo.
+     */
+    public void unmakeMove(UndoStack undo) {
+        if (undo.isEmpty()) {
+            throw new RuntimeException("Programmer error - nothing to undo");
+        }
+        final int move = undo.peekMove();
+        final long captures = undo.peekCaptures();
+        final long fromBit = 1L << MoveList.getFrom(move);
+        final long toBit = 1L << MoveList.getTo(move);
+        final long fromTo = fromBit ^ toBit;
+
+        // the side that made the move is to move again
+        final boolean blackMoved = ! isBlackToMove();
+        sideToMove = blackMoved ? CheckerSide.BLACK : CheckerSide.RED;
+
+        if (MoveList.isPromotion(move)) {
+            kings &= ~toBit;
+        } else if ((kings & toBit) != 0) {
+            kings ^= fromTo;
+        }
+        if (blackMoved) {
+            black ^= fromTo;
+            red |= captures;
+        } else {
+            red ^= fromTo;
+            black |= captures;
+        }
+        kings |= undo.peekCapturedKings();
+
+        hash = undo.peekHash();
+        undo.pop();
+    }
+
+    public BitBoard copy() {
+        BitBoard ret = new BitBoard(numberOfSquares);
+        ret.copyFrom(this);
+        return ret;
+    }
+
+    public void copyFrom(BitBoard other) {
+        if (other.numberOfSquares != numberOfSquares) {
+            throw new RuntimeException("size mismatch " + numberOfSquares + " vs " + other.numberOfSquares);
+        }
+        black = other.black;
+        red = other.red;
+        kings = other.kings;
+        sideToMove = other.sideToMove;
+        hash = other.hash;
+    }
+
+    private long bit(int square) {
+        if ((square < 0) || (square >= numberOfSquares)) {
+            throw new RuntimeException("Invalid square " + square + ", size=" + numberOfSquares);
+        }
+        return 1L << square;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + numberOfSquares;
+        result = prime * result + (int) (black ^ (black >>> 32));
+        result = prime * result + (int) (red ^ (red >>> 32));
+        result = prime * result + (int) (kings ^ (kings >>> 32));
+        result = prime * result + sideToMove.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        BitBoard other = (BitBoard) obj;
+        if (numberOfSquares != other.numberOfSquares)
+            return false;
+        if (black != other.black)
+            return false;
+        if (red != other.red)
+            return false;
+        if (kings != other.kings)
+            return false;
+        if (sideToMove != other.sideToMove)
+            return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "BitBoard [" + toPiecesString() + " " + sideToMove + "]";
+    }
+}
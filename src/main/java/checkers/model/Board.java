@@ -2,10 +2,10 @@ package checkers.model;
 
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import checkers.metrics.Metrics;
 
 /**
  * A Board is a set of Squares. The Board numbers its Squares starting in
@@ -16,21 +16,68 @@ import java.util.Map;
  * 2) NOT_IN_PLAY -- inside the bounding rectangle, but is a "hole"
  * 3) IN_PLAY -- inside and valid
  *
+ * Storage: the layout of the squares is a BoardGeometry (shared by all
+ * boards of the same size, see BoardFactoryCheckers), and the pieces on
+ * IN_PLAY squares are kept by "square number" (see getSquareNumber()) in a
+ * BitBoard.  Pieces are the shared Checker instances, so neither loading a
+ * position nor reading it back creates any objects.
+ *
+ * Views follow the board with a BoardListener instead of comparing
+ * positions:  every move, undo and placement is reported, in batches (see
+ * beginUpdate()).  Without listeners nothing is recorded at all.
+ *
+ * A Board is not thread-safe, it has one writer.  Other threads read it
+ * through getSnapshot(), an immutable copy the writer publishes after
+ * every change (or batch), without any locking.
  */
 public class Board {
     private final int sizeX;
     private final int sizeY;
 
-    private Map<Point, Square> point2Square = new HashMap<>();
-    private Map<Point, Piece> point2Piece = new HashMap<>();
+    // only while the squares are being set up by putPoint2Square():
+    // indexed by pointIndex(x, y), null means NOT_VALID_COORDINATES
+    private final Square[] squares;
+    private boolean squaresUnmodifiable = false;
+
+    // null until the squares are known, see getGeometry()
+    private BoardGeometry geometry;
+
+    // null until the squares are known, see getBitBoardInternal()
+    private BitBoard bitBoard;
 
     // implements "rules" for the game - i.e. knows about Pieces
     private final GameStrategy gameStrategy;
 
+    // see addBoardListener();  two batches, so listeners can change the board
+    private final List<BoardListener> listeners = new CopyOnWriteArrayList<>();
+    private BoardChanges pendingChanges = new BoardChanges();
+    private BoardChanges deliveredChanges = new BoardChanges();
+    private int updateDepth = 0;
+    private boolean delivering = false;
+
+    // see getSnapshot(), only the writer uses the other two
+    private volatile BoardSnapshot snapshot;
+    private boolean snapshotStale = false;
+    private long snapshotVersion = 0;
+
     public Board(GameStrategy strategy, int x, int y) {
         gameStrategy = strategy;
         this.sizeX = x;
         this.sizeY = y;
+        this.squares = new Square[x * y];
+    }
+
+    /**
+     * @param geometry squares are fixed, they cannot be changed with putPoint2Square()
+     */
+    public Board(GameStrategy strategy, BoardGeometry geometry) {
+        gameStrategy = strategy;
+        this.sizeX = geometry.getSizeX();
+        this.sizeY = geometry.getSizeY();
+        this.squares = null;
+        this.squaresUnmodifiable = true;
+        this.geometry = geometry;
+        publishSnapshot();
     }
 
     /**
@@ -59,18 +106,87 @@ public class Board {
 
 
     public Square getSquare(Point point) {
-        if (point2Square.containsKey(point)) {
-            return point2Square.get(point);
-        } else {
+        if (geometry != null) {
+            return geometry.getSquare(point.x, point.y);
+        }
+        final int index = pointIndex(point.x, point.y);
+        if (index < 0) {
+            return Square.NOT_VALID_COORDINATES;
+        }
+        final Square ret = squares[index];
+        if (ret == null) {
             return Square.NOT_VALID_COORDINATES;
+        } else {
+            return ret;
         }
     }
 
+    /**
+     * @return 0..(n-1) for IN_PLAY squares, in loadPiecesFromString() order,
+     *         -1 for all other points
+     */
+    public int getSquareNumber(Point point) {
+        return getSquareNumber(point.x, point.y);
+    }
+
+    public int getSquareNumber(int x, int y) {
+        return getGeometry().getSquareNumber(x, y);
+    }
+
+    public int getNumberOfSquaresInPlay() {
+        return getGeometry().getNumberOfSquares();
+    }
+
+    /**
+     * @return the rules of the game strategy
+     */
+    public RuleSet getRules() {
+        return gameStrategy.getRules();
+    }
+
+    /**
+     * @return the layout of the squares, created when first needed
+     */
+    public BoardGeometry getGeometry() {
+        if (geometry == null) {
+            geometry = new BoardGeometry(sizeX, sizeY, squares);
+        }
+        return geometry;
+    }
+
+    /**
+     * @return a copy of the pieces in bitboard form
+     */
+    public BitBoard getBitBoard() {
+        return getBitBoardInternal().copy();
+    }
+
+    /**
+     * @return string suitable for loadPiecesFromString()
+     */
+    public String toPiecesString() {
+        return getBitBoardInternal().toPiecesString();
+    }
+
+    private int pointIndex(int x, int y) {
+        if ((x < 1) || (x > sizeX) || (y < 1) || (y > sizeY)) {
+            return -1;
+        }
+        return (y - 1) * sizeX + (x - 1);
+    }
+
     public Piece getPiece(Point point) {
         checkPoint(point);
         return getPoint2Piece(point);
     }
 
+    /**
+     * @param squareNumber see getSquareNumber()
+     */
+    public Piece getPiece(int squareNumber) {
+        return getSquareNumber2Piece(squareNumber);
+    }
+
     public void checkPoint(Point point) {
         Square square = getSquare(point);
         if (square.equalsType(Square.NOT_VALID_COORDINATES)) {
@@ -99,16 +215,190 @@ public class Board {
     //
 
     /* default */ Piece getPoint2Piece(Point point) {
-        return point2Piece.get(point);
+        final int squareNumber = getSquareNumber(point);
+        if (squareNumber < 0) {
+            return null;
+        }
+        return getBitBoardInternal().getPiece(squareNumber);
     }
     /* default */ void putPoint2Piece(Point point, Piece piece) {
-        point2Piece.put(point,  piece);
+        final int squareNumber = getSquareNumber(point);
+        if (squareNumber < 0) {
+            if (piece == null) {
+                return;
+            }
+            throw new RuntimeException("Cannot put a piece on a square not in play, point=" + point);
+        }
+        putSquareNumber2Piece(squareNumber, piece);
+    }
+    /* default */ Piece getSquareNumber2Piece(int squareNumber) {
+        return getBitBoardInternal().getPiece(squareNumber);
+    }
+    /* default */ void putSquareNumber2Piece(int squareNumber, Piece piece) {
+        // undo only knows moves:  it would take this position back wrongly
+        gameStrategy.clearUndo();
+        final BitBoard position = getBitBoardInternal();
+        final Piece old = position.getPiece(squareNumber);
+        position.setPiece(squareNumber, piece);
+        if ((old == null) ? (piece != null) : ! old.equals(piece)) {
+            if (! listeners.isEmpty()) {
+                pendingChanges.addPlace(squareNumber);
+            }
+            changed();
+        }
     }
     /* default*/ void removePoint2Piece(Point point) {
-        point2Piece.remove(point);
+        putPoint2Piece(point, null);
     }
     /* default */ void putPoint2Square(Point point, Square square) {
-        point2Square.put(point, square);
+        if (squaresUnmodifiable) {
+            throw new UnsupportedOperationException("squares are unmodifiable");
+        }
+        final int index = pointIndex(point.x, point.y);
+        if (index < 0) {
+            throw new RuntimeException("Point outside of board " + point);
+        }
+        squares[index] = square;
+        // numbering must be redone
+        geometry = null;
+        bitBoard = null;
+        snapshotStale = true;
+    }
+
+    /**
+     * Make a move from MoveGenerator, recording it in undo.
+     */
+    /* default */ void makeMove(int move, long captures, UndoStack undo) {
+        getBitBoardInternal().makeMove(move, captures, undo);
+        if (! listeners.isEmpty()) {
+            pendingChanges.addMove(move, captures);
+        }
+        changed();
+    }
+
+    /* default */ void unmakeMove(UndoStack undo) {
+        if (undo.isEmpty()) {
+            throw new RuntimeException("Programmer error - nothing to undo");
+        }
+        final int move = undo.peekMove();
+        final long captures = undo.peekCaptures();
+        getBitBoardInternal().unmakeMove(undo);
+        if (! listeners.isEmpty()) {
+            pendingChanges.addUndo(move, captures);
+        }
+        changed();
+    }
+
+    /* default */ void setSideToMove(CheckerSide side) {
+        gameStrategy.clearUndo();
+        final BitBoard position = getBitBoardInternal();
+        if (position.getSideToMove() != side) {
+            position.setSideToMove(side);
+            if (! listeners.isEmpty()) {
+                pendingChanges.addSideToMove();
+            }
+            changed();
+        }
+    }
+
+    /**
+     * The position as of the last change, for any thread:  the one thread
+     * that changes the board publishes it, readers just take it.  Inside
+     * beginUpdate()/endUpdate() it is the position before the batch.
+     *
+     * @return null while the squares are still being set up (see
+     *         unmodifiablePoint2Square())
+     */
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private void publishSnapshot() {
+        snapshot = new BoardSnapshot(getGeometry(), getBitBoardInternal(), snapshotVersion++);
+        snapshotStale = false;
+    }
+
+    // after every change of the pieces or the side to move
+    private void changed() {
+        snapshotStale = true;
+        if ((updateDepth == 0) && squaresUnmodifiable) {
+            publishSnapshot();
+        }
+        fireChanges();
+    }
+
+    /**
+     * @param listener told about every change from now on
+     */
+    public void addBoardListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Hold back changes until the matching endUpdate(), then report them as
+     * one (coalesced) batch.  Calls nest.
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    public void endUpdate() {
+        if (updateDepth == 0) {
+            throw new RuntimeException("Programmer error - endUpdate() without beginUpdate()");
+        }
+        updateDepth--;
+        if ((updateDepth == 0) && snapshotStale && squaresUnmodifiable) {
+            publishSnapshot();
+        }
+        fireChanges();
+    }
+
+    private void fireChanges() {
+        if ((updateDepth > 0) || delivering) {
+            // changes made by a listener go out after the current batch
+            return;
+        }
+        delivering = true;
+        try {
+            while (! pendingChanges.isEmpty()) {
+                final BoardChanges changes = pendingChanges;
+                pendingChanges = deliveredChanges;
+                deliveredChanges = changes;
+                try {
+                    for (BoardListener listener : listeners) {
+                        listener.boardChanged(this, changes);
+                    }
+                } finally {
+                    changes.clear();
+                }
+            }
+        } finally {
+            delivering = false;
+        }
+    }
+
+    /**
+     * @return true if other has the same squares, pieces and side to move
+     */
+    public boolean equalsPosition(Board other) {
+        if (other == null) {
+            return false;
+        }
+        if (! getGeometry().equalsType(other.getGeometry())) {
+            return false;
+        }
+        return getBitBoardInternal().equals(other.getBitBoardInternal());
+    }
+
+    /* default */ BitBoard getBitBoardInternal() {
+        if (bitBoard == null) {
+            bitBoard = new BitBoard(getGeometry().getNumberOfSquares());
+        }
+        return bitBoard;
     }
 
     public String dump() {
@@ -151,58 +441,69 @@ public class Board {
 
     }
 
+    public boolean canUndoMove() {
+        return gameStrategy.canUndoMove();
+    }
+
+    public void undoMove() {
+        gameStrategy.undoMove();
+    }
+
     public void unmodifiablePoint2Square() {
-        // TODO: prevent multiple calls
-        point2Square = Collections.unmodifiableMap(point2Square);
+        if (squaresUnmodifiable) {
+            return;
+        }
+        squaresUnmodifiable = true;
+        publishSnapshot();
     }
 
    /**
-    * Load all IN_PLAY squares with (newly created) pieces.
+    * Load all IN_PLAY squares, in square number order.
     *
-    * @param s like "bbbbbbbbbbbb--------wwwwwwwwwwww"
+    * @param s like "bbbbbbbbbbbb--------rrrrrrrrrrrr"
     */
    public final void loadPiecesFromString(String s) {
-       List<String> piecesString = fromString(s);
-       List<Piece> pieces = fromList(piecesString);
-       loadPieces(pieces);
-   }
-
-   private List<String> fromString(String s) {
-       return gameStrategy.splitBoardStateString(s);
-   }
-
-   private List<Piece> fromList(List<String> list) {
-       List<Piece> ret = new ArrayList<>();
-       if (list != null) {
-           for (String s : list) {
-               Piece piece = createFromSingleString(s);
-               ret.add(piece);
+       final int n = getNumberOfSquaresInPlay();
+       if (s.length() != n) {
+           throw new RuntimeException("Programmer error- expected " + n + " pieces, s.len=" + s.length());
+       }
+       final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+       beginUpdate();
+       try {
+           for (int squareNumber = 0; squareNumber < n; squareNumber++) {
+               putSquareNumber2Piece(squareNumber, gameStrategy.createPieceFromChar(s.charAt(squareNumber)));
            }
+       } finally {
+           endUpdate();
+       }
+       if (Metrics.ENABLED) {
+           Metrics.BOARD_LOAD.recordSince(startNanos);
        }
-       return ret;
-   }
-
-   private Piece createFromSingleString(String s) {
-       return gameStrategy.createPieceFromSingleString(s);
    }
 
-
-
-
    public final void loadPieces(List<Piece> pieces) {
+       final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
        List<Piece> copy = new ArrayList<>(pieces);
-       for (Point point : generatePointsTopDownLeftRight()) {
-           Square val = getSquare(point);
-           if (Square.IN_PLAY.equalsType(val)) {
-               Piece piece = copy.remove(0);
-
-               // even if piece is null, "place" it (to clear that Point)
-               place(piece, point);
+       beginUpdate();
+       try {
+           for (Point point : generatePointsTopDownLeftRight()) {
+               Square val = getSquare(point);
+               if (Square.IN_PLAY.equalsType(val)) {
+                   Piece piece = copy.remove(0);
+
+                   // even if piece is null, "place" it (to clear that Point)
+                   place(piece, point);
+               }
            }
+       } finally {
+           endUpdate();
        }
        if (copy.size() != 0) {
            throw new RuntimeException("Programmer error- extra pieces, size=" + copy.size());
        }
+       if (Metrics.ENABLED) {
+           Metrics.BOARD_LOAD.recordSince(startNanos);
+       }
    }
 
 
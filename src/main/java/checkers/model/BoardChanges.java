@@ -0,0 +1,160 @@
+package checkers.model;
+
+import java.util.Arrays;
+
+/**
+ * A batch of changes to a Board, oldest first.  Each change is a kind, a
+ * move and captured pieces in MoveList form (see MoveList.isPromotion()),
+ * and the squares it changed as a mask.  A view only
+ * interested in what to redraw can just use getChangedSquares().
+ *
+ * Changes are coalesced while a batch is collected:  pieces placed one
+ * after the other become a single PLACE, so do sides to move set one after
+ * the other, and a MOVE followed by its UNDO cancel out.
+ *
+ * Entries live in parallel arrays reused from batch to batch, so
+ * reporting changes allocates nothing in steady state.
+ */
+public class BoardChanges {
+    // a move was made
+    public static final int MOVE = 0;
+    // a move was taken back, the move and captures are the ones undone
+    public static final int UNDO = 1;
+    // pieces were put on or removed from squares, no move or captures
+    public static final int PLACE = 2;
+    // the side to move was set, no move, captures or squares
+    public static final int SIDE_TO_MOVE = 3;
+
+    private int[] kinds = new int[16];
+    private int[] moves = new int[16];
+    private long[] captures = new long[16];
+    private long[] changedSquares = new long[16];
+    private int size = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getKind(int index) {
+        return kinds[index];
+    }
+
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    public long getCaptures(int index) {
+        return captures[index];
+    }
+
+    public long getChangedSquares(int index) {
+        return changedSquares[index];
+    }
+
+    /**
+     * @return every square changed by the batch
+     */
+    public long getChangedSquares() {
+        long ret = 0;
+        for (int i = 0; i < size; i++) {
+            ret |= changedSquares[i];
+        }
+        return ret;
+    }
+
+    /* default */ void clear() {
+        size = 0;
+    }
+
+    /* default */ void addMove(int move, long captured) {
+        add(MOVE, move, captured);
+    }
+
+    /* default */ void addUndo(int move, long captured) {
+        if ((size > 0) && (kinds[size - 1] == MOVE) && (moves[size - 1] == move) && (captures[size - 1] == captured)) {
+            size--;
+            return;
+        }
+        add(UNDO, move, captured);
+    }
+
+    /* default */ void addPlace(int square) {
+        final long bit = 1L << square;
+        if ((size > 0) && (kinds[size - 1] == PLACE)) {
+            changedSquares[size - 1] |= bit;
+            return;
+        }
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = PLACE;
+        moves[size] = 0;
+        captures[size] = 0;
+        changedSquares[size] = bit;
+        size++;
+    }
+
+    /* default */ void addSideToMove() {
+        if ((size > 0) && (kinds[size - 1] == SIDE_TO_MOVE)) {
+            return;
+        }
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = SIDE_TO_MOVE;
+        moves[size] = 0;
+        captures[size] = 0;
+        changedSquares[size] = 0;
+        size++;
+    }
+
+    private void add(int kind, int move, long captured) {
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = kind;
+        moves[size] = move;
+        captures[size] = captured;
+        // XOR, a king can jump in a circle back to "from"
+        changedSquares[size] = ((1L << MoveList.getFrom(move)) ^ (1L << MoveList.getTo(move))) | captured;
+        size++;
+    }
+
+    private void grow() {
+        final int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+        captures = Arrays.copyOf(captures, capacity);
+        changedSquares = Arrays.copyOf(changedSquares, capacity);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BoardChanges [");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(" ");
+            }
+            switch (kinds[i]) {
+            case MOVE:
+                sb.append(MoveList.toString(moves[i], captures[i]));
+                break;
+            case UNDO:
+                sb.append("undo ").append(MoveList.toString(moves[i], captures[i]));
+                break;
+            case SIDE_TO_MOVE:
+                sb.append("side");
+                break;
+            default:
+                sb.append("place ").append(Long.toHexString(changedSquares[i]));
+                break;
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -1,9 +1,5 @@
 package checkers.model;
 
-import java.awt.Point;
-
-import checkers.model.Board.Square;
-
 /**
  * Factory for creating standard "Checkers Game" boards.
  *
@@ -16,7 +12,7 @@ public class BoardFactoryCheckers {
         StringBuilder pieces = new StringBuilder();
 
         for (int i = 0; i < numberCheckersPerSide; i++) {
-            String piece = "B";
+            String piece = "b";
             pieces.append(piece);
         }
         for (int i = 0; i < numberBlankInMiddle; i++) {
@@ -24,34 +20,36 @@ public class BoardFactoryCheckers {
             pieces.append(piece);
         }
         for (int i = 0; i < numberCheckersPerSide; i++) {
-            String piece = "R";
+            String piece = "r";
             pieces.append(piece);
         }
 
         return createCheckerBoard(size, pieces.toString());
     }
 
+    /**
+     * @param size 8 for standard checkers, 10 for international.
+     *        Larger boards (12 is Canadian) have more squares than a BitBoard holds.
+     */
     public static Board createCheckerBoard(int size, String piecesAsString) {
-        GameStrategy gameStrategy = new GameStrategyCheckers();
-        Board ret = new Board(gameStrategy, size, size);
-        gameStrategy.setBoard(ret);
+        return createCheckerBoard(new GameStrategyCheckers(), BoardGeometry.forSize(size), piecesAsString);
+    }
 
-        // it seems everyone agrees that (1,1) is not in play:
-        Square val = Square.NOT_IN_PLAY;
-        for (Point point : ret.generatePointsTopDownLeftRight()) {
-            ret.putPoint2Square(point, val);
-
-            // "alternate val" covers most cases,
-            // but when we come to the end, we stay the same
-            if (point.getX() == size) {
-                // nothing
-            } else {
-                val = val.equalsType(Square.NOT_IN_PLAY) ? Square.IN_PLAY : Square.NOT_IN_PLAY;
-            }
-        }
-        // no more modifications to the squares:
-        ret.unmodifiablePoint2Square();
+    /**
+     * @return a board for the variant, in its start position
+     */
+    public static Board createCheckerBoard(RuleSet rules) {
+        return createCheckerBoard(rules, rules.getStartingPieces());
+    }
+
+    public static Board createCheckerBoard(RuleSet rules, String piecesAsString) {
+        return createCheckerBoard(new GameStrategyCheckers(rules), rules.getGeometry(), piecesAsString);
+    }
 
+    private static Board createCheckerBoard(GameStrategy gameStrategy, BoardGeometry geometry, String piecesAsString) {
+        // squares are shared with every other board of this size:
+        Board ret = new Board(gameStrategy, geometry);
+        gameStrategy.setBoard(ret);
 
         ret.loadPiecesFromString(piecesAsString);
 
@@ -0,0 +1,216 @@
+package checkers.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import checkers.model.Board.Square;
+
+/**
+ * The fixed layout of a board:  which (x, y) points are IN_PLAY, their dense
+ * "square numbers" (top row first, left to right), and for every square its
+ * diagonal neighbours and jump landing squares.
+ *
+ * Everything is flat int[] tables, indexed by point index ((y-1)*sizeX + (x-1))
+ * or by square number.  A geometry never changes once built, so all boards of
+ * the same size share one, see forSize().
+ */
+public final class BoardGeometry {
+    // Directions, in table order (same as MoveGenerator):
+    public static final int UP_LEFT = 0;
+    public static final int UP_RIGHT = 1;
+    public static final int DOWN_LEFT = 2;
+    public static final int DOWN_RIGHT = 3;
+    public static final int NUMBER_OF_DIRECTIONS = 4;
+
+    private static final int[] DX = { -1, 1, -1, 1 };
+    private static final int[] DY = { -1, -1, 1, 1 };
+
+    // standard checkerboards, by size
+    private static final ConcurrentMap<Integer, BoardGeometry> standard = new ConcurrentHashMap<>();
+
+    private final int sizeX;
+    private final int sizeY;
+
+    // indexed by point index, null means NOT_VALID_COORDINATES
+    private final Square[] squares;
+    // indexed by point index, -1 for squares that are not IN_PLAY
+    private final int[] pointIndex2SquareNumber;
+
+    // indexed by square number
+    private final int[] squareX;
+    private final int[] squareY;
+
+    // [square * NUMBER_OF_DIRECTIONS + direction], -1 if off the board
+    private final int[] neighbour;
+    private final int[] jump;
+
+    /**
+     * @param squares indexed by point index, copied
+     */
+    /* default */ BoardGeometry(int sizeX, int sizeY, Square[] squares) {
+        if (squares.length != sizeX * sizeY) {
+            throw new RuntimeException("Programmer error - " + squares.length + " squares for " + sizeX + "x" + sizeY);
+        }
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.squares = squares.clone();
+
+        pointIndex2SquareNumber = new int[squares.length];
+        int count = 0;
+        for (int i = 0; i < squares.length; i++) {
+            if (Square.IN_PLAY.equalsType(squares[i])) {
+                pointIndex2SquareNumber[i] = count;
+                count++;
+            } else {
+                pointIndex2SquareNumber[i] = -1;
+            }
+        }
+
+        squareX = new int[count];
+        squareY = new int[count];
+        neighbour = new int[count * NUMBER_OF_DIRECTIONS];
+        jump = new int[count * NUMBER_OF_DIRECTIONS];
+        for (int y = 1; y <= sizeY; y++) {
+            for (int x = 1; x <= sizeX; x++) {
+                final int square = getSquareNumber(x, y);
+                if (square < 0) {
+                    continue;
+                }
+                squareX[square] = x;
+                squareY[square] = y;
+                for (int dir = 0; dir < NUMBER_OF_DIRECTIONS; dir++) {
+                    final int index = square * NUMBER_OF_DIRECTIONS + dir;
+                    neighbour[index] = getSquareNumber(x + DX[dir], y + DY[dir]);
+                    jump[index] = getSquareNumber(x + 2 * DX[dir], y + 2 * DY[dir]);
+                    if (neighbour[index] < 0) {
+                        // cannot jump over a square that does not exist
+                        jump[index] = -1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the shared geometry of a size x size checkerboard, with (1,1) not in play
+     */
+    public static BoardGeometry forSize(int size) {
+        if (size < 1) {
+            throw new RuntimeException("Invalid board size " + size);
+        }
+        BoardGeometry ret = standard.get(size);
+        if (ret == null) {
+            final BoardGeometry created = new BoardGeometry(size, size, createCheckerboardSquares(size));
+            ret = standard.putIfAbsent(size, created);
+            if (ret == null) {
+                ret = created;
+            }
+        }
+        return ret;
+    }
+
+    private static Square[] createCheckerboardSquares(int size) {
+        Square[] ret = new Square[size * size];
+        // it seems everyone agrees that (1,1) is not in play:
+        Square val = Square.NOT_IN_PLAY;
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = val;
+
+            // "alternate val" covers most cases,
+            // but when we come to the end of a row, we stay the same
+            if ((i % size) != (size - 1)) {
+                val = val.equalsType(Square.NOT_IN_PLAY) ? Square.IN_PLAY : Square.NOT_IN_PLAY;
+            }
+        }
+        return ret;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getNumberOfSquares() {
+        return squareX.length;
+    }
+
+    public Square getSquare(int x, int y) {
+        final int index = pointIndex(x, y);
+        if ((index < 0) || (squares[index] == null)) {
+            return Square.NOT_VALID_COORDINATES;
+        }
+        return squares[index];
+    }
+
+    /**
+     * @return 0..(n-1) for IN_PLAY squares, -1 for all other points
+     */
+    public int getSquareNumber(int x, int y) {
+        final int index = pointIndex(x, y);
+        if (index < 0) {
+            return -1;
+        }
+        return pointIndex2SquareNumber[index];
+    }
+
+    public int getX(int square) {
+        return squareX[square];
+    }
+
+    public int getY(int square) {
+        return squareY[square];
+    }
+
+    /**
+     * @return neighbouring square number in direction, or -1
+     */
+    public int getNeighbour(int square, int direction) {
+        return neighbour[square * NUMBER_OF_DIRECTIONS + direction];
+    }
+
+    /**
+     * @return square number landed on when jumping in direction, or -1
+     */
+    public int getJump(int square, int direction) {
+        return jump[square * NUMBER_OF_DIRECTIONS + direction];
+    }
+
+    // the tables themselves, for the move generators - do not modify
+
+    /* default */ int[] getNeighbourTable() {
+        return neighbour;
+    }
+
+    /* default */ int[] getJumpTable() {
+        return jump;
+    }
+
+    /**
+     * @return true if other has the same size and squares
+     */
+    public boolean equalsType(BoardGeometry other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null) {
+            return false;
+        }
+        return (sizeX == other.sizeX) && (sizeY == other.sizeY) && Arrays.equals(squares, other.squares);
+    }
+
+    private int pointIndex(int x, int y) {
+        if ((x < 1) || (x > sizeX) || (y < 1) || (y > sizeY)) {
+            return -1;
+        }
+        return (y - 1) * sizeX + (x - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "BoardGeometry [" + sizeX + "x" + sizeY + ", squares=" + getNumberOfSquares() + "]";
+    }
+}
@@ -0,0 +1,12 @@
+package checkers.model;
+
+/**
+ * Told about every change to a Board, see Board.addBoardListener().
+ *
+ * Called on the thread that changed the board.  changes is reused as soon
+ * as the call returns, so copy out anything needed later (e.g. to hand it
+ * to another thread).
+ */
+public interface BoardListener {
+    void boardChanged(Board board, BoardChanges changes);
+}
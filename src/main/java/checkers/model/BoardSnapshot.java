@@ -0,0 +1,138 @@
+package checkers.model;
+
+import java.awt.Point;
+
+/**
+ * An immutable copy of a Board's position:  the (already immutable)
+ * geometry, the three piece masks, the side to move and the hash.  All
+ * fields are final, so a snapshot can be handed to any thread as is.
+ *
+ * The Board publishes a new one after every change (see
+ * Board.getSnapshot()), which costs one small object per move;  readers
+ * never lock and never see a half-made move.
+ */
+public final class BoardSnapshot {
+    private final BoardGeometry geometry;
+    private final long black;
+    private final long red;
+    private final long kings;
+    private final CheckerSide sideToMove;
+    private final long hash;
+    private final long version;
+
+    /* default */ BoardSnapshot(BoardGeometry geometry, BitBoard position, long version) {
+        this.geometry = geometry;
+        this.black = position.getBlack();
+        this.red = position.getRed();
+        this.kings = position.getKings();
+        this.sideToMove = position.getSideToMove();
+        this.hash = position.getHash();
+        this.version = version;
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public long getBlack() {
+        return black;
+    }
+
+    public long getRed() {
+        return red;
+    }
+
+    public long getKings() {
+        return kings;
+    }
+
+    public CheckerSide getSideToMove() {
+        return sideToMove;
+    }
+
+    public boolean isBlackToMove() {
+        return CheckerSide.BLACK.equalsType(sideToMove);
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return how many snapshots the board published before this one, so
+     *         a reader can tell whether anything changed
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isEmpty(int square) {
+        return ((black | red) & bit(square)) == 0;
+    }
+
+    /**
+     * @return the shared Checker on square, or null if it is empty
+     */
+    public Checker getPiece(int square) {
+        final long bit = bit(square);
+        if ((black & bit) != 0) {
+            return ((kings & bit) != 0) ? Checker.BLACK_KING : Checker.BLACK_REGULAR;
+        } else if ((red & bit) != 0) {
+            return ((kings & bit) != 0) ? Checker.RED_KING : Checker.RED_REGULAR;
+        }
+        return null;
+    }
+
+    /**
+     * @return the piece at point, null if it is empty or not in play
+     */
+    public Checker getPiece(Point point) {
+        final int square = geometry.getSquareNumber(point.x, point.y);
+        return (square < 0) ? null : getPiece(square);
+    }
+
+    private long bit(int square) {
+        if ((square < 0) || (square >= geometry.getNumberOfSquares())) {
+            throw new RuntimeException("Invalid square " + square + ", size=" + geometry.getNumberOfSquares());
+        }
+        return 1L << square;
+    }
+
+    /**
+     * Load the position into target, e.g. to search it.
+     */
+    public void copyTo(BitBoard target) {
+        target.setMasks(black, red, kings, sideToMove);
+    }
+
+    public BitBoard toBitBoard() {
+        BitBoard ret = new BitBoard(geometry.getNumberOfSquares());
+        copyTo(ret);
+        return ret;
+    }
+
+    /**
+     * @return string suitable for Board.loadPiecesFromString()
+     */
+    public String toPiecesString() {
+        StringBuilder sb = new StringBuilder(geometry.getNumberOfSquares());
+        for (int square = 0; square < geometry.getNumberOfSquares(); square++) {
+            final Checker piece = getPiece(square);
+            sb.append((piece == null) ? '-' : piece.toChar());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return true if other has the same squares, pieces and side to move
+     */
+    public boolean equalsPosition(BoardSnapshot other) {
+        return (other != null) && geometry.equalsType(other.geometry) && (black == other.black)
+            && (red == other.red) && (kings == other.kings) && (sideToMove == other.sideToMove);
+    }
+
+    @Override
+    public String toString() {
+        return "BoardSnapshot [" + toPiecesString() + " " + sideToMove + " version=" + version + "]";
+    }
+}
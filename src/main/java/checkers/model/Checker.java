@@ -1,28 +1,72 @@
 package checkers.model;
 
+/**
+ * A checker has no identity of its own, only a type and a side, so there are
+ * just four of them:  BLACK_REGULAR, BLACK_KING, RED_REGULAR and RED_KING.
+ * Creating a piece (e.g. loading a position) hands out one of these shared
+ * instances, and two checkers are equal when their type and side are.
+ */
 //@MapKeyCapable -- i.e. is capable of being used as a key in a Map
 public class Checker implements Piece {
-    // quick implementation of "id"
-    private static int globalCheckerId = 1;
-
-
-    private final int checkerId = globalCheckerId++;
-    private CheckerType checkerType;
-    private CheckerSide checkerSide;
+    // codes, same order as the Zobrist kinds
+    public static final int CODE_BLACK_REGULAR = 0;
+    public static final int CODE_BLACK_KING = 1;
+    public static final int CODE_RED_REGULAR = 2;
+    public static final int CODE_RED_KING = 3;
 
+    public static final Checker BLACK_REGULAR = new Checker(CheckerType.REGULAR, CheckerSide.BLACK);
+    public static final Checker BLACK_KING = new Checker(CheckerType.KING, CheckerSide.BLACK);
+    public static final Checker RED_REGULAR = new Checker(CheckerType.REGULAR, CheckerSide.RED);
+    public static final Checker RED_KING = new Checker(CheckerType.KING, CheckerSide.RED);
 
+    // indexed by code
+    private static final Checker[] ALL = { BLACK_REGULAR, BLACK_KING, RED_REGULAR, RED_KING };
 
+    private final CheckerType checkerType;
+    private final CheckerSide checkerSide;
+    private final int code;
 
+    /**
+     * Prefer valueOf(), which does not create a new instance.
+     */
     public Checker(CheckerType checkerType, CheckerSide checkerSide) {
         super();
         this.checkerType = checkerType;
         this.checkerSide = checkerSide;
+        this.code = toCode(checkerType, checkerSide);
+    }
+
+    public static Checker valueOf(CheckerType checkerType, CheckerSide checkerSide) {
+        return ALL[toCode(checkerType, checkerSide)];
+    }
+
+    private static int toCode(CheckerType checkerType, CheckerSide checkerSide) {
+        return (CheckerSide.BLACK.equalsType(checkerSide) ? CODE_BLACK_REGULAR : CODE_RED_REGULAR)
+             + (CheckerType.KING.equalsType(checkerType) ? 1 : 0);
+    }
+
+    /**
+     * @param code one of the CODE_ constants
+     */
+    public static Checker valueOf(int code) {
+        if ((code < 0) || (code >= ALL.length)) {
+            throw new RuntimeException("Invalid checker code " + code);
+        }
+        return ALL[code];
     }
 
     public CheckerSide getSide() {
         return checkerSide;
     }
 
+    public CheckerType getType() {
+        return checkerType;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
     public boolean isKing() {
         return CheckerType.KING.equalsType(checkerType);
     }
@@ -31,20 +75,21 @@ public class Checker implements Piece {
         return checkerSide.equalsType(querySide);
     }
 
-
+    /**
+     * @return 'b', 'B', 'r' or 'R'
+     */
+    public char toChar() {
+        return "bBrR".charAt(code);
+    }
 
     @Override
     public String toString() {
-        return "Checker [checkerId=" + checkerId + ", checkerType="
-                + checkerType + ", checkerSide=" + checkerSide + "]";
+        return "Checker [checkerType=" + checkerType + ", checkerSide=" + checkerSide + "]";
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + checkerId;
-        return result;
+        return code;
     }
 
     @Override
@@ -56,7 +101,7 @@ public class Checker implements Piece {
         if (getClass() != obj.getClass())
             return false;
         Checker other = (Checker) obj;
-        if (checkerId != other.checkerId)
+        if (code != other.code)
             return false;
         return true;
     }
@@ -67,41 +112,35 @@ public class Checker implements Piece {
 
     /**
      * @param s "b", "B", "r", "R" or "-"
-     * @return newly-created Checker or null if s is "-"
+     * @return shared Checker or null if s is "-"
      * @throws RuntimeException if input is invalid
      */
     public static Checker createFromSingleString(String s) {
-        final Checker ret;
-        final CheckerSide side;
-        final CheckerType type;
-
-        if (s.equals("b")) {
-            side = CheckerSide.BLACK;
-            type = CheckerType.REGULAR;
-        } else if (s.equals("r")) {
-            side = CheckerSide.RED;
-            type = CheckerType.REGULAR;
-        } else if (s.equals("B")) {
-            side = CheckerSide.BLACK;
-            type = CheckerType.KING;
-        } else if (s.equals("R")) {
-            side = CheckerSide.RED;
-            type = CheckerType.KING;
-        } else if (s.equals("-")) {
-            side = null;
-            type = null;
-        } else {
+        if (s.length() != 1) {
             throw new RuntimeException("Cannot convert '" + s + "' to a piece");
         }
+        return createFromChar(s.charAt(0));
+    }
 
-        if ((side != null) && (type != null)) {
-            ret = new Checker(type, side);
-        } else {
-            ret = null;
+    /**
+     * @param c 'b', 'B', 'r', 'R' or '-'
+     * @return shared Checker or null if c is '-'
+     * @throws RuntimeException if input is invalid
+     */
+    public static Checker createFromChar(char c) {
+        switch (c) {
+        case 'b':
+            return BLACK_REGULAR;
+        case 'B':
+            return BLACK_KING;
+        case 'r':
+            return RED_REGULAR;
+        case 'R':
+            return RED_KING;
+        case '-':
+            return null;
+        default:
+            throw new RuntimeException("Cannot convert '" + c + "' to a piece");
         }
-
-        return ret;
     }
-
-
 }
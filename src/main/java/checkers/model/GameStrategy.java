@@ -7,10 +7,15 @@ public interface GameStrategy {
 
     void setBoard(Board ret);
 
+    // the rules moves are generated by
+    RuleSet getRules();
+
     List<String> splitBoardStateString(String s);
 
     Checker createPieceFromSingleString(String s);
 
+    Checker createPieceFromChar(char c);
+
     // for debugging
     String convertPointToDumpString(Point point);
 
@@ -21,5 +26,13 @@ public interface GameStrategy {
 
     boolean isValidToMove(Point from, Point to);
 
+    // take back moves made by movePiece(), most recent first
+    boolean canUndoMove();
+
+    void undoMove();
+
+    // the board was set up some other way:  nothing to take back
+    void clearUndo();
+
 
 }
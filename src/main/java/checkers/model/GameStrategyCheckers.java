@@ -2,34 +2,53 @@ package checkers.model;
 
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import checkers.model.Board.Square;
 
+/**
+ * Draughts on a Board, by the rules of a RuleSet:  English checkers
+ * unless another variant is given.
+ */
 public class GameStrategyCheckers implements GameStrategy {
 
+    private final RuleSet rules;
     private Board board;
 
+    // created on first use, after the board's squares are known
+    private MoveGenerator moveGenerator;
+    private final MoveList legalMoves = new MoveList();
+    private final UndoStack undoStack = new UndoStack(256);
+
+    public GameStrategyCheckers() {
+        this(RuleSet.ENGLISH);
+    }
+
+    public GameStrategyCheckers(RuleSet rules) {
+        this.rules = rules;
+    }
+
     @Override
     public void setBoard(Board ret) {
         board = ret;
     }
 
+    @Override
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * One String per square.  Board.loadPiecesFromString() does not need
+     * this any more, and checkers.io stores positions without Strings at all.
+     */
     @Override
     public List<String> splitBoardStateString(String s) {
-        String[] split = s.split("");
-        if (split.length != s.length()) {
-            System.out.println("WTF splitBoardstra s.len=" + s.length() + " split.len=" + split.length);
-            // TODO: WTF? split just stopped working!
-            List<String> ret = new ArrayList<>();
-            for (int i = 0, n = s.length(); i < n; i++) {
-                ret.add(s.substring(i, i+1));
-            }
-            return ret;
-            //throw new RuntimeException("length mismatch: s.len=" + s.length() + " but array.len=" + split.length);
+        List<String> ret = new ArrayList<>(s.length());
+        for (int i = 0, n = s.length(); i < n; i++) {
+            ret.add(String.valueOf(s.charAt(i)));
         }
-        return Arrays.asList(split);
+        return ret;
     }
 
     @Override
@@ -37,6 +56,11 @@ public class GameStrategyCheckers implements GameStrategy {
         return Checker.createFromSingleString(s);
     }
 
+    @Override
+    public Checker createPieceFromChar(char c) {
+        return Checker.createFromChar(c);
+    }
+
     @Override
     public String convertPointToDumpString(Point point) {
         String cell;
@@ -83,11 +107,52 @@ public class GameStrategyCheckers implements GameStrategy {
 
     @Override
     public boolean canMovePieceAtPoint(Point point) {
-        // TODO: better implementation - pay attention to which side has the turn,
-        //       pay attention to "must move another piece" rules
-        return (getPiece(point) != null);
+        final int squareNumber = board.getSquareNumber(point);
+        if (squareNumber < 0) {
+            return false;
+        }
+        generateLegalMoves(legalMoves);
+        for (int i = 0, n = legalMoves.size(); i < n; i++) {
+            if (MoveList.getFrom(legalMoves.getMove(i)) == squareNumber) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public MoveGenerator getMoveGenerator() {
+        if (moveGenerator == null) {
+            moveGenerator = new MoveGenerator(board.getGeometry(), rules);
+        }
+        return moveGenerator;
+    }
+
+    /**
+     * @param moves filled with every legal move for the side to move
+     * @return number of legal moves
+     */
+    public int generateLegalMoves(MoveList moves) {
+        return getMoveGenerator().generateMoves(board.getBitBoardInternal(), moves);
+    }
+
+    public CheckerSide getSideToMove() {
+        return board.getBitBoardInternal().getSideToMove();
+    }
+
+    public void setSideToMove(CheckerSide side) {
+        board.setSideToMove(side);
     }
 
+    // index into legalMoves, or -1
+    private int findLegalMove(Point from, Point to) {
+        final int fromNumber = board.getSquareNumber(from);
+        final int toNumber = board.getSquareNumber(to);
+        if ((fromNumber < 0) || (toNumber < 0)) {
+            return -1;
+        }
+        generateLegalMoves(legalMoves);
+        return legalMoves.indexOf(fromNumber, toNumber);
+    }
 
     /**
      * @param point to check
@@ -95,44 +160,61 @@ public class GameStrategyCheckers implements GameStrategy {
      */
     public boolean isAvailableTargetForMove(Point point) {
         final boolean ret;
-        if (Square.IN_PLAY.equalsType(getSquare(point))) {
-            if (null == getPiece(point)) {
-                ret = true;
-            } else {
-                ret = false;
-            }
+        // only IN_PLAY squares have a square number
+        final int squareNumber = board.getSquareNumber(point);
+        if (squareNumber >= 0) {
+            ret = board.getBitBoardInternal().isEmpty(squareNumber);
         } else {
             ret = false;
         }
-        System.out.println("isAvailable(" + point + ") ret=" + ret);
         return ret;
     }
 
+    /**
+     * Make the legal move from/to: captured pieces are removed, a piece
+     * reaching the far row becomes a king, and the turn passes.
+     */
     @Override
     public void movePiece(Point from, Point to) {
-
-        final Piece piece = getPiece(from);
-        if (piece != null) {
-            if (isAvailableTargetForMove(to)) {
-                board.removePoint2Piece(from);
-                board.putPoint2Piece(to, piece);
-            } else {
-                throw new RuntimeException("Programmer error - point not available, point=" + to);
-            }
-        } else {
-            throw new RuntimeException("Programmer error - no piece at original, point=" + from);
+        final int index = findLegalMove(from, to);
+        if (index < 0) {
+            throw new RuntimeException("Programmer error - not a legal move, from=" + from + " to=" + to);
         }
+        makeMove(legalMoves.getMove(index), legalMoves.getCaptures(index));
+    }
+
+    /**
+     * @param move and captures as generated by generateLegalMoves()
+     */
+    public void makeMove(int move, long captures) {
+        board.makeMove(move, captures, undoStack);
+    }
+
+    /**
+     * Take back the most recent makeMove(), including captures, promotion and hash.
+     */
+    public void unmakeMove() {
+        board.unmakeMove(undoStack);
+    }
+
+    @Override
+    public boolean canUndoMove() {
+        return ! undoStack.isEmpty();
+    }
+
+    @Override
+    public void undoMove() {
+        unmakeMove();
+    }
+
+    @Override
+    public void clearUndo() {
+        undoStack.clear();
     }
 
     @Override
     public boolean isValidToMove(Point from, Point to) {
-        if (getPiece(from) != null) {
-            if (isAvailableTargetForMove(to)) {
-                //  TODO: rule check too
-                return true;
-            }
-        }
-        return false;
+        return findLegalMove(from, to) >= 0;
     }
 
 }
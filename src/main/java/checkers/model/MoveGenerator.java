@@ -0,0 +1,298 @@
+package checkers.model;
+
+import checkers.metrics.Metrics;
+
+/**
+ * Legal move generator for draughts, working on BitBoard square numbers.
+ *
+ * Rules (English checkers unless another RuleSet is given):
+ *   o BLACK starts at the top and moves down, RED starts at the bottom and moves up
+ *   o captures are forced, and a capturing piece must keep jumping while it can
+ *   o kings move and capture in all 4 directions, one square at a time
+ *   o a regular piece that reaches the far row is promoted, and that ends its move
+ *
+ * The other variants switch on men capturing backward, flying kings,
+ * majority capture and the promotion rule, see RuleSet.  A flying king
+ * that can land on several squares after a capture must pick one from
+ * which it can go on capturing, if there is one.
+ *
+ * The neighbour and jump tables come from the BoardGeometry, so they are
+ * built once per board size.  Generating moves only walks bits and table
+ * entries - no Point, List or other object is created per candidate square.
+ */
+public class MoveGenerator {
+    // Directions, in table order:
+    public static final int UP_LEFT = BoardGeometry.UP_LEFT;
+    public static final int UP_RIGHT = BoardGeometry.UP_RIGHT;
+    public static final int DOWN_LEFT = BoardGeometry.DOWN_LEFT;
+    public static final int DOWN_RIGHT = BoardGeometry.DOWN_RIGHT;
+    public static final int NUMBER_OF_DIRECTIONS = BoardGeometry.NUMBER_OF_DIRECTIONS;
+
+    private final BoardGeometry geometry;
+    private final int numberOfSquares;
+    private final int numberOfRows;
+
+    // [square * NUMBER_OF_DIRECTIONS + direction], -1 if off the board,
+    // shared with the BoardGeometry
+    private final int[] neighbour;
+    private final int[] jump;
+
+    // BLACK promotes on the bottom row, RED on the top row
+    private final long blackPromotion;
+    private final long redPromotion;
+
+    private final RuleSet rules;
+    private final boolean menCaptureBackward;
+    private final boolean flyingKings;
+    private final boolean majorityCapture;
+    private final int promotionRule;
+
+    /**
+     * A generator for the rules of board, see Board.getRules().
+     */
+    public MoveGenerator(Board board) {
+        this(board.getGeometry(), board.getRules());
+    }
+
+    public MoveGenerator(BoardGeometry geometry) {
+        this(geometry, RuleSet.ENGLISH);
+    }
+
+    public MoveGenerator(BoardGeometry geometry, RuleSet rules) {
+        this.geometry = geometry;
+        numberOfSquares = geometry.getNumberOfSquares();
+        if (numberOfSquares > BitBoard.MAX_SQUARES) {
+            throw new RuntimeException("MoveGenerator needs a BitBoard, which cannot hold " + numberOfSquares + " squares");
+        }
+        numberOfRows = geometry.getSizeY();
+        neighbour = geometry.getNeighbourTable();
+        jump = geometry.getJumpTable();
+
+        long bottom = 0;
+        long top = 0;
+        for (int square = 0; square < numberOfSquares; square++) {
+            if (geometry.getY(square) == 1) {
+                top |= 1L << square;
+            }
+            if (geometry.getY(square) == numberOfRows) {
+                bottom |= 1L << square;
+            }
+        }
+        blackPromotion = bottom;
+        redPromotion = top;
+
+        this.rules = rules;
+        menCaptureBackward = rules.isMenCaptureBackward();
+        flyingKings = rules.isFlyingKings();
+        majorityCapture = rules.isMajorityCapture();
+        promotionRule = rules.getPromotion();
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * @return true if other generates the same moves:  same rules, same squares
+     */
+    public boolean equalsType(MoveGenerator other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null) {
+            return false;
+        }
+        return (rules == other.rules) && geometry.equalsType(other.geometry);
+    }
+
+    public int getNumberOfSquares() {
+        return numberOfSquares;
+    }
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * @return neighbouring square number in direction, or -1
+     */
+    public int getNeighbour(int square, int direction) {
+        return neighbour[square * NUMBER_OF_DIRECTIONS + direction];
+    }
+
+    /**
+     * @return square number landed on when jumping in direction, or -1
+     */
+    public int getJump(int square, int direction) {
+        return jump[square * NUMBER_OF_DIRECTIONS + direction];
+    }
+
+    /**
+     * Fill moves with every legal move for the side to move.
+     * If any capture exists, only captures are returned.
+     *
+     * @return number of moves, i.e. moves.size()
+     */
+    public int generateMoves(BitBoard position, MoveList moves) {
+        final long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+        final int ret = generate(position, moves);
+        if (Metrics.ENABLED) {
+            Metrics.MOVE_GENERATION.recordSince(startNanos);
+            Metrics.MOVES_GENERATED.add(ret);
+        }
+        return ret;
+    }
+
+    private int generate(BitBoard position, MoveList moves) {
+        moves.clear();
+
+        final boolean blackToMove = position.isBlackToMove();
+        final long own = blackToMove ? position.getBlack() : position.getRed();
+        final long opponent = blackToMove ? position.getRed() : position.getBlack();
+        final long kings = position.getKings();
+        final long empty = position.getEmpty();
+        final long promotion = blackToMove ? blackPromotion : redPromotion;
+        // regular pieces only go "forward"
+        final int firstForward = blackToMove ? DOWN_LEFT : UP_LEFT;
+
+        long pieces = own;
+        while (pieces != 0) {
+            final int from = Long.numberOfTrailingZeros(pieces);
+            final long fromBit = pieces & -pieces;
+            pieces ^= fromBit;
+
+            final boolean king = (kings & fromBit) != 0;
+            // the moving piece has left its square
+            addJumps(moves, from, from, king, false, 0L, opponent, empty | fromBit,
+                     promotion, firstForward);
+        }
+        if (moves.size() > 0) {
+            if (majorityCapture) {
+                moves.keepMostCaptures();
+            }
+            return moves.size();
+        }
+
+        pieces = own;
+        while (pieces != 0) {
+            final int from = Long.numberOfTrailingZeros(pieces);
+            final long fromBit = pieces & -pieces;
+            pieces ^= fromBit;
+
+            final boolean king = (kings & fromBit) != 0;
+            final boolean flying = king && flyingKings;
+            final int firstDir = king ? 0 : firstForward;
+            final int lastDir = king ? NUMBER_OF_DIRECTIONS : firstForward + 2;
+            final int base = from * NUMBER_OF_DIRECTIONS;
+            for (int dir = firstDir; dir < lastDir; dir++) {
+                int to = neighbour[base + dir];
+                while ((to >= 0) && ((empty & (1L << to)) != 0)) {
+                    final boolean promote = (! king) && ((promotion & (1L << to)) != 0);
+                    moves.add(MoveList.encode(from, to, promote), 0L);
+                    if (! flying) {
+                        break;
+                    }
+                    to = neighbour[to * NUMBER_OF_DIRECTIONS + dir];
+                }
+            }
+        }
+        return moves.size();
+    }
+
+    // depth-first over jump sequences; captured pieces stay on the board
+    // (and so cannot be jumped twice, and block flying kings) until the
+    // move is complete.  crowned: a man promoted during this capture.
+    private void addJumps(MoveList moves, int from, int at, boolean king, boolean crowned, long captured,
+                          long opponent, long empty, long promotion, int firstForward) {
+        boolean jumped = false;
+        final boolean flying = king && flyingKings;
+        final boolean allDirections = king || menCaptureBackward;
+        final int firstDir = allDirections ? 0 : firstForward;
+        final int lastDir = allDirections ? NUMBER_OF_DIRECTIONS : firstForward + 2;
+        final int base = at * NUMBER_OF_DIRECTIONS;
+        for (int dir = firstDir; dir < lastDir; dir++) {
+            int over = neighbour[base + dir];
+            int landing = jump[base + dir];
+            if (flying) {
+                // up to the first piece
+                while ((over >= 0) && ((empty & (1L << over)) != 0)) {
+                    over = neighbour[over * NUMBER_OF_DIRECTIONS + dir];
+                }
+                landing = (over < 0) ? -1 : neighbour[over * NUMBER_OF_DIRECTIONS + dir];
+            }
+            if (landing < 0) {
+                continue;
+            }
+            final long overBit = 1L << over;
+            if (((opponent & ~captured & overBit) == 0) || ((empty & (1L << landing)) == 0)) {
+                continue;
+            }
+
+            jumped = true;
+            final long nowCaptured = captured | overBit;
+            if (! flying) {
+                addJump(moves, from, landing, king, crowned, nowCaptured, opponent, empty, promotion, firstForward);
+                continue;
+            }
+            // a flying king may land on any empty square beyond, but must
+            // take one from which it can capture again, if there is one
+            boolean mustContinue = false;
+            for (int to = landing; (to >= 0) && ((empty & (1L << to)) != 0);
+                 to = neighbour[to * NUMBER_OF_DIRECTIONS + dir]) {
+                if (canJump(to, nowCaptured, opponent, empty)) {
+                    mustContinue = true;
+                    break;
+                }
+            }
+            for (int to = landing; (to >= 0) && ((empty & (1L << to)) != 0);
+                 to = neighbour[to * NUMBER_OF_DIRECTIONS + dir]) {
+                if (! mustContinue || canJump(to, nowCaptured, opponent, empty)) {
+                    addJumps(moves, from, to, true, crowned, nowCaptured, opponent, empty, promotion, firstForward);
+                }
+            }
+        }
+
+        if ((! jumped) && (captured != 0)) {
+            final boolean promote = crowned || ((! king) && ((promotion & (1L << at)) != 0));
+            moves.addUnique(MoveList.encode(from, at, promote), captured);
+        }
+    }
+
+    // one short jump to landing, then on from there
+    private void addJump(MoveList moves, int from, int landing, boolean king, boolean crowned, long captured,
+                         long opponent, long empty, long promotion, int firstForward) {
+        if (king || ((promotion & (1L << landing)) == 0) || (promotionRule == RuleSet.PROMOTION_AT_END)) {
+            addJumps(moves, from, landing, king, crowned, captured, opponent, empty, promotion, firstForward);
+        } else if (promotionRule == RuleSet.PROMOTION_ENDS_MOVE) {
+            moves.addUnique(MoveList.encode(from, landing, true), captured);
+        } else {
+            addJumps(moves, from, landing, true, true, captured, opponent, empty, promotion, firstForward);
+        }
+    }
+
+    // can a flying king at "at" capture anything?
+    private boolean canJump(int at, long captured, long opponent, long empty) {
+        final int base = at * NUMBER_OF_DIRECTIONS;
+        for (int dir = 0; dir < NUMBER_OF_DIRECTIONS; dir++) {
+            int over = neighbour[base + dir];
+            while ((over >= 0) && ((empty & (1L << over)) != 0)) {
+                over = neighbour[over * NUMBER_OF_DIRECTIONS + dir];
+            }
+            if ((over < 0) || ((opponent & ~captured & (1L << over)) == 0)) {
+                continue;
+            }
+            final int landing = neighbour[over * NUMBER_OF_DIRECTIONS + dir];
+            if ((landing >= 0) && ((empty & (1L << landing)) != 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply moves[index] to position, see BitBoard.applyMove().
+     */
+    public void makeMove(BitBoard position, MoveList moves, int index) {
+        position.applyMove(moves.getMove(index), moves.getCaptures(index));
+    }
+}
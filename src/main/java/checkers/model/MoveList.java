@@ -0,0 +1,141 @@
+package checkers.model;
+
+/**
+ * Preallocated list of moves, filled by MoveGenerator.
+ *
+ * A move is an int: from square number, to square number and a promotion flag,
+ * see encode().  The pieces it captures are kept in a parallel long[] mask.
+ * Nothing is allocated once the list exists, so one list per search ply
+ * can be reused for the life of the search.
+ */
+public class MoveList {
+    public static final int MAX_MOVES = 256;
+
+    private static final int SQUARE_MASK = 0xff;
+    private static final int TO_SHIFT = 8;
+    private static final int PROMOTION_FLAG = 1 << 16;
+
+    private final int[] moves = new int[MAX_MOVES];
+    private final long[] captures = new long[MAX_MOVES];
+    private int size = 0;
+
+    public static int encode(int from, int to, boolean promotion) {
+        return from | (to << TO_SHIFT) | (promotion ? PROMOTION_FLAG : 0);
+    }
+
+    public static int getFrom(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int getTo(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & PROMOTION_FLAG) != 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    public long getCaptures(int index) {
+        return captures[index];
+    }
+
+    public boolean isCapture(int index) {
+        return captures[index] != 0;
+    }
+
+    public void add(int move, long captured) {
+        if (size == MAX_MOVES) {
+            throw new RuntimeException("Too many moves, max=" + MAX_MOVES);
+        }
+        moves[size] = move;
+        captures[size] = captured;
+        size++;
+    }
+
+    /**
+     * Add, unless an identical move (same squares, same captures) is already
+     * present.  A king can reach the same square by two different jump paths.
+     */
+    public void addUnique(int move, long captured) {
+        for (int i = 0; i < size; i++) {
+            if ((moves[i] == move) && (captures[i] == captured)) {
+                return;
+            }
+        }
+        add(move, captured);
+    }
+
+    /**
+     * Remove every move capturing fewer pieces than the one capturing most
+     * (the majority rule), keeping the order of the others.
+     */
+    public void keepMostCaptures() {
+        int most = 0;
+        for (int i = 0; i < size; i++) {
+            most = Math.max(most, Long.bitCount(captures[i]));
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (Long.bitCount(captures[i]) == most) {
+                moves[kept] = moves[i];
+                captures[kept] = captures[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * @return index of the first move from/to those square numbers, or -1
+     */
+    public int indexOf(int from, int to) {
+        for (int i = 0; i < size; i++) {
+            final int move = moves[i];
+            if ((getFrom(move) == from) && (getTo(move) == to)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void swap(int i, int j) {
+        final int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+        final long captured = captures[i];
+        captures[i] = captures[j];
+        captures[j] = captured;
+    }
+
+    /**
+     * @return like "9-13" or "22x15", square numbers starting at 1
+     */
+    public static String toString(int move, long captured) {
+        return (getFrom(move) + 1) + (captured != 0 ? "x" : "-") + (getTo(move) + 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("MoveList [");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(" ");
+            }
+            sb.append(toString(moves[i], captures[i]));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
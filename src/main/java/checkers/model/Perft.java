@@ -0,0 +1,62 @@
+package checkers.model;
+
+/**
+ * "Performance test": count the leaf nodes of the legal move tree to a fixed depth.
+ *
+ * The counts are well known for the starting position, so this is both a
+ * correctness check of MoveGenerator and a benchmark of it.
+ * Moves are made and unmade on a single position; the move lists are
+ * allocated up front, one per ply.
+ */
+public class Perft {
+    private final MoveGenerator moveGenerator;
+    private final BitBoard position;
+    private final UndoStack undoStack;
+    private final MoveList[] moveLists;
+
+    public Perft(MoveGenerator moveGenerator, int maxDepth) {
+        this.moveGenerator = moveGenerator;
+        position = new BitBoard(moveGenerator.getNumberOfSquares());
+        undoStack = new UndoStack(maxDepth + 1);
+        moveLists = new MoveList[maxDepth + 1];
+        for (int ply = 0; ply <= maxDepth; ply++) {
+            moveLists[ply] = new MoveList();
+        }
+    }
+
+    public int getMaxDepth() {
+        return moveLists.length - 1;
+    }
+
+    /**
+     * @return number of positions exactly depth moves after start
+     */
+    public long perft(BitBoard start, int depth) {
+        if ((depth < 0) || (depth > getMaxDepth())) {
+            throw new RuntimeException("depth " + depth + " is outside 0.." + getMaxDepth());
+        }
+        if (depth == 0) {
+            return 1;
+        }
+        position.copyFrom(start);
+        undoStack.clear();
+        return perft(0, depth);
+    }
+
+    private long perft(int ply, int depth) {
+        final MoveList moves = moveLists[ply];
+        final int n = moveGenerator.generateMoves(position, moves);
+        if (depth == 1) {
+            // "bulk counting" - no need to make the last moves
+            return n;
+        }
+
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            position.makeMove(moves.getMove(i), moves.getCaptures(i), undoStack);
+            total += perft(ply + 1, depth - 1);
+            position.unmakeMove(undoStack);
+        }
+        return total;
+    }
+}
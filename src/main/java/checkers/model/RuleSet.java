@@ -0,0 +1,145 @@
+package checkers.model;
+
+/**
+ * The rules of a draughts variant, as the few switches MoveGenerator
+ * needs.  Every variant shares its neighbour and jump tables (from the
+ * BoardGeometry) and its bit walking;  only these switches differ.
+ *
+ * In every variant captures are forced, pieces are removed only after the
+ * whole capture (so a piece cannot be jumped twice), and BLACK, at the
+ * top, moves first.
+ *
+ * Canadian draughts (international rules on 12x12) is missing:  its 72
+ * squares do not fit a BitBoard.
+ */
+public final class RuleSet {
+    // a man reaching the far row during a capture...
+    // ...is crowned, and that ends the move
+    public static final int PROMOTION_ENDS_MOVE = 0;
+    // ...is crowned, and goes on capturing as a king
+    public static final int PROMOTION_CONTINUES_AS_KING = 1;
+    // ...goes on capturing as a man, if it can;  only a man ending its move there is crowned
+    public static final int PROMOTION_AT_END = 2;
+
+    // the ids are stored in files:  never renumber them
+    public static final RuleSet ENGLISH = new RuleSet(0, "English", 8, false, false, false, PROMOTION_ENDS_MOVE);
+    public static final RuleSet RUSSIAN = new RuleSet(1, "Russian", 8, true, true, false, PROMOTION_CONTINUES_AS_KING);
+    public static final RuleSet POOL = new RuleSet(2, "Pool", 8, true, true, false, PROMOTION_AT_END);
+    public static final RuleSet INTERNATIONAL = new RuleSet(3, "International", 10, true, true, true, PROMOTION_AT_END);
+
+    // [id]
+    private static final RuleSet[] ALL = { ENGLISH, RUSSIAN, POOL, INTERNATIONAL };
+
+    private final int id;
+    private final String name;
+    private final int boardSize;
+    private final boolean menCaptureBackward;
+    private final boolean flyingKings;
+    private final boolean majorityCapture;
+    private final int promotion;
+
+    private RuleSet(int id, String name, int boardSize, boolean menCaptureBackward, boolean flyingKings,
+                    boolean majorityCapture, int promotion) {
+        this.id = id;
+        this.name = name;
+        this.boardSize = boardSize;
+        this.menCaptureBackward = menCaptureBackward;
+        this.flyingKings = flyingKings;
+        this.majorityCapture = majorityCapture;
+        this.promotion = promotion;
+    }
+
+    /**
+     * @param name like "english" or "International", case does not matter
+     */
+    public static RuleSet forName(String name) {
+        for (RuleSet rules : ALL) {
+            if (rules.name.equalsIgnoreCase(name)) {
+                return rules;
+            }
+        }
+        throw new RuntimeException("Unknown rules '" + name + "'");
+    }
+
+    /**
+     * @return the inverse of getId()
+     */
+    public static RuleSet forId(int id) {
+        if ((id < 0) || (id >= ALL.length)) {
+            throw new RuntimeException("Unknown rules id " + id);
+        }
+        return ALL[id];
+    }
+
+    /**
+     * @return a small number for files, 0 for ENGLISH
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public BoardGeometry getGeometry() {
+        return BoardGeometry.forSize(boardSize);
+    }
+
+    /**
+     * @return true if men capture backward as well as forward (they always move forward only)
+     */
+    public boolean isMenCaptureBackward() {
+        return menCaptureBackward;
+    }
+
+    /**
+     * @return true if kings move and capture any distance along a diagonal
+     */
+    public boolean isFlyingKings() {
+        return flyingKings;
+    }
+
+    /**
+     * @return true if only the captures taking the most pieces are legal
+     */
+    public boolean isMajorityCapture() {
+        return majorityCapture;
+    }
+
+    /**
+     * @return PROMOTION_ENDS_MOVE, PROMOTION_CONTINUES_AS_KING or PROMOTION_AT_END
+     */
+    public int getPromotion() {
+        return promotion;
+    }
+
+    /**
+     * @return the start position for Board.loadPiecesFromString():  all but
+     *         the two middle rows filled with men
+     */
+    public String getStartingPieces() {
+        final int perRow = boardSize / 2;
+        final int men = (boardSize / 2 - 1) * perRow;
+        StringBuilder sb = new StringBuilder(boardSize * perRow);
+        for (int i = 0; i < men; i++) {
+            sb.append('b');
+        }
+        for (int i = 0; i < 2 * perRow; i++) {
+            sb.append('-');
+        }
+        for (int i = 0; i < men; i++) {
+            sb.append('r');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,83 @@
+package checkers.model;
+
+import java.util.Arrays;
+
+/**
+ * What BitBoard.makeMove() needs to put back in unmakeMove():  the move,
+ * the captured pieces (and which of them were kings), and the hash before
+ * the move.
+ *
+ * Entries live in parallel arrays that only grow when a game is longer
+ * than anything seen before, so making and unmaking moves allocates nothing
+ * in steady state.
+ */
+public class UndoStack {
+    private int[] moves;
+    private long[] captures;
+    private long[] capturedKings;
+    private long[] hashes;
+    private int size = 0;
+
+    public UndoStack(int initialCapacity) {
+        moves = new int[initialCapacity];
+        captures = new long[initialCapacity];
+        capturedKings = new long[initialCapacity];
+        hashes = new long[initialCapacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /* default */ void push(int move, long captured, long kings, long hash) {
+        if (size == moves.length) {
+            grow();
+        }
+        moves[size] = move;
+        captures[size] = captured;
+        capturedKings[size] = kings;
+        hashes[size] = hash;
+        size++;
+    }
+
+    /* default */ void pop() {
+        if (size == 0) {
+            throw new RuntimeException("Programmer error - nothing to undo");
+        }
+        size--;
+    }
+
+    // the top entry
+
+    public int peekMove() {
+        return moves[size - 1];
+    }
+
+    public long peekCaptures() {
+        return captures[size - 1];
+    }
+
+    /* default */ long peekCapturedKings() {
+        return capturedKings[size - 1];
+    }
+
+    /* default */ long peekHash() {
+        return hashes[size - 1];
+    }
+
+    private void grow() {
+        final int capacity = Math.max(16, moves.length * 2);
+        moves = Arrays.copyOf(moves, capacity);
+        captures = Arrays.copyOf(captures, capacity);
+        capturedKings = Arrays.copyOf(capturedKings, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+    }
+}
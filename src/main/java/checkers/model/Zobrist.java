@@ -0,0 +1,75 @@
+package checkers.model;
+
+/**
+ * Zobrist keys: a random 64-bit key per (kind of piece, square), XOR-ed
+ * together for every piece on the board, plus a key for "RED to move".
+ *
+ * BitBoard keeps its hash up to date as pieces move, so this full
+ * computation is only needed to check it.
+ * The keys come from a fixed seed, so hashes are the same in every run
+ * (and can be stored, e.g. in an opening book).
+ */
+public class Zobrist {
+    public static final int BLACK_MAN = 0;
+    public static final int BLACK_KING = 1;
+    public static final int RED_MAN = 2;
+    public static final int RED_KING = 3;
+
+    private static final long[] KEYS = new long[4 * BitBoard.MAX_SQUARES];
+    private static final long RED_TO_MOVE;
+
+    static {
+        long seed = 0x436865636b657273L;
+        for (int i = 0; i < KEYS.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            KEYS[i] = mix(seed);
+        }
+        seed += 0x9E3779B97F4A7C15L;
+        RED_TO_MOVE = mix(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    // "SplitMix64" finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static long key(int kind, int square) {
+        return KEYS[(kind << 6) | square];
+    }
+
+    public static long redToMove() {
+        return RED_TO_MOVE;
+    }
+
+    /**
+     * @return XOR of the keys of every square in squares, for one kind of piece
+     */
+    public static long keys(int kind, long squares) {
+        long ret = 0;
+        while (squares != 0) {
+            ret ^= KEYS[(kind << 6) | Long.numberOfTrailingZeros(squares)];
+            squares &= squares - 1;
+        }
+        return ret;
+    }
+
+    /**
+     * Full (slow) computation, BitBoard.getHash() should always equal this.
+     */
+    public static long hash(BitBoard position) {
+        final long kings = position.getKings();
+        long ret = keys(BLACK_MAN, position.getBlack() & ~kings)
+                 ^ keys(BLACK_KING, position.getBlack() & kings)
+                 ^ keys(RED_MAN, position.getRed() & ~kings)
+                 ^ keys(RED_KING, position.getRed() & kings);
+        if (! position.isBlackToMove()) {
+            ret ^= RED_TO_MOVE;
+        }
+        return ret;
+    }
+}
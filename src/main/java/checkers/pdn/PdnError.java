@@ -0,0 +1,39 @@
+package checkers.pdn;
+
+/**
+ * Why one game in a PDN file was rejected.
+ */
+public class PdnError {
+    private final long gameNumber;
+    private final long line;
+    private final String message;
+
+    public PdnError(long gameNumber, long line, String message) {
+        this.gameNumber = gameNumber;
+        this.line = line;
+        this.message = message;
+    }
+
+    /**
+     * @return position of the game in the file, starting at 0
+     */
+    public long getGameNumber() {
+        return gameNumber;
+    }
+
+    /**
+     * @return line of the offending token, starting at 1
+     */
+    public long getLine() {
+        return line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "line " + line + ", game " + (gameNumber + 1) + ": " + message;
+    }
+}
@@ -0,0 +1,14 @@
+package checkers.pdn;
+
+import checkers.io.GameRecord;
+
+/**
+ * Receives every valid game of an import.
+ *
+ * Called from the import's worker threads, so it must be thread-safe, and
+ * games do not arrive in file order.  The GameRecord is reused as soon as
+ * the call returns.
+ */
+public interface PdnGameListener {
+    void gameImported(long gameNumber, GameRecord game);
+}
@@ -0,0 +1,67 @@
+package checkers.pdn;
+
+import java.util.List;
+
+/**
+ * Totals of one PdnImporter.importFile().
+ */
+public class PdnImportResult {
+    private final long games;
+    private final long invalidGames;
+    private final long plies;
+    private final long bytes;
+    private final long nanos;
+    private final List<PdnError> errors;
+
+    public PdnImportResult(long games, long invalidGames, long plies, long bytes, long nanos, List<PdnError> errors) {
+        this.games = games;
+        this.invalidGames = invalidGames;
+        this.plies = plies;
+        this.bytes = bytes;
+        this.nanos = nanos;
+        this.errors = errors;
+    }
+
+    /**
+     * @return all games, valid or not
+     */
+    public long getGames() {
+        return games;
+    }
+
+    public long getInvalidGames() {
+        return invalidGames;
+    }
+
+    /**
+     * @return plies of the valid games
+     */
+    public long getPlies() {
+        return plies;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double getGamesPerSecond() {
+        return (nanos == 0) ? 0 : games * 1e9 / nanos;
+    }
+
+    /**
+     * @return the first errors (up to PdnImporter's maxErrors), in file order
+     */
+    public List<PdnError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return games + " games (" + invalidGames + " invalid), " + plies + " plies, " + bytes + " bytes, "
+               + (nanos / 1000000) + "ms, " + Math.round(getGamesPerSecond()) + " games/s";
+    }
+}
@@ -0,0 +1,288 @@
+package checkers.pdn;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import checkers.model.BoardGeometry;
+import checkers.model.RuleSet;
+
+/**
+ * Imports PDN game files:  every game is parsed, replayed and checked move
+ * by move (see PdnParser), and the valid ones are handed to a listener.
+ *
+ * The file is memory mapped one window at a time.  This thread splits a
+ * window at game boundaries (a tag line after move text, outside comments),
+ * then the games of the window are parsed in parallel on a fork-join pool,
+ * straight from the mapping.  A game cut by the end of the window starts
+ * the next window.  So memory use depends on the window size, never on the
+ * file size;  the one limit is that a single game must fit in a window.
+ */
+public class PdnImporter {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_MAX_ERRORS = 100;
+
+    // below this many games a task is not split any further
+    private static final int GAMES_PER_TASK = 32;
+
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private final int threads;
+    private final int windowSize;
+    private int maxErrors = DEFAULT_MAX_ERRORS;
+
+    /**
+     * An importer of English games.
+     */
+    public PdnImporter(BoardGeometry geometry, int threads) {
+        this(geometry, RuleSet.ENGLISH, threads, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param rules the moves are checked against, and the GameRecords are made for
+     */
+    public PdnImporter(BoardGeometry geometry, RuleSet rules, int threads) {
+        this(geometry, rules, threads, DEFAULT_WINDOW_SIZE);
+    }
+
+    /* default */ PdnImporter(BoardGeometry geometry, RuleSet rules, int threads, int windowSize) {
+        if (threads < 1) {
+            throw new RuntimeException("threads must be at least 1, was " + threads);
+        }
+        this.geometry = geometry;
+        this.rules = rules;
+        this.threads = threads;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * @param maxErrors most errors kept in the result, the first ones in the file
+     */
+    public void setMaxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * @param listener receives the valid games, or null
+     */
+    public PdnImportResult importFile(Path file, final PdnGameListener listener) throws IOException {
+        final long startNanos = System.nanoTime();
+        final LongAdder games = new LongAdder();
+        final LongAdder invalidGames = new LongAdder();
+        final LongAdder plies = new LongAdder();
+        final ThreadLocal<PdnParser> parsers = new ThreadLocal<PdnParser>() {
+            @Override
+            protected PdnParser initialValue() {
+                return new PdnParser(geometry, rules);
+            }
+        };
+        List<PdnError> errors = new ArrayList<>();
+        long size;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            Window window = new Window();
+            long windowStart = 0;
+            long line = 1;
+            long gameNumber = 0;
+            while (windowStart < size) {
+                final int length = (int) Math.min(windowSize, size - windowStart);
+                final boolean lastWindow = windowStart + length == size;
+                window.split(channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length), line, gameNumber);
+                if (! lastWindow) {
+                    // the last game may go on in the next window
+                    if (window.count == 1) {
+                        throw new IOException("Game at line " + line + " is longer than " + windowSize + " bytes");
+                    }
+                    window.count--;
+                }
+
+                final Queue<PdnError> windowErrors = new ConcurrentLinkedQueue<>();
+                pool.invoke(new ParseTask(window, 0, window.count, parsers, listener, games, invalidGames, plies,
+                                          windowErrors));
+                if (errors.size() < maxErrors) {
+                    errors.addAll(windowErrors);
+                }
+
+                windowStart += window.starts[window.count];
+                line = window.lines[window.count];
+                gameNumber += window.count;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Collections.sort(errors, new Comparator<PdnError>() {
+            @Override
+            public int compare(PdnError a, PdnError b) {
+                return Long.compare(a.getGameNumber(), b.getGameNumber());
+            }
+        });
+        if (errors.size() > maxErrors) {
+            errors = new ArrayList<>(errors.subList(0, maxErrors));
+        }
+        return new PdnImportResult(games.sum(), invalidGames.sum(), plies.sum(), size, System.nanoTime() - startNanos,
+                                   Collections.unmodifiableList(errors));
+    }
+
+    /**
+     * The games of one mapped window:  game k is buffer[starts[k], starts[k+1])
+     * and starts on line lines[k].  Reused from window to window.
+     */
+    private static class Window {
+        MappedByteBuffer buffer;
+        long firstGameNumber;
+        int count;
+        int[] starts = new int[1024];
+        long[] lines = new long[1024];
+
+        void split(MappedByteBuffer mapped, long line, long gameNumber) {
+            buffer = mapped;
+            firstGameNumber = gameNumber;
+            count = 0;
+            add(0, line);
+
+            final int length = mapped.limit();
+            boolean lineStart = true;
+            boolean sawMoveText = false;
+            int depth = 0;
+            for (int i = 0; i < length; i++) {
+                final int c = mapped.get(i);
+                if (c == '\n') {
+                    line++;
+                    lineStart = true;
+                    continue;
+                }
+                if (lineStart) {
+                    if ((c == ' ') || (c == '\t') || (c == '\r')) {
+                        continue;
+                    }
+                    if (depth == 0) {
+                        if (c != '[') {
+                            sawMoveText = true;
+                        } else if (sawMoveText) {
+                            add(i, line);
+                            sawMoveText = false;
+                        }
+                    }
+                    lineStart = false;
+                }
+                if (c == '{') {
+                    depth++;
+                } else if ((c == '}') && (depth > 0)) {
+                    depth--;
+                }
+            }
+            // end of the last game
+            add(length, line);
+            count--;
+        }
+
+        private void add(int start, long line) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * count);
+                lines = Arrays.copyOf(lines, 2 * count);
+            }
+            starts[count] = start;
+            lines[count] = line;
+            count++;
+        }
+    }
+
+    private static class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Window window;
+        private final int from;
+        private final int to;
+        private final ThreadLocal<PdnParser> parsers;
+        private final PdnGameListener listener;
+        private final LongAdder games;
+        private final LongAdder invalidGames;
+        private final LongAdder plies;
+        private final Queue<PdnError> errors;
+
+        ParseTask(Window window, int from, int to, ThreadLocal<PdnParser> parsers, PdnGameListener listener,
+                  LongAdder games, LongAdder invalidGames, LongAdder plies, Queue<PdnError> errors) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+            this.parsers = parsers;
+            this.listener = listener;
+            this.games = games;
+            this.invalidGames = invalidGames;
+            this.plies = plies;
+            this.errors = errors;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GAMES_PER_TASK) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(window, from, middle, parsers, listener, games, invalidGames, plies, errors),
+                          new ParseTask(window, middle, to, parsers, listener, games, invalidGames, plies, errors));
+                return;
+            }
+            final PdnParser parser = parsers.get();
+            for (int k = from; k < to; k++) {
+                final int start = window.starts[k];
+                final int status = parser.parse(window.buffer, start, window.starts[k + 1]);
+                if (status == PdnParser.EMPTY) {
+                    continue;
+                }
+                games.increment();
+                if (status == PdnParser.VALID) {
+                    plies.add(parser.getGame().getPlies());
+                    if (listener != null) {
+                        listener.gameImported(window.firstGameNumber + k, parser.getGame());
+                    }
+                } else {
+                    invalidGames.increment();
+                    errors.add(new PdnError(window.firstGameNumber + k,
+                                            window.lines[k] + countLines(start, parser.getErrorOffset()),
+                                            parser.getErrorMessage()));
+                }
+            }
+        }
+
+        private int countLines(int start, int end) {
+            int ret = 0;
+            for (int i = start; i < end; i++) {
+                if (window.buffer.get(i) == '\n') {
+                    ret++;
+                }
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * Validate a PDN file:  file [threads]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PdnImporter file.pdn [threads]");
+            System.exit(1);
+        }
+        final int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        PdnImportResult result = new PdnImporter(BoardGeometry.forSize(8), threads).importFile(Paths.get(args[0]), null);
+        for (PdnError error : result.getErrors()) {
+            System.out.println(error);
+        }
+        System.out.println(result);
+    }
+}
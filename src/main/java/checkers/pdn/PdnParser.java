@@ -0,0 +1,408 @@
+package checkers.pdn;
+
+import java.nio.ByteBuffer;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+/**
+ * Parses and replays one PDN game straight from the bytes of a (mapped)
+ * buffer, into a reused GameRecord.  One per thread.
+ *
+ * Understood:  tags (only FEN and nothing else is used), move numbers,
+ * numeric moves "9-14", "22x15" and "22x15x6", comments {...} and ;...,
+ * variations (...), NAGs $n, move annotations like "!" and "?", and the
+ * results 1-0 0-1 1/2-1/2 2-0 0-2 1-1 *.  The first score is for the side
+ * that moves first, BLACK.
+ *
+ * Every move must be legal under the parser's rules (so captures are forced).  A
+ * capture written without its landing squares must not be ambiguous.
+ */
+class PdnParser {
+    static final int EMPTY = 0;
+    static final int VALID = 1;
+    static final int INVALID = 2;
+
+    private static final int MAX_HOPS = 32;
+
+    private final MoveGenerator moveGenerator;
+    private final GameRecord game;
+    private final BitBoard position;
+    private final BitBoard fenPosition;
+    private final MoveList moves = new MoveList();
+    private final int[] squares = new int[MAX_HOPS + 1];
+
+    private ByteBuffer buffer;
+    private int end;
+    private boolean seenMove;
+    private int errorOffset;
+    private String errorMessage;
+
+    PdnParser(BoardGeometry geometry, RuleSet rules) {
+        moveGenerator = new MoveGenerator(geometry, rules);
+        game = new GameRecord(geometry, rules);
+        position = new BitBoard(geometry.getNumberOfSquares());
+        fenPosition = new BitBoard(geometry.getNumberOfSquares());
+    }
+
+    GameRecord getGame() {
+        return game;
+    }
+
+    int getErrorOffset() {
+        return errorOffset;
+    }
+
+    String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Parse the game in buffer[start, end).
+     *
+     * @return EMPTY if there was nothing but white space, VALID, or INVALID
+     *         (see getErrorOffset() and getErrorMessage())
+     */
+    int parse(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.end = end;
+        game.reset();
+        game.getStartPosition(position);
+        seenMove = false;
+        errorMessage = null;
+        boolean seenAnything = false;
+
+        int i = start;
+        while (i < end) {
+            final int c = buffer.get(i);
+            if (isSpace(c)) {
+                i++;
+                continue;
+            }
+            seenAnything = true;
+            if (c == '[') {
+                i = parseTag(i);
+            } else if (c == '{') {
+                i = skipPast(i, '}');
+            } else if ((c == ';') || (c == '%')) {
+                i = skipPast(i, '\n');
+            } else if (c == '(') {
+                i = skipVariation(i);
+            } else {
+                i = parseToken(i);
+            }
+            if (errorMessage != null) {
+                return INVALID;
+            }
+            if (i < 0) {
+                // a result ends the game
+                break;
+            }
+        }
+        return seenAnything ? VALID : EMPTY;
+    }
+
+    private static boolean isSpace(int c) {
+        return (c == ' ') || (c == '\n') || (c == '\r') || (c == '\t');
+    }
+
+    private static boolean isDigit(int c) {
+        return (c >= '0') && (c <= '9');
+    }
+
+    private int error(int offset, String message) {
+        errorOffset = offset;
+        errorMessage = message;
+        return end;
+    }
+
+    private int skipPast(int i, int close) {
+        while ((i < end) && (buffer.get(i) != close)) {
+            i++;
+        }
+        return i + 1;
+    }
+
+    private int skipVariation(int i) {
+        final int start = i;
+        int depth = 0;
+        while (i < end) {
+            final int c = buffer.get(i);
+            if (c == '{') {
+                i = skipPast(i, '}');
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if ((c == ')') && (--depth == 0)) {
+                return i + 1;
+            }
+            i++;
+        }
+        return error(start, "Unterminated variation");
+    }
+
+    // [Name "value"]
+    private int parseTag(int i) {
+        final int start = i;
+        int nameStart = i + 1;
+        int nameEnd = nameStart;
+        while ((nameEnd < end) && ! isSpace(buffer.get(nameEnd)) && (buffer.get(nameEnd) != ']')) {
+            nameEnd++;
+        }
+        int valueStart = nameEnd;
+        while ((valueStart < end) && (buffer.get(valueStart) != '"') && (buffer.get(valueStart) != ']')) {
+            valueStart++;
+        }
+        if ((valueStart >= end) || (buffer.get(valueStart) != '"')) {
+            return error(start, "Invalid tag");
+        }
+        valueStart++;
+        int valueEnd = valueStart;
+        while ((valueEnd < end) && (buffer.get(valueEnd) != '"')) {
+            valueEnd++;
+        }
+        final int close = skipPast(valueEnd + 1, ']');
+        if (close > end) {
+            return error(start, "Unterminated tag");
+        }
+        if ((nameEnd - nameStart == 3) && (buffer.get(nameStart) == 'F') && (buffer.get(nameStart + 1) == 'E')
+                && (buffer.get(nameStart + 2) == 'N')) {
+            if (seenMove) {
+                return error(start, "FEN after the first move");
+            }
+            parseFen(valueStart, valueEnd);
+            if (errorMessage != null) {
+                return end;
+            }
+        }
+        return close;
+    }
+
+    // "B:W18,24,K10:B12,16,20-22,K25", side to move first (W is RED here)
+    private void parseFen(int i, int valueEnd) {
+        final int start = i;
+        long black = 0;
+        long red = 0;
+        long kings = 0;
+        CheckerSide side = null;
+        boolean toBlack = false;
+        while (i < valueEnd) {
+            final int c = buffer.get(i);
+            if ((side == null) && ((c == 'B') || (c == 'W'))) {
+                side = (c == 'B') ? CheckerSide.BLACK : CheckerSide.RED;
+                i++;
+            } else if ((c == ':') && (i + 1 < valueEnd) && ((buffer.get(i + 1) == 'B') || (buffer.get(i + 1) == 'W'))) {
+                toBlack = buffer.get(i + 1) == 'B';
+                i += 2;
+            } else if ((c == ',') || (c == '.') || isSpace(c)) {
+                i++;
+            } else {
+                final boolean king = c == 'K';
+                if (king) {
+                    i++;
+                }
+                int first = 0;
+                while ((i < valueEnd) && isDigit(buffer.get(i))) {
+                    first = first * 10 + buffer.get(i++) - '0';
+                }
+                int last = first;
+                if ((i < valueEnd) && (buffer.get(i) == '-')) {
+                    last = 0;
+                    i++;
+                    while ((i < valueEnd) && isDigit(buffer.get(i))) {
+                        last = last * 10 + buffer.get(i++) - '0';
+                    }
+                }
+                if ((first < 1) || (last < first) || (last > position.getNumberOfSquares())) {
+                    error(start, "Invalid FEN");
+                    return;
+                }
+                for (int square = first - 1; square < last; square++) {
+                    final long bit = 1L << square;
+                    if (((black | red) & bit) != 0) {
+                        error(start, "Invalid FEN, square " + (square + 1) + " used twice");
+                        return;
+                    }
+                    if (toBlack) {
+                        black |= bit;
+                    } else {
+                        red |= bit;
+                    }
+                    if (king) {
+                        kings |= bit;
+                    }
+                }
+            }
+        }
+        if (side == null) {
+            error(start, "Invalid FEN, no side to move");
+            return;
+        }
+        fenPosition.setMasks(black, red, kings, side);
+        game.reset(fenPosition);
+        position.copyFrom(fenPosition);
+    }
+
+    /**
+     * @return offset after the token, or -1 after a result
+     */
+    private int parseToken(int i) {
+        final int start = i;
+        int tokenEnd = i;
+        while ((tokenEnd < end) && ! isSpace(buffer.get(tokenEnd)) && (buffer.get(tokenEnd) != '{')
+                && (buffer.get(tokenEnd) != '(') && (buffer.get(tokenEnd) != ';')) {
+            tokenEnd++;
+        }
+        final int result = getResult(start, tokenEnd);
+        if (result >= 0) {
+            game.setResult(result);
+            return -1;
+        }
+        if (buffer.get(i) == '$') {
+            return tokenEnd;
+        }
+
+        // move number, possibly run into the move: "12." "12..." "12.9-14"
+        int j = i;
+        while ((j < tokenEnd) && isDigit(buffer.get(j))) {
+            j++;
+        }
+        if ((j < tokenEnd) && (buffer.get(j) == '.')) {
+            while ((j < tokenEnd) && (buffer.get(j) == '.')) {
+                j++;
+            }
+            i = j;
+        }
+        // annotations
+        int moveEnd = tokenEnd;
+        while ((moveEnd > i) && ((buffer.get(moveEnd - 1) == '!') || (buffer.get(moveEnd - 1) == '?'))) {
+            moveEnd--;
+        }
+        if (moveEnd > i) {
+            applyMove(i, moveEnd);
+        }
+        return tokenEnd;
+    }
+
+    private int getResult(int start, int tokenEnd) {
+        switch (tokenEnd - start) {
+        case 1:
+            return matches(start, "*") ? GameRecord.UNKNOWN : -1;
+        case 3:
+            if (matches(start, "1-0") || matches(start, "2-0")) {
+                return GameRecord.BLACK_WIN;
+            } else if (matches(start, "0-1") || matches(start, "0-2")) {
+                return GameRecord.RED_WIN;
+            } else if (matches(start, "1-1")) {
+                return GameRecord.DRAW;
+            }
+            return -1;
+        case 7:
+            return matches(start, "1/2-1/2") ? GameRecord.DRAW : -1;
+        default:
+            return -1;
+        }
+    }
+
+    private boolean matches(int start, String s) {
+        for (int k = 0; k < s.length(); k++) {
+            if (buffer.get(start + k) != s.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void applyMove(int start, int moveEnd) {
+        int count = 0;
+        boolean capture = false;
+        int i = start;
+        while (i < moveEnd) {
+            int square = 0;
+            final int digitsStart = i;
+            while ((i < moveEnd) && isDigit(buffer.get(i))) {
+                square = square * 10 + buffer.get(i++) - '0';
+            }
+            if ((i == digitsStart) || (square < 1) || (square > position.getNumberOfSquares()) || (count > MAX_HOPS)) {
+                error(start, "Invalid move " + text(start, moveEnd));
+                return;
+            }
+            squares[count++] = square - 1;
+            if (i < moveEnd) {
+                final int separator = buffer.get(i++);
+                if ((separator == 'x') || (separator == ':')) {
+                    capture = true;
+                } else if (separator != '-') {
+                    error(start, "Invalid move " + text(start, moveEnd));
+                    return;
+                }
+            }
+        }
+        if ((count < 2) || (! capture && (count > 2))) {
+            error(start, "Invalid move " + text(start, moveEnd));
+            return;
+        }
+
+        // landing squares, when given, decide the captures
+        long captures = -1;
+        if (count > 2) {
+            captures = 0;
+            for (int k = 1; k < count; k++) {
+                final int captured = getJumped(squares[k - 1], squares[k]);
+                if (captured < 0) {
+                    error(start, "Invalid jump in " + text(start, moveEnd));
+                    return;
+                }
+                captures |= 1L << captured;
+            }
+        }
+
+        final int from = squares[0];
+        final int to = squares[count - 1];
+        int found = -1;
+        for (int k = 0, n = moveGenerator.generateMoves(position, moves); k < n; k++) {
+            final int move = moves.getMove(k);
+            if ((MoveList.getFrom(move) != from) || (MoveList.getTo(move) != to)
+                    || ((moves.getCaptures(k) != 0) != capture)
+                    || ((captures != -1) && (moves.getCaptures(k) != captures))) {
+                continue;
+            }
+            if (found >= 0) {
+                error(start, "Ambiguous move " + text(start, moveEnd) + ", give the landing squares");
+                return;
+            }
+            found = k;
+        }
+        if (found < 0) {
+            error(start, "Illegal move " + text(start, moveEnd) + " at ply " + game.getPlies());
+            return;
+        }
+        game.addMove(moves, found);
+        position.applyMove(moves.getMove(found), moves.getCaptures(found));
+        seenMove = true;
+    }
+
+    // square jumped over going from -> to, or -1
+    private int getJumped(int from, int to) {
+        for (int direction = 0; direction < MoveGenerator.NUMBER_OF_DIRECTIONS; direction++) {
+            if (moveGenerator.getJump(from, direction) == to) {
+                return moveGenerator.getNeighbour(from, direction);
+            }
+        }
+        return -1;
+    }
+
+    private String text(int start, int tokenEnd) {
+        StringBuilder sb = new StringBuilder(tokenEnd - start);
+        for (int i = start; i < tokenEnd; i++) {
+            sb.append((char) buffer.get(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package checkers.server;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+import checkers.model.MoveList;
+
+/**
+ * One client of the GameServer:  its channel, what it has sent that is not
+ * a whole line yet, what is waiting to be sent, and the game it is in.
+ *
+ * Output is appended as ASCII straight into the buffer, no Strings are
+ * built for the common messages.  A line marks the connection dirty; the
+ * server flushes all dirty connections once per round of the selector.
+ */
+class Connection {
+    static final int ROLE_NONE = 0;
+    static final int ROLE_BLACK = 1;
+    static final int ROLE_RED = 2;
+    static final int ROLE_WATCH = 3;
+
+    static final int MAX_LINE = 256;
+    // a client that reads slower than this much output is dropped
+    static final int MAX_OUTPUT = 1024 * 1024;
+
+    final SocketChannel channel;
+    SelectionKey key;
+    final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+    ByteBuffer out = ByteBuffer.allocate(512);
+    private final List<Connection> dirtyConnections;
+    boolean dirty = false;
+    boolean overflow = false;
+
+    ServerGame game;
+    int role = ROLE_NONE;
+
+    Connection(SocketChannel channel, List<Connection> dirtyConnections) {
+        this.channel = channel;
+        this.dirtyConnections = dirtyConnections;
+    }
+
+    private boolean ensure(int bytes) {
+        if (out.remaining() >= bytes) {
+            return true;
+        }
+        final int capacity = Math.max(2 * out.capacity(), out.position() + bytes);
+        if (capacity > MAX_OUTPUT) {
+            overflow = true;
+            return false;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        out.flip();
+        grown.put(out);
+        out = grown;
+        return true;
+    }
+
+    Connection append(String s) {
+        if (ensure(s.length())) {
+            for (int i = 0, n = s.length(); i < n; i++) {
+                out.put((byte) s.charAt(i));
+            }
+        }
+        return this;
+    }
+
+    Connection append(char c) {
+        if (ensure(1)) {
+            out.put((byte) c);
+        }
+        return this;
+    }
+
+    Connection append(long value) {
+        if (! ensure(20)) {
+            return this;
+        }
+        if (value < 0) {
+            out.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + (value / divisor) % 10));
+        }
+        return this;
+    }
+
+    // like MoveList.toString(), "9-13" or "22x15"
+    Connection appendMove(int move, long captures) {
+        return append(MoveList.getFrom(move) + 1).append((captures != 0) ? 'x' : '-').append(MoveList.getTo(move) + 1);
+    }
+
+    void endLine() {
+        append('\n');
+        if (! dirty) {
+            dirty = true;
+            dirtyConnections.add(this);
+        }
+    }
+
+    void sendError(String message) {
+        append("ERR ").append(message).endLine();
+    }
+}
@@ -0,0 +1,413 @@
+package checkers.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hosts many games at once over a line based text protocol, with one
+ * thread and one NIO selector for all the connections.  Every game is
+ * only ever touched by that thread, so there are no locks anywhere.
+ *
+ * Client to server, one command per line:
+ *
+ *   JOIN game B|R|W [millis [increment-millis]]
+ *       play BLACK or RED in game (a number), or watch it.  The first to
+ *       join creates the game, with millis on each clock (default 5 min).
+ *   MOVE move
+ *       "9-13", "22x15", or "22x15x8" when the landing squares are needed
+ *   POS
+ *       ask for the current position
+ *
+ * Server to client:
+ *
+ *   OK game B|R|W
+ *   START pieces B|R black-millis red-millis
+ *       when both players are there (or on joining a started game);
+ *       pieces as in Board.loadPiecesFromString(), then the side to move
+ *   MOVED move black-millis red-millis
+ *       every move, to the players and the watchers
+ *   POS pieces B|R black-millis red-millis
+ *   END 1-0|0-1|1/2-1/2 nomoves|time|abandoned|noprogress
+ *       after which the connection can JOIN another game
+ *   ERR message
+ *
+ * Lines are read and written as bytes straight from/to per-connection
+ * buffers, and all output of one round of the selector goes out in one
+ * write per connection.
+ */
+public class GameServer {
+    public static final long DEFAULT_MILLIS = 5 * 60 * 1000;
+
+    // most squares in a MOVE, from + 12 jumps
+    static final int MAX_MOVE_SQUARES = 13;
+
+    // how often clocks are checked for games nobody moves in
+    private static final long CLOCK_CHECK_NANOS = 50 * 1000000L;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Map<Long, ServerGame> games = new HashMap<>();
+    private final List<Connection> dirtyConnections = new ArrayList<>();
+    private volatile boolean running = true;
+
+    // statistics, written by the server thread only
+    private volatile int connections = 0;
+    private volatile long moves = 0;
+    private volatile long gamesPlayed = 0;
+
+    /**
+     * @param address port 0 picks a free port, see getPort()
+     */
+    public GameServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(address, 4096);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * Run run() on a new thread.
+     */
+    public Thread start() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    GameServer.this.run();
+                } catch (IOException e) {
+                    throw new RuntimeException("Game server failed", e);
+                }
+            }
+        }, "game-server");
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Serve until close().
+     */
+    public void run() throws IOException {
+        long nextClockCheck = System.nanoTime() + CLOCK_CHECK_NANOS;
+        try {
+            while (running) {
+                selector.select(CLOCK_CHECK_NANOS / 1000000);
+                final long now = System.nanoTime();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (! key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    final Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(connection, now);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    } catch (IOException e) {
+                        close(connection);
+                    }
+                }
+
+                if (now >= nextClockCheck) {
+                    checkClocks(now);
+                    nextClockCheck = now + CLOCK_CHECK_NANOS;
+                }
+                flushDirty();
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        }
+    }
+
+    /**
+     * Stop run(), closing every connection.
+     */
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel, dirtyConnections);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections++;
+        }
+    }
+
+    // once per connection:  a cancelled key was closed already
+    private void close(Connection connection) {
+        if (! connection.key.isValid()) {
+            return;
+        }
+        if (connection.game != null) {
+            final ServerGame game = connection.game;
+            game.leave(connection);
+            removeIfDone(game);
+        }
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+        connection.dirty = false;
+        connections--;
+    }
+
+    private void removeIfDone(ServerGame game) {
+        if (game.isOver() || ! game.hasConnections()) {
+            if (games.remove(game.getId()) != null) {
+                if (game.isOver()) {
+                    gamesPlayed++;
+                }
+            }
+        }
+    }
+
+    private void read(Connection connection, long now) throws IOException {
+        final ByteBuffer in = connection.in;
+        if (connection.channel.read(in) < 0) {
+            close(connection);
+            return;
+        }
+        final byte[] bytes = in.array();
+        int lineStart = 0;
+        for (int i = 0, n = in.position(); i < n; i++) {
+            if (bytes[i] == '\n') {
+                int lineEnd = i;
+                if ((lineEnd > lineStart) && (bytes[lineEnd - 1] == '\r')) {
+                    lineEnd--;
+                }
+                execute(connection, bytes, lineStart, lineEnd, now);
+                lineStart = i + 1;
+            }
+        }
+        if ((lineStart == 0) && ! in.hasRemaining()) {
+            connection.sendError("Line too long");
+            try {
+                flush(connection);
+            } catch (IOException e) {
+                // closing anyway
+            }
+            close(connection);
+            return;
+        }
+        in.limit(in.position());
+        in.position(lineStart);
+        in.compact();
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, String command) {
+        if (end - start < command.length()) {
+            return false;
+        }
+        for (int i = 0; i < command.length(); i++) {
+            if (bytes[start + i] != command.charAt(i)) {
+                return false;
+            }
+        }
+        return (end - start == command.length()) || (bytes[start + command.length()] == ' ');
+    }
+
+    private void execute(Connection connection, byte[] bytes, int start, int end, long now) {
+        if (startsWith(bytes, start, end, "MOVE")) {
+            final ServerGame game = connection.game;
+            if (game == null) {
+                connection.sendError("Not in a game");
+                return;
+            }
+            final String error = game.move(connection, bytes, skipSpaces(bytes, start + 4, end), end, now);
+            if (error == ServerGame.OUT_OF_TIME) {
+                // END went out instead, there is no move to count
+                removeIfDone(game);
+            } else if (error != null) {
+                connection.sendError(error);
+            } else {
+                moves++;
+                removeIfDone(game);
+            }
+        } else if (startsWith(bytes, start, end, "JOIN")) {
+            join(connection, bytes, start + 4, end, now);
+        } else if (startsWith(bytes, start, end, "POS")) {
+            if (connection.game == null) {
+                connection.sendError("Not in a game");
+            } else {
+                connection.game.sendPosition(connection, "POS", now);
+            }
+        } else if (end > start) {
+            connection.sendError("Unknown command");
+        }
+    }
+
+    private static int skipSpaces(byte[] bytes, int i, int end) {
+        while ((i < end) && (bytes[i] == ' ')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipToken(byte[] bytes, int i, int end) {
+        while ((i < end) && (bytes[i] != ' ')) {
+            i++;
+        }
+        return i;
+    }
+
+    // non-negative number in bytes[start, end), or -1
+    private static long parseNumber(byte[] bytes, int start, int end) {
+        if ((start == end) || (end - start > 18)) {
+            return -1;
+        }
+        long ret = 0;
+        for (int i = start; i < end; i++) {
+            if ((bytes[i] < '0') || (bytes[i] > '9')) {
+                return -1;
+            }
+            ret = ret * 10 + bytes[i] - '0';
+        }
+        return ret;
+    }
+
+    // JOIN game B|R|W [millis [increment-millis]]
+    private void join(Connection connection, byte[] bytes, int i, int end, long now) {
+        if (connection.game != null) {
+            connection.sendError("Already in game " + connection.game.getId());
+            return;
+        }
+        // game, role, millis, increment
+        final long[] fields = { -1, -1, DEFAULT_MILLIS, 0 };
+        for (int field = 0; field < fields.length; field++) {
+            final int tokenStart = skipSpaces(bytes, i, end);
+            i = skipToken(bytes, tokenStart, end);
+            if (i == tokenStart) {
+                break;
+            }
+            if (field == 1) {
+                fields[1] = (i - tokenStart != 1) ? -1 : "BRW".indexOf(bytes[tokenStart]);
+            } else {
+                fields[field] = parseNumber(bytes, tokenStart, i);
+            }
+            if (fields[field] < 0) {
+                break;
+            }
+        }
+        if ((fields[0] < 0) || (fields[1] < 0) || (fields[2] < 0) || (fields[3] < 0)
+                || (skipSpaces(bytes, i, end) != end)) {
+            connection.sendError("Usage: JOIN game B|R|W [millis [increment-millis]]");
+            return;
+        }
+        // B R W are the roles, in order
+        final int role = Connection.ROLE_BLACK + (int) fields[1];
+
+        ServerGame game = games.get(fields[0]);
+        if (game == null) {
+            if (role == Connection.ROLE_WATCH) {
+                connection.sendError("No game " + fields[0]);
+                return;
+            }
+            game = new ServerGame(fields[0], fields[2], fields[3]);
+            games.put(fields[0], game);
+        }
+        final String error = game.join(connection, role, now);
+        if (error != null) {
+            connection.sendError(error);
+        }
+    }
+
+    private void checkClocks(long now) {
+        Iterator<ServerGame> iterator = games.values().iterator();
+        while (iterator.hasNext()) {
+            final ServerGame game = iterator.next();
+            game.checkClock(now);
+            if (game.isOver()) {
+                iterator.remove();
+                gamesPlayed++;
+            }
+        }
+    }
+
+    private void flushDirty() {
+        for (int i = 0; i < dirtyConnections.size(); i++) {
+            final Connection connection = dirtyConnections.get(i);
+            if (! connection.dirty) {
+                // closed since
+                continue;
+            }
+            try {
+                flush(connection);
+            } catch (IOException e) {
+                close(connection);
+            }
+        }
+        dirtyConnections.clear();
+    }
+
+    // write what can be written now, the selector says when to go on
+    private void flush(Connection connection) throws IOException {
+        if (connection.overflow) {
+            throw new IOException("Client is not reading");
+        }
+        final ByteBuffer out = connection.out;
+        out.flip();
+        connection.channel.write(out);
+        out.compact();
+        connection.dirty = false;
+        final boolean pending = out.position() > 0;
+        final int ops = pending ? (SelectionKey.OP_READ | SelectionKey.OP_WRITE) : SelectionKey.OP_READ;
+        if (connection.key.isValid() && (connection.key.interestOps() != ops)) {
+            connection.key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Serve on a port:  [port]
+     */
+    public static void main(String[] args) throws IOException {
+        final int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7070;
+        GameServer server = new GameServer(new InetSocketAddress(port));
+        System.out.println("Serving on port " + server.getPort());
+        server.run();
+    }
+}
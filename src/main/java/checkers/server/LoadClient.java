@@ -0,0 +1,348 @@
+package checkers.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Load generator for a GameServer:  opens many connections from one
+ * thread and one selector, pairs them into games, and plays random legal
+ * moves as fast as the server answers.  Measures moves per second and the
+ * latency of every move (MOVE sent to MOVED received).
+ *
+ * Every connection plays one side of a game against another connection
+ * of this client;  when a game ends the two join a new one.
+ */
+public class LoadClient {
+    // a sample of the latencies is kept, not all of them
+    private static final int MAX_SAMPLES = 1 << 20;
+    // long enough for nobody to lose on time
+    private static final long GAME_MILLIS = 60 * 60 * 1000;
+
+    private final InetSocketAddress server;
+    private final int connections;
+    private final BoardGeometry geometry = BoardGeometry.forSize(8);
+    private final MoveGenerator moveGenerator = new MoveGenerator(geometry);
+    private final Random random = new Random(1);
+    private final long[] samples = new long[MAX_SAMPLES];
+    private int sampleCount = 0;
+    private long nextGameId;
+    private int connected = 0;
+
+    private long moves = 0;
+    private long games = 0;
+    private long errors = 0;
+    private boolean stopping = false;
+
+    /**
+     * @param connections even, two per game
+     */
+    public LoadClient(InetSocketAddress server, int connections) {
+        if ((connections < 2) || ((connections % 2) != 0)) {
+            throw new RuntimeException("connections must be even and at least 2, was " + connections);
+        }
+        this.server = server;
+        this.connections = connections;
+        // other clients against the same server use other game numbers
+        this.nextGameId = (System.nanoTime() & 0xffffffL) << 24;
+    }
+
+    private static class ClientGame {
+        long id;
+        // counts the games played by this pair
+        int generation;
+        final BitBoard position = new BitBoard(32);
+        final MoveList moves = new MoveList();
+        Client black;
+        Client red;
+        int plies;
+        int quietPlies;
+        // the move sent and not confirmed yet
+        int sentMove;
+        long sentCaptures;
+        long sentNanos;
+    }
+
+    private static class Client {
+        SocketChannel channel;
+        SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(4096);
+        // grows while the server does not keep up, see send()
+        ByteBuffer out = ByteBuffer.allocate(4096);
+        ClientGame game;
+        boolean black;
+        // the game it has read START of, and the MOVED lines read since
+        int generation = -1;
+        int movesHeard;
+    }
+
+    /**
+     * Connect, then play for durationMillis.
+     */
+    public LoadResult run(long durationMillis) throws IOException {
+        Selector selector = Selector.open();
+        Client[] clients = new Client[connections];
+        try {
+            for (int i = 0; i < connections; i += 2) {
+                ClientGame game = new ClientGame();
+                game.black = connect(selector, game, true);
+                game.red = connect(selector, game, false);
+                clients[i] = game.black;
+                clients[i + 1] = game.red;
+            }
+            while (connected < connections) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isConnectable() && ((SocketChannel) key.channel()).finishConnect()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                        connected++;
+                    }
+                }
+            }
+
+            final long startNanos = System.nanoTime();
+            final long endNanos = startNanos + durationMillis * 1000000L;
+            for (int i = 0; i < connections; i += 2) {
+                join(clients[i].game);
+            }
+            while (System.nanoTime() < endNanos) {
+                selector.select(Math.max(1, (endNanos - System.nanoTime()) / 1000000));
+                final long now = System.nanoTime();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    final Client client = (Client) key.attachment();
+                    if (key.isReadable()) {
+                        read(client, now);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(client);
+                    }
+                }
+            }
+            stopping = true;
+            final long nanos = System.nanoTime() - startNanos;
+            return new LoadResult(connections, moves, games, errors, nanos,
+                                  Arrays.copyOf(samples, Math.min(sampleCount, MAX_SAMPLES)));
+        } finally {
+            for (Client client : clients) {
+                if (client != null) {
+                    client.channel.close();
+                }
+            }
+            selector.close();
+        }
+    }
+
+    private Client connect(Selector selector, ClientGame game, boolean black) throws IOException {
+        Client client = new Client();
+        client.game = game;
+        client.black = black;
+        client.channel = SocketChannel.open();
+        client.channel.configureBlocking(false);
+        client.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        if (client.channel.connect(server)) {
+            client.key = client.channel.register(selector, SelectionKey.OP_READ, client);
+            connected++;
+        } else {
+            client.key = client.channel.register(selector, SelectionKey.OP_CONNECT, client);
+        }
+        return client;
+    }
+
+    // both sides of a new game
+    private void join(ClientGame game) throws IOException {
+        game.id = nextGameId++;
+        game.generation++;
+        GameRecord.setStandardStart(geometry, game.position);
+        game.plies = 0;
+        game.quietPlies = 0;
+        game.sentNanos = 0;
+        send(game.black, "JOIN " + game.id + " B " + GAME_MILLIS);
+        send(game.red, "JOIN " + game.id + " R " + GAME_MILLIS);
+    }
+
+    private void send(Client client, String line) throws IOException {
+        if (client.out.remaining() < line.length() + 1) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * client.out.capacity(),
+                                                            client.out.position() + line.length() + 1));
+            client.out.flip();
+            grown.put(client.out);
+            client.out = grown;
+        }
+        final ByteBuffer out = client.out;
+        for (int i = 0, n = line.length(); i < n; i++) {
+            out.put((byte) line.charAt(i));
+        }
+        out.put((byte) '\n');
+        flush(client);
+    }
+
+    private void flush(Client client) throws IOException {
+        final ByteBuffer out = client.out;
+        out.flip();
+        client.channel.write(out);
+        out.compact();
+        client.key.interestOps((out.position() > 0) ? (SelectionKey.OP_READ | SelectionKey.OP_WRITE)
+                                                     : SelectionKey.OP_READ);
+    }
+
+    private void read(Client client, long now) throws IOException {
+        final ByteBuffer in = client.in;
+        if (client.channel.read(in) < 0) {
+            throw new IOException("Server closed the connection");
+        }
+        final byte[] bytes = in.array();
+        int lineStart = 0;
+        for (int i = 0, n = in.position(); i < n; i++) {
+            if (bytes[i] == '\n') {
+                execute(client, bytes, lineStart, now);
+                lineStart = i + 1;
+            }
+        }
+        in.limit(in.position());
+        in.position(lineStart);
+        in.compact();
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (bytes[start + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void execute(Client client, byte[] bytes, int start, long now) throws IOException {
+        final ClientGame game = client.game;
+        if (startsWith(bytes, start, "START ")) {
+            client.generation = game.generation;
+            client.movesHeard = 0;
+            // the other side's START can come after the first moves
+            if ((game.plies == 0) && (game.sentNanos == 0) && (client.black == game.position.isBlackToMove())) {
+                sendMove(client, now);
+            }
+        } else if (startsWith(bytes, start, "MOVED ")) {
+            // both sides hear every move;  the mover's copy confirms it, then the other side plays.
+            // Moves of the last game can still be unread when black has started the next.
+            if (client.generation != game.generation) {
+                return;
+            }
+            final int ply = client.movesHeard++;
+            if ((game.sentNanos != 0) && (ply == game.plies) && (client.black == game.position.isBlackToMove())) {
+                addSample(now - game.sentNanos);
+                game.sentNanos = 0;
+                game.plies++;
+                moves++;
+                game.position.applyMove(game.sentMove, game.sentCaptures);
+                sendMove(client.black ? game.red : game.black, now);
+            }
+        } else if (startsWith(bytes, start, "END ")) {
+            // black starts the next game, red just hears about it too
+            if (client.black) {
+                games++;
+                if (! stopping) {
+                    join(game);
+                }
+            }
+        } else if (startsWith(bytes, start, "ERR ")) {
+            errors++;
+        }
+    }
+
+    private void addSample(long nanos) {
+        if (sampleCount < MAX_SAMPLES) {
+            samples[sampleCount] = nanos;
+        } else {
+            // reservoir sampling
+            final int i = random.nextInt(sampleCount + 1);
+            if (i < MAX_SAMPLES) {
+                samples[i] = nanos;
+            }
+        }
+        sampleCount++;
+    }
+
+    // a random move for the side to move, unless the game is about to end
+    private void sendMove(Client client, long now) throws IOException {
+        final ClientGame game = client.game;
+        final MoveList legal = game.moves;
+        final int n = moveGenerator.generateMoves(game.position, legal);
+        if ((n == 0) || (game.quietPlies >= ServerGame.MAX_QUIET_PLIES)) {
+            // the server ends it
+            return;
+        }
+        final int index = random.nextInt(n);
+        game.sentMove = legal.getMove(index);
+        game.sentCaptures = legal.getCaptures(index);
+        if ((game.sentCaptures != 0) || ! game.position.isKing(MoveList.getFrom(game.sentMove))) {
+            game.quietPlies = 0;
+        } else {
+            game.quietPlies++;
+        }
+        game.sentNanos = now;
+
+        final int from = MoveList.getFrom(game.sentMove);
+        StringBuilder line = new StringBuilder("MOVE ").append(from + 1);
+        if (Long.bitCount(game.sentCaptures) > 1) {
+            // landing squares, two captures can share from and to
+            appendPath(line, from, MoveList.getTo(game.sentMove), game.sentCaptures,
+                       game.position.getEmpty() | (1L << from));
+        } else {
+            line.append((game.sentCaptures != 0) ? 'x' : '-').append(MoveList.getTo(game.sentMove) + 1);
+        }
+        send(client, line.toString());
+    }
+
+    // "x15x8...": a path of jumps from square to "to" over exactly captures
+    private boolean appendPath(StringBuilder line, int square, int to, long captures, long empty) {
+        if (captures == 0) {
+            return square == to;
+        }
+        final int length = line.length();
+        for (int direction = 0; direction < MoveGenerator.NUMBER_OF_DIRECTIONS; direction++) {
+            final int over = moveGenerator.getNeighbour(square, direction);
+            final int landing = moveGenerator.getJump(square, direction);
+            if ((over >= 0) && (landing >= 0) && ((captures & (1L << over)) != 0) && ((empty & (1L << landing)) != 0)) {
+                line.append('x').append(landing + 1);
+                if (appendPath(line, landing, to, captures & ~(1L << over), empty)) {
+                    return true;
+                }
+                line.setLength(length);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Measure a server:  host port [connections [seconds]]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LoadClient host port [connections [seconds]]");
+            System.exit(1);
+        }
+        final int connections = (args.length > 2) ? Integer.parseInt(args[2]) : 10000;
+        final int seconds = (args.length > 3) ? Integer.parseInt(args[3]) : 30;
+        LoadClient client = new LoadClient(new InetSocketAddress(args[0], Integer.parseInt(args[1])), connections);
+        System.out.println(client.run(seconds * 1000L));
+    }
+}
@@ -0,0 +1,70 @@
+package checkers.server;
+
+import java.util.Arrays;
+
+/**
+ * What a LoadClient run measured.  Latency is from sending a MOVE to
+ * receiving its MOVED, per move.
+ */
+public class LoadResult {
+    private final int connections;
+    private final long moves;
+    private final long games;
+    private final long errors;
+    private final long nanos;
+    // sorted, in nanoseconds
+    private final long[] latencies;
+
+    public LoadResult(int connections, long moves, long games, long errors, long nanos, long[] latencies) {
+        this.connections = connections;
+        this.moves = moves;
+        this.games = games;
+        this.errors = errors;
+        this.nanos = nanos;
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double getMovesPerSecond() {
+        return (nanos == 0) ? 0 : moves * 1e9 / nanos;
+    }
+
+    /**
+     * @param percentile like 50 or 99
+     * @return latency in nanoseconds, of the moves sampled
+     */
+    public long getLatencyNanos(double percentile) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoadResult [connections=%d moves=%d games=%d errors=%d seconds=%.1f moves/s=%.0f"
+                             + " p50=%.2fms p99=%.2fms]", connections, moves, games, errors, nanos / 1e9,
+                             getMovesPerSecond(), getLatencyNanos(50) / 1e6, getLatencyNanos(99) / 1e6);
+    }
+}
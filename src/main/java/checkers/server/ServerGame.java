@@ -0,0 +1,342 @@
+package checkers.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import checkers.model.Board;
+import checkers.model.BoardChanges;
+import checkers.model.BoardGeometry;
+import checkers.model.BoardListener;
+import checkers.model.Checker;
+import checkers.model.CheckerSide;
+import checkers.model.GameStrategyCheckers;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * One game of the GameServer:  the Board and its GameStrategy, the two
+ * players, the watchers and the clocks.  Only ever used by the server
+ * thread.
+ *
+ * Moves are broadcast from a BoardListener on the board, so whatever
+ * changes the board, every connection hears about it.
+ */
+class ServerGame implements BoardListener {
+    // plies without a capture or a man moving, then it is a draw
+    static final int MAX_QUIET_PLIES = 80;
+
+    // from move():  the mover ran out of time, so the game ended and the move was not made
+    static final String OUT_OF_TIME = "Out of time";
+
+    private static final String STANDARD_STARTING = "bbbbbbbbbbbb--------rrrrrrrrrrrr";
+
+    private final long id;
+    private final GameStrategyCheckers strategy = new GameStrategyCheckers();
+    private final Board board;
+    private final MoveList moves = new MoveList();
+    private final int[] squares = new int[GameServer.MAX_MOVE_SQUARES];
+
+    private Connection black;
+    private Connection red;
+    private final List<Connection> watchers = new ArrayList<>();
+
+    private long blackMillis;
+    private long redMillis;
+    private final long incrementMillis;
+    private long turnStartNanos;
+    private boolean started = false;
+    private boolean over = false;
+    private int quietPlies = 0;
+
+    ServerGame(long id, long millis, long incrementMillis) {
+        this.id = id;
+        this.board = new Board(strategy, BoardGeometry.forSize(8));
+        strategy.setBoard(board);
+        board.loadPiecesFromString(STANDARD_STARTING);
+        board.addBoardListener(this);
+        this.blackMillis = millis;
+        this.redMillis = millis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    boolean isOver() {
+        return over;
+    }
+
+    boolean hasConnections() {
+        return (black != null) || (red != null) || ! watchers.isEmpty();
+    }
+
+    /**
+     * @return error message, or null
+     */
+    String join(Connection connection, int role, long now) {
+        if (over) {
+            return "Game is over";
+        }
+        switch (role) {
+        case Connection.ROLE_BLACK:
+            if (black != null) {
+                return "BLACK is taken";
+            }
+            black = connection;
+            break;
+        case Connection.ROLE_RED:
+            if (red != null) {
+                return "RED is taken";
+            }
+            red = connection;
+            break;
+        default:
+            watchers.add(connection);
+            break;
+        }
+        connection.game = this;
+        connection.role = role;
+        connection.append("OK ").append(id).append(' ').append(roleName(role)).endLine();
+
+        if (started) {
+            sendPosition(connection, "START", now);
+        } else if ((black != null) && (red != null)) {
+            started = true;
+            turnStartNanos = now;
+            sendPosition(black, "START", now);
+            sendPosition(red, "START", now);
+            for (Connection watcher : watchers) {
+                sendPosition(watcher, "START", now);
+            }
+        }
+        return null;
+    }
+
+    private static String roleName(int role) {
+        switch (role) {
+        case Connection.ROLE_BLACK:
+            return "B";
+        case Connection.ROLE_RED:
+            return "R";
+        default:
+            return "W";
+        }
+    }
+
+    /**
+     * "START" or "POS" pieces side-to-move black-millis red-millis
+     */
+    void sendPosition(Connection connection, String what, long now) {
+        connection.append(what).append(' ').append(board.toPiecesString()).append(' ')
+            .append(isBlackToMove() ? 'B' : 'R').append(' ').append(getMillis(true, now)).append(' ')
+            .append(getMillis(false, now)).endLine();
+    }
+
+    private boolean isBlackToMove() {
+        return strategy.getSideToMove().equalsType(CheckerSide.BLACK);
+    }
+
+    // remaining, with the running clock up to now
+    private long getMillis(boolean forBlack, long now) {
+        final long millis = forBlack ? blackMillis : redMillis;
+        if (started && ! over && (forBlack == isBlackToMove())) {
+            return millis - (now - turnStartNanos) / 1000000;
+        }
+        return millis;
+    }
+
+    /**
+     * The move in text[start, end), like "9-13", "22x15" or "22x15x8".  The
+     * landing squares are only needed when two captures share from and to.
+     *
+     * @return error message, OUT_OF_TIME, or null if the move was made
+     */
+    String move(Connection connection, byte[] text, int start, int end, long now) {
+        if (! started) {
+            return "Game has not started";
+        }
+        if (connection != (isBlackToMove() ? black : red)) {
+            return "Not your move";
+        }
+        int count = 0;
+        boolean capture = false;
+        int i = start;
+        while (i < end) {
+            int square = 0;
+            final int digitsStart = i;
+            while ((i < end) && (text[i] >= '0') && (text[i] <= '9') && (i - digitsStart < 3)) {
+                square = square * 10 + text[i++] - '0';
+            }
+            if ((i == digitsStart) || (square < 1) || (square > board.getNumberOfSquaresInPlay())
+                    || (count == squares.length)) {
+                return "Invalid move";
+            }
+            squares[count++] = square - 1;
+            if (i < end) {
+                final byte separator = text[i++];
+                if (separator == 'x') {
+                    capture = true;
+                } else if (separator != '-') {
+                    return "Invalid move";
+                }
+            }
+        }
+        if ((count < 2) || (! capture && (count > 2))) {
+            return "Invalid move";
+        }
+        long captures = -1;
+        if (count > 2) {
+            final MoveGenerator moveGenerator = strategy.getMoveGenerator();
+            captures = 0;
+            for (int k = 1; k < count; k++) {
+                final int jumped = getJumped(moveGenerator, squares[k - 1], squares[k]);
+                if (jumped < 0) {
+                    return "Invalid jump";
+                }
+                captures |= 1L << jumped;
+            }
+        }
+
+        final int from = squares[0];
+        final int to = squares[count - 1];
+        int found = -1;
+        for (int k = 0, n = strategy.generateLegalMoves(moves); k < n; k++) {
+            final int move = moves.getMove(k);
+            if ((MoveList.getFrom(move) != from) || (MoveList.getTo(move) != to)
+                    || ((moves.getCaptures(k) != 0) != capture)
+                    || ((captures != -1) && (moves.getCaptures(k) != captures))) {
+                continue;
+            }
+            if (found >= 0) {
+                return "Ambiguous move, give the landing squares";
+            }
+            found = k;
+        }
+        if (found < 0) {
+            return "Illegal move";
+        }
+
+        // the clock first, so the broadcast has the new times
+        final boolean blackMoved = isBlackToMove();
+        final long left = getMillis(blackMoved, now);
+        if (left < 0) {
+            end(blackMoved ? "0-1" : "1-0", "time");
+            return OUT_OF_TIME;
+        }
+        if (blackMoved) {
+            blackMillis = left + incrementMillis;
+        } else {
+            redMillis = left + incrementMillis;
+        }
+        turnStartNanos = now;
+
+        final int move = moves.getMove(found);
+        final Checker piece = (Checker) board.getPiece(MoveList.getFrom(move));
+        if ((moves.getCaptures(found) != 0) || ! piece.isKing()) {
+            quietPlies = 0;
+        } else {
+            quietPlies++;
+        }
+        strategy.makeMove(move, moves.getCaptures(found));
+
+        if (strategy.generateLegalMoves(moves) == 0) {
+            end(blackMoved ? "1-0" : "0-1", "nomoves");
+        } else if (quietPlies >= MAX_QUIET_PLIES) {
+            end("1/2-1/2", "noprogress");
+        }
+        return null;
+    }
+
+    private static int getJumped(MoveGenerator moveGenerator, int from, int to) {
+        for (int direction = 0; direction < MoveGenerator.NUMBER_OF_DIRECTIONS; direction++) {
+            if (moveGenerator.getJump(from, direction) == to) {
+                return moveGenerator.getNeighbour(from, direction);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void boardChanged(Board changed, BoardChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            if (changes.getKind(i) == BoardChanges.MOVE) {
+                broadcastMove(changes.getMove(i), changes.getCaptures(i));
+            }
+        }
+    }
+
+    // MOVED move black-millis red-millis
+    private void broadcastMove(int move, long captures) {
+        sendMove(black, move, captures);
+        sendMove(red, move, captures);
+        for (int i = 0, n = watchers.size(); i < n; i++) {
+            sendMove(watchers.get(i), move, captures);
+        }
+    }
+
+    private void sendMove(Connection connection, int move, long captures) {
+        if (connection != null) {
+            connection.append("MOVED ").appendMove(move, captures).append(' ').append(blackMillis).append(' ')
+                .append(redMillis).endLine();
+        }
+    }
+
+    /**
+     * End the game on time if the side to move has run out.
+     */
+    void checkClock(long now) {
+        if (started && ! over) {
+            final boolean blackToMove = isBlackToMove();
+            if (getMillis(blackToMove, now) < 0) {
+                end(blackToMove ? "0-1" : "1-0", "time");
+            }
+        }
+    }
+
+    /**
+     * connection is gone;  a player leaving a started game loses it.
+     */
+    void leave(Connection connection) {
+        if (connection == black) {
+            black = null;
+            if (started) {
+                end("0-1", "abandoned");
+            }
+        } else if (connection == red) {
+            red = null;
+            if (started) {
+                end("1-0", "abandoned");
+            }
+        } else {
+            watchers.remove(connection);
+        }
+        connection.game = null;
+        connection.role = Connection.ROLE_NONE;
+    }
+
+    // END result reason, to everyone, who are then out of the game
+    private void end(String result, String reason) {
+        over = true;
+        sendEnd(black, result, reason);
+        sendEnd(red, result, reason);
+        for (Connection watcher : watchers) {
+            sendEnd(watcher, result, reason);
+        }
+        black = null;
+        red = null;
+        watchers.clear();
+    }
+
+    private void sendEnd(Connection connection, String result, String reason) {
+        if (connection != null) {
+            connection.append("END ").append(result).append(' ').append(reason).endLine();
+            connection.game = null;
+            connection.role = Connection.ROLE_NONE;
+        }
+    }
+}
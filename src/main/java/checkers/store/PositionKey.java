@@ -0,0 +1,72 @@
+package checkers.store;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+
+/**
+ * Canonical compact form of a position of up to 32 squares:  the pieces
+ * of the side to move and of the opponent in one long, the kings in an int.
+ *
+ * A position with RED to move is the same as the position turned around
+ * (square s becomes square n - 1 - s) with the colours swapped and BLACK
+ * to move, so both get the same key, and the side to move is always
+ * "own".  That is the only symmetry of a checkers board:  a left-right
+ * mirror would put the pieces on the light squares, and the double
+ * corner is on one side only.
+ */
+public class PositionKey {
+    public static final int MAX_SQUARES = 32;
+
+    private PositionKey() {
+    }
+
+    /**
+     * @return true if the key can hold positions of geometry, i.e. it has
+     *         at most MAX_SQUARES squares and turning it around maps square
+     *         s to n - 1 - s
+     */
+    public static boolean supports(BoardGeometry geometry) {
+        final int n = geometry.getNumberOfSquares();
+        if (n > MAX_SQUARES) {
+            return false;
+        }
+        for (int square = 0; square < n; square++) {
+            final int turned = geometry.getSquareNumber(geometry.getSizeX() + 1 - geometry.getX(square),
+                                                        geometry.getSizeY() + 1 - geometry.getY(square));
+            if (turned != n - 1 - square) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the pieces of the side to move in the low 32 bits, the
+     *         opponent's in the high 32 bits;  0 only for an empty board
+     */
+    public static long getPieces(BitBoard position) {
+        if (position.isBlackToMove()) {
+            return position.getBlack() | (position.getRed() << 32);
+        }
+        final int n = position.getNumberOfSquares();
+        return turn(position.getRed(), n) | (turn(position.getBlack(), n) << 32);
+    }
+
+    public static int getKings(BitBoard position) {
+        return (int) (position.isBlackToMove() ? position.getKings()
+                                               : turn(position.getKings(), position.getNumberOfSquares()));
+    }
+
+    /**
+     * Load the key into target, with BLACK to move.
+     */
+    public static void decode(long pieces, int kings, BitBoard target) {
+        target.setMasks(pieces & 0xffffffffL, pieces >>> 32, kings & 0xffffffffL, CheckerSide.BLACK);
+    }
+
+    // square s -> n - 1 - s
+    private static long turn(long mask, int numberOfSquares) {
+        return Long.reverse(mask) >>> (64 - numberOfSquares);
+    }
+}
@@ -0,0 +1,47 @@
+package checkers.store;
+
+/**
+ * How often a position occurred, and how the games went for the side to
+ * move.  Filled in by PositionStore, so one instance can be reused.
+ */
+public class PositionStats {
+    private long count;
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /* default */ void set(long count, int wins, int draws, int losses) {
+        this.count = count;
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    /**
+     * @return occurrences in games without a result
+     */
+    public long getUnknown() {
+        return count - wins - draws - losses;
+    }
+
+    @Override
+    public String toString() {
+        return "PositionStats [count=" + count + " +" + wins + " =" + draws + " -" + losses + "]";
+    }
+}
@@ -0,0 +1,453 @@
+package checkers.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+import checkers.pdn.PdnGameListener;
+
+/**
+ * Counts positions of many games:  how often each one occurred, and the
+ * wins, draws and losses of the side to move.  Positions are stored by
+ * PositionKey, so a position and its colour-flipped twin share an entry.
+ *
+ * Entries live outside the heap, in direct buffers or in a memory mapped
+ * file, in open addressing (linear probing) hash tables:  the high bits
+ * of the hash pick one of the segments, the low bits the slot within it.
+ * Every segment has its own lock, so threads adding positions at the same
+ * time rarely wait for each other.  The capacity is fixed when the store
+ * is made;  a segment more than 7/8 full refuses new positions.  With
+ * maxEntries the table is at most 3/4 full, and every segment has at
+ * least MIN_SLOTS_PER_SEGMENT slots, so the hash spreading positions
+ * unevenly over the segments does not fill one up first:  a small store
+ * has fewer segments.
+ *
+ * A store holds the games of one RuleSet:  the same position can have
+ * other results under other rules.
+ *
+ * Slot layout (ENTRY_SIZE bytes):
+ *   long pieces (0 for an empty slot)
+ *   int kings
+ *   int wins
+ *   int draws
+ *   int losses
+ *   long count
+ *
+ * File layout:  a header of HEADER_SIZE bytes (MAGIC, VERSION, number of
+ * squares, rules id, segments, slots per segment), then the segments.
+ */
+public class PositionStore implements PdnGameListener, Closeable {
+    /* default */ static final int MAGIC = 0x434b5053; // "CKPS"
+    /* default */ static final int VERSION = 2;
+    /* default */ static final int HEADER_SIZE = 4 * 6;
+    /* default */ static final int ENTRY_SIZE = 32;
+    // enough for threads adding at once;  fewer in a small store
+    /* default */ static final int SEGMENTS = 64;
+    // so a segment's share of the positions is close to the average
+    /* default */ static final int MIN_SLOTS_PER_SEGMENT = 4096;
+    // so a segment fits one buffer:  1GB
+    /* default */ static final int MAX_SLOTS_PER_SEGMENT = 1 << 25;
+
+    private static final int KINGS = 8;
+    private static final int WINS = 12;
+    private static final int DRAWS = 16;
+    private static final int LOSSES = 20;
+    private static final int COUNT = 24;
+
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final int slotsPerSegment;
+    private final int maxSegmentSize;
+    private final FileChannel channel;
+
+    private final ThreadLocal<GameScratch> scratch = new ThreadLocal<GameScratch>() {
+        @Override
+        protected GameScratch initialValue() {
+            return new GameScratch();
+        }
+    };
+
+    private static class Segment {
+        final ByteBuffer slots;
+        int size;
+
+        Segment(ByteBuffer slots) {
+            this.slots = slots.order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    // for addGame()
+    private class GameScratch {
+        final BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        final MoveGenerator moveGenerator = new MoveGenerator(geometry, rules);
+        final MoveList moves = new MoveList();
+    }
+
+    /**
+     * A store of English games in direct buffers.
+     *
+     * @param maxEntries positions the store must be able to hold
+     */
+    public PositionStore(BoardGeometry geometry, long maxEntries) {
+        this(geometry, RuleSet.ENGLISH, maxEntries);
+    }
+
+    public PositionStore(BoardGeometry geometry, RuleSet rules, long maxEntries) {
+        this(geometry, rules, getSegments(maxEntries), getSlotsPerSegment(maxEntries), null);
+    }
+
+    private PositionStore(BoardGeometry geometry, RuleSet rules, int segments, int slotsPerSegment,
+                          FileChannel channel) {
+        if (! PositionKey.supports(geometry)) {
+            throw new RuntimeException("PositionStore cannot hold positions of a " + geometry.getSizeX() + "x"
+                                       + geometry.getSizeY() + " board");
+        }
+        this.geometry = geometry;
+        this.rules = rules;
+        this.segments = new Segment[segments];
+        this.segmentMask = segments - 1;
+        this.slotsPerSegment = slotsPerSegment;
+        this.maxSegmentSize = slotsPerSegment - slotsPerSegment / 8;
+        this.channel = channel;
+        if (channel == null) {
+            for (int i = 0; i < segments; i++) {
+                this.segments[i] = new Segment(ByteBuffer.allocateDirect(slotsPerSegment * ENTRY_SIZE));
+            }
+        }
+    }
+
+    /**
+     * A store of English games in file, see open(BoardGeometry, RuleSet, long, Path).
+     */
+    public static PositionStore open(BoardGeometry geometry, long maxEntries, Path file) throws IOException {
+        return open(geometry, RuleSet.ENGLISH, maxEntries, file);
+    }
+
+    /**
+     * A store in file:  a new one if file does not exist or is empty,
+     * otherwise the one in it, which must have been made for the same
+     * geometry, rules and maxEntries.  Changes go to the file, see force().
+     */
+    public static PositionStore open(BoardGeometry geometry, RuleSet rules, long maxEntries, Path file)
+        throws IOException {
+        final int segments = getSegments(maxEntries);
+        final int slotsPerSegment = getSlotsPerSegment(maxEntries);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            final boolean created = channel.size() == 0;
+            if (created) {
+                header.putInt(MAGIC).putInt(VERSION).putInt(geometry.getNumberOfSquares()).putInt(rules.getId())
+                    .putInt(segments).putInt(slotsPerSegment);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            } else {
+                while (header.hasRemaining() && (channel.read(header, header.position()) >= 0)) {
+                    // keep reading
+                }
+                header.flip();
+                if ((header.remaining() < HEADER_SIZE) || (header.getInt() != MAGIC)) {
+                    throw new IOException("Not a position store: " + file);
+                }
+                final int version = header.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported position store version " + version + " in " + file);
+                }
+                final int squares = header.getInt();
+                final RuleSet fileRules = RuleSet.forId(header.getInt());
+                final int fileSegments = header.getInt();
+                final int fileSlots = header.getInt();
+                if ((squares != geometry.getNumberOfSquares()) || (fileSegments != segments)
+                    || (fileSlots != slotsPerSegment)) {
+                    throw new IOException(file + " has " + squares + " squares and " + fileSegments + "x" + fileSlots
+                                          + " slots, expected " + geometry.getNumberOfSquares() + " and " + segments
+                                          + "x" + slotsPerSegment);
+                }
+                if (fileRules != rules) {
+                    throw new IOException(file + " has " + fileRules + " games, expected " + rules);
+                }
+            }
+
+            PositionStore ret = new PositionStore(geometry, rules, segments, slotsPerSegment, channel);
+            final long segmentBytes = (long) slotsPerSegment * ENTRY_SIZE;
+            for (int i = 0; i < segments; i++) {
+                // mapping past the end grows the file, with zeros
+                Segment segment = new Segment(channel.map(FileChannel.MapMode.READ_WRITE,
+                                                          HEADER_SIZE + i * segmentBytes, segmentBytes));
+                if (! created) {
+                    for (int slot = 0; slot < slotsPerSegment; slot++) {
+                        if (segment.slots.getLong(slot * ENTRY_SIZE) != 0) {
+                            segment.size++;
+                        }
+                    }
+                }
+                ret.segments[i] = segment;
+            }
+            return ret;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // a power of two:  SEGMENTS, fewer to keep MIN_SLOTS_PER_SEGMENT, more to keep MAX_SLOTS_PER_SEGMENT
+    private static int getSegments(long maxEntries) {
+        final long slots = getSlots(maxEntries);
+        return (int) Math.max(slots / MAX_SLOTS_PER_SEGMENT, Math.min(SEGMENTS, slots / MIN_SLOTS_PER_SEGMENT));
+    }
+
+    private static int getSlotsPerSegment(long maxEntries) {
+        return (int) (getSlots(maxEntries) / getSegments(maxEntries));
+    }
+
+    // at most 3/4 full with maxEntries
+    private static long getSlots(long maxEntries) {
+        if ((maxEntries < 1) || (maxEntries > (long) MAX_SLOTS_PER_SEGMENT * MAX_SLOTS_PER_SEGMENT / 2)) {
+            throw new RuntimeException("maxEntries must be positive and not too large, was " + maxEntries);
+        }
+        final long wanted = Math.max(MIN_SLOTS_PER_SEGMENT, maxEntries + (maxEntries + 2) / 3);
+        return Long.highestOneBit(wanted - 1) << 1;
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * @return slots in all segments, the most positions that could fit
+     */
+    public long getCapacity() {
+        return (long) segments.length * slotsPerSegment;
+    }
+
+    /**
+     * @return number of different (canonical) positions
+     */
+    public long size() {
+        long ret = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                ret += segment.size;
+            }
+        }
+        return ret;
+    }
+
+    private static long hash(long pieces, int kings) {
+        // the MurmurHash3 finalizer
+        long h = pieces ^ (kings * 0x9e3779b97f4a7c15L);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Count one occurrence of position, in a game with result.
+     *
+     * @param result GameRecord.UNKNOWN, BLACK_WIN, RED_WIN or DRAW
+     * @return true if the position was not in the store yet
+     */
+    public boolean add(BitBoard position, int result) {
+        final long pieces = PositionKey.getPieces(position);
+        final int kings = PositionKey.getKings(position);
+        if (pieces == 0) {
+            throw new RuntimeException("Cannot store a position without pieces");
+        }
+        // from the point of view of the side to move
+        final int statistic;
+        switch (result) {
+        case GameRecord.UNKNOWN:
+            statistic = -1;
+            break;
+        case GameRecord.DRAW:
+            statistic = DRAWS;
+            break;
+        case GameRecord.BLACK_WIN:
+            statistic = position.isBlackToMove() ? WINS : LOSSES;
+            break;
+        case GameRecord.RED_WIN:
+            statistic = position.isBlackToMove() ? LOSSES : WINS;
+            break;
+        default:
+            throw new RuntimeException("Invalid result " + result);
+        }
+
+        final long hash = hash(pieces, kings);
+        final Segment segment = segments[(int) (hash >>> 32) & segmentMask];
+        final int mask = slotsPerSegment - 1;
+        synchronized (segment) {
+            final ByteBuffer slots = segment.slots;
+            int slot = (int) hash & mask;
+            while (true) {
+                final int offset = slot * ENTRY_SIZE;
+                final long slotPieces = slots.getLong(offset);
+                if (slotPieces == 0) {
+                    if (segment.size >= maxSegmentSize) {
+                        throw new RuntimeException("PositionStore is full, capacity=" + getCapacity());
+                    }
+                    slots.putLong(offset, pieces);
+                    slots.putInt(offset + KINGS, kings);
+                    slots.putLong(offset + COUNT, 1);
+                    if (statistic >= 0) {
+                        slots.putInt(offset + statistic, 1);
+                    }
+                    segment.size++;
+                    return true;
+                }
+                if ((slotPieces == pieces) && (slots.getInt(offset + KINGS) == kings)) {
+                    slots.putLong(offset + COUNT, slots.getLong(offset + COUNT) + 1);
+                    if (statistic >= 0) {
+                        slots.putInt(offset + statistic, slots.getInt(offset + statistic) + 1);
+                    }
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * @param target gets the statistics of position (or of its twin)
+     * @return false, and target untouched, if position is not in the store
+     */
+    public boolean get(BitBoard position, PositionStats target) {
+        final long pieces = PositionKey.getPieces(position);
+        final int kings = PositionKey.getKings(position);
+        if (pieces == 0) {
+            return false;
+        }
+        final long hash = hash(pieces, kings);
+        final Segment segment = segments[(int) (hash >>> 32) & segmentMask];
+        final int mask = slotsPerSegment - 1;
+        synchronized (segment) {
+            final ByteBuffer slots = segment.slots;
+            int slot = (int) hash & mask;
+            while (true) {
+                final int offset = slot * ENTRY_SIZE;
+                final long slotPieces = slots.getLong(offset);
+                if (slotPieces == 0) {
+                    return false;
+                }
+                if ((slotPieces == pieces) && (slots.getInt(offset + KINGS) == kings)) {
+                    target.set(slots.getLong(offset + COUNT), slots.getInt(offset + WINS),
+                               slots.getInt(offset + DRAWS), slots.getInt(offset + LOSSES));
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * Add every position of game, from the start up to (not including)
+     * the final position.  Safe to call from many threads.  The game
+     * must be for the store's rules.
+     */
+    public void addGame(GameRecord game) {
+        if (! game.getGeometry().equalsType(geometry)) {
+            throw new RuntimeException("Game is for a " + game.getGeometry().getSizeY() + " board, store is for "
+                                       + geometry.getSizeY());
+        }
+        if (game.getRules() != rules) {
+            throw new RuntimeException("Game is for " + game.getRules() + " rules, store is for " + rules);
+        }
+        final GameScratch s = scratch.get();
+        final MoveGenerator moveGenerator = s.moveGenerator;
+        game.getStartPosition(s.position);
+        for (int ply = 0, n = game.getPlies(); ply < n; ply++) {
+            add(s.position, game.getResult());
+            moveGenerator.generateMoves(s.position, s.moves);
+            final int index = GameRecord.findDelta(s.moves, game.getDelta(ply));
+            if (index < 0) {
+                throw new RuntimeException("Illegal move at ply " + ply + " in " + game);
+            }
+            s.position.applyMove(s.moves.getMove(index), s.moves.getCaptures(index));
+        }
+    }
+
+    /**
+     * addGame(), so a PdnImporter can fill the store from its threads.
+     */
+    @Override
+    public void gameImported(long gameNumber, GameRecord game) {
+        addGame(game);
+    }
+
+    /**
+     * Visit every entry, one segment at a time;  that segment is locked
+     * meanwhile, so visitor must not add to the store.
+     */
+    public void forEach(PositionVisitor visitor) {
+        final BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        final PositionStats stats = new PositionStats();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                final ByteBuffer slots = segment.slots;
+                for (int slot = 0; slot < slotsPerSegment; slot++) {
+                    final int offset = slot * ENTRY_SIZE;
+                    final long pieces = slots.getLong(offset);
+                    if (pieces != 0) {
+                        PositionKey.decode(pieces, slots.getInt(offset + KINGS), position);
+                        stats.set(slots.getLong(offset + COUNT), slots.getInt(offset + WINS),
+                                  slots.getInt(offset + DRAWS), slots.getInt(offset + LOSSES));
+                        visitor.visit(position, stats);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write changes of a file store to disk;  nothing to do otherwise.
+     */
+    public void force() {
+        if (channel != null) {
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    ((MappedByteBuffer) segment.slots).force();
+                }
+            }
+        }
+    }
+
+    /**
+     * force(), and close the file.  The store must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+    }
+
+    /**
+     * @return bytes a store for maxEntries positions takes, file or memory
+     */
+    public static long getBytes(long maxEntries) {
+        return HEADER_SIZE + getSlots(maxEntries) * ENTRY_SIZE;
+    }
+}
@@ -0,0 +1,14 @@
+package checkers.store;
+
+import checkers.model.BitBoard;
+
+/**
+ * Receives the entries of a PositionStore, see PositionStore.forEach().
+ * Both arguments are reused as soon as the call returns.
+ */
+public interface PositionVisitor {
+    /**
+     * @param position canonical, i.e. with BLACK to move, see PositionKey
+     */
+    void visit(BitBoard position, PositionStats stats);
+}
@@ -0,0 +1,92 @@
+package checkers.tablebase;
+
+import checkers.model.BitBoard;
+
+/**
+ * Which pieces are on the board, regardless of where:  black men, black
+ * kings, red men and red kings.  A tablebase has one table per signature.
+ */
+public final class MaterialSignature {
+    private final int blackMen;
+    private final int blackKings;
+    private final int redMen;
+    private final int redKings;
+
+    public MaterialSignature(int blackMen, int blackKings, int redMen, int redKings) {
+        if ((blackMen < 0) || (blackKings < 0) || (redMen < 0) || (redKings < 0)) {
+            throw new RuntimeException("Invalid signature " + blackMen + "," + blackKings + "," + redMen + "," + redKings);
+        }
+        this.blackMen = blackMen;
+        this.blackKings = blackKings;
+        this.redMen = redMen;
+        this.redKings = redKings;
+    }
+
+    public static MaterialSignature of(BitBoard position) {
+        final long kings = position.getKings();
+        return new MaterialSignature(Long.bitCount(position.getBlack() & ~kings), Long.bitCount(position.getBlack() & kings),
+                                     Long.bitCount(position.getRed() & ~kings), Long.bitCount(position.getRed() & kings));
+    }
+
+    public int getBlackMen() {
+        return blackMen;
+    }
+
+    public int getBlackKings() {
+        return blackKings;
+    }
+
+    public int getRedMen() {
+        return redMen;
+    }
+
+    public int getRedKings() {
+        return redKings;
+    }
+
+    public int getTotal() {
+        return blackMen + blackKings + redMen + redKings;
+    }
+
+    public int getMen() {
+        return blackMen + redMen;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((blackMen * 31 + blackKings) * 31 + redMen) * 31 + redKings;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        MaterialSignature other = (MaterialSignature) obj;
+        return (blackMen == other.blackMen) && (blackKings == other.blackKings)
+            && (redMen == other.redMen) && (redKings == other.redKings);
+    }
+
+    /**
+     * @return like "bbB-rR": one letter per piece, black then red
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, 'b', blackMen);
+        append(sb, 'B', blackKings);
+        sb.append('-');
+        append(sb, 'r', redMen);
+        append(sb, 'R', redKings);
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, char c, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package checkers.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.RuleSet;
+
+/**
+ * Endgame tablebase, read from the file TablebaseGenerator wrote.
+ *
+ * Every table is memory mapped (read only) and probed in place:  a probe is
+ * a few popcounts to find the table, TablebaseIndex.index() to find the
+ * entry, and one absolute get() from the mapping.  Nothing is copied onto
+ * the heap, so processes on the same host share the file through the page
+ * cache.  Probing is thread-safe.
+ *
+ * One signed byte per position, from the point of view of the side to move:
+ *   0          draw
+ *   +d         win in d plies (d &gt;= 1)
+ *   -(d+1)     loss in d plies (d &gt;= 0, 0 means no moves now)
+ *   -128       invalid index (never a real position)
+ *
+ * The values are only right under the tablebase's rules, see getRules().
+ *
+ * File layout (big-endian):
+ *   int magic, int version, int board size, int rules (RuleSet.getId()),
+ *   int maxPieces, int number of tables
+ *   per table:  byte blackMen, blackKings, redMen, redKings, long offset
+ *   the tables, one byte per entry, TablebaseIndex.size() entries each
+ * Version 1 files have no rules, they are English.
+ */
+public class Tablebase {
+    public static final int MAX_PIECES = 8;
+
+    public static final byte DRAW = 0;
+    public static final byte INVALID = Byte.MIN_VALUE;
+    // longest distance a byte can hold, either way
+    public static final int MAX_DISTANCE = 126;
+
+    // probe() result for positions that are not in the tablebase
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    /* default */ static final int MAGIC = 0x434b5442; // "CKTB"
+    /* default */ static final int VERSION = 2;
+    /* default */ static final int HEADER_SIZE = 6 * 4;
+    private static final int HEADER_SIZE_VERSION_1 = 5 * 4;
+    /* default */ static final int TABLE_ENTRY_SIZE = 4 + 8;
+
+    private final RuleSet rules;
+    private final int maxPieces;
+    private final TablebaseIndex index;
+    // [key()], null for signatures that are not in the file
+    private final MappedByteBuffer[] tables;
+
+    private Tablebase(RuleSet rules, int maxPieces, TablebaseIndex index, MappedByteBuffer[] tables) {
+        this.rules = rules;
+        this.maxPieces = maxPieces;
+        this.index = index;
+        this.tables = tables;
+    }
+
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE_VERSION_1);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a tablebase file: " + file);
+            }
+            final int version = header.getInt();
+            if ((version != 1) && (version != VERSION)) {
+                throw new IOException("Unsupported tablebase version " + version + " in " + file);
+            }
+            final int headerSize = (version == 1) ? HEADER_SIZE_VERSION_1 : HEADER_SIZE;
+            header = readFully(channel, 0, headerSize);
+            header.position(2 * 4);
+            final int boardSize = header.getInt();
+            final RuleSet rules = (version == 1) ? RuleSet.ENGLISH : RuleSet.forId(header.getInt());
+            final int maxPieces = header.getInt();
+            final int numberOfTables = header.getInt();
+            if ((maxPieces < 2) || (maxPieces > MAX_PIECES)) {
+                throw new IOException("Invalid maxPieces " + maxPieces + " in " + file);
+            }
+
+            TablebaseIndex index = new TablebaseIndex(BoardGeometry.forSize(boardSize));
+            MappedByteBuffer[] tables = new MappedByteBuffer[numberOfKeys(maxPieces)];
+            ByteBuffer entries = readFully(channel, headerSize, numberOfTables * TABLE_ENTRY_SIZE);
+            for (int i = 0; i < numberOfTables; i++) {
+                MaterialSignature signature = new MaterialSignature(entries.get(), entries.get(), entries.get(), entries.get());
+                final long offset = entries.getLong();
+                final long size = index.size(signature);
+                if ((signature.getTotal() > maxPieces) || (offset + size > channel.size())) {
+                    throw new IOException("Invalid table " + signature + " in " + file);
+                }
+                // the mapping stays valid after the channel is closed
+                tables[key(signature, maxPieces)] = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            }
+            return new Tablebase(rules, maxPieces, index, tables);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer ret = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        while (ret.hasRemaining()) {
+            if (channel.read(ret, position + ret.position()) < 0) {
+                throw new IOException("Tablebase file is truncated");
+            }
+        }
+        ret.flip();
+        return ret;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    public boolean contains(BitBoard position) {
+        return probe(position) != NOT_FOUND;
+    }
+
+    /**
+     * @return the value of position (see above), or NOT_FOUND;  also for a
+     *         position the tables cannot hold, like a man on its promotion row
+     */
+    public int probe(BitBoard position) {
+        if ((position.getBlack() == 0) || (position.getRed() == 0)
+                || (Long.bitCount(position.getOccupied()) > maxPieces)
+                || (position.getNumberOfSquares() != index.getNumberOfSquares()) || ! index.canIndex(position)) {
+            return NOT_FOUND;
+        }
+        final MappedByteBuffer table = tables[key(position, maxPieces)];
+        if (table == null) {
+            return NOT_FOUND;
+        }
+        return table.get((int) index.index(position));
+    }
+
+    // values
+
+    public static boolean isWin(int value) {
+        return value > 0;
+    }
+
+    public static boolean isLoss(int value) {
+        return (value < 0) && (value != INVALID);
+    }
+
+    /**
+     * @return plies to the end of the game, for a win or a loss
+     */
+    public static int getDistance(int value) {
+        return (value > 0) ? value : -value - 1;
+    }
+
+    public static byte winIn(int plies) {
+        if ((plies < 1) || (plies > MAX_DISTANCE)) {
+            throw new RuntimeException("Cannot store a win in " + plies + " plies");
+        }
+        return (byte) plies;
+    }
+
+    public static byte lossIn(int plies) {
+        if ((plies < 0) || (plies > MAX_DISTANCE)) {
+            throw new RuntimeException("Cannot store a loss in " + plies + " plies");
+        }
+        return (byte) -(plies + 1);
+    }
+
+    // tables are found by piece counts, in base (maxPieces + 1)
+
+    /* default */ static int numberOfKeys(int maxPieces) {
+        final int base = maxPieces + 1;
+        return base * base * base * base;
+    }
+
+    /* default */ static int key(MaterialSignature signature, int maxPieces) {
+        return key(signature.getBlackMen(), signature.getBlackKings(), signature.getRedMen(), signature.getRedKings(),
+                   maxPieces);
+    }
+
+    /* default */ static int key(BitBoard position, int maxPieces) {
+        final long kings = position.getKings();
+        return key(Long.bitCount(position.getBlack() & ~kings), Long.bitCount(position.getBlack() & kings),
+                   Long.bitCount(position.getRed() & ~kings), Long.bitCount(position.getRed() & kings), maxPieces);
+    }
+
+    private static int key(int blackMen, int blackKings, int redMen, int redKings, int maxPieces) {
+        final int base = maxPieces + 1;
+        return ((blackMen * base + blackKings) * base + redMen) * base + redKings;
+    }
+}
@@ -0,0 +1,427 @@
+package checkers.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+/**
+ * Builds the tables for every position with up to maxPieces pieces (at
+ * least one per side) by retrograde analysis, under English rules:  un-making
+ * a move below assumes kings that step one square, and promotion that ends
+ * the move.
+ *
+ * A move either stays in its table, or captures (fewer pieces) or promotes
+ * (fewer men).  So tables are solved in order of (total pieces, men), and
+ * a table only ever looks up positions in itself or in tables solved
+ * before it.  All tables with the same (total pieces, men) are independent,
+ * and are solved in parallel.
+ *
+ * Within a table, every position's moves are examined once, counting the
+ * moves whose result is not yet known.  From then on results spread
+ * backwards, by "un-making" the quiet moves (the only moves that stay in
+ * the table), in order of distance:  a position is won in d+1 if some move
+ * leads to a position lost in d, and lost in d+1 once every move is known
+ * to lead to a position won, the longest in d.  Whatever is left is a draw.
+ *
+ * The tables are held in memory (one byte per entry) until write().
+ */
+public class TablebaseGenerator {
+    // during generation only, never written
+    private static final byte UNKNOWN = Byte.MAX_VALUE;
+
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private final TablebaseIndex index;
+    private final int maxPieces;
+    private final int threads;
+
+    // [Tablebase.key()], null until solved
+    private final byte[][] tables;
+    private final List<MaterialSignature> signatures = new ArrayList<>();
+    private volatile int maxDistance = 0;
+
+    /**
+     * A generator of English tables.
+     */
+    public TablebaseGenerator(BoardGeometry geometry, int maxPieces, int threads) {
+        this(geometry, RuleSet.ENGLISH, maxPieces, threads);
+    }
+
+    /**
+     * @param rules only RuleSet.ENGLISH is supported
+     */
+    public TablebaseGenerator(BoardGeometry geometry, RuleSet rules, int maxPieces, int threads) {
+        if (rules != RuleSet.ENGLISH) {
+            throw new RuntimeException("Tablebases can only be generated for English rules, not " + rules);
+        }
+        if ((maxPieces < 2) || (maxPieces > Tablebase.MAX_PIECES)) {
+            throw new RuntimeException("maxPieces must be 2.." + Tablebase.MAX_PIECES + ", was " + maxPieces);
+        }
+        if (threads < 1) {
+            throw new RuntimeException("threads must be at least 1, was " + threads);
+        }
+        this.geometry = geometry;
+        this.rules = rules;
+        this.index = new TablebaseIndex(geometry);
+        this.maxPieces = maxPieces;
+        this.threads = threads;
+        this.tables = new byte[Tablebase.numberOfKeys(maxPieces)][];
+    }
+
+    public List<MaterialSignature> getSignatures() {
+        return signatures;
+    }
+
+    /**
+     * Solve every table.
+     */
+    public void generate() {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int total = 2; total <= maxPieces; total++) {
+                for (int men = 0; men <= total; men++) {
+                    solveGroup(pool, createGroup(total, men));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // every signature with total pieces, men of them men, and at least one piece per side
+    private List<MaterialSignature> createGroup(int total, int men) {
+        List<MaterialSignature> ret = new ArrayList<>();
+        final int kings = total - men;
+        for (int blackMen = 0; blackMen <= men; blackMen++) {
+            for (int blackKings = 0; blackKings <= kings; blackKings++) {
+                final int black = blackMen + blackKings;
+                if ((black == 0) || (black == total)) {
+                    continue;
+                }
+                MaterialSignature signature = new MaterialSignature(blackMen, blackKings, men - blackMen, kings - blackKings);
+                if (index.size(signature) > Integer.MAX_VALUE) {
+                    throw new RuntimeException("Table too large for one array: " + signature);
+                }
+                if (index.size(signature) > 0) {
+                    ret.add(signature);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private void solveGroup(ExecutorService pool, List<MaterialSignature> group) {
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (final MaterialSignature signature : group) {
+            results.add(pool.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    return new TableSolver(signature).solve();
+                }
+            }));
+        }
+        // nothing in this group reads another table of the group
+        for (int i = 0; i < group.size(); i++) {
+            tables[Tablebase.key(group.get(i), maxPieces)] = waitFor(results.get(i));
+            signatures.add(group.get(i));
+        }
+    }
+
+    private static byte[] waitFor(Future<byte[]> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted generating tablebase", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("tablebase generation failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return solved table, see Tablebase for the values
+     */
+    public byte[] getTable(MaterialSignature signature) {
+        if (signature.getTotal() > maxPieces) {
+            return null;
+        }
+        return tables[Tablebase.key(signature, maxPieces)];
+    }
+
+    /**
+     * Write all tables to one file, see Tablebase for the layout.
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            final int headerSize = Tablebase.HEADER_SIZE + signatures.size() * Tablebase.TABLE_ENTRY_SIZE;
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.BIG_ENDIAN);
+            header.putInt(Tablebase.MAGIC);
+            header.putInt(Tablebase.VERSION);
+            header.putInt(geometry.getSizeY());
+            header.putInt(rules.getId());
+            header.putInt(maxPieces);
+            header.putInt(signatures.size());
+            long offset = headerSize;
+            for (MaterialSignature signature : signatures) {
+                header.put((byte) signature.getBlackMen());
+                header.put((byte) signature.getBlackKings());
+                header.put((byte) signature.getRedMen());
+                header.put((byte) signature.getRedKings());
+                header.putLong(offset);
+                offset += getTable(signature).length;
+            }
+            header.flip();
+            writeFully(channel, header);
+            for (MaterialSignature signature : signatures) {
+                writeFully(channel, ByteBuffer.wrap(getTable(signature)));
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // one table, on one thread
+    private class TableSolver {
+        private final MaterialSignature signature;
+        private final int key;
+        private final byte[] values;
+        // for positions not solved yet: moves that do not (yet) lead to a
+        // position won for the opponent, and the longest such win so far
+        private final byte[] notWon;
+        private final byte[] longestWin;
+        // [distance]: positions to resolve, i for a win, ~i for a loss
+        private final IntQueue[] queues = new IntQueue[Tablebase.MAX_DISTANCE + 2];
+
+        private final MoveGenerator moveGenerator = new MoveGenerator(geometry, rules);
+        private final MoveList moves = new MoveList();
+        private final BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        private final BitBoard other = new BitBoard(geometry.getNumberOfSquares());
+        private int longest = 0;
+
+        TableSolver(MaterialSignature signature) {
+            this.signature = signature;
+            this.key = Tablebase.key(signature, maxPieces);
+            this.values = new byte[(int) index.size(signature)];
+            this.notWon = new byte[values.length];
+            this.longestWin = new byte[values.length];
+            for (int d = 0; d < queues.length; d++) {
+                queues[d] = new IntQueue();
+            }
+        }
+
+        byte[] solve() {
+            // invalid entries, and positions with no moves (lost, now)
+            for (int i = 0; i < values.length; i++) {
+                if (! index.decode(signature, i, position)) {
+                    values[i] = Tablebase.INVALID;
+                } else if (moveGenerator.generateMoves(position, moves) == 0) {
+                    values[i] = Tablebase.lossIn(0);
+                } else {
+                    values[i] = UNKNOWN;
+                }
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == UNKNOWN) {
+                    examineMoves(i);
+                }
+            }
+
+            // in order of distance, so the first result found is the shortest
+            // win, and a loss is only found once every move is known to lose
+            for (int d = 1; d < queues.length; d++) {
+                final IntQueue queue = queues[d];
+                for (int q = 0; q < queue.size(); q++) {
+                    final int entry = queue.get(q);
+                    final boolean win = entry >= 0;
+                    final int i = win ? entry : ~entry;
+                    if (values[i] == UNKNOWN) {
+                        values[i] = win ? Tablebase.winIn(d) : Tablebase.lossIn(d);
+                        longest = d;
+                        updatePredecessors(i, win, d);
+                    }
+                }
+                queues[d] = null;
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == UNKNOWN) {
+                    values[i] = Tablebase.DRAW;
+                }
+            }
+            updateMaxDistance(longest);
+            return values;
+        }
+
+        // every move of position i, looking up what is already known
+        private void examineMoves(int i) {
+            index.decode(signature, i, position);
+            final int n = moveGenerator.generateMoves(position, moves);
+            int pending = 0;
+            int longestKnownWin = 0;
+            int shortestWin = Integer.MAX_VALUE;
+            for (int m = 0; m < n; m++) {
+                other.copyFrom(position);
+                other.applyMove(moves.getMove(m), moves.getCaptures(m));
+                final byte value = lookup(other);
+                if (Tablebase.isWin(value) && (value != UNKNOWN)) {
+                    longestKnownWin = Math.max(longestKnownWin, Tablebase.getDistance(value));
+                } else {
+                    pending++;
+                    if (Tablebase.isLoss(value)) {
+                        shortestWin = Math.min(shortestWin, Tablebase.getDistance(value) + 1);
+                    }
+                }
+            }
+            if (pending > Byte.MAX_VALUE) {
+                throw new RuntimeException("Too many moves to count: " + pending);
+            }
+            notWon[i] = (byte) pending;
+            longestWin[i] = (byte) longestKnownWin;
+            if (shortestWin != Integer.MAX_VALUE) {
+                enqueue(shortestWin, i);
+            } else if (pending == 0) {
+                enqueue(longestKnownWin + 1, ~i);
+            }
+        }
+
+        // position i was just solved: tell the positions that can move to it
+        private void updatePredecessors(int i, boolean win, int distance) {
+            index.decode(signature, i, position);
+            // the side that is not to move made the last move
+            final boolean blackMoved = ! position.isBlackToMove();
+            final long movers = blackMoved ? position.getBlack() : position.getRed();
+            final long kings = position.getKings();
+            final long empty = position.getEmpty();
+            for (long bits = movers; bits != 0; bits &= bits - 1) {
+                final int to = Long.numberOfTrailingZeros(bits);
+                final boolean king = (kings & (1L << to)) != 0;
+                for (int dir = 0; dir < BoardGeometry.NUMBER_OF_DIRECTIONS; dir++) {
+                    // a man came from behind: black moves down, so came from above
+                    final boolean up = (dir == BoardGeometry.UP_LEFT) || (dir == BoardGeometry.UP_RIGHT);
+                    if ((! king) && (up != blackMoved)) {
+                        continue;
+                    }
+                    final int from = geometry.getNeighbour(to, dir);
+                    if ((from < 0) || ((empty & (1L << from)) == 0)) {
+                        continue;
+                    }
+                    final long fromTo = (1L << from) | (1L << to);
+                    other.setMasks(blackMoved ? (position.getBlack() ^ fromTo) : position.getBlack(),
+                                   blackMoved ? position.getRed() : (position.getRed() ^ fromTo),
+                                   king ? (kings ^ fromTo) : kings,
+                                   blackMoved ? CheckerSide.BLACK : CheckerSide.RED);
+                    final int predecessor = (int) index.index(other);
+                    if (values[predecessor] != UNKNOWN) {
+                        continue;
+                    }
+                    // the simple move was only legal if there was no capture
+                    if ((moveGenerator.generateMoves(other, moves) == 0) || moves.isCapture(0)) {
+                        continue;
+                    }
+                    if (! win) {
+                        enqueue(distance + 1, predecessor);
+                    } else {
+                        notWon[predecessor]--;
+                        longestWin[predecessor] = (byte) Math.max(longestWin[predecessor], distance);
+                        if (notWon[predecessor] == 0) {
+                            enqueue(longestWin[predecessor] + 1, ~predecessor);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void enqueue(int distance, int entry) {
+            if (distance >= queues.length) {
+                throw new RuntimeException("Distance " + distance + " is too long to store, table " + signature);
+            }
+            queues[distance].add(entry);
+        }
+
+        private byte lookup(BitBoard p) {
+            final boolean blackToMove = p.isBlackToMove();
+            if ((blackToMove ? p.getBlack() : p.getRed()) == 0) {
+                // everything was captured
+                return Tablebase.lossIn(0);
+            }
+            final int childKey = Tablebase.key(p, maxPieces);
+            final byte[] table = (childKey == key) ? values : tables[childKey];
+            return table[(int) index.index(p)];
+        }
+    }
+
+    // growable int[], appended to while being read
+    private static class IntQueue {
+        private int[] entries = new int[16];
+        private int size = 0;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int i) {
+            return entries[i];
+        }
+    }
+
+    private synchronized void updateMaxDistance(int distance) {
+        if (distance > maxDistance) {
+            maxDistance = distance;
+        }
+    }
+
+    /**
+     * @param args maxPieces file [threads]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: TablebaseGenerator maxPieces file [threads]");
+            return;
+        }
+        final int maxPieces = Integer.parseInt(args[0]);
+        final int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        final long start = System.nanoTime();
+        TablebaseGenerator generator = new TablebaseGenerator(BoardGeometry.forSize(8), maxPieces, threads);
+        generator.generate();
+        generator.write(Paths.get(args[1]));
+
+        long entries = 0;
+        for (MaterialSignature signature : generator.getSignatures()) {
+            entries += generator.getTable(signature).length;
+        }
+        System.out.println(generator.getSignatures().size() + " tables, " + entries + " entries, longest "
+                           + generator.maxDistance + " plies, " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+}
@@ -0,0 +1,237 @@
+package checkers.tablebase;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+
+/**
+ * The index function of a table:  maps every position of one
+ * MaterialSignature to 0..size-1, and back.
+ *
+ * Pieces of each kind are ranked as combinations ("combinatorial number
+ * system"):
+ *   o black men among the squares a black man can stand on (not its
+ *     promotion row), red men likewise
+ *   o black kings among the squares the men left free, then red kings
+ *     among the squares left after that
+ *   o and the side to move in the low bit
+ * Men of both colours are ranked independently, so the few indexes where a
+ * black and a red man would share a square are invalid (decode() returns
+ * false).  Everything else is a one to one mapping, with no hashing.
+ *
+ * Immutable, and safe to share between threads.
+ */
+public class TablebaseIndex {
+    private static final long[][] BINOMIAL = new long[BitBoard.MAX_SQUARES + 1][BitBoard.MAX_SQUARES + 1];
+
+    static {
+        for (int n = 0; n <= BitBoard.MAX_SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    private final int numberOfSquares;
+    private final long allSquares;
+
+    // [square] -> ordinal among the squares a man of that colour may stand on, or -1
+    private final int[] blackManOrdinal;
+    private final int[] redManOrdinal;
+    // [ordinal] -> square
+    private final int[] blackManSquares;
+    private final int[] redManSquares;
+    // the rows no man of that colour may stand on
+    private final long blackPromotionRow;
+    private final long redPromotionRow;
+
+    public TablebaseIndex(BoardGeometry geometry) {
+        numberOfSquares = geometry.getNumberOfSquares();
+        if (numberOfSquares > BitBoard.MAX_SQUARES) {
+            throw new RuntimeException("Cannot index " + numberOfSquares + " squares, max=" + BitBoard.MAX_SQUARES);
+        }
+        allSquares = new BitBoard(numberOfSquares).getAllSquares();
+
+        blackManOrdinal = new int[numberOfSquares];
+        redManOrdinal = new int[numberOfSquares];
+        int blackCount = 0;
+        int redCount = 0;
+        long bottom = 0;
+        long top = 0;
+        for (int square = 0; square < numberOfSquares; square++) {
+            // BLACK promotes on the bottom row, RED on the top row
+            blackManOrdinal[square] = (geometry.getY(square) == geometry.getSizeY()) ? -1 : blackCount++;
+            redManOrdinal[square] = (geometry.getY(square) == 1) ? -1 : redCount++;
+            if (blackManOrdinal[square] < 0) {
+                bottom |= 1L << square;
+            }
+            if (redManOrdinal[square] < 0) {
+                top |= 1L << square;
+            }
+        }
+        blackPromotionRow = bottom;
+        redPromotionRow = top;
+        blackManSquares = new int[blackCount];
+        redManSquares = new int[redCount];
+        for (int square = 0; square < numberOfSquares; square++) {
+            if (blackManOrdinal[square] >= 0) {
+                blackManSquares[blackManOrdinal[square]] = square;
+            }
+            if (redManOrdinal[square] >= 0) {
+                redManSquares[redManOrdinal[square]] = square;
+            }
+        }
+    }
+
+    public int getNumberOfSquares() {
+        return numberOfSquares;
+    }
+
+    /**
+     * @return number of entries in the table for signature, including invalid ones
+     */
+    public long size(MaterialSignature signature) {
+        final int free = numberOfSquares - signature.getBlackMen() - signature.getRedMen();
+        if ((signature.getBlackMen() > blackManSquares.length) || (signature.getRedMen() > redManSquares.length)
+                || (signature.getBlackKings() + signature.getRedKings() > free)) {
+            return 0;
+        }
+        return BINOMIAL[blackManSquares.length][signature.getBlackMen()]
+             * BINOMIAL[redManSquares.length][signature.getRedMen()]
+             * BINOMIAL[free][signature.getBlackKings()]
+             * BINOMIAL[free - signature.getBlackKings()][signature.getRedKings()]
+             * 2;
+    }
+
+    /**
+     * @return false for a position no game reaches, which index() cannot
+     *         number:  a man on its promotion row (a set-up board can have one)
+     */
+    public boolean canIndex(BitBoard position) {
+        final long men = ~position.getKings();
+        return ((position.getBlack() & men & blackPromotionRow) == 0)
+            && ((position.getRed() & men & redPromotionRow) == 0);
+    }
+
+    /**
+     * @return index of position within the table of MaterialSignature.of(position),
+     *         see canIndex()
+     */
+    public long index(BitBoard position) {
+        final long kings = position.getKings();
+        final long blackMen = position.getBlack() & ~kings;
+        final long redMen = position.getRed() & ~kings;
+        final long blackKings = position.getBlack() & kings;
+        final long redKings = position.getRed() & kings;
+
+        final int free = numberOfSquares - Long.bitCount(blackMen) - Long.bitCount(redMen);
+        final long redMenCount = BINOMIAL[redManSquares.length][Long.bitCount(redMen)];
+        final long blackKingsCount = BINOMIAL[free][Long.bitCount(blackKings)];
+        final long redKingsCount = BINOMIAL[free - Long.bitCount(blackKings)][Long.bitCount(redKings)];
+
+        long ret = rankMen(blackMen, blackManOrdinal);
+        ret = ret * redMenCount + rankMen(redMen, redManOrdinal);
+        ret = ret * blackKingsCount + rankAmongFree(blackKings, blackMen | redMen);
+        ret = ret * redKingsCount + rankAmongFree(redKings, blackMen | redMen | blackKings);
+        return (ret << 1) | (position.isBlackToMove() ? 0 : 1);
+    }
+
+    private static long rankMen(long men, int[] ordinal) {
+        long ret = 0;
+        int i = 0;
+        for (long bits = men; bits != 0; bits &= bits - 1) {
+            final int square = Long.numberOfTrailingZeros(bits);
+            if (ordinal[square] < 0) {
+                throw new RuntimeException("A man cannot be on its promotion row, square=" + square);
+            }
+            i++;
+            ret += BINOMIAL[ordinal[square]][i];
+        }
+        return ret;
+    }
+
+    // squares in occupied do not count
+    private static long rankAmongFree(long pieces, long occupied) {
+        long ret = 0;
+        int i = 0;
+        for (long bits = pieces; bits != 0; bits &= bits - 1) {
+            final int square = Long.numberOfTrailingZeros(bits);
+            final int ordinal = square - Long.bitCount(occupied & ((1L << square) - 1));
+            i++;
+            ret += BINOMIAL[ordinal][i];
+        }
+        return ret;
+    }
+
+    /**
+     * Inverse of index().
+     *
+     * @return false if index is one of the invalid entries, target is then unchanged
+     */
+    public boolean decode(MaterialSignature signature, long index, BitBoard target) {
+        final int free = numberOfSquares - signature.getBlackMen() - signature.getRedMen();
+        final long redMenCount = BINOMIAL[redManSquares.length][signature.getRedMen()];
+        final long blackKingsCount = BINOMIAL[free][signature.getBlackKings()];
+        final long redKingsCount = BINOMIAL[free - signature.getBlackKings()][signature.getRedKings()];
+
+        final CheckerSide side = ((index & 1) == 0) ? CheckerSide.BLACK : CheckerSide.RED;
+        long rest = index >>> 1;
+        final long redKingsRank = rest % redKingsCount;
+        rest /= redKingsCount;
+        final long blackKingsRank = rest % blackKingsCount;
+        rest /= blackKingsCount;
+        final long redMenRank = rest % redMenCount;
+        final long blackMenRank = rest / redMenCount;
+
+        final long blackMen = unrankMen(blackMenRank, signature.getBlackMen(), blackManSquares);
+        final long redMen = unrankMen(redMenRank, signature.getRedMen(), redManSquares);
+        if ((blackMen & redMen) != 0) {
+            return false;
+        }
+        final long blackKings = unrankAmongFree(blackKingsRank, signature.getBlackKings(), blackMen | redMen);
+        final long redKings = unrankAmongFree(redKingsRank, signature.getRedKings(), blackMen | redMen | blackKings);
+
+        target.setMasks(blackMen | blackKings, redMen | redKings, blackKings | redKings, side);
+        return true;
+    }
+
+    private static long unrankMen(long rank, int count, int[] squares) {
+        long ret = 0;
+        int p = squares.length;
+        for (int i = count; i > 0; i--) {
+            p = largestBelow(rank, i, p);
+            rank -= BINOMIAL[p][i];
+            ret |= 1L << squares[p];
+        }
+        return ret;
+    }
+
+    private long unrankAmongFree(long rank, int count, long occupied) {
+        long ret = 0;
+        int p = numberOfSquares;
+        for (int i = count; i > 0; i--) {
+            p = largestBelow(rank, i, p);
+            rank -= BINOMIAL[p][i];
+            ret |= 1L << nthFreeSquare(p, occupied);
+        }
+        return ret;
+    }
+
+    // largest p < limit with C(p, i) <= rank
+    private static int largestBelow(long rank, int i, int limit) {
+        int p = limit - 1;
+        while (BINOMIAL[p][i] > rank) {
+            p--;
+        }
+        return p;
+    }
+
+    private int nthFreeSquare(int n, long occupied) {
+        long bits = allSquares & ~occupied;
+        for (int i = 0; i < n; i++) {
+            bits &= bits - 1;
+        }
+        return Long.numberOfTrailingZeros(bits);
+    }
+}
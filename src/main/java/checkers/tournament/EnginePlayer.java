@@ -0,0 +1,49 @@
+package checkers.tournament;
+
+import checkers.engine.SearchEngine;
+import checkers.engine.SearchLimits;
+
+/**
+ * One side of a Tournament:  a name, the limits of every move, and how to
+ * make its SearchEngine.  Override createEngine() to test an engine change,
+ * e.g. with setTablebase() or a different table size.
+ */
+public class EnginePlayer {
+    private final String name;
+    private final SearchLimits limits;
+    private final int tableMegabytes;
+
+    public EnginePlayer(String name, SearchLimits limits) {
+        this(name, limits, SearchEngine.DEFAULT_TABLE_MEGABYTES);
+    }
+
+    public EnginePlayer(String name, SearchLimits limits, int tableMegabytes) {
+        this.name = name;
+        this.limits = limits;
+        this.tableMegabytes = tableMegabytes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return limits for each move, e.g. SearchLimits.timeMillis(100)
+     */
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Called once for each game played at the same time, not once per game:
+     * engines are reused from game to game.
+     */
+    public SearchEngine createEngine() {
+        return new SearchEngine(tableMegabytes);
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + limits;
+    }
+}
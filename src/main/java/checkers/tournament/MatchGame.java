@@ -0,0 +1,88 @@
+package checkers.tournament;
+
+import checkers.io.GameRecord;
+
+/**
+ * The outcome of one Tournament game.  Immutable.
+ */
+public class MatchGame {
+    public static final String REASON_NO_MOVES = "no moves";
+    public static final String REASON_REPETITION = "repetition";
+    public static final String REASON_NO_PROGRESS = "no progress";
+    public static final String REASON_MAX_PLIES = "max plies";
+
+    private final int gameNumber;
+    private final int opening;
+    private final boolean playerABlack;
+    private final int result;
+    private final int plies;
+    private final String reason;
+
+    /**
+     * @param result GameRecord.BLACK_WIN, RED_WIN or DRAW
+     */
+    public MatchGame(int gameNumber, int opening, boolean playerABlack, int result, int plies, String reason) {
+        this.gameNumber = gameNumber;
+        this.opening = opening;
+        this.playerABlack = playerABlack;
+        this.result = result;
+        this.plies = plies;
+        this.reason = reason;
+    }
+
+    public int getGameNumber() {
+        return gameNumber;
+    }
+
+    public int getOpening() {
+        return opening;
+    }
+
+    /**
+     * @return true if player A had the BLACK pieces
+     */
+    public boolean isPlayerABlack() {
+        return playerABlack;
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    public int getPlies() {
+        return plies;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return 1, 0.5 or 0
+     */
+    public double getScoreOfPlayerA() {
+        if (result == GameRecord.DRAW) {
+            return 0.5;
+        }
+        return ((result == GameRecord.BLACK_WIN) == playerABlack) ? 1 : 0;
+    }
+
+    public String getResultString() {
+        switch (result) {
+        case GameRecord.BLACK_WIN:
+            return "1-0";
+        case GameRecord.RED_WIN:
+            return "0-1";
+        case GameRecord.DRAW:
+            return "1/2-1/2";
+        default:
+            return "*";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MatchGame [game=" + gameNumber + ", opening=" + opening + ", playerABlack=" + playerABlack
+                + ", result=" + getResultString() + ", plies=" + plies + ", reason=" + reason + "]";
+    }
+}
@@ -0,0 +1,12 @@
+package checkers.tournament;
+
+/**
+ * Told about every finished Tournament game, in the order they finish.
+ * Calls are never concurrent.
+ */
+public interface MatchListener {
+    /**
+     * @param statistics including this game
+     */
+    void gameFinished(MatchGame game, MatchStatistics statistics);
+}
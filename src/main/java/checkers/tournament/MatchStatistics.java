@@ -0,0 +1,154 @@
+package checkers.tournament;
+
+/**
+ * Wins, draws and losses of player A against player B, and what they say
+ * about the Elo difference.  Immutable.
+ *
+ * Elo uses the logistic model, score = 1 / (1 + 10^(-elo/400)).  The SPRT
+ * log-likelihood ratio uses the usual normal approximation of the
+ * trinomial (win/draw/loss) distribution:
+ *   LLR = n (s1 - s0) (2s - s0 - s1) / (2 var)
+ * with s the mean score, var its per-game variance, and s0/s1 the scores
+ * of the two hypotheses elo0/elo1.
+ */
+public class MatchStatistics {
+    public static final MatchStatistics EMPTY = new MatchStatistics(0, 0, 0);
+
+    private final int wins;
+    private final int draws;
+    private final int losses;
+
+    public MatchStatistics(int wins, int draws, int losses) {
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+    }
+
+    /**
+     * @param score of player A in one more game:  1, 0.5 or 0
+     */
+    public MatchStatistics plus(double score) {
+        if (score == 1) {
+            return new MatchStatistics(wins + 1, draws, losses);
+        } else if (score == 0.5) {
+            return new MatchStatistics(wins, draws + 1, losses);
+        } else if (score == 0) {
+            return new MatchStatistics(wins, draws, losses + 1);
+        }
+        throw new RuntimeException("Invalid score " + score);
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * @return mean score of player A, 0..1
+     */
+    public double getScore() {
+        final int games = getGames();
+        return (games == 0) ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    public double getElo() {
+        return toElo(getScore());
+    }
+
+    /**
+     * @return half width of the 95% confidence interval of getElo()
+     */
+    public double getEloError95() {
+        final int games = getGames();
+        if (games < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        final double score = getScore();
+        final double deviation = Math.sqrt(getVariance() / games);
+        return (toElo(score + 1.959964 * deviation) - toElo(score - 1.959964 * deviation)) / 2;
+    }
+
+    /**
+     * @return likelihood of superiority, the probability that A is stronger
+     */
+    public double getLos() {
+        if (wins + losses == 0) {
+            return 0.5;
+        }
+        return 0.5 * (1 + erf((wins - losses) / Math.sqrt(2.0 * (wins + losses))));
+    }
+
+    // per game
+    private double getVariance() {
+        final int games = getGames();
+        final double score = getScore();
+        return (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score)
+                + losses * score * score) / games;
+    }
+
+    /**
+     * @return log-likelihood ratio of H1 (A is elo1 better) against H0 (elo0 better)
+     */
+    public double getLlr(double elo0, double elo1) {
+        final int games = getGames();
+        final double variance = (games == 0) ? 0 : getVariance();
+        if (variance == 0) {
+            return 0;
+        }
+        final double s0 = toScore(elo0);
+        final double s1 = toScore(elo1);
+        return games * (s1 - s0) * (2 * getScore() - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * @return accept H0 once getLlr() is at or below this
+     */
+    public static double getLowerBound(double alpha, double beta) {
+        return Math.log(beta / (1 - alpha));
+    }
+
+    /**
+     * @return accept H1 once getLlr() is at or above this
+     */
+    public static double getUpperBound(double alpha, double beta) {
+        return Math.log((1 - beta) / alpha);
+    }
+
+    public static double toElo(double score) {
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        } else if (score >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    public static double toScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    // Abramowitz and Stegun 7.1.26, good to 1.5e-7
+    private static double erf(double x) {
+        final double t = 1 / (1 + 0.3275911 * Math.abs(x));
+        final double y = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027
+                         + t * 1.061405429)))) * Math.exp(-x * x);
+        return (x >= 0) ? y : -y;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("+%d =%d -%d  score %.3f  elo %.1f +/- %.1f  los %.3f", wins, draws, losses,
+                             getScore(), getElo(), getEloError95(), getLos());
+    }
+}
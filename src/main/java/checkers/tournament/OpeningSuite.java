@@ -0,0 +1,112 @@
+package checkers.tournament;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+/**
+ * The start positions of a Tournament.  Each one is played twice, once
+ * with each player moving first, under the suite's rules.
+ */
+public class OpeningSuite {
+    private final BoardGeometry geometry;
+    private final RuleSet rules;
+    private final List<BitBoard> openings;
+
+    public OpeningSuite(BoardGeometry geometry, List<BitBoard> openings) {
+        this(geometry, RuleSet.ENGLISH, openings);
+    }
+
+    public OpeningSuite(RuleSet rules, List<BitBoard> openings) {
+        this(rules.getGeometry(), rules, openings);
+    }
+
+    private OpeningSuite(BoardGeometry geometry, RuleSet rules, List<BitBoard> openings) {
+        if (openings.isEmpty()) {
+            throw new RuntimeException("An opening suite needs at least one opening");
+        }
+        List<BitBoard> copies = new ArrayList<>(openings.size());
+        for (BitBoard opening : openings) {
+            if (opening.getNumberOfSquares() != geometry.getNumberOfSquares()) {
+                throw new RuntimeException("Opening has " + opening.getNumberOfSquares() + " squares, expected "
+                                           + geometry.getNumberOfSquares());
+            }
+            copies.add(opening.copy());
+        }
+        this.geometry = geometry;
+        this.rules = rules;
+        this.openings = Collections.unmodifiableList(copies);
+    }
+
+    /**
+     * Every distinct position after plies moves from the standard 8x8 start.
+     */
+    public static OpeningSuite afterPlies(int plies) {
+        return afterPlies(RuleSet.ENGLISH, plies);
+    }
+
+    /**
+     * Every distinct position after plies moves from the start of the rules' variant.
+     */
+    public static OpeningSuite afterPlies(RuleSet rules, int plies) {
+        BitBoard start = BoardFactoryCheckers.createCheckerBoard(rules).getBitBoard();
+        MoveGenerator moveGenerator = new MoveGenerator(rules.getGeometry(), rules);
+        Set<BitBoard> positions = new LinkedHashSet<>();
+        positions.add(start);
+        for (int ply = 0; ply < plies; ply++) {
+            Set<BitBoard> next = new LinkedHashSet<>();
+            MoveList moves = new MoveList();
+            for (BitBoard position : positions) {
+                for (int i = 0, n = moveGenerator.generateMoves(position, moves); i < n; i++) {
+                    BitBoard child = position.copy();
+                    child.applyMove(moves.getMove(i), moves.getCaptures(i));
+                    next.add(child);
+                }
+            }
+            positions = next;
+        }
+        return new OpeningSuite(rules, new ArrayList<>(positions));
+    }
+
+    /**
+     * @param pieces one BoardFactoryCheckers.createCheckerBoard() string per opening
+     */
+    public static OpeningSuite fromPiecesStrings(int size, List<String> pieces, CheckerSide sideToMove) {
+        List<BitBoard> openings = new ArrayList<>(pieces.size());
+        for (String s : pieces) {
+            BitBoard opening = BoardFactoryCheckers.createCheckerBoard(size, s).getBitBoard().copy();
+            opening.setSideToMove(sideToMove);
+            openings.add(opening);
+        }
+        return new OpeningSuite(BoardGeometry.forSize(size), openings);
+    }
+
+    public int size() {
+        return openings.size();
+    }
+
+    /**
+     * @return the opening, not to be changed
+     */
+    public BitBoard get(int index) {
+        return openings.get(index);
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+}
@@ -0,0 +1,48 @@
+package checkers.tournament;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes one tab separated line per finished game, flushed at once, so an
+ * interrupted tournament still leaves every finished game on disk:
+ *   game  opening  black  red  result  plies  reason  running statistics
+ */
+public class ResultsLog implements MatchListener, Closeable {
+    private final BufferedWriter writer;
+    private final String nameA;
+    private final String nameB;
+
+    public ResultsLog(Path file, EnginePlayer playerA, EnginePlayer playerB) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        this.nameA = playerA.getName();
+        this.nameB = playerB.getName();
+        writer.write("game\topening\tblack\tred\tresult\tplies\treason\tstatistics");
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public void gameFinished(MatchGame game, MatchStatistics statistics) {
+        try {
+            writer.write((game.getGameNumber() + 1) + "\t" + (game.getOpening() + 1)
+                         + "\t" + (game.isPlayerABlack() ? nameA : nameB)
+                         + "\t" + (game.isPlayerABlack() ? nameB : nameA)
+                         + "\t" + game.getResultString() + "\t" + game.getPlies() + "\t" + game.getReason()
+                         + "\t" + statistics);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write results", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
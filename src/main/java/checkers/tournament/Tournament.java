@@ -0,0 +1,351 @@
+package checkers.tournament;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import checkers.engine.SearchEngine;
+import checkers.engine.SearchLimits;
+import checkers.engine.SearchResult;
+import checkers.io.GameRecord;
+import checkers.io.GameWriter;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+/**
+ * Headless engine-vs-engine match:  player A against player B, every
+ * opening of the suite played once with each side moving first, several
+ * games at the same time.
+ *
+ * Each concurrent game runs in a "slot" holding both engines, a position
+ * and a GameRecord, taken from a queue and given back when the game ends.
+ * So there are exactly threads slots, whatever the number of games, and
+ * nothing (no Board either) is created per game.  Games run on a fixed
+ * pool of threads, or on virtual threads when the JVM has them and
+ * setVirtualThreads(true) was called;  either way the slots keep exactly
+ * threads searches going, one per core by default.
+ *
+ * A game ends when the side to move has no move (it lost), the same
+ * position comes up a third time, MAX_REVERSIBLE_PLIES king moves are
+ * played without a capture or a man moving, or after maxPlies.  The last
+ * three are draws.
+ */
+public class Tournament {
+    public static final int DEFAULT_MAX_PLIES = 300;
+    // the 40 move rule
+    public static final int MAX_REVERSIBLE_PLIES = 80;
+
+    private final EnginePlayer playerA;
+    private final EnginePlayer playerB;
+    private final OpeningSuite openings;
+    private final int threads;
+    private final BoardGeometry geometry;
+    private final MoveGenerator moveGenerator;
+
+    private int maxPlies = DEFAULT_MAX_PLIES;
+    private boolean virtualThreads = false;
+    private final List<MatchListener> listeners = new ArrayList<>();
+    private GameWriter gameWriter;
+
+    // SPRT, off unless setSprt() is called
+    private boolean sprt = false;
+    private double elo0;
+    private double elo1;
+    private double lowerBound;
+    private double upperBound;
+
+    private MatchStatistics statistics;
+    private volatile boolean stopped;
+
+    public Tournament(EnginePlayer playerA, EnginePlayer playerB, OpeningSuite openings, int threads) {
+        if (threads < 1) {
+            throw new RuntimeException("threads must be at least 1, was " + threads);
+        }
+        this.playerA = playerA;
+        this.playerB = playerB;
+        this.openings = openings;
+        this.threads = threads;
+        this.geometry = openings.getGeometry();
+        this.moveGenerator = new MoveGenerator(geometry, openings.getRules());
+    }
+
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = Math.min(maxPlies, GameRecord.MAX_PLIES);
+    }
+
+    /**
+     * Run games on virtual threads, if this JVM has them (Java 21).
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public void addListener(MatchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param gameWriter receives the moves of every game, or null;  made
+     *        for the openings' board and rules
+     */
+    public void setGameWriter(GameWriter gameWriter) {
+        if ((gameWriter != null) && (gameWriter.getRules() != openings.getRules())) {
+            throw new RuntimeException("Game file is for " + gameWriter.getRules() + " rules, openings are for "
+                                       + openings.getRules());
+        }
+        this.gameWriter = gameWriter;
+    }
+
+    /**
+     * Stop as soon as the SPRT of H0 "A is elo0 better" against H1 "A is
+     * elo1 better" decides, with error rates alpha and beta.
+     */
+    public void setSprt(double elo0, double elo1, double alpha, double beta) {
+        this.sprt = true;
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = MatchStatistics.getLowerBound(alpha, beta);
+        this.upperBound = MatchStatistics.getUpperBound(alpha, beta);
+    }
+
+    public int getNumberOfGames() {
+        return 2 * openings.size();
+    }
+
+    /**
+     * Play every game (or until the SPRT decides).
+     */
+    public MatchStatistics run() {
+        statistics = MatchStatistics.EMPTY;
+        stopped = false;
+        final BlockingQueue<Slot> slots = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            slots.add(new Slot());
+        }
+
+        ExecutorService executor = createExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<>(getNumberOfGames());
+            for (int game = 0; game < getNumberOfGames(); game++) {
+                final int gameNumber = game;
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (stopped) {
+                            return;
+                        }
+                        final Slot slot = take(slots);
+                        try {
+                            finished(slot.play(gameNumber / 2, (gameNumber % 2) == 0, gameNumber), slot.record);
+                        } finally {
+                            slots.add(slot);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                waitFor(future);
+            }
+        } finally {
+            executor.shutdownNow();
+            for (Slot slot : slots) {
+                slot.engineA.close();
+                slot.engineB.close();
+            }
+        }
+        return statistics;
+    }
+
+    private ExecutorService createExecutor() {
+        if (virtualThreads) {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) method.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // before Java 21: use the pool
+            }
+        }
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "tournament-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static Slot take(BlockingQueue<Slot> slots) {
+        try {
+            return slots.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted waiting for a game slot", e);
+        }
+    }
+
+    private static void waitFor(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted waiting for a game", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("game failed", e.getCause());
+        }
+    }
+
+    private synchronized void finished(MatchGame game, GameRecord record) {
+        if (stopped) {
+            // the SPRT decided while this game was played
+            return;
+        }
+        statistics = statistics.plus(game.getScoreOfPlayerA());
+        if (gameWriter != null) {
+            try {
+                gameWriter.write(record);
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot write game " + game.getGameNumber(), e);
+            }
+        }
+        for (MatchListener listener : listeners) {
+            listener.gameFinished(game, statistics);
+        }
+        if (sprt) {
+            final double llr = statistics.getLlr(elo0, elo1);
+            if ((llr <= lowerBound) || (llr >= upperBound)) {
+                stopped = true;
+            }
+        }
+    }
+
+    /**
+     * Everything one game needs, reused game after game.
+     */
+    private class Slot {
+        final SearchEngine engineA = playerA.createEngine();
+        final SearchEngine engineB = playerB.createEngine();
+        final BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        final GameRecord record = new GameRecord(geometry, openings.getRules());
+        final MoveList moves = new MoveList();
+        // hashes since the last irreversible move
+        final long[] hashes = new long[MAX_REVERSIBLE_PLIES + 1];
+
+        MatchGame play(int opening, boolean playerABlack, int gameNumber) {
+            position.copyFrom(openings.get(opening));
+            record.reset(position);
+            engineA.getTranspositionTable().clear();
+            engineB.getTranspositionTable().clear();
+            int reversible = 0;
+            hashes[0] = position.getHash();
+
+            int ply = 0;
+            while (true) {
+                final int n = moveGenerator.generateMoves(position, moves);
+                if (n == 0) {
+                    return end(gameNumber, opening, playerABlack,
+                               position.isBlackToMove() ? GameRecord.RED_WIN : GameRecord.BLACK_WIN,
+                               ply, MatchGame.REASON_NO_MOVES);
+                }
+                if (isThirdRepetition(reversible)) {
+                    return end(gameNumber, opening, playerABlack, GameRecord.DRAW, ply, MatchGame.REASON_REPETITION);
+                }
+                if (reversible >= MAX_REVERSIBLE_PLIES) {
+                    return end(gameNumber, opening, playerABlack, GameRecord.DRAW, ply, MatchGame.REASON_NO_PROGRESS);
+                }
+                if (ply >= maxPlies) {
+                    return end(gameNumber, opening, playerABlack, GameRecord.DRAW, ply, MatchGame.REASON_MAX_PLIES);
+                }
+
+                int index = 0;
+                if (n > 1) {
+                    final boolean a = position.isBlackToMove() == playerABlack;
+                    final SearchEngine engine = a ? engineA : engineB;
+                    final SearchLimits limits = a ? playerA.getLimits() : playerB.getLimits();
+                    final SearchResult result = engine.search(position, moveGenerator, limits);
+                    index = indexOf(result.getMove(), result.getCaptures());
+                }
+                final int move = moves.getMove(index);
+                final long captures = moves.getCaptures(index);
+                final boolean irreversible = (captures != 0) || ! position.isKing(MoveList.getFrom(move));
+                record.addMove(moves, index);
+                position.applyMove(move, captures);
+                ply++;
+
+                reversible = irreversible ? 0 : reversible + 1;
+                hashes[reversible] = position.getHash();
+            }
+        }
+
+        private int indexOf(int move, long captures) {
+            for (int i = 0; i < moves.size(); i++) {
+                if ((moves.getMove(i) == move) && (moves.getCaptures(i) == captures)) {
+                    return i;
+                }
+            }
+            throw new RuntimeException("Engine chose illegal move " + MoveList.toString(move, captures)
+                                       + " in " + position);
+        }
+
+        private boolean isThirdRepetition(int reversible) {
+            int seen = 0;
+            for (int i = reversible - 2; i >= 0; i -= 2) {
+                if ((hashes[i] == hashes[reversible]) && (++seen == 2)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private MatchGame end(int gameNumber, int opening, boolean playerABlack, int result, int plies, String reason) {
+            record.setResult(result);
+            return new MatchGame(gameNumber, opening, playerABlack, result, plies, reason);
+        }
+    }
+
+    /**
+     * openingPlies millisA millisB threads results.tsv [games.bin]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: Tournament openingPlies millisPerMoveA millisPerMoveB threads results.tsv"
+                               + " [games.bin]");
+            System.exit(1);
+        }
+        EnginePlayer playerA = new EnginePlayer("A", SearchLimits.timeMillis(Long.parseLong(args[1])));
+        EnginePlayer playerB = new EnginePlayer("B", SearchLimits.timeMillis(Long.parseLong(args[2])));
+        Tournament tournament = new Tournament(playerA, playerB, OpeningSuite.afterPlies(Integer.parseInt(args[0])),
+                                               Integer.parseInt(args[3]));
+        tournament.setVirtualThreads(true);
+        tournament.addListener(new MatchListener() {
+            @Override
+            public void gameFinished(MatchGame game, MatchStatistics statistics) {
+                System.out.println(game + " " + statistics);
+            }
+        });
+        try (ResultsLog log = new ResultsLog(Paths.get(args[4]), playerA, playerB)) {
+            tournament.addListener(log);
+            if (args.length > 5) {
+                try (GameWriter gameWriter = GameWriter.create(Paths.get(args[5]), BoardGeometry.forSize(8))) {
+                    tournament.setGameWriter(gameWriter);
+                    System.out.println(tournament.run());
+                }
+            } else {
+                System.out.println(tournament.run());
+            }
+        }
+    }
+}
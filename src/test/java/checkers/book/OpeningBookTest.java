@@ -0,0 +1,144 @@
+package checkers.book;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import checkers.engine.SearchEngine;
+import checkers.engine.SearchLimits;
+import checkers.engine.SearchResult;
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+public class OpeningBookTest {
+    private static final int MAX_PLIES = 6;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final BoardGeometry geometry = BoardGeometry.forSize(8);
+    private final MoveGenerator moveGenerator = new MoveGenerator(geometry);
+    private final MoveList moves = new MoveList();
+
+    // random games, few enough moves to repeat a lot
+    private GameRecord randomGame(Random random, GameRecord game) {
+        game.reset();
+        BitBoard position = new BitBoard(32);
+        game.getStartPosition(position);
+        for (int ply = 0; ply < 10; ply++) {
+            final int n = moveGenerator.generateMoves(position, moves);
+            final int i = random.nextInt(Math.min(n, 2));
+            game.addMove(moves, i);
+            position.applyMove(moves.getMove(i), moves.getCaptures(i));
+        }
+        game.setResult(random.nextInt(4));
+        return game;
+    }
+
+    @Test
+    public void testBuildAndLookup() throws IOException {
+        BookBuilder builder = new BookBuilder(geometry, RuleSet.ENGLISH, MAX_PLIES, folder.getRoot().toPath(), 100);
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+        GameRecord game = new GameRecord(geometry);
+        BitBoard position = new BitBoard(32);
+        for (int g = 0; g < 500; g++) {
+            randomGame(random, game);
+            builder.addGame(game);
+
+            game.getStartPosition(position);
+            for (int ply = 0; ply < MAX_PLIES; ply++) {
+                final boolean black = position.isBlackToMove();
+                final int weight = (game.getResult() == GameRecord.BLACK_WIN) ? (black ? 2 : 0)
+                                 : (game.getResult() == GameRecord.RED_WIN) ? (black ? 0 : 2) : 1;
+                if (weight > 0) {
+                    final String key = position.getHash() + "/" + game.getDelta(ply);
+                    expected.put(key, (expected.containsKey(key) ? expected.get(key) : 0) + weight);
+                }
+                game.replay(ply + 1, position);
+            }
+        }
+        Assert.assertTrue(builder.getNumberOfRuns() > 10);
+
+        File file = folder.newFile("book.bin");
+        Assert.assertEquals(expected.size(), builder.write(file.toPath(), 1));
+        Assert.assertEquals(0, builder.getNumberOfRuns());
+        Assert.assertEquals(0, folder.getRoot().listFiles().length - 1);
+
+        OpeningBook book = OpeningBook.open(file.toPath());
+        Assert.assertEquals(8, book.getBoardSize());
+        Assert.assertEquals(expected.size(), book.getNumberOfEntries());
+        for (int i = 0; i < book.getNumberOfEntries(); i++) {
+            if (i > 0) {
+                Assert.assertTrue(book.getHash(i - 1) <= book.getHash(i));
+            }
+            final String key = book.getHash(i) + "/" + book.getDelta(i);
+            Assert.assertEquals(key, expected.get(key).intValue(), book.getWeight(i));
+            Assert.assertTrue(book.find(book.getHash(i)) <= i);
+        }
+        Assert.assertEquals(-1, book.find(12345));
+
+        // the start position is in the book, with the heaviest move chosen
+        BitBoard start = BoardFactoryCheckers.createCheckerBoardStandardStarting().getBitBoard();
+        moveGenerator.generateMoves(start, moves);
+        final int best = book.chooseBestMove(start, moves);
+        Assert.assertTrue((best == 0) || (best == 1));
+        final int first = book.find(start.getHash());
+        Assert.assertEquals(book.getHash(first), start.getHash());
+        for (int i = first; (i < book.getNumberOfEntries()) && (book.getHash(i) == start.getHash()); i++) {
+            Assert.assertTrue(book.getWeight(i) <= book.getWeight(first + best));
+        }
+        Assert.assertTrue(book.chooseMove(start, moves) >= 0);
+        Assert.assertTrue(book.chooseMove(start, moves) < 2);
+
+        // a heavier minimum weight keeps fewer entries
+        BookBuilder heavy = new BookBuilder(geometry, RuleSet.ENGLISH, MAX_PLIES, folder.getRoot().toPath(), 1000);
+        random = new Random(1);
+        for (int g = 0; g < 500; g++) {
+            heavy.addGame(randomGame(random, game));
+        }
+        File heavyFile = folder.newFile("heavy.bin");
+        heavy.write(heavyFile.toPath(), 20);
+        Assert.assertTrue(OpeningBook.open(heavyFile.toPath()).getNumberOfEntries() < expected.size());
+    }
+
+    @Test
+    public void testEngineUsesBook() throws IOException {
+        BookBuilder builder = new BookBuilder(geometry, MAX_PLIES, folder.getRoot().toPath());
+        GameRecord game = new GameRecord(geometry);
+        randomGame(new Random(2), game).setResult(GameRecord.DRAW);
+        builder.addGame(game);
+        File file = folder.newFile("book.bin");
+        builder.write(file.toPath(), 1);
+
+        BitBoard start = BoardFactoryCheckers.createCheckerBoardStandardStarting().getBitBoard();
+        try (SearchEngine engine = new SearchEngine(1)) {
+            engine.setOpeningBook(OpeningBook.open(file.toPath()));
+            SearchResult result = engine.search(start, moveGenerator, SearchLimits.depth(6));
+            Assert.assertEquals(0, result.getDepth());
+            Assert.assertEquals(game.getFrom(0), result.getFrom());
+            Assert.assertEquals(game.getTo(0), result.getTo());
+
+            // out of book: a real search
+            BitBoard position = BitBoard.fromPiecesString("b-----------------------------r-");
+            Assert.assertTrue(engine.search(position, moveGenerator, SearchLimits.depth(2)).getDepth() > 0);
+
+            // the book is English:  not used under other rules
+            Assert.assertSame(RuleSet.ENGLISH, OpeningBook.open(file.toPath()).getRules());
+            MoveGenerator russian = new MoveGenerator(geometry, RuleSet.RUSSIAN);
+            Assert.assertTrue(engine.search(start, russian, SearchLimits.depth(2)).getDepth() > 0);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package checkers.engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+public class MctsEngineTest {
+    // the deadline is checked every 16 playouts, a fraction of a millisecond
+    // even on 10x10;  the rest is for a GC pause or being scheduled out
+    private static final long LATE_MILLIS = 25;
+
+    private static boolean isLegal(Board board, SearchResult result) {
+        MoveList moves = new MoveList();
+        final int n = new MoveGenerator(board).generateMoves(board.getBitBoard(), moves);
+        for (int i = 0; i < n; i++) {
+            if ((moves.getMove(i) == result.getMove()) && (moves.getCaptures(i) == result.getCaptures())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testStartingPosition() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        SearchResult result = new MctsEngine(100000).search(board, SearchLimits.nodes(2000));
+
+        Assert.assertTrue(result.hasMove());
+        Assert.assertTrue(isLegal(board, result));
+        Assert.assertEquals(2000, result.getNodes());
+        Assert.assertTrue(result.getDepth() >= 2);
+    }
+
+    @Test
+    public void testAvoidsLosingMove() {
+        // black on 14 can go to 17 (safe) or 18 (red on 23 jumps it, and black has nothing left)
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "-------------b--------r---------");
+        SearchResult result = new MctsEngine(100000).search(board, SearchLimits.nodes(2000));
+        Assert.assertEquals("14-17", result.getMoveString());
+    }
+
+    @Test
+    public void testWinningMove() {
+        // the only move takes red's last piece
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "---------b---r------------------");
+        SearchResult result = new MctsEngine(100000).search(board, SearchLimits.nodes(1000));
+        Assert.assertEquals("10x17", result.getMoveString());
+        Assert.assertTrue("score=" + result.getScore(), result.getScore() > 0);
+    }
+
+    @Test
+    public void testNoMoves() {
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "------------------------r-------");
+        SearchResult result = new MctsEngine(1000).search(board, SearchLimits.nodes(100));
+        Assert.assertFalse(result.hasMove());
+        Assert.assertEquals(-Evaluation.WIN, result.getScore());
+    }
+
+    @Test
+    public void testSeed() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        MctsEngine engine = new MctsEngine(100000);
+        engine.setSeed(5);
+        SearchResult a = engine.search(board, SearchLimits.nodes(1000));
+        engine.setSeed(5);
+        SearchResult b = engine.search(board, SearchLimits.nodes(1000));
+        Assert.assertEquals(a.getMoveString(), b.getMoveString());
+        Assert.assertEquals(a.getScore(), b.getScore());
+        Assert.assertEquals(a.getDepth(), b.getDepth());
+    }
+
+    @Test
+    public void testWorkersReused() {
+        MctsEngine engine = new MctsEngine(1000);
+        engine.search(BoardFactoryCheckers.createCheckerBoardStandardStarting(), SearchLimits.nodes(100));
+        final NodePool pool = engine.getWorker(0).getPool();
+        engine.search(BoardFactoryCheckers.createCheckerBoardStandardStarting(), SearchLimits.nodes(100));
+        Assert.assertSame(pool, engine.getWorker(0).getPool());
+
+        // another game needs other workers
+        engine.search(BoardFactoryCheckers.createCheckerBoard(RuleSet.RUSSIAN), SearchLimits.nodes(100));
+        Assert.assertNotSame(pool, engine.getWorker(0).getPool());
+    }
+
+    @Test
+    public void testFullPool() {
+        // the tree stops at 100 nodes, the playouts go on
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        SearchResult result = new MctsEngine(100).search(board, SearchLimits.nodes(2000));
+        Assert.assertTrue(isLegal(board, result));
+        Assert.assertEquals(2000, result.getNodes());
+    }
+
+    @Test
+    public void testPoolTooSmallForRoot() {
+        // 7 moves from the start, room for 4 children
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        SearchResult result = new MctsEngine(5).search(board, SearchLimits.nodes(100));
+        Assert.assertTrue(result.hasMove());
+        Assert.assertTrue(isLegal(board, result));
+        Assert.assertEquals(0, result.getScore());
+    }
+
+    @Test
+    public void testParallel() {
+        Board board = BoardFactoryCheckers.createCheckerBoard(RuleSet.INTERNATIONAL);
+        MctsEngine engine = new MctsEngine(100000);
+        try {
+            engine.setThreads(3);
+            SearchResult result = engine.search(board, SearchLimits.nodes(3000));
+            Assert.assertTrue(isLegal(board, result));
+            Assert.assertTrue("playouts=" + result.getNodes(), result.getNodes() >= 3000);
+
+            final long limit = 100;
+            result = engine.search(board, SearchLimits.timeMillis(limit));
+            Assert.assertTrue(isLegal(board, result));
+            Assert.assertTrue("took " + result.getElapsedMillis(), result.getElapsedMillis() >= limit);
+            Assert.assertTrue("took " + result.getElapsedMillis(), result.getElapsedMillis() < limit + LATE_MILLIS);
+            Assert.assertTrue(result.getNodesPerSecond() > 0);
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    public void testNodePool() {
+        NodePool pool = new NodePool(3);
+        MoveList moves = new MoveList();
+        moves.add(1 | (5 << 8), 0L);
+        moves.add(1 | (6 << 8), 0L);
+        moves.add(2 | (6 << 8), 0L);
+        Assert.assertFalse(pool.expand(0, moves, 3));
+        Assert.assertFalse(pool.isExpanded(0));
+        Assert.assertTrue(pool.expand(0, moves, 2));
+        Assert.assertEquals(3, pool.size());
+        Assert.assertEquals(1, pool.getFirstChild(0));
+        Assert.assertEquals(moves.getMove(1), pool.getMove(2));
+
+        pool.update(2, 0.25);
+        pool.update(2, 1);
+        Assert.assertEquals(2, pool.getVisits(2));
+        Assert.assertEquals(1.25, pool.getReward(2), 1e-9);
+
+        pool.clear();
+        Assert.assertEquals(1, pool.size());
+        Assert.assertFalse(pool.isExpanded(0));
+    }
+
+    @Test
+    public void testReward() {
+        Assert.assertEquals(0.5, MctsWorker.toReward(0), 1e-9);
+        Assert.assertEquals(Evaluation.MAN, MctsWorker.toScore(MctsWorker.toReward(Evaluation.MAN)));
+        Assert.assertEquals(-Evaluation.MAN, MctsWorker.toScore(MctsWorker.toReward(-Evaluation.MAN)));
+        Assert.assertEquals(Evaluation.WIN_THRESHOLD - 1, MctsWorker.toScore(1));
+    }
+}
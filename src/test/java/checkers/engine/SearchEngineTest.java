@@ -0,0 +1,126 @@
+package checkers.engine;
+
+import java.awt.Point;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.RuleSet;
+
+public class SearchEngineTest {
+    // a search checks its deadline every 1024 nodes, far below a millisecond;
+    // the rest is what a busy machine may add (a GC pause, being scheduled out)
+    private static final long LATE_MILLIS = 40;
+
+    @Test
+    public void testStartingPosition() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        SearchResult result = new SearchEngine().search(board, SearchLimits.depth(8));
+
+        Assert.assertTrue(result.hasMove());
+        Assert.assertEquals(8, result.getDepth());
+        Assert.assertTrue(board.isValidToMove(toPoint(board, result.getFrom()), toPoint(board, result.getTo())));
+    }
+
+    @Test
+    public void testAvoidsLosingMove() {
+        // black on 14 can go to 17 (safe) or 18 (red on 23 jumps it, and black has nothing left)
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "-------------b--------r---------");
+        SearchResult result = new SearchEngine().search(board, SearchLimits.depth(4));
+        Assert.assertEquals("14-17", result.getMoveString());
+    }
+
+    @Test
+    public void testWinIsScored() {
+        // the only move captures red's last piece, the second needs a double jump
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "---------b---r------------------");
+        SearchResult result = new SearchEngine().search(board, SearchLimits.depth(4));
+        Assert.assertEquals("10x17", result.getMoveString());
+
+        board = BoardFactoryCheckers.createCheckerBoard(8, "---------B---r-------r----------");
+        result = new SearchEngine().search(board, SearchLimits.depth(6));
+        Assert.assertEquals(Evaluation.WIN - 1, result.getScore());
+    }
+
+    @Test
+    public void testTimeLimit() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        final long limit = 100;
+        SearchResult result = new SearchEngine().search(board, SearchLimits.timeMillis(limit));
+
+        Assert.assertTrue(result.hasMove());
+        Assert.assertTrue(result.getDepth() >= 1);
+        // stopped by the deadline, just after it
+        Assert.assertTrue("took " + result.getElapsedMillis(), result.getElapsedMillis() >= limit);
+        Assert.assertTrue("took " + result.getElapsedMillis(), result.getElapsedMillis() < limit + LATE_MILLIS);
+        Assert.assertTrue(result.getNodesPerSecond() > 0);
+    }
+
+    @Test
+    public void testNodeLimit() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        SearchResult result = new SearchEngine().search(board, SearchLimits.nodes(10000));
+
+        Assert.assertTrue(result.hasMove());
+        Assert.assertTrue("nodes=" + result.getNodes(), result.getNodes() < 10000 + 1024);
+    }
+
+    @Test
+    public void testWorkersReused() {
+        SearchEngine engine = new SearchEngine();
+        engine.search(BoardFactoryCheckers.createCheckerBoardStandardStarting(), SearchLimits.depth(2));
+        final SearchWorker worker = engine.getWorker(0);
+        engine.search(BoardFactoryCheckers.createCheckerBoardStandardStarting(), SearchLimits.depth(2));
+        Assert.assertSame(worker, engine.getWorker(0));
+
+        // another game needs other workers
+        engine.search(BoardFactoryCheckers.createCheckerBoard(RuleSet.RUSSIAN), SearchLimits.depth(2));
+        Assert.assertNotSame(worker, engine.getWorker(0));
+    }
+
+    @Test
+    public void testNoMoves() {
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "------------------------r-------");
+        SearchResult result = new SearchEngine().search(board, SearchLimits.depth(4));
+        Assert.assertFalse(result.hasMove());
+        Assert.assertEquals("none", result.getMoveString());
+        Assert.assertEquals(-Evaluation.WIN, result.getScore());
+    }
+
+    @Test
+    public void testParallel() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        SearchEngine engine = new SearchEngine();
+        try {
+            engine.setThreads(4);
+            SearchResult result = engine.search(board, SearchLimits.depth(10));
+            Assert.assertTrue(result.hasMove());
+            Assert.assertEquals(10, result.getDepth());
+            Assert.assertTrue(board.isValidToMove(toPoint(board, result.getFrom()), toPoint(board, result.getTo())));
+
+            // same answer as a single thread, for a forced line
+            board = BoardFactoryCheckers.createCheckerBoard(8, "-------------b--------r---------");
+            Assert.assertEquals("14-17", engine.search(board, SearchLimits.depth(4)).getMoveString());
+
+            final long limit = 100;
+            result = engine.search(BoardFactoryCheckers.createCheckerBoardStandardStarting(),
+                                   SearchLimits.timeMillis(limit));
+            // the result waits for every helper:  all of them must see the stop as quickly as one thread
+            Assert.assertTrue("took " + result.getElapsedMillis(), result.getElapsedMillis() >= limit);
+            Assert.assertTrue("took " + result.getElapsedMillis(), result.getElapsedMillis() < limit + LATE_MILLIS);
+        } finally {
+            engine.close();
+        }
+    }
+
+    private static Point toPoint(Board board, int squareNumber) {
+        for (Point point : board.generatePointsTopDownLeftRight()) {
+            if (board.getSquareNumber(point) == squareNumber) {
+                return point;
+            }
+        }
+        throw new RuntimeException("no point for square " + squareNumber);
+    }
+}
@@ -0,0 +1,87 @@
+package checkers.engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import checkers.model.MoveList;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        final long hash = 0x123456789abcdefL;
+        final int move = MoveList.encode(8, 12, false);
+
+        Assert.assertEquals(0, table.probe(hash));
+        table.store(hash, move, -1234, 7, TranspositionTable.BOUND_LOWER);
+
+        long data = table.probe(hash);
+        Assert.assertEquals(move, TranspositionTable.getMove(data));
+        Assert.assertEquals(-1234, TranspositionTable.getScore(data));
+        Assert.assertEquals(7, TranspositionTable.getDepth(data));
+        Assert.assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.getBound(data));
+
+        Assert.assertEquals(1, table.getHits());
+        Assert.assertEquals(1, table.getMisses());
+        Assert.assertEquals(1, table.getStores());
+    }
+
+    @Test
+    public void testDepthPreferred() {
+        TranspositionTable table = new TranspositionTable(1);
+        // same bucket, different positions
+        final long deep = 0x1000000000000000L;
+        final long shallow1 = 0x2000000000000000L;
+        final long shallow2 = 0x3000000000000000L;
+
+        table.store(deep, 1, 10, 9, TranspositionTable.BOUND_EXACT);
+        table.store(shallow1, 2, 20, 3, TranspositionTable.BOUND_EXACT);
+        table.store(shallow2, 3, 30, 2, TranspositionTable.BOUND_EXACT);
+
+        // the deep entry survives, the second slot holds the latest
+        Assert.assertEquals(9, TranspositionTable.getDepth(table.probe(deep)));
+        Assert.assertEquals(0, table.probe(shallow1));
+        Assert.assertEquals(1, table.getCollisions());
+        Assert.assertEquals(2, TranspositionTable.getDepth(table.probe(shallow2)));
+
+        // in a new search, old entries are replaced
+        table.newSearch();
+        table.store(shallow1, 2, 20, 3, TranspositionTable.BOUND_EXACT);
+        Assert.assertEquals(0, table.probe(deep));
+        Assert.assertEquals(3, TranspositionTable.getDepth(table.probe(shallow1)));
+    }
+
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        final TranspositionTable table = new TranspositionTable(1);
+        final int entries = table.getNumberOfEntries();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int score = t + 1;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 200000; i++) {
+                        final long hash = (i % entries) * 0x9E3779B97F4A7C15L;
+                        table.store(hash, score, score, score, TranspositionTable.BOUND_EXACT);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // every hit must be one thread's entry, never a mix of two
+        for (int i = 0; i < entries; i++) {
+            final long data = table.probe(i * 0x9E3779B97F4A7C15L);
+            if (data != 0) {
+                final int score = TranspositionTable.getScore(data);
+                Assert.assertEquals(score, TranspositionTable.getMove(data));
+                Assert.assertEquals(score, TranspositionTable.getDepth(data));
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package checkers.eval;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+public class MaterialMobilityEvaluatorTest {
+
+    @Test
+    public void testStartingPositionIsEven() {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        MaterialMobilityEvaluator evaluator = new MaterialMobilityEvaluator(geometry);
+        PositionBatch batch = new PositionBatch(geometry.getNumberOfSquares(), 2);
+        BitBoard start = BoardFactoryCheckers.createCheckerBoardStandardStarting().getBitBoard();
+        batch.add(start);
+        start.setSideToMove(CheckerSide.RED);
+        batch.add(start);
+
+        int[] scores = new int[2];
+        evaluator.evaluate(batch, scores);
+        Assert.assertEquals(0, scores[0]);
+        Assert.assertEquals(0, scores[1]);
+        // 2 shifts for each of the 4 directions
+        Assert.assertEquals(8, evaluator.getNumberOfShiftGroups());
+    }
+
+    @Test
+    public void testMatchesReference() {
+        for (int size : new int[] { 8, 10 }) {
+            BoardGeometry geometry = BoardGeometry.forSize(size);
+            MaterialMobilityEvaluator evaluator = new MaterialMobilityEvaluator(geometry);
+            PositionBatch batch = new PositionBatch(geometry.getNumberOfSquares(), 500);
+            fillWithRandomPositions(batch, new Random(size));
+
+            int[] scores = new int[batch.capacity()];
+            evaluator.evaluate(batch, scores);
+
+            BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i, position);
+                Assert.assertEquals(position.toString(), evaluate(geometry, position), scores[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testRandomGamesFromStart() {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        MaterialMobilityEvaluator evaluator = new MaterialMobilityEvaluator(geometry);
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        PositionBatch batch = new PositionBatch(geometry.getNumberOfSquares(), 1000);
+        MoveList moves = new MoveList();
+        Random random = new Random(3);
+
+        BitBoard position = BoardFactoryCheckers.createCheckerBoardStandardStarting().getBitBoard();
+        BitBoard start = position.copy();
+        while (! batch.isFull()) {
+            if (moveGenerator.generateMoves(position, moves) == 0) {
+                position.copyFrom(start);
+                continue;
+            }
+            final int i = random.nextInt(moves.size());
+            position.applyMove(moves.getMove(i), moves.getCaptures(i));
+            batch.add(position);
+        }
+
+        int[] scores = new int[batch.size()];
+        evaluator.evaluate(batch, scores);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i, position);
+            Assert.assertEquals(evaluate(geometry, position), scores[i]);
+        }
+    }
+
+    // any legal-looking mix of pieces, not necessarily reachable
+    private static void fillWithRandomPositions(PositionBatch batch, Random random) {
+        final int n = batch.getNumberOfSquares();
+        BitBoard position = new BitBoard(n);
+        while (! batch.isFull()) {
+            for (int square = 0; square < n; square++) {
+                position.setPieceChar(square, "---bBrR".charAt(random.nextInt(7)));
+            }
+            position.setSideToMove(random.nextBoolean() ? CheckerSide.BLACK : CheckerSide.RED);
+            batch.add(position);
+        }
+    }
+
+    // square by square, straight from the description
+    private static int evaluate(BoardGeometry geometry, BitBoard position) {
+        int score = 0;
+        for (int square = 0; square < geometry.getNumberOfSquares(); square++) {
+            if (position.isEmpty(square)) {
+                continue;
+            }
+            final int sign = position.isBlack(square) ? 1 : -1;
+            final boolean king = position.isKing(square);
+            score += sign * (king ? MaterialMobilityEvaluator.KING : MaterialMobilityEvaluator.MAN);
+
+            final int homeRow = position.isBlack(square) ? 1 : geometry.getSizeY();
+            if ((! king) && (geometry.getY(square) == homeRow)) {
+                score += sign * MaterialMobilityEvaluator.BACK_RANK;
+            }
+
+            for (int dir = 0; dir < BoardGeometry.NUMBER_OF_DIRECTIONS; dir++) {
+                final boolean down = (dir == BoardGeometry.DOWN_LEFT) || (dir == BoardGeometry.DOWN_RIGHT);
+                final boolean forward = (down == position.isBlack(square));
+                final int to = geometry.getNeighbour(square, dir);
+                if ((king || forward) && (to >= 0) && position.isEmpty(to)) {
+                    score += sign * MaterialMobilityEvaluator.MOBILITY;
+                }
+            }
+        }
+        return position.isBlackToMove() ? score : -score;
+    }
+}
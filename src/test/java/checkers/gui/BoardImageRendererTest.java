@@ -0,0 +1,158 @@
+package checkers.gui;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.BoardGeometry;
+
+public class BoardImageRendererTest {
+    private static final String START = "bbbbbbbbbbbb--------rrrrrrrrrrrr";
+    private static final int SQUARE_SIZE = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Board board = BoardFactoryCheckers.createCheckerBoard(8, START);
+    private final BoardGeometry geometry = board.getGeometry();
+    private final BoardImageRenderer renderer = new BoardImageRenderer(board, new PiecePaintStrategyCheckers(board),
+                                                                       SQUARE_SIZE);
+
+    private int centerRgb(BufferedImage image, int square) {
+        return image.getRGB((geometry.getX(square) - 1) * SQUARE_SIZE + SQUARE_SIZE / 2,
+                            (geometry.getY(square) - 1) * SQUARE_SIZE + SQUARE_SIZE / 2) & 0xffffff;
+    }
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        Assert.assertEquals(expected.getWidth(), actual.getWidth());
+        Assert.assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assert.assertEquals("x=" + x + " y=" + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testRender() {
+        BufferedImage image = renderer.render(BitBoard.fromPiecesString(START));
+        Assert.assertEquals(8 * SQUARE_SIZE, image.getWidth());
+        Assert.assertEquals(8 * SQUARE_SIZE, image.getHeight());
+
+        // square (1,1) is not in play
+        Assert.assertEquals(Color.WHITE.getRGB() & 0xffffff, image.getRGB(SQUARE_SIZE / 2, SQUARE_SIZE / 2) & 0xffffff);
+        Assert.assertEquals(Color.BLACK.getRGB() & 0xffffff, centerRgb(image, 14));
+        Assert.assertEquals(Color.RED.getRGB() & 0xffffff, centerRgb(image, 31));
+
+        // a black piece on a black square still shows its border
+        BufferedImage empty = renderer.render(new BitBoard(32));
+        boolean differs = false;
+        for (int y = 0; y < SQUARE_SIZE; y++) {
+            for (int x = SQUARE_SIZE; x < 2 * SQUARE_SIZE; x++) {
+                differs |= empty.getRGB(x, y) != image.getRGB(x, y);
+            }
+        }
+        Assert.assertTrue(differs);
+
+        // rendering into a used image leaves nothing behind
+        renderer.render(new BitBoard(32), image);
+        assertSameImage(empty, image);
+    }
+
+    @Test
+    public void testWrongSizes() {
+        try {
+            renderer.render(new BitBoard(50));
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            // ok
+        }
+        try {
+            renderer.render(new BitBoard(32), new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testPng() throws IOException {
+        BufferedImage image = renderer.render(BitBoard.fromPiecesString("B---------------------r-------RR"));
+        Path file = folder.getRoot().toPath().resolve("board.png");
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            BoardImageRenderer.writePng(image, out);
+            Assert.assertTrue(out.isOpen());
+        }
+        assertSameImage(image, ImageIO.read(file.toFile()));
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        List<BitBoard> positions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StringBuilder pieces = new StringBuilder(START);
+            pieces.setCharAt(i % 12, '-');
+            pieces.setCharAt(12 + i % 8, "bBrR".charAt(i % 4));
+            positions.add(BitBoard.fromPiecesString(pieces.toString()));
+        }
+
+        BoardImageBatch batch = new BoardImageBatch(board, new PiecePaintStrategyCheckers(board), SQUARE_SIZE, 3);
+        final AtomicIntegerArray seen = new AtomicIntegerArray(positions.size());
+        batch.renderAll(positions, new BoardImageListener() {
+            @Override
+            public void imageRendered(int index, BufferedImage image) {
+                seen.incrementAndGet(index);
+            }
+        });
+        for (int i = 0; i < positions.size(); i++) {
+            Assert.assertEquals(1, seen.get(i));
+        }
+
+        Path directory = folder.newFolder().toPath();
+        batch.writePngFiles(positions, directory, "p");
+        for (int i : new int[] { 0, 37, 99 }) {
+            Path file = directory.resolve(BoardImageBatch.getFileName("p", i));
+            Assert.assertTrue(Files.exists(file));
+            assertSameImage(renderer.render(positions.get(i)), ImageIO.read(file.toFile()));
+        }
+    }
+
+    @Test
+    public void testBatchFailure() {
+        List<BitBoard> positions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            positions.add(BitBoard.fromPiecesString(START));
+        }
+        BoardImageBatch batch = new BoardImageBatch(board, new PiecePaintStrategyCheckers(board), SQUARE_SIZE, 2);
+        try {
+            batch.renderAll(positions, new BoardImageListener() {
+                @Override
+                public void imageRendered(int index, BufferedImage image) throws IOException {
+                    if (index == 5) {
+                        throw new IOException("disk full");
+                    }
+                }
+            });
+            Assert.fail("expected exception");
+        } catch (IOException e) {
+            Assert.assertEquals("disk full", e.getMessage());
+        }
+    }
+}
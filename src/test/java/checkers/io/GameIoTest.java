@@ -0,0 +1,179 @@
+package checkers.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+public class GameIoTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPositionRoundTrip() {
+        Assert.assertEquals(13, PositionCodec.size(32));
+        Assert.assertEquals(22, PositionCodec.size(50));
+
+        BitBoard position = BitBoard.fromPiecesString("b-B-----------r-R-------------rb");
+        position.setSideToMove(CheckerSide.RED);
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.size(32));
+        PositionCodec.write(position, buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+
+        buffer.flip();
+        BitBoard read = new BitBoard(32);
+        PositionCodec.read(buffer, read);
+        Assert.assertEquals(position, read);
+        Assert.assertEquals(position.getHash(), read.getHash());
+    }
+
+    @Test
+    public void testStandardStart() {
+        BitBoard start = new BitBoard(32);
+        GameRecord.setStandardStart(BoardGeometry.forSize(8), start);
+        Assert.assertEquals(BoardFactoryCheckers.createCheckerBoardStandardStarting().getBitBoard(), start);
+        Assert.assertTrue(new GameRecord(BoardGeometry.forSize(8)).isStandardStart());
+    }
+
+    @Test
+    public void testIllegalMove() {
+        GameRecord game = new GameRecord(BoardGeometry.forSize(8));
+        try {
+            game.addMove(MoveList.encode(8, 17, false), 0);
+            Assert.fail("Should have thrown");
+        } catch (RuntimeException e) {
+            Assert.assertEquals(0, game.getPlies());
+        }
+    }
+
+    @Test
+    public void testGamesRoundTrip() throws IOException {
+        checkGamesRoundTrip(RuleSet.ENGLISH, 8, 500);
+        checkGamesRoundTrip(RuleSet.ENGLISH, 10, 50);
+        // flying kings, where the English rules would replay other moves
+        checkGamesRoundTrip(RuleSet.RUSSIAN, 8, 200);
+        checkGamesRoundTrip(RuleSet.INTERNATIONAL, 10, 50);
+    }
+
+    private void checkGamesRoundTrip(RuleSet rules, int size, int numberOfGames) throws IOException {
+        BoardGeometry geometry = BoardGeometry.forSize(size);
+        File file = folder.newFile("games" + rules + size + ".bin");
+        Random random = new Random(size);
+        GameRecord game = new GameRecord(geometry, rules);
+        BitBoard[] finals = new BitBoard[numberOfGames];
+        int[] plies = new int[numberOfGames];
+
+        try (GameWriter writer = GameWriter.create(file.toPath(), geometry, rules)) {
+            for (int g = 0; g < numberOfGames; g++) {
+                BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+                GameRecord.setStandardStart(geometry, position);
+                if ((g % 5) == 4) {
+                    // some games from somewhere else
+                    position.setSideToMove(CheckerSide.RED);
+                }
+                game.reset(position);
+                playRandomGame(geometry, random, game, position);
+                finals[g] = position;
+                plies[g] = game.getPlies();
+                writer.write(game);
+            }
+            Assert.assertEquals(numberOfGames, writer.getGames());
+        }
+
+        GameRecord read = new GameRecord(geometry, rules);
+        BitBoard position = new BitBoard(geometry.getNumberOfSquares());
+        try (GameReader reader = GameReader.open(file.toPath())) {
+            Assert.assertTrue(reader.getGeometry().equalsType(geometry));
+            Assert.assertSame(rules, reader.getRules());
+            for (int g = 0; g < numberOfGames; g++) {
+                Assert.assertTrue(reader.next(read));
+                Assert.assertEquals(plies[g], read.getPlies());
+                Assert.assertEquals(GameRecord.DRAW, read.getResult());
+                Assert.assertEquals((g % 5) != 4, read.isStandardStart());
+                read.replay(read.getPlies(), position);
+                Assert.assertEquals(finals[g], position);
+            }
+            Assert.assertFalse(reader.next(read));
+            Assert.assertEquals(numberOfGames, reader.getGames());
+        }
+    }
+
+    private static void playRandomGame(BoardGeometry geometry, Random random, GameRecord game, BitBoard position) {
+        MoveGenerator moveGenerator = new MoveGenerator(geometry, game.getRules());
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 150; ply++) {
+            final int n = moveGenerator.generateMoves(position, moves);
+            if (n == 0) {
+                break;
+            }
+            final int i = random.nextInt(n);
+            game.addMove(moves.getMove(i), moves.getCaptures(i));
+            position.applyMove(moves.getMove(i), moves.getCaptures(i));
+        }
+        game.setResult(GameRecord.DRAW);
+    }
+
+    @Test
+    public void testRules() throws IOException {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        File file = folder.newFile("russian.bin");
+        GameRecord english = new GameRecord(geometry);
+        try (GameWriter writer = GameWriter.create(file.toPath(), geometry, RuleSet.RUSSIAN)) {
+            writer.write(english);
+            Assert.fail("Should have thrown");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("rules"));
+        }
+        try (GameReader reader = GameReader.open(file.toPath())) {
+            Assert.assertSame(RuleSet.RUSSIAN, reader.getRules());
+            reader.next(english);
+            Assert.fail("Should have thrown");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("rules"));
+        }
+
+        // version 1 had no rules:  English
+        ByteBuffer header = ByteBuffer.allocate(GameWriter.HEADER_SIZE_VERSION_1);
+        header.putInt(GameWriter.MAGIC).putInt(1).putInt(8);
+        Files.write(file.toPath(), header.array());
+        try (GameReader reader = GameReader.open(file.toPath())) {
+            Assert.assertSame(RuleSet.ENGLISH, reader.getRules());
+            Assert.assertFalse(reader.next(english));
+        }
+    }
+
+    @Test
+    public void testTruncatedFile() throws IOException {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        File file = folder.newFile("truncated.bin");
+        GameRecord game = new GameRecord(geometry);
+        playRandomGame(geometry, new Random(1), game, BoardFactoryCheckers.createCheckerBoardStandardStarting().getBitBoard());
+        try (GameWriter writer = GameWriter.create(file.toPath(), geometry)) {
+            writer.write(game);
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+
+        try (GameReader reader = GameReader.open(file.toPath())) {
+            reader.next(game);
+            Assert.fail("Should have thrown");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("truncated"));
+        }
+    }
+}
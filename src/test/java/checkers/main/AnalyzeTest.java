@@ -0,0 +1,83 @@
+package checkers.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+
+public class AnalyzeTest {
+
+    private static String analyze(Analyze analyze, String input) throws IOException {
+        StringWriter out = new StringWriter();
+        analyze.run(new BufferedReader(new StringReader(input)), out);
+        return out.toString();
+    }
+
+    @Test
+    public void testParse() {
+        BitBoard position = new BitBoard(32);
+        Analyze.parse("bbbbbbbbbbbb--------rrrrrrrrrrrr", position);
+        Assert.assertEquals(BitBoard.fromPiecesString("bbbbbbbbbbbb--------rrrrrrrrrrrr"), position);
+        Assert.assertTrue(position.isBlackToMove());
+        Analyze.parse("B------------------------------R R", position);
+        Assert.assertEquals("B------------------------------R", position.toPiecesString());
+        Assert.assertEquals(CheckerSide.RED, position.getSideToMove());
+    }
+
+    @Test
+    public void testAnalyze() throws IOException {
+        String output = analyze(new Analyze(2, 2), "bbbbbbbbbbbb--------rrrrrrrrrrrr\n"
+                                + "bbbbbbbbbbbb--------rrrrrrrrrrrr X\n"
+                                + "bbbb\n"
+                                + "bbbbbbbbbb-b-b------rrrrrrrrrrrr R\n"
+                                + "--------------------------------\n");
+        String[] lines = output.split("\n");
+        Assert.assertEquals(5, lines.length);
+        Assert.assertTrue(lines[0], lines[0].startsWith("bbbbbbbbbbbb--------rrrrrrrrrrrr B 7 0 "));
+        Assert.assertEquals("ERR Side to move must be B or R, was 'X'", lines[1]);
+        Assert.assertEquals("ERR Expected 32 pieces, was 'bbbb'", lines[2]);
+        Assert.assertTrue(lines[3], lines[3].startsWith("bbbbbbbbbb-b-b------rrrrrrrrrrrr R 7 "));
+        Assert.assertTrue(lines[4], lines[4].startsWith("-------------------------------- B 0 0 none "));
+    }
+
+    @Test
+    public void testOrderAndWindow() throws IOException {
+        // random positions from random games
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        Random random = new Random(7);
+        StringBuilder input = new StringBuilder();
+        for (int game = 0; game < 20; game++) {
+            BitBoard position = BitBoard.fromPiecesString("bbbbbbbbbbbb--------rrrrrrrrrrrr");
+            for (int ply = 0; ply < 40; ply++) {
+                final int n = moveGenerator.generateMoves(position, moves);
+                if (n == 0) {
+                    break;
+                }
+                moveGenerator.makeMove(position, moves, random.nextInt(n));
+                input.append(position.toPiecesString()).append(position.isBlackToMove() ? " B\n" : " R\n");
+            }
+        }
+
+        final String one = analyze(new Analyze(3, 1), input.toString());
+        // a window much smaller than the input, so reading has to wait
+        Assert.assertEquals(one, analyze(new Analyze(3, 4, 5), input.toString()));
+        String[] inputLines = input.toString().split("\n");
+        String[] outputLines = one.split("\n");
+        Assert.assertEquals(inputLines.length, outputLines.length);
+        for (int i = 0; i < inputLines.length; i++) {
+            Assert.assertTrue(outputLines[i], outputLines[i].startsWith(inputLines[i] + " "));
+        }
+    }
+}
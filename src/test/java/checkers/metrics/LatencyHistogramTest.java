@@ -0,0 +1,87 @@
+package checkers.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value = 0; value < 100000; value++) {
+            final int bucket = LatencyHistogram.getBucket(value);
+            Assert.assertTrue("value=" + value, LatencyHistogram.getBucketStart(bucket) <= value);
+            Assert.assertTrue("value=" + value, LatencyHistogram.getBucketEnd(bucket) >= value);
+            // within 1/SUB_BUCKETS
+            Assert.assertTrue("value=" + value, (LatencyHistogram.getBucketEnd(bucket)
+                - LatencyHistogram.getBucketStart(bucket)) * LatencyHistogram.SUB_BUCKETS <= Math.max(value, 1));
+        }
+        for (int bucket = 1; bucket < LatencyHistogram.NUMBER_OF_BUCKETS; bucket++) {
+            Assert.assertEquals(LatencyHistogram.getBucketEnd(bucket - 1) + 1, LatencyHistogram.getBucketStart(bucket));
+        }
+        Assert.assertEquals(0, LatencyHistogram.getBucket(-5));
+        Assert.assertEquals(LatencyHistogram.NUMBER_OF_BUCKETS - 1, LatencyHistogram.getBucket(Long.MAX_VALUE));
+        Assert.assertEquals(LatencyHistogram.MAX_VALUE,
+                            LatencyHistogram.getBucketEnd(LatencyHistogram.NUMBER_OF_BUCKETS - 1));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Assert.assertEquals(0, histogram.snapshot().getP99Nanos());
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(500500000, snapshot.getTotalNanos());
+        Assert.assertEquals(1000000, snapshot.getMaxNanos());
+        Assert.assertEquals(500500, snapshot.getMeanNanos(), 0.001);
+        Assert.assertEquals(500000, snapshot.getP50Nanos(), 500000 / LatencyHistogram.SUB_BUCKETS);
+        Assert.assertEquals(990000, snapshot.getP99Nanos(), 990000 / LatencyHistogram.SUB_BUCKETS);
+        Assert.assertEquals(1000000, snapshot.getValueAtPercentile(100));
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram("test");
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int value = 0; value < 100000; value++) {
+                        histogram.record(value);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(400000, snapshot.getCount());
+        Assert.assertEquals(99999, snapshot.getMaxNanos());
+        Assert.assertEquals(4L * 99999 * 100000 / 2, snapshot.getTotalNanos());
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        ObjectName name = Metrics.register();
+        Assert.assertEquals(name, Metrics.register());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Assert.assertEquals(Metrics.ENABLED, server.getAttribute(name, "Enabled"));
+        CompositeData moveGeneration = (CompositeData) server.getAttribute(name, "MoveGeneration");
+        Assert.assertEquals("moveGeneration", moveGeneration.get("name"));
+        Assert.assertTrue(Metrics.snapshot().contains("moveGeneration [count="));
+    }
+}
@@ -0,0 +1,184 @@
+package checkers.model;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BitBoardTest {
+    private static final String[] POSITIONS = {
+        "bbbbbbbbbbbb--------rrrrrrrrrrrr",
+        "BBBBBBBBBBBB--------RRRRRRRRRRRR",
+        "--------------------------------",
+        "b-r-B-R--------------------R---b",
+        "-b--r---B--R--b-r--------b-----R",
+    };
+
+    @Test
+    public void testStringRoundTrip() {
+        for (String s : POSITIONS) {
+            Assert.assertEquals(s, BitBoard.fromPiecesString(s).toPiecesString());
+        }
+    }
+
+    @Test
+    public void testMatchesBoard() {
+        for (String s : POSITIONS) {
+            Board board = BoardFactoryCheckers.createCheckerBoard(8, s);
+            BitBoard expected = BitBoard.fromPiecesString(s);
+
+            // internal storage, and the Point-based view, agree with the string
+            Assert.assertEquals(expected, board.getBitBoard());
+            Assert.assertEquals(expected, BitBoard.fromBoard(board));
+            Assert.assertEquals(s, board.toPiecesString());
+        }
+    }
+
+    @Test
+    public void testLoadInto() {
+        for (String s : POSITIONS) {
+            Board original = BoardFactoryCheckers.createCheckerBoard(8, s);
+            Board board = BoardFactoryCheckers.createCheckerBoard(8, "--------------------------------");
+            BitBoard.fromPiecesString(s).loadInto(board);
+
+            Assert.assertEquals(original.dump(), board.dump());
+            Assert.assertEquals(s, board.toPiecesString());
+        }
+    }
+
+    @Test
+    public void testSquareNumbers() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        Assert.assertEquals(32, board.getNumberOfSquaresInPlay());
+        Assert.assertEquals(0, board.getSquareNumber(new Point(2, 1)));
+        Assert.assertEquals(4, board.getSquareNumber(new Point(1, 2)));
+        Assert.assertEquals(31, board.getSquareNumber(new Point(7, 8)));
+        Assert.assertEquals(-1, board.getSquareNumber(new Point(1, 1)));
+        Assert.assertEquals(-1, board.getSquareNumber(new Point(9, 1)));
+    }
+
+    @Test
+    public void testMovePieceUpdatesBitBoard() {
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "b-------------------------------");
+        board.movePiece(new Point(2, 1), new Point(3, 2));
+
+        BitBoard bitBoard = board.getBitBoard();
+        Assert.assertTrue(bitBoard.isEmpty(0));
+        Assert.assertTrue(bitBoard.isBlack(5));
+        Assert.assertEquals(1, Long.bitCount(bitBoard.getOccupied()));
+    }
+
+    @Test
+    public void testHashIsIncremental() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        MoveGenerator moveGenerator = new MoveGenerator(board);
+        MoveList moves = new MoveList();
+        BitBoard position = board.getBitBoard();
+        Assert.assertEquals(Zobrist.hash(position), position.getHash());
+
+        // play the first legal move until one side cannot move
+        int plies = 0;
+        while (moveGenerator.generateMoves(position, moves) > 0) {
+            final long before = position.getHash();
+            position.applyMove(moves.getMove(plies % moves.size()), moves.getCaptures(plies % moves.size()));
+            Assert.assertNotEquals(before, position.getHash());
+            Assert.assertEquals(Zobrist.hash(position), position.getHash());
+            plies++;
+        }
+        Assert.assertTrue(plies > 10);
+
+        position.setPieceChar(0, 'R');
+        position.clear(31);
+        position.setSideToMove(CheckerSide.RED);
+        Assert.assertEquals(Zobrist.hash(position), position.getHash());
+    }
+
+    @Test
+    public void testHashFollowsBoardMoves() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+
+        BitBoard expected = BitBoard.fromPiecesString(board.toPiecesString());
+        expected.setSideToMove(CheckerSide.RED);
+        Assert.assertEquals(expected.getHash(), board.getBitBoard().getHash());
+        Assert.assertEquals(Zobrist.hash(expected), board.getBitBoard().getHash());
+    }
+
+    @Test
+    public void testUnmakeRestoresPosition() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        MoveGenerator moveGenerator = new MoveGenerator(board);
+        MoveList moves = new MoveList();
+        UndoStack undo = new UndoStack(4);
+        Random random = new Random(42);
+
+        List<BitBoard> starts = new ArrayList<>();
+        starts.add(board.getBitBoard());
+        for (PerftPositions.Position tricky : PerftPositions.TRICKY) {
+            starts.add(tricky.createBitBoard());
+        }
+        for (BitBoard start : starts) {
+            for (int game = 0; game < 20; game++) {
+                BitBoard position = start.copy();
+                List<BitBoard> history = new ArrayList<>();
+                while ((history.size() < 100) && (moveGenerator.generateMoves(position, moves) > 0)) {
+                    history.add(position.copy());
+                    final int i = random.nextInt(moves.size());
+                    position.makeMove(moves.getMove(i), moves.getCaptures(i), undo);
+                    Assert.assertEquals(Zobrist.hash(position), position.getHash());
+                }
+                Assert.assertEquals(history.size(), undo.size());
+
+                for (int ply = history.size() - 1; ply >= 0; ply--) {
+                    position.unmakeMove(undo);
+                    Assert.assertEquals(history.get(ply), position);
+                    Assert.assertEquals(history.get(ply).getHash(), position.getHash());
+                }
+                Assert.assertTrue(undo.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testBoardUnmakeRestoresPieces() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        MoveGenerator moveGenerator = new MoveGenerator(board);
+        MoveList moves = new MoveList();
+        UndoStack undo = new UndoStack(4);
+        Random random = new Random(7);
+
+        List<String> history = new ArrayList<>();
+        while ((history.size() < 200) && (moveGenerator.generateMoves(board.getBitBoardInternal(), moves) > 0)) {
+            history.add(board.toPiecesString());
+            final int i = random.nextInt(moves.size());
+            board.makeMove(moves.getMove(i), moves.getCaptures(i), undo);
+            // the Point-based view follows the bitboard
+            Assert.assertEquals(board.toPiecesString(), BitBoard.fromBoard(board).toPiecesString());
+        }
+
+        for (int ply = history.size() - 1; ply >= 0; ply--) {
+            board.unmakeMove(undo);
+            Assert.assertEquals(history.get(ply), board.toPiecesString());
+            Assert.assertEquals(history.get(ply), BitBoard.fromBoard(board).toPiecesString());
+        }
+        Assert.assertEquals(CheckerSide.BLACK, board.getBitBoard().getSideToMove());
+    }
+
+    @Test
+    public void testUndoMove() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        final String start = board.toPiecesString();
+        Assert.assertFalse(board.canUndoMove());
+
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+        Assert.assertTrue(board.canUndoMove());
+        board.undoMove();
+        Assert.assertFalse(board.canUndoMove());
+        Assert.assertEquals(start, board.toPiecesString());
+        Assert.assertEquals(CheckerSide.BLACK, board.getBitBoard().getSideToMove());
+        Assert.assertTrue(board.isValidToMove(new Point(2, 3), new Point(1, 4)));
+    }
+}
@@ -0,0 +1,100 @@
+package checkers.model;
+
+import java.awt.Point;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import checkers.model.Board.Square;
+
+public class BoardGeometryTest {
+
+    @Test
+    public void testSharedPerSize() {
+        Assert.assertSame(BoardGeometry.forSize(8), BoardGeometry.forSize(8));
+        Assert.assertNotSame(BoardGeometry.forSize(8), BoardGeometry.forSize(10));
+
+        Board a = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        Board b = BoardFactoryCheckers.createCheckerBoard(8, PerftPositions.STANDARD_STARTING);
+        Assert.assertSame(a.getGeometry(), b.getGeometry());
+    }
+
+    @Test
+    public void testNumberOfSquares() {
+        Assert.assertEquals(32, BoardGeometry.forSize(8).getNumberOfSquares());
+        Assert.assertEquals(50, BoardGeometry.forSize(10).getNumberOfSquares());
+        Assert.assertEquals(72, BoardGeometry.forSize(12).getNumberOfSquares());
+    }
+
+    @Test
+    public void testMatchesBoard() {
+        // a board with its squares set one point at a time
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        Board board = new Board(new GameStrategyCheckers(), 8, 8);
+        for (Point point : board.generatePointsTopDownLeftRight()) {
+            board.putPoint2Square(point, geometry.getSquare(point.x, point.y));
+        }
+        Assert.assertNotSame(geometry, board.getGeometry());
+        Assert.assertTrue(geometry.equalsType(board.getGeometry()));
+
+        for (Point point : board.generatePointsTopDownLeftRight()) {
+            final int square = geometry.getSquareNumber(point.x, point.y);
+            Assert.assertEquals(board.getSquareNumber(point), square);
+            if (square >= 0) {
+                Assert.assertEquals(point.x, geometry.getX(square));
+                Assert.assertEquals(point.y, geometry.getY(square));
+            }
+        }
+        Assert.assertEquals(Square.NOT_IN_PLAY, geometry.getSquare(1, 1));
+        Assert.assertEquals(Square.IN_PLAY, geometry.getSquare(2, 1));
+        Assert.assertEquals(Square.NOT_VALID_COORDINATES, geometry.getSquare(9, 1));
+    }
+
+    @Test
+    public void testNeighboursAndJumps() {
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        // PDN square 1 is square number 0, at (2,1)
+        Assert.assertEquals(-1, geometry.getNeighbour(0, BoardGeometry.UP_LEFT));
+        Assert.assertEquals(4, geometry.getNeighbour(0, BoardGeometry.DOWN_LEFT));
+        Assert.assertEquals(5, geometry.getNeighbour(0, BoardGeometry.DOWN_RIGHT));
+        Assert.assertEquals(9, geometry.getJump(0, BoardGeometry.DOWN_RIGHT));
+        // cannot jump off the left edge
+        Assert.assertEquals(-1, geometry.getJump(0, BoardGeometry.DOWN_LEFT));
+
+        // every neighbour relation goes both ways, on every size
+        for (int size = 4; size <= 12; size += 2) {
+            geometry = BoardGeometry.forSize(size);
+            for (int square = 0; square < geometry.getNumberOfSquares(); square++) {
+                for (int dir = 0; dir < BoardGeometry.NUMBER_OF_DIRECTIONS; dir++) {
+                    final int opposite = BoardGeometry.NUMBER_OF_DIRECTIONS - 1 - dir;
+                    final int neighbour = geometry.getNeighbour(square, dir);
+                    if (neighbour >= 0) {
+                        Assert.assertEquals(square, geometry.getNeighbour(neighbour, opposite));
+                    }
+                    final int jump = geometry.getJump(square, dir);
+                    if (jump >= 0) {
+                        Assert.assertEquals(square, geometry.getJump(jump, opposite));
+                        Assert.assertEquals(geometry.getNeighbour(neighbour, dir), jump);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTenByTenMoves() {
+        StringBuilder pieces = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            pieces.append((i < 20) ? 'b' : ((i < 30) ? '-' : 'r'));
+        }
+        Board board = BoardFactoryCheckers.createCheckerBoard(10, pieces.toString());
+        MoveGenerator moveGenerator = new MoveGenerator(board);
+        MoveList moves = new MoveList();
+        Assert.assertEquals(9, moveGenerator.generateMoves(board.getBitBoard(), moves));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTwelveByTwelveMoveGenerator() {
+        new MoveGenerator(BoardGeometry.forSize(12));
+    }
+}
@@ -1,5 +1,13 @@
 package checkers.model;
 
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 public class BoardTest {
@@ -10,4 +18,218 @@ public class BoardTest {
         System.out.println(board.dump());
     }
 
+    @Test
+    public void testEqualsPosition() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        Board other = BoardFactoryCheckers.createCheckerBoard(8, PerftPositions.STANDARD_STARTING);
+        Assert.assertTrue(board.equalsPosition(other));
+        Assert.assertEquals(board.getPiece(new Point(2, 1)), other.getPiece(new Point(2, 1)));
+
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+        Assert.assertFalse(board.equalsPosition(other));
+        other.movePiece(new Point(2, 3), new Point(1, 4));
+        Assert.assertTrue(board.equalsPosition(other));
+
+        // same pieces, other side to move
+        Board copy = BoardFactoryCheckers.createCheckerBoard(8, board.toPiecesString());
+        Assert.assertFalse(board.equalsPosition(copy));
+        Assert.assertFalse(board.equalsPosition(BoardFactoryCheckers.createCheckerBoard(4, "--------")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadWrongLength() {
+        BoardFactoryCheckers.createCheckerBoard(8, "bbbb");
+    }
+
+    // every batch as "toString() squares=hex"
+    private static class RecordingListener implements BoardListener {
+        final List<String> batches = new ArrayList<>();
+
+        @Override
+        public void boardChanged(Board board, BoardChanges changes) {
+            batches.add(changes + " squares=" + Long.toHexString(changes.getChangedSquares()));
+        }
+    }
+
+    @Test
+    public void testListener() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        RecordingListener listener = new RecordingListener();
+        board.addBoardListener(listener);
+
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+        board.undoMove();
+        Assert.assertEquals("[BoardChanges [9-13] squares=1100, BoardChanges [undo 9-13] squares=1100]",
+                            listener.batches.toString());
+
+        // a move and its undo cancel out, placements coalesce
+        listener.batches.clear();
+        board.beginUpdate();
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+        board.undoMove();
+        board.place(null, new Point(2, 1));
+        board.place(null, new Point(4, 1));
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+        Assert.assertTrue(listener.batches.isEmpty());
+        board.endUpdate();
+        Assert.assertEquals("[BoardChanges [place 3 9-13] squares=1103]", listener.batches.toString());
+
+        // placing what is already there is no change, loading is one batch
+        listener.batches.clear();
+        board.place(null, new Point(2, 1));
+        board.loadPiecesFromString(PerftPositions.STANDARD_STARTING);
+        Assert.assertEquals("[BoardChanges [place 1103] squares=1103]", listener.batches.toString());
+
+        // loading does not change the side to move, RED
+        board.removeBoardListener(listener);
+        board.movePiece(new Point(1, 6), new Point(2, 5));
+        Assert.assertEquals(1, listener.batches.size());
+    }
+
+    @Test
+    public void testListenerSideToMove() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        RecordingListener listener = new RecordingListener();
+        board.addBoardListener(listener);
+
+        board.setSideToMove(CheckerSide.RED);
+        board.setSideToMove(CheckerSide.RED);
+        Assert.assertEquals("[BoardChanges [side] squares=0]", listener.batches.toString());
+        Assert.assertFalse(board.getSnapshot().isBlackToMove());
+
+        // back and forth in a batch is one entry, among the others
+        listener.batches.clear();
+        board.beginUpdate();
+        board.setSideToMove(CheckerSide.BLACK);
+        board.setSideToMove(CheckerSide.RED);
+        board.place(null, new Point(2, 1));
+        board.setSideToMove(CheckerSide.BLACK);
+        board.endUpdate();
+        Assert.assertEquals("[BoardChanges [side place 1 side] squares=1]", listener.batches.toString());
+        Assert.assertTrue(board.getSnapshot().isBlackToMove());
+    }
+
+    @Test
+    public void testLoadClearsUndo() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+        Assert.assertTrue(board.canUndoMove());
+
+        // RED to move, in the loaded position
+        final String pieces = "-bbbbbbbbbbb--------rrrrrrrrrrrr";
+        board.loadPiecesFromString(pieces);
+        Assert.assertFalse(board.canUndoMove());
+
+        // a move made after the load takes back to the loaded position
+        board.movePiece(new Point(1, 6), new Point(2, 5));
+        board.undoMove();
+        Assert.assertFalse(board.canUndoMove());
+        Assert.assertEquals(pieces, board.toPiecesString());
+        Assert.assertEquals(Zobrist.hash(board.getBitBoard()), board.getBitBoard().getHash());
+
+        board.movePiece(new Point(1, 6), new Point(2, 5));
+        board.place(null, new Point(4, 1));
+        Assert.assertFalse(board.canUndoMove());
+    }
+
+    @Test
+    public void testListenerCapture() {
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "--------b----r-----------------r");
+        final List<String> seen = new ArrayList<>();
+        board.addBoardListener(new BoardListener() {
+            @Override
+            public void boardChanged(Board changed, BoardChanges changes) {
+                seen.add(changes.getKind(0) + " " + Long.toHexString(changes.getChangedSquares(0)));
+                // a listener may change the board, that is the next batch
+                if (changes.getKind(0) == BoardChanges.MOVE) {
+                    changed.undoMove();
+                }
+            }
+        });
+        board.movePiece(new Point(2, 3), new Point(4, 5));
+        Assert.assertEquals("[0 22100, 1 22100]", seen.toString());
+        Assert.assertEquals("--------b----r-----------------r", board.toPiecesString());
+    }
+
+    @Test
+    public void testSnapshot() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        final BoardSnapshot start = board.getSnapshot();
+        Assert.assertEquals(PerftPositions.STANDARD_STARTING, start.toPiecesString());
+        Assert.assertTrue(start.isBlackToMove());
+        Assert.assertEquals(Checker.BLACK_REGULAR, start.getPiece(new Point(2, 1)));
+        Assert.assertNull(start.getPiece(new Point(1, 1)));
+
+        board.movePiece(new Point(2, 3), new Point(1, 4));
+        final BoardSnapshot moved = board.getSnapshot();
+        Assert.assertTrue(moved.getVersion() > start.getVersion());
+        Assert.assertFalse(moved.isBlackToMove());
+        Assert.assertEquals(board.getBitBoard().getHash(), moved.getHash());
+        Assert.assertEquals(board.getBitBoard(), moved.toBitBoard());
+        // the old snapshot did not change
+        Assert.assertEquals(PerftPositions.STANDARD_STARTING, start.toPiecesString());
+
+        // a batch is published at its end
+        board.beginUpdate();
+        board.undoMove();
+        board.place(null, new Point(2, 1));
+        Assert.assertSame(moved, board.getSnapshot());
+        board.endUpdate();
+        Assert.assertEquals("-bbbbbbbbbbb--------rrrrrrrrrrrr", board.getSnapshot().toPiecesString());
+        Assert.assertTrue(board.getSnapshot().isBlackToMove());
+    }
+
+    // readers on other threads only ever see whole positions
+    @Test
+    public void testSnapshotConcurrentReaders() throws InterruptedException {
+        final GameStrategyCheckers strategy = new GameStrategyCheckers();
+        final Board board = new Board(strategy, BoardGeometry.forSize(8));
+        strategy.setBoard(board);
+        board.loadPiecesFromString(PerftPositions.STANDARD_STARTING);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long lastVersion = -1;
+                    while (! done.get()) {
+                        final BoardSnapshot snapshot = board.getSnapshot();
+                        if (snapshot.getVersion() < lastVersion) {
+                            failure.compareAndSet(null, "version went back " + snapshot);
+                        }
+                        lastVersion = snapshot.getVersion();
+                        if ((snapshot.toBitBoard().getHash() != snapshot.getHash())
+                                || ((snapshot.getBlack() & snapshot.getRed()) != 0)) {
+                            failure.compareAndSet(null, "inconsistent " + snapshot);
+                        }
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        // random games, taken back now and then
+        Random random = new Random(3);
+        MoveList moves = new MoveList();
+        for (int i = 0; i < 20000; i++) {
+            final int n = strategy.generateLegalMoves(moves);
+            if ((n == 0) || (strategy.canUndoMove() && (random.nextInt(3) == 0))) {
+                while (strategy.canUndoMove() && (random.nextInt(4) != 0)) {
+                    strategy.undoMove();
+                }
+            } else {
+                final int k = random.nextInt(n);
+                strategy.makeMove(moves.getMove(k), moves.getCaptures(k));
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assert.assertNull(failure.get(), failure.get());
+        Assert.assertEquals(board.getBitBoard(), board.getSnapshot().toBitBoard());
+    }
 }
@@ -33,4 +33,32 @@ public class CheckerTest {
         Assert.assertTrue(checker.isKing());
     }
 
+    @Test
+    public void testSharedInstances() {
+        Assert.assertSame(Checker.createFromSingleString("b"), Checker.createFromChar('b'));
+        Assert.assertSame(Checker.RED_KING, Checker.createFromChar('R'));
+        Assert.assertSame(Checker.BLACK_KING, Checker.valueOf(CheckerType.KING, CheckerSide.BLACK));
+        Assert.assertNull(Checker.createFromChar('-'));
+
+        for (char c : "bBrR".toCharArray()) {
+            Checker checker = Checker.createFromChar(c);
+            Assert.assertEquals(c, checker.toChar());
+            Assert.assertSame(checker, Checker.valueOf(checker.getCode()));
+            Assert.assertSame(checker, Checker.valueOf(checker.getType(), checker.getSide()));
+        }
+    }
+
+    @Test
+    public void testValueEquality() {
+        Checker checker = new Checker(CheckerType.REGULAR, CheckerSide.RED);
+        Assert.assertEquals(Checker.RED_REGULAR, checker);
+        Assert.assertEquals(Checker.RED_REGULAR.hashCode(), checker.hashCode());
+        Assert.assertNotEquals(Checker.RED_KING, checker);
+        Assert.assertNotEquals(Checker.BLACK_REGULAR, checker);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidChar() {
+        Checker.createFromChar('w');
+    }
 }
@@ -0,0 +1,171 @@
+package checkers.model;
+
+import java.awt.Point;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MoveGeneratorTest {
+    private static final String EMPTY = "--------------------------------";
+
+    private static String pieces(int[] squares, char[] types) {
+        char[] ret = EMPTY.toCharArray();
+        for (int i = 0; i < squares.length; i++) {
+            ret[squares[i]] = types[i];
+        }
+        return new String(ret);
+    }
+
+    private static MoveList generate(String s, CheckerSide side) {
+        return generate(RuleSet.ENGLISH, s, side);
+    }
+
+    private static MoveList generate(RuleSet rules, String s, CheckerSide side) {
+        Board board = BoardFactoryCheckers.createCheckerBoard(rules, s);
+        BitBoard position = board.getBitBoard();
+        position.setSideToMove(side);
+        MoveList moves = new MoveList();
+        new MoveGenerator(board).generateMoves(position, moves);
+        return moves;
+    }
+
+    @Test
+    public void testStartingPosition() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        Assert.assertEquals("MoveList [9-13 9-14 10-14 10-15 11-15 11-16 12-16]",
+                            generate(board.toPiecesString(), CheckerSide.BLACK).toString());
+        Assert.assertEquals("MoveList [21-17 22-17 22-18 23-18 23-19 24-19 24-20]",
+                            generate(board.toPiecesString(), CheckerSide.RED).toString());
+    }
+
+    @Test
+    public void testEqualsType() {
+        MoveGenerator english = new MoveGenerator(BoardGeometry.forSize(8));
+        Assert.assertTrue(english.equalsType(new MoveGenerator(BoardFactoryCheckers.createCheckerBoardStandardStarting())));
+        Assert.assertFalse(english.equalsType(new MoveGenerator(BoardGeometry.forSize(8), RuleSet.RUSSIAN)));
+        Assert.assertFalse(english.equalsType(new MoveGenerator(BoardGeometry.forSize(10))));
+        Assert.assertFalse(english.equalsType(null));
+    }
+
+    @Test
+    public void testCaptureIsForced() {
+        // black on 1 and 10, red on 14: only the jump is legal
+        String s = pieces(new int[] { 0, 9, 13 }, new char[] { 'b', 'b', 'r' });
+        MoveList moves = generate(s, CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [10x17]", moves.toString());
+        Assert.assertEquals(1L << 13, moves.getCaptures(0));
+    }
+
+    @Test
+    public void testMultiJump() {
+        String s = pieces(new int[] { 9, 13, 21 }, new char[] { 'b', 'r', 'r' });
+        MoveList moves = generate(s, CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [10x26]", moves.toString());
+        Assert.assertEquals((1L << 13) | (1L << 21), moves.getCaptures(0));
+    }
+
+    @Test
+    public void testPromotionEndsMove() {
+        // after crowning on 31, a king could keep jumping over 27 - but the move is over
+        String s = pieces(new int[] { 21, 25, 26 }, new char[] { 'b', 'r', 'r' });
+        MoveList moves = generate(s, CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [22x31]", moves.toString());
+        Assert.assertTrue(MoveList.isPromotion(moves.getMove(0)));
+    }
+
+    @Test
+    public void testKingMovesBackward() {
+        String s = pieces(new int[] { 17 }, new char[] { 'B' });
+        Assert.assertEquals("MoveList [18-14 18-15 18-22 18-23]", generate(s, CheckerSide.BLACK).toString());
+
+        s = pieces(new int[] { 17 }, new char[] { 'b' });
+        Assert.assertEquals("MoveList [18-22 18-23]", generate(s, CheckerSide.BLACK).toString());
+    }
+
+    @Test
+    public void testNoMoves() {
+        Assert.assertEquals(0, generate(EMPTY, CheckerSide.BLACK).size());
+        // black on 9 is blocked by 13 and 14, and cannot jump 14 because 18 is taken
+        String s = pieces(new int[] { 8, 12, 13, 17 }, new char[] { 'b', 'r', 'r', 'r' });
+        Assert.assertEquals(0, generate(s, CheckerSide.BLACK).size());
+    }
+
+    @Test
+    public void testMenCaptureBackward() {
+        // black on 18, red on 14, behind it
+        String s = pieces(new int[] { 17, 13 }, new char[] { 'b', 'r' });
+        Assert.assertEquals("MoveList [18-22 18-23]", generate(s, CheckerSide.BLACK).toString());
+        Assert.assertEquals("MoveList [18x9]", generate(RuleSet.RUSSIAN, s, CheckerSide.BLACK).toString());
+        Assert.assertEquals("MoveList [18x9]", generate(RuleSet.POOL, s, CheckerSide.BLACK).toString());
+    }
+
+    @Test
+    public void testFlyingKing() {
+        String s = pieces(new int[] { 17 }, new char[] { 'B' });
+        Assert.assertEquals("MoveList [18-14 18-9 18-5 18-15 18-11 18-8 18-4 18-22 18-25 18-29 18-23 18-27 18-32]",
+                            generate(RuleSet.RUSSIAN, s, CheckerSide.BLACK).toString());
+
+        // from 1 along the long diagonal: over 15, landing on 19, 24 or 28
+        s = pieces(new int[] { 0, 14 }, new char[] { 'B', 'r' });
+        Assert.assertEquals("MoveList [1-5 1-6]", generate(s, CheckerSide.BLACK).toString());
+        Assert.assertEquals("MoveList [1x19 1x24 1x28]", generate(RuleSet.RUSSIAN, s, CheckerSide.BLACK).toString());
+
+        // red on 27 can only be taken after landing on 24, so that is the move
+        s = pieces(new int[] { 0, 14, 26 }, new char[] { 'B', 'r', 'r' });
+        MoveList moves = generate(RuleSet.RUSSIAN, s, CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [1x31]", moves.toString());
+        Assert.assertEquals((1L << 14) | (1L << 26), moves.getCaptures(0));
+    }
+
+    @Test
+    public void testPromotionDuringCapture() {
+        // black on 22 jumps 26 onto the far row at 31;  a king there could jump 27
+        String s = pieces(new int[] { 21, 25, 26 }, new char[] { 'b', 'r', 'r' });
+        MoveList moves = generate(RuleSet.ENGLISH, s, CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [22x31]", moves.toString());
+        Assert.assertTrue(MoveList.isPromotion(moves.getMove(0)));
+
+        // crowned, and goes on as a flying king
+        moves = generate(RuleSet.RUSSIAN, s, CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [22x24 22x20]", moves.toString());
+        Assert.assertTrue(MoveList.isPromotion(moves.getMove(0)));
+        Assert.assertTrue(MoveList.isPromotion(moves.getMove(1)));
+
+        // goes on as a man, and so is not crowned
+        moves = generate(RuleSet.POOL, s, CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [22x24]", moves.toString());
+        Assert.assertFalse(MoveList.isPromotion(moves.getMove(0)));
+    }
+
+    @Test
+    public void testMajorityCapture() {
+        // 10x10:  black on 12 can take 17, or 18 and 29
+        char[] s = RuleSet.INTERNATIONAL.getStartingPieces().replace('b', '-').replace('r', '-').toCharArray();
+        s[11] = 'b';
+        s[16] = 'r';
+        s[17] = 'r';
+        s[28] = 'r';
+        MoveList moves = generate(RuleSet.INTERNATIONAL, new String(s), CheckerSide.BLACK);
+        Assert.assertEquals("MoveList [12x34]", moves.toString());
+        Assert.assertEquals(2, Long.bitCount(moves.getCaptures(0)));
+    }
+
+    @Test
+    public void testBoardMovePiece() {
+        String s = pieces(new int[] { 0, 9, 13 }, new char[] { 'b', 'b', 'r' });
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, s);
+
+        // (2,1) is square 0, it has no legal move while the capture is pending
+        Assert.assertFalse(board.canMovePieceAtPoint(new Point(2, 1)));
+        Assert.assertFalse(board.isValidToMove(new Point(2, 1), new Point(3, 2)));
+        // red's piece, but it is black's turn
+        Assert.assertFalse(board.canMovePieceAtPoint(new Point(3, 4)));
+
+        Assert.assertTrue(board.canMovePieceAtPoint(new Point(4, 3)));
+        Assert.assertTrue(board.isValidToMove(new Point(4, 3), new Point(2, 5)));
+        board.movePiece(new Point(4, 3), new Point(2, 5));
+
+        Assert.assertEquals(pieces(new int[] { 0, 16 }, new char[] { 'b', 'b' }), board.toPiecesString());
+        Assert.assertEquals(CheckerSide.RED, board.getBitBoard().getSideToMove());
+    }
+}
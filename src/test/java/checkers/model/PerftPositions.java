@@ -0,0 +1,67 @@
+package checkers.model;
+
+/**
+ * Positions with known perft counts.
+ * Shared by PerftTest (correctness) and the jmh benchmarks (speed).
+ *
+ * The non-standard counts were cross-checked against an independent,
+ * char-grid based move generator.
+ */
+public class PerftPositions {
+    public static final String STANDARD_STARTING = "bbbbbbbbbbbb--------rrrrrrrrrrrr";
+
+    public static final long[] STANDARD_STARTING_COUNTS = {
+        1, 7, 49, 302, 1469, 7361, 36768, 179740, 845931, 3963680, 18391564, 85242128
+    };
+
+    public static class Position {
+        public final String name;
+        public final String pieces;
+        public final CheckerSide sideToMove;
+        // counts[depth]
+        public final long[] counts;
+        public final RuleSet rules;
+
+        public Position(String name, String pieces, CheckerSide sideToMove, long... counts) {
+            this(RuleSet.ENGLISH, name, pieces, sideToMove, counts);
+        }
+
+        public Position(RuleSet rules, String name, String pieces, CheckerSide sideToMove, long... counts) {
+            this.rules = rules;
+            this.name = name;
+            this.pieces = pieces;
+            this.sideToMove = sideToMove;
+            this.counts = counts;
+        }
+
+        public BitBoard createBitBoard() {
+            BitBoard ret = BitBoard.fromPiecesString(pieces);
+            ret.setSideToMove(sideToMove);
+            return ret;
+        }
+    }
+
+    public static final Position[] TRICKY = {
+        new Position("all kings", "BBBBBBBBBBBB--------RRRRRRRRRRRR", CheckerSide.BLACK,
+                     1, 7, 49, 340, 1983, 12914, 84049, 546568),
+        // king can jump 4 pieces clockwise or counter-clockwise, and land where it started
+        new Position("king circle", "---------rr--B---rr-------r---r-", CheckerSide.BLACK,
+                     1, 3, 15, 34, 128, 336, 1561, 3836),
+        new Position("king against men", "-----r-r---B-rr----rr-----------", CheckerSide.BLACK,
+                     1, 1, 8, 16, 89, 285, 1670),
+        new Position("midgame red to move", "b-b-b-bb-b-r---r-rr-R----r-r-r--", CheckerSide.RED,
+                     1, 10, 46, 253, 1015, 5704, 23360),
+        new Position("mixed kings", "----b--r--r--Rr--B-r---r-b-----b", CheckerSide.BLACK,
+                     1, 1, 6, 30, 199, 1054, 6682),
+    };
+
+    // the start positions of the other variants;  international matches the published draughts counts
+    public static final Position[] VARIANTS = {
+        new Position(RuleSet.RUSSIAN, "russian", RuleSet.RUSSIAN.getStartingPieces(), CheckerSide.BLACK,
+                     1, 7, 49, 302, 1469, 7482, 37986, 190146, 929899),
+        new Position(RuleSet.POOL, "pool", RuleSet.POOL.getStartingPieces(), CheckerSide.BLACK,
+                     1, 7, 49, 302, 1469, 7482, 37986, 190146, 929896),
+        new Position(RuleSet.INTERNATIONAL, "international", RuleSet.INTERNATIONAL.getStartingPieces(),
+                     CheckerSide.BLACK, 1, 9, 81, 658, 4265, 27117, 167140),
+    };
+}
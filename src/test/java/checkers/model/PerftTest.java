@@ -0,0 +1,50 @@
+package checkers.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import checkers.model.PerftPositions.Position;
+
+public class PerftTest {
+    // deeper counts are left to the benchmarks
+    private static final int MAX_TEST_DEPTH = 8;
+
+    @Test
+    public void testStandardStarting() {
+        Board board = BoardFactoryCheckers.createCheckerBoardStandardStarting();
+        Assert.assertEquals(PerftPositions.STANDARD_STARTING, board.toPiecesString());
+
+        Perft perft = new Perft(new MoveGenerator(board), MAX_TEST_DEPTH);
+        for (int depth = 0; depth <= MAX_TEST_DEPTH; depth++) {
+            Assert.assertEquals("depth=" + depth,
+                                PerftPositions.STANDARD_STARTING_COUNTS[depth],
+                                perft.perft(board.getBitBoard(), depth));
+        }
+    }
+
+    @Test
+    public void testVariants() {
+        for (Position position : PerftPositions.VARIANTS) {
+            Board board = BoardFactoryCheckers.createCheckerBoard(position.rules, position.pieces);
+            Perft perft = new Perft(new MoveGenerator(board), MAX_TEST_DEPTH);
+            for (int depth = 0; depth < position.counts.length; depth++) {
+                Assert.assertEquals(position.name + " depth=" + depth,
+                                    position.counts[depth],
+                                    perft.perft(position.createBitBoard(), depth));
+            }
+        }
+    }
+
+    @Test
+    public void testTrickyPositions() {
+        for (Position position : PerftPositions.TRICKY) {
+            Board board = BoardFactoryCheckers.createCheckerBoard(8, position.pieces);
+            Perft perft = new Perft(new MoveGenerator(board), MAX_TEST_DEPTH);
+            for (int depth = 0; depth < position.counts.length; depth++) {
+                Assert.assertEquals(position.name + " depth=" + depth,
+                                    position.counts[depth],
+                                    perft.perft(position.createBitBoard(), depth));
+            }
+        }
+    }
+}
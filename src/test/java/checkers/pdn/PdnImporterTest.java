@@ -0,0 +1,140 @@
+package checkers.pdn;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+public class PdnImporterTest {
+    private static final String GAME =
+            "[Event \"Test\"]\n"
+            + "[Result \"1/2-1/2\"]\n"
+            + "1. 11-15 23-19 {a comment\n[with a bracket]} 2. 8-11 22-17 (2... 24-20) 3. 4-8 17-13\n"
+            + "4. 15-18 $1 24-20! 5. 11-15 28-24 6. 8-11 26-23 1/2-1/2\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String pdn) throws IOException {
+        File ret = folder.newFile();
+        Files.write(ret.toPath(), pdn.getBytes(StandardCharsets.US_ASCII));
+        return ret;
+    }
+
+    private static PdnImportResult importFile(File file, int windowSize, PdnGameListener listener) throws IOException {
+        return new PdnImporter(BoardGeometry.forSize(8), RuleSet.ENGLISH, 2, windowSize).importFile(file.toPath(), listener);
+    }
+
+    @Test
+    public void testValidGame() throws IOException {
+        final int[] plies = new int[1];
+        final int[] result = new int[1];
+        PdnImportResult importResult = importFile(write(GAME), PdnImporter.DEFAULT_WINDOW_SIZE, new PdnGameListener() {
+            @Override
+            public void gameImported(long gameNumber, GameRecord game) {
+                plies[0] = game.getPlies();
+                result[0] = game.getResult();
+            }
+        });
+        Assert.assertEquals(importResult.getErrors().toString(), 0, importResult.getInvalidGames());
+        Assert.assertEquals(1, importResult.getGames());
+        Assert.assertEquals(12, plies[0]);
+        Assert.assertEquals(GameRecord.DRAW, result[0]);
+    }
+
+    @Test
+    public void testIllegalMoveReported() throws IOException {
+        String bad = "[Event \"Bad\"]\n1. 11-15 23-19\n2. 15-18 19-15\n3. 1-2 *\n";
+        PdnImportResult result = importFile(write(GAME + "\n" + bad + "\n" + GAME), PdnImporter.DEFAULT_WINDOW_SIZE, null);
+        Assert.assertEquals(3, result.getGames());
+        Assert.assertEquals(1, result.getInvalidGames());
+        Assert.assertEquals(24, result.getPlies());
+        PdnError error = result.getErrors().get(0);
+        Assert.assertEquals(1, error.getGameNumber());
+        // 23x14 is forced
+        Assert.assertEquals(9, error.getLine());
+        Assert.assertTrue(error.getMessage(), error.getMessage().startsWith("Illegal move 19-15"));
+    }
+
+    @Test
+    public void testFenAndMultiJump() throws IOException {
+        // BLACK moves down the board, so the man on 5 can jump 9 and then 18
+        String pdn = "[FEN \"B:W9,18,30:B5\"]\n1. 5x14x23 30-26 0-1\n"
+                     + "[FEN \"B:W9,18:B5\"]\n1. 5x23 *\n";
+        PdnImportResult result = importFile(write(pdn), PdnImporter.DEFAULT_WINDOW_SIZE, null);
+        Assert.assertEquals(result.getErrors().toString(), 0, result.getInvalidGames());
+        Assert.assertEquals(2, result.getGames());
+        Assert.assertEquals(3, result.getPlies());
+    }
+
+    @Test
+    public void testSmallWindows() throws IOException {
+        // many random games, read through windows much smaller than the file
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        Random random = new Random(3);
+        StringBuilder pdn = new StringBuilder();
+        final int numberOfGames = 300;
+        final int[] expectedPlies = new int[numberOfGames];
+        for (int g = 0; g < numberOfGames; g++) {
+            pdn.append("[Event \"Game ").append(g).append("\"]\n");
+            BitBoard position = new BitBoard(32);
+            GameRecord.setStandardStart(geometry, position);
+            for (int ply = 0; ply < 80; ply++) {
+                final int n = moveGenerator.generateMoves(position, moves);
+                if (n == 0) {
+                    break;
+                }
+                final int i = random.nextInt(n);
+                if ((ply % 2) == 0) {
+                    pdn.append((ply / 2) + 1).append(". ");
+                }
+                pdn.append(MoveList.toString(moves.getMove(i), moves.getCaptures(i))).append(ply % 10 == 9 ? "\n" : " ");
+                position.applyMove(moves.getMove(i), moves.getCaptures(i));
+                expectedPlies[g]++;
+            }
+            pdn.append("*\n\n");
+        }
+
+        final ConcurrentMap<Long, Integer> plies = new ConcurrentHashMap<>();
+        PdnImportResult result = importFile(write(pdn.toString()), 4096, new PdnGameListener() {
+            @Override
+            public void gameImported(long gameNumber, GameRecord game) {
+                plies.put(gameNumber, game.getPlies());
+            }
+        });
+        Assert.assertEquals(numberOfGames, result.getGames());
+        // MoveList.toString() leaves out landing squares, so an ambiguous king capture is rejected
+        Assert.assertEquals(result.getErrors().toString(), numberOfGames - result.getInvalidGames(), plies.size());
+        for (long g : plies.keySet()) {
+            Assert.assertEquals(expectedPlies[(int) g], (int) plies.get(g));
+        }
+        Assert.assertTrue(plies.size() > numberOfGames * 9 / 10);
+    }
+
+    @Test
+    public void testGameLongerThanWindow() throws IOException {
+        try {
+            importFile(write(GAME + GAME), 64, null);
+            Assert.fail("Should have thrown");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("longer than"));
+        }
+    }
+}
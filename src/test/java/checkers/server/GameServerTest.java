@@ -0,0 +1,184 @@
+package checkers.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameServerTest {
+    private GameServer server;
+    private Thread thread;
+
+    // a blocking client, one line at a time
+    private static class TestClient implements AutoCloseable {
+        final Socket socket;
+        final BufferedReader in;
+        final OutputStream out;
+
+        TestClient(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setSoTimeout(5000);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = socket.getOutputStream();
+        }
+
+        String send(String line) throws IOException {
+            out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return in.readLine();
+        }
+
+        String read() throws IOException {
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new GameServer(new InetSocketAddress("localhost", 0));
+        thread = server.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        server.close();
+        thread.join(5000);
+    }
+
+    @Test
+    public void testGame() throws IOException {
+        try (TestClient black = new TestClient(server.getPort());
+             TestClient watcher = new TestClient(server.getPort())) {
+            // RED leaves during the game, so it is not closed with the others
+            TestClient red = new TestClient(server.getPort());
+            try {
+                Assert.assertEquals("OK 7 B", black.send("JOIN 7 B 60000 1000"));
+                Assert.assertEquals("ERR BLACK is taken", red.send("JOIN 7 B"));
+                Assert.assertEquals("OK 7 R", red.send("JOIN 7 R"));
+                Assert.assertTrue(black.read().startsWith("START bbbbbbbbbbbb--------rrrrrrrrrrrr B 600"));
+                Assert.assertTrue(red.read().startsWith("START bbbbbbbbbbbb--------rrrrrrrrrrrr B 600"));
+
+                Assert.assertEquals("ERR Not your move", red.send("MOVE 22-18"));
+                Assert.assertEquals("ERR Illegal move", black.send("MOVE 9-14x"));
+                Assert.assertEquals("ERR Invalid move", black.send("MOVE 9/14"));
+                Assert.assertEquals("ERR Illegal move", black.send("MOVE 9-18"));
+
+                String moved = black.send("MOVE 9-13");
+                Assert.assertTrue(moved, moved.startsWith("MOVED 9-13 "));
+                // the increment is added
+                Assert.assertTrue(moved, Long.parseLong(moved.split(" ")[2]) > 60000);
+                Assert.assertEquals(moved, red.read());
+
+                Assert.assertEquals("OK 7 W", watcher.send("JOIN 7 W"));
+                Assert.assertTrue(watcher.read().startsWith("START bbbbbbbb-bbbb-------rrrrrrrrrrrr R "));
+
+                Assert.assertTrue(red.send("MOVE 22-18").startsWith("MOVED 22-18 "));
+                Assert.assertTrue(black.read().startsWith("MOVED 22-18 "));
+                Assert.assertTrue(watcher.read().startsWith("MOVED 22-18 "));
+                Assert.assertTrue(watcher.send("POS").startsWith("POS bbbbbbbb-bbbb----r--r-rrrrrrrrrr B "));
+            } finally {
+                // RED leaving loses
+                red.close();
+            }
+            Assert.assertEquals("END 1-0 abandoned", black.read());
+            Assert.assertEquals("END 1-0 abandoned", watcher.read());
+            Assert.assertEquals("ERR Not in a game", black.send("POS"));
+        }
+    }
+
+    @Test
+    public void testCaptureAndErrors() throws IOException {
+        try (TestClient black = new TestClient(server.getPort());
+             TestClient red = new TestClient(server.getPort())) {
+            Assert.assertEquals("ERR Unknown command", black.send("HELLO"));
+            Assert.assertEquals("ERR Not in a game", black.send("MOVE 9-13"));
+            Assert.assertEquals("ERR No game 1", black.send("JOIN 1 W"));
+            Assert.assertEquals("ERR Usage: JOIN game B|R|W [millis [increment-millis]]", black.send("JOIN 1 X"));
+            Assert.assertEquals("ERR Usage: JOIN game B|R|W [millis [increment-millis]]", black.send("JOIN 1 B 5 5 5"));
+
+            Assert.assertEquals("OK 1 B", black.send("JOIN 1 B"));
+            Assert.assertEquals("ERR Already in game 1", black.send("JOIN 2 B"));
+            Assert.assertEquals("OK 1 R", red.send("JOIN 1 R"));
+            black.read();
+            red.read();
+            Assert.assertTrue(black.send("MOVE 11-15").startsWith("MOVED 11-15 "));
+            red.read();
+            Assert.assertTrue(red.send("MOVE 22-18").startsWith("MOVED 22-18 "));
+            black.read();
+            // the capture is forced, and can be given with its landing square
+            Assert.assertEquals("ERR Illegal move", black.send("MOVE 9-13"));
+            Assert.assertTrue(black.send("MOVE 15x22").startsWith("MOVED 15x22 "));
+            red.read();
+            Assert.assertTrue(red.send("MOVE 25x18").startsWith("MOVED 25x18 "));
+        }
+    }
+
+    @Test
+    public void testTimeLoss() throws IOException {
+        try (TestClient black = new TestClient(server.getPort());
+             TestClient red = new TestClient(server.getPort())) {
+            Assert.assertEquals("OK 3 B", black.send("JOIN 3 B 100"));
+            Assert.assertEquals("OK 3 R", red.send("JOIN 3 R"));
+            black.read();
+            red.read();
+            // nobody moves
+            Assert.assertEquals("END 0-1 time", black.read());
+            Assert.assertEquals("END 0-1 time", red.read());
+        }
+    }
+
+    @Test
+    public void testLineTooLong() throws IOException, InterruptedException {
+        try (TestClient client = new TestClient(server.getPort())) {
+            char[] line = new char[Connection.MAX_LINE];
+            Arrays.fill(line, 'x');
+            client.out.write(new String(line).getBytes(StandardCharsets.US_ASCII));
+            client.out.flush();
+            Assert.assertEquals("ERR Line too long", client.read());
+            Assert.assertNull(client.read());
+        }
+        // counted out once
+        for (int i = 0; (i < 100) && (server.getConnections() != 0); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(0, server.getConnections());
+    }
+
+    @Test
+    public void testMoveOutOfTime() {
+        // no server:  the game is driven with its own clock
+        ServerGame game = new ServerGame(1, 100, 0);
+        Connection black = new Connection(null, new ArrayList<Connection>());
+        Connection red = new Connection(null, new ArrayList<Connection>());
+        game.join(black, Connection.ROLE_BLACK, 0);
+        game.join(red, Connection.ROLE_RED, 0);
+
+        final byte[] move = "9-13".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertSame(ServerGame.OUT_OF_TIME, game.move(black, move, 0, move.length, 200 * 1000000L));
+        Assert.assertTrue(game.isOver());
+    }
+
+    @Test
+    public void testLoadClient() throws IOException {
+        LoadResult result = new LoadClient(new InetSocketAddress("localhost", server.getPort()), 20).run(1000);
+        Assert.assertEquals(result.toString(), 0, result.getErrors());
+        Assert.assertTrue(result.toString(), result.getMoves() > 100);
+        Assert.assertTrue(result.toString(), result.getGames() > 0);
+        Assert.assertTrue(result.getLatencyNanos(99) >= result.getLatencyNanos(50));
+    }
+}
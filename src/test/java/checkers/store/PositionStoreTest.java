@@ -0,0 +1,232 @@
+package checkers.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import checkers.io.GameRecord;
+import checkers.model.BitBoard;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+public class PositionStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final BoardGeometry geometry = BoardGeometry.forSize(8);
+
+    private static BitBoard position(String pieces, CheckerSide side) {
+        BitBoard ret = BitBoard.fromPiecesString(pieces);
+        ret.setSideToMove(side);
+        return ret;
+    }
+
+    @Test
+    public void testKey() {
+        Assert.assertTrue(PositionKey.supports(geometry));
+        Assert.assertFalse(PositionKey.supports(BoardGeometry.forSize(10)));
+
+        BitBoard a = position("bbbbbbbbbb-b-b------rrrrrrrrrrrr", CheckerSide.BLACK);
+        // the same, turned around with the colours swapped
+        BitBoard b = position("bbbbbbbbbbbb------r-r-rrrrrrrrrr", CheckerSide.RED);
+        Assert.assertEquals(PositionKey.getPieces(a), PositionKey.getPieces(b));
+        Assert.assertEquals(PositionKey.getKings(a), PositionKey.getKings(b));
+        // but the side to move matters
+        b.setSideToMove(CheckerSide.BLACK);
+        Assert.assertNotEquals(PositionKey.getPieces(a), PositionKey.getPieces(b));
+
+        BitBoard kings = position("B---------------------------r--R", CheckerSide.RED);
+        BitBoard decoded = new BitBoard(32);
+        PositionKey.decode(PositionKey.getPieces(kings), PositionKey.getKings(kings), decoded);
+        Assert.assertEquals("B--b---------------------------R", decoded.toPiecesString());
+        Assert.assertTrue(decoded.isBlackToMove());
+    }
+
+    @Test
+    public void testAddAndGet() {
+        PositionStore store = new PositionStore(geometry, 1000);
+        Assert.assertTrue(store.getCapacity() >= 1000);
+        BitBoard a = position("bbbbbbbbbb-b-b------rrrrrrrrrrrr", CheckerSide.BLACK);
+        BitBoard b = position("bbbbbbbbbbbb------r-r-rrrrrrrrrr", CheckerSide.RED);
+        PositionStats stats = new PositionStats();
+        Assert.assertFalse(store.get(a, stats));
+
+        Assert.assertTrue(store.add(a, GameRecord.BLACK_WIN));
+        Assert.assertFalse(store.add(b, GameRecord.BLACK_WIN));
+        Assert.assertFalse(store.add(a, GameRecord.DRAW));
+        Assert.assertFalse(store.add(b, GameRecord.UNKNOWN));
+        Assert.assertEquals(1, store.size());
+
+        Assert.assertTrue(store.get(b, stats));
+        Assert.assertEquals(4, stats.getCount());
+        // BLACK to move in a won, RED to move in b lost
+        Assert.assertEquals(1, stats.getWins());
+        Assert.assertEquals(1, stats.getLosses());
+        Assert.assertEquals(1, stats.getDraws());
+        Assert.assertEquals(1, stats.getUnknown());
+
+        try {
+            store.add(new BitBoard(32), GameRecord.DRAW);
+            Assert.fail("empty board");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    // random games, and how many times each canonical position occurs in them
+    private GameRecord[] randomGames(int count, Map<String, Integer> occurrences) {
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        BitBoard position = new BitBoard(32);
+        BitBoard canonical = new BitBoard(32);
+        Random random = new Random(3);
+        GameRecord[] ret = new GameRecord[count];
+        for (int i = 0; i < count; i++) {
+            GameRecord game = new GameRecord(geometry);
+            GameRecord.setStandardStart(geometry, position);
+            for (int ply = 0; ply < 60; ply++) {
+                final int n = moveGenerator.generateMoves(position, moves);
+                if (n == 0) {
+                    break;
+                }
+                PositionKey.decode(PositionKey.getPieces(position), PositionKey.getKings(position), canonical);
+                Integer old = occurrences.get(canonical.toPiecesString());
+                occurrences.put(canonical.toPiecesString(), (old == null) ? 1 : old + 1);
+                final int index = random.nextInt(n);
+                game.addMove(moves, index);
+                moveGenerator.makeMove(position, moves, index);
+            }
+            game.setResult(GameRecord.DRAW);
+            ret[i] = game;
+        }
+        return ret;
+    }
+
+    @Test
+    public void testConcurrentGames() throws InterruptedException {
+        final Map<String, Integer> occurrences = new HashMap<>();
+        final GameRecord[] games = randomGames(400, occurrences);
+        final PositionStore store = new PositionStore(geometry, occurrences.size());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int first = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = first; i < games.length; i += 4) {
+                        store.gameImported(i, games[i]);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(occurrences.size(), store.size());
+        final int[] visited = new int[1];
+        store.forEach(new PositionVisitor() {
+            @Override
+            public void visit(BitBoard position, PositionStats stats) {
+                Assert.assertTrue(position.isBlackToMove());
+                Assert.assertEquals(position.toPiecesString(), (long) occurrences.get(position.toPiecesString()),
+                                    stats.getCount());
+                Assert.assertEquals(stats.getCount(), stats.getDraws());
+                visited[0]++;
+            }
+        });
+        Assert.assertEquals(occurrences.size(), visited[0]);
+    }
+
+    @Test
+    public void testRules() {
+        Map<String, Integer> occurrences = new HashMap<>();
+        GameRecord english = randomGames(1, occurrences)[0];
+        PositionStore store = new PositionStore(geometry, RuleSet.RUSSIAN, 1000);
+        Assert.assertSame(RuleSet.RUSSIAN, store.getRules());
+        try {
+            store.addGame(english);
+            Assert.fail("other rules");
+        } catch (RuntimeException e) {
+            Assert.assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        Path file = folder.newFile("positions.store").toPath();
+        BitBoard a = position("bbbbbbbbbb-b-b------rrrrrrrrrrrr", CheckerSide.BLACK);
+        try (PositionStore store = PositionStore.open(geometry, 5000, file)) {
+            store.add(a, GameRecord.RED_WIN);
+            store.add(a, GameRecord.RED_WIN);
+        }
+        Assert.assertEquals(PositionStore.getBytes(5000), Files.size(file));
+        try (PositionStore store = PositionStore.open(geometry, 5000, file)) {
+            Assert.assertEquals(1, store.size());
+            PositionStats stats = new PositionStats();
+            Assert.assertTrue(store.get(a, stats));
+            Assert.assertEquals(2, stats.getLosses());
+        }
+        try {
+            PositionStore.open(geometry, 1000000, file).close();
+            Assert.fail("other size");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            PositionStore.open(geometry, RuleSet.RUSSIAN, 5000, file).close();
+            Assert.fail("other rules");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    // maxEntries different positions always fit, whatever the hash does
+    @Test
+    public void testMaxEntries() {
+        final long[] sizes = { 1, 700, 6000, 100000 };
+        for (long maxEntries : sizes) {
+            for (int seed = 0; seed < 5; seed++) {
+                PositionStore store = new PositionStore(geometry, maxEntries);
+                Random random = new Random(seed);
+                BitBoard position = new BitBoard(32);
+                while (store.size() < maxEntries) {
+                    final long occupied = random.nextInt() & 0xffffffffL;
+                    final long black = occupied & random.nextInt();
+                    position.setMasks(black, occupied & ~black, occupied & random.nextInt() & random.nextInt(),
+                                      random.nextBoolean() ? CheckerSide.BLACK : CheckerSide.RED);
+                    if (occupied != 0) {
+                        store.add(position, GameRecord.UNKNOWN);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFull() {
+        PositionStore store = new PositionStore(geometry, 1);
+        BitBoard position = new BitBoard(32);
+        try {
+            for (long i = 1; i <= store.getCapacity(); i++) {
+                position.setMasks(i, 0, 0, CheckerSide.BLACK);
+                store.add(position, GameRecord.UNKNOWN);
+            }
+            Assert.fail("not full");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("PositionStore is full"));
+        }
+    }
+}
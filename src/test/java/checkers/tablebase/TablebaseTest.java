@@ -0,0 +1,191 @@
+package checkers.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import checkers.engine.Evaluation;
+import checkers.engine.SearchEngine;
+import checkers.engine.SearchLimits;
+import checkers.engine.SearchResult;
+import checkers.model.BitBoard;
+import checkers.model.Board;
+import checkers.model.BoardFactoryCheckers;
+import checkers.model.BoardGeometry;
+import checkers.model.CheckerSide;
+import checkers.model.MoveGenerator;
+import checkers.model.MoveList;
+import checkers.model.RuleSet;
+
+public class TablebaseTest {
+    private static final int MAX_PIECES = 3;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static TablebaseGenerator generator;
+    private static Tablebase tablebase;
+
+    @BeforeClass
+    public static void generate() throws IOException {
+        generator = new TablebaseGenerator(BoardGeometry.forSize(8), MAX_PIECES, 2);
+        generator.generate();
+        File file = folder.newFile("tb3.bin");
+        generator.write(file.toPath());
+        tablebase = Tablebase.open(file.toPath());
+    }
+
+    @Test
+    public void testIndexRoundTrip() {
+        TablebaseIndex index = new TablebaseIndex(BoardGeometry.forSize(8));
+        BitBoard position = new BitBoard(32);
+        MaterialSignature[] signatures = {
+            new MaterialSignature(1, 0, 1, 0), new MaterialSignature(2, 0, 1, 0),
+            new MaterialSignature(0, 2, 0, 1), new MaterialSignature(1, 1, 1, 1),
+        };
+        for (MaterialSignature signature : signatures) {
+            long valid = 0;
+            for (long i = 0, n = index.size(signature); i < n; i++) {
+                if (index.decode(signature, i, position)) {
+                    valid++;
+                    Assert.assertEquals(signature, MaterialSignature.of(position));
+                    Assert.assertEquals(i, index.index(position));
+                }
+            }
+            Assert.assertTrue(valid > index.size(signature) / 2);
+        }
+        // 28 squares for a black man, 28 for a red man, less the 24 they could share
+        Assert.assertEquals(2 * (28 * 28 - 24), countValid(index, new MaterialSignature(1, 0, 1, 0)));
+    }
+
+    private static long countValid(TablebaseIndex index, MaterialSignature signature) {
+        BitBoard position = new BitBoard(32);
+        long ret = 0;
+        for (long i = 0, n = index.size(signature); i < n; i++) {
+            if (index.decode(signature, i, position)) {
+                ret++;
+            }
+        }
+        return ret;
+    }
+
+    @Test
+    public void testConsistentWithMoves() {
+        // every value follows from the values after each move
+        BoardGeometry geometry = BoardGeometry.forSize(8);
+        TablebaseIndex index = new TablebaseIndex(geometry);
+        MoveGenerator moveGenerator = new MoveGenerator(geometry);
+        MoveList moves = new MoveList();
+        BitBoard position = new BitBoard(32);
+        BitBoard child = new BitBoard(32);
+
+        Assert.assertEquals(16, generator.getSignatures().size());
+        for (MaterialSignature signature : generator.getSignatures()) {
+            for (long i = 0, n = index.size(signature); i < n; i++) {
+                if (! index.decode(signature, i, position)) {
+                    Assert.assertEquals(Tablebase.INVALID, generator.getTable(signature)[(int) i]);
+                    continue;
+                }
+                final int value = tablebase.probe(position);
+                Assert.assertEquals(generator.getTable(signature)[(int) i], value);
+
+                int shortestWin = Integer.MAX_VALUE;
+                int longestLoss = -1;
+                boolean draw = false;
+                for (int m = 0, count = moveGenerator.generateMoves(position, moves); m < count; m++) {
+                    child.copyFrom(position);
+                    child.applyMove(moves.getMove(m), moves.getCaptures(m));
+                    final boolean empty = (child.isBlackToMove() ? child.getBlack() : child.getRed()) == 0;
+                    final int childValue = empty ? Tablebase.lossIn(0) : tablebase.probe(child);
+                    if (Tablebase.isLoss(childValue)) {
+                        shortestWin = Math.min(shortestWin, Tablebase.getDistance(childValue) + 1);
+                    } else if (Tablebase.isWin(childValue)) {
+                        longestLoss = Math.max(longestLoss, Tablebase.getDistance(childValue) + 1);
+                    } else {
+                        draw = true;
+                    }
+                }
+                final int expected;
+                if (shortestWin != Integer.MAX_VALUE) {
+                    expected = Tablebase.winIn(shortestWin);
+                } else if (draw) {
+                    expected = Tablebase.DRAW;
+                } else {
+                    expected = Tablebase.lossIn(Math.max(longestLoss, 0));
+                }
+                Assert.assertEquals(position.toString(), expected, value);
+            }
+        }
+    }
+
+    @Test
+    public void testKnownResults() {
+        // two kings beat one
+        BitBoard position = BitBoard.fromPiecesString("B---B---------------------R-----");
+        Assert.assertTrue(Tablebase.isWin(tablebase.probe(position)));
+        position.setSideToMove(CheckerSide.RED);
+        Assert.assertTrue(Tablebase.isLoss(tablebase.probe(position)));
+
+        // one king against one king, far apart
+        position = BitBoard.fromPiecesString("B--------------------------R----");
+        Assert.assertEquals(Tablebase.DRAW, tablebase.probe(position));
+
+        // no moves: lost now
+        position = BitBoard.fromPiecesString("---------------------------b---r");
+        Assert.assertEquals(Tablebase.lossIn(0), tablebase.probe(position));
+
+        // too many pieces, or nothing left for one side
+        Assert.assertEquals(Tablebase.NOT_FOUND, tablebase.probe(BitBoard.fromPiecesString("bb-----------------------rr-----")));
+        Assert.assertEquals(Tablebase.NOT_FOUND, tablebase.probe(BitBoard.fromPiecesString("bb------------------------------")));
+        Assert.assertEquals(MAX_PIECES, tablebase.getMaxPieces());
+    }
+
+    @Test
+    public void testEnglishOnly() {
+        try {
+            new TablebaseGenerator(BoardGeometry.forSize(8), RuleSet.RUSSIAN, MAX_PIECES, 1);
+            Assert.fail("Should have thrown");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Russian"));
+        }
+    }
+
+    @Test
+    public void testEngineUsesTablebase() {
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "B---B---------------------R-----");
+        final int distance = tablebase.probe(board.getBitBoard());
+
+        SearchEngine engine = new SearchEngine();
+        engine.setTablebase(tablebase);
+        SearchResult result = engine.search(board, SearchLimits.depth(2));
+        Assert.assertEquals(Evaluation.WIN - distance, result.getScore());
+
+        // the tablebase is English:  a Russian search does without it
+        Assert.assertSame(RuleSet.ENGLISH, tablebase.getRules());
+        board = BoardFactoryCheckers.createCheckerBoard(8, "B---------------------------B--R");
+        Assert.assertTrue(Tablebase.isWin(tablebase.probe(board.getBitBoard())));
+        engine.getTranspositionTable().clear();
+        result = engine.search(board.getBitBoard(), new MoveGenerator(board.getGeometry(), RuleSet.RUSSIAN),
+                               SearchLimits.depth(2));
+        Assert.assertFalse("score=" + result.getScore(), Evaluation.isWinScore(result.getScore()));
+    }
+
+    @Test
+    public void testSetUpPosition() {
+        // a black man on its promotion row:  a set-up board, never a game
+        Board board = BoardFactoryCheckers.createCheckerBoard(8, "B--------------------R---------b");
+        TablebaseIndex index = new TablebaseIndex(BoardGeometry.forSize(8));
+        Assert.assertFalse(index.canIndex(board.getBitBoard()));
+        Assert.assertEquals(Tablebase.NOT_FOUND, tablebase.probe(board.getBitBoard()));
+
+        // searched without the tablebase where it has no answer
+        SearchEngine engine = new SearchEngine();
+        engine.setTablebase(tablebase);
+        Assert.assertTrue(engine.search(board, SearchLimits.depth(4)).hasMove());
+    }
+}
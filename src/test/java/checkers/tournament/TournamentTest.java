@@ -0,0 +1,139 @@
+package checkers.tournament;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import checkers.engine.SearchLimits;
+import checkers.io.GameReader;
+import checkers.io.GameRecord;
+import checkers.io.GameWriter;
+import checkers.model.BitBoard;
+import checkers.model.CheckerSide;
+import checkers.model.RuleSet;
+
+public class TournamentTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOpenings() {
+        Assert.assertEquals(1, OpeningSuite.afterPlies(0).size());
+        Assert.assertEquals(7, OpeningSuite.afterPlies(1).size());
+        Assert.assertEquals(49, OpeningSuite.afterPlies(2).size());
+
+        OpeningSuite suite = OpeningSuite.fromPiecesStrings(8, Arrays.asList("B---------------------------r---"),
+                                                            CheckerSide.RED);
+        Assert.assertEquals(CheckerSide.RED, suite.get(0).getSideToMove());
+    }
+
+    @Test
+    public void testMatch() throws IOException {
+        EnginePlayer strong = new EnginePlayer("strong", SearchLimits.depth(5), 1);
+        EnginePlayer weak = new EnginePlayer("weak", SearchLimits.depth(1), 1);
+        Tournament tournament = new Tournament(strong, weak, OpeningSuite.afterPlies(1), 2);
+        Assert.assertEquals(14, tournament.getNumberOfGames());
+
+        File results = folder.newFile("results.tsv");
+        File games = folder.newFile("games.bin");
+        MatchStatistics statistics;
+        try (ResultsLog log = new ResultsLog(results.toPath(), strong, weak);
+             GameWriter gameWriter = GameWriter.create(games.toPath(), OpeningSuite.afterPlies(1).getGeometry())) {
+            tournament.addListener(log);
+            tournament.setGameWriter(gameWriter);
+            statistics = tournament.run();
+        }
+
+        Assert.assertEquals(14, statistics.getGames());
+        Assert.assertTrue(statistics.toString(), statistics.getScore() > 0.5);
+
+        List<String> lines = Files.readAllLines(results.toPath());
+        Assert.assertEquals(1 + 14, lines.size());
+        Assert.assertTrue(lines.get(14), lines.get(14).contains(statistics.toString()));
+
+        // every game was recorded, legal, and ends as reported
+        try (GameReader reader = GameReader.open(games.toPath())) {
+            GameRecord record = new GameRecord(reader.getGeometry());
+            BitBoard position = new BitBoard(32);
+            int count = 0;
+            while (reader.next(record)) {
+                record.replay(record.getPlies(), position);
+                Assert.assertTrue(record.getResult() != GameRecord.UNKNOWN);
+                count++;
+            }
+            Assert.assertEquals(14, count);
+        }
+    }
+
+    @Test
+    public void testInternational() throws IOException {
+        OpeningSuite openings = OpeningSuite.afterPlies(RuleSet.INTERNATIONAL, 1);
+        Assert.assertEquals(9, openings.size());
+        Assert.assertEquals(50, openings.getGeometry().getNumberOfSquares());
+
+        EnginePlayer strong = new EnginePlayer("strong", SearchLimits.depth(4), 1);
+        EnginePlayer weak = new EnginePlayer("weak", SearchLimits.depth(1), 1);
+        Tournament tournament = new Tournament(strong, weak, openings, 2);
+        tournament.setMaxPlies(120);
+        File games = folder.newFile("international.bin");
+        MatchStatistics statistics;
+        try (GameWriter gameWriter = GameWriter.create(games.toPath(), openings.getGeometry(), openings.getRules())) {
+            tournament.setGameWriter(gameWriter);
+            statistics = tournament.run();
+        }
+        Assert.assertEquals(18, statistics.getGames());
+        Assert.assertTrue(statistics.toString(), statistics.getScore() > 0.5);
+
+        // the games replay under the rules they were played with
+        try (GameReader reader = GameReader.open(games.toPath())) {
+            Assert.assertSame(RuleSet.INTERNATIONAL, reader.getRules());
+            GameRecord record = new GameRecord(reader.getGeometry(), reader.getRules());
+            BitBoard position = new BitBoard(50);
+            int count = 0;
+            while (reader.next(record)) {
+                record.replay(record.getPlies(), position);
+                count++;
+            }
+            Assert.assertEquals(18, count);
+        }
+    }
+
+    @Test
+    public void testSprtStops() {
+        EnginePlayer strong = new EnginePlayer("strong", SearchLimits.depth(6), 1);
+        EnginePlayer weak = new EnginePlayer("weak", SearchLimits.depth(1), 1);
+        Tournament tournament = new Tournament(strong, weak, OpeningSuite.afterPlies(2), 1);
+        tournament.setSprt(0, 200, 0.2, 0.2);
+        MatchStatistics statistics = tournament.run();
+        Assert.assertTrue(statistics.toString(), statistics.getGames() < tournament.getNumberOfGames());
+        Assert.assertTrue(statistics.getLlr(0, 200) >= MatchStatistics.getUpperBound(0.2, 0.2));
+    }
+
+    @Test
+    public void testStatistics() {
+        Assert.assertEquals(0, MatchStatistics.EMPTY.getElo(), 1e-9);
+        MatchStatistics even = new MatchStatistics(10, 10, 10);
+        Assert.assertEquals(0.5, even.getScore(), 1e-9);
+        Assert.assertEquals(0, even.getElo(), 1e-9);
+        Assert.assertEquals(0.5, even.getLos(), 1e-6);
+        Assert.assertTrue(even.getLlr(0, 10) < 0);
+
+        MatchStatistics ahead = new MatchStatistics(60, 30, 10);
+        Assert.assertEquals(0.75, ahead.getScore(), 1e-9);
+        Assert.assertEquals(190.85, ahead.getElo(), 0.01);
+        Assert.assertTrue(ahead.getLos() > 0.999);
+        Assert.assertTrue(ahead.getEloError95() > 0);
+        Assert.assertTrue(ahead.getLlr(0, 10) > 0);
+        Assert.assertEquals(-2.944, MatchStatistics.getLowerBound(0.05, 0.05), 0.001);
+        Assert.assertEquals(2.944, MatchStatistics.getUpperBound(0.05, 0.05), 0.001);
+
+        Assert.assertEquals(1, new MatchStatistics(0, 0, 0).plus(1).plus(0.5).getWins());
+    }
+}